@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Iterator;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.types.Descriptor;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.strings.Atom;
+
+/**
+ * The programs the benchmarks analyze.
+ * 
+ * The Java benchmarks analyze the classes of com.ibm.wala.core.testdata, read from the jar named by the system property
+ * {@value #TESTDATA_PROPERTY}, by default the jar that project builds. The JavaScript benchmarks analyze scripts from
+ * com.ibm.wala.cast.js.test.data, read from the directory named by the system property {@value #JS_TESTDATA_PROPERTY}. Relative paths
+ * are relative to the directory the benchmarks run in. Like the rest of WALA, the Java benchmarks need a wala.properties naming a
+ * Java runtime on the class path.
+ */
+public class BenchmarkData {
+
+  public static final String TESTDATA_PROPERTY = "wala.benchmarks.testdata";
+
+  public static final String DEFAULT_TESTDATA = "../com.ibm.wala.core.testdata/com.ibm.wala.core.testdata_1.0.0.jar";
+
+  public static final String JS_TESTDATA_PROPERTY = "wala.benchmarks.jstestdata";
+
+  public static final String DEFAULT_JS_TESTDATA = "../com.ibm.wala.cast.js.test.data/examples-src/tests";
+
+  /**
+   * class hierarchy exclusions, read from the class path
+   */
+  public static final String EXCLUSIONS = "BenchmarkExclusions.txt";
+
+  /**
+   * class hierarchy exclusions of {@link #makeJDKScope()}, read from the class path: only the GUI libraries and the internals of the
+   * runtime, whose constructor references the lambda summaries cannot model
+   */
+  public static final String JDK_EXCLUSIONS = "JDKExclusions.txt";
+
+  /**
+   * @return a scope of the Java runtime and the test data jar
+   */
+  public static AnalysisScope makeJavaScope() throws IOException {
+    return AnalysisScopeReader.makeJavaBinaryAnalysisScope(getTestDataJar(), new File(EXCLUSIONS));
+  }
+
+  /**
+   * @return a scope of the test data jar and the Java runtime, excluding far less of the runtime than {@link #makeJavaScope()}
+   */
+  public static AnalysisScope makeJDKScope() throws IOException {
+    return AnalysisScopeReader.makeJavaBinaryAnalysisScope(getTestDataJar(), new File(JDK_EXCLUSIONS));
+  }
+
+  private static String getTestDataJar() {
+    String jar = System.getProperty(TESTDATA_PROPERTY, DEFAULT_TESTDATA);
+    if (!new File(jar).exists()) {
+      throw new IllegalStateException("no test data jar at " + jar + "; set " + TESTDATA_PROPERTY);
+    }
+    return jar;
+  }
+
+  /**
+   * @param mainClass name of the class whose main method is the entrypoint, e.g. Lslice/Slice1
+   */
+  public static AnalysisOptions makeOptions(AnalysisScope scope, IClassHierarchy cha, String mainClass) {
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha, mainClass);
+    return new AnalysisOptions(scope, entrypoints);
+  }
+
+  /**
+   * @return the node of the main method called from the fake root of cg
+   */
+  public static CGNode findMainMethod(CallGraph cg) {
+    Descriptor d = Descriptor.findOrCreateUTF8("([Ljava/lang/String;)V");
+    Atom name = Atom.findOrCreateUnicodeAtom("main");
+    for (Iterator<CGNode> it = cg.getSuccNodes(cg.getFakeRootNode()); it.hasNext();) {
+      CGNode n = it.next();
+      IMethod m = n.getMethod();
+      if (m.getSelector().getName().equals(name) && m.getSelector().getDescriptor().equals(d)) {
+        return n;
+      }
+    }
+    throw new IllegalStateException("no main method in call graph");
+  }
+
+  /**
+   * @param name a script in the JavaScript test data directory
+   */
+  public static URL getScript(String name) throws IOException {
+    File f = new File(System.getProperty(JS_TESTDATA_PROPERTY, DEFAULT_JS_TESTDATA), name);
+    if (!f.exists()) {
+      throw new IllegalStateException("no script at " + f + "; set " + JS_TESTDATA_PROPERTY);
+    }
+    return f.toURI().toURL();
+  }
+}
@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.dataflow.graph.AbstractMeetOperator;
+import com.ibm.wala.dataflow.graph.BitVectorFramework;
+import com.ibm.wala.dataflow.graph.BitVectorKillGen;
+import com.ibm.wala.dataflow.graph.BitVectorSolver;
+import com.ibm.wala.dataflow.graph.BitVectorUnion;
+import com.ibm.wala.dataflow.graph.ITransferFunctionProvider;
+import com.ibm.wala.fixpoint.BitVectorVariable;
+import com.ibm.wala.fixpoint.UnaryOperator;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import com.ibm.wala.util.intset.BitVector;
+import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.intset.OffsetBitVector;
+
+/**
+ * The bulk operations of {@link BitVector} and {@link OffsetBitVector} on random vectors of the given number of bits, and a
+ * reaching-definitions problem over a random flow graph solved by {@link BitVectorSolver}, whose transfer functions and meet
+ * are made of those operations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BitVectorBenchmark {
+
+  @Param({ "1024", "65536" })
+  public int bits;
+
+  private BitVector a;
+
+  private BitVector b;
+
+  private OffsetBitVector offsetA;
+
+  /**
+   * the bits of b, at the offset of offsetA
+   */
+  private OffsetBitVector alignedB;
+
+  /**
+   * the bits of b, at an offset a few words from that of offsetA
+   */
+  private OffsetBitVector unalignedB;
+
+  private static BitVector randomVector(Random r, int bits, double density) {
+    BitVector result = new BitVector(bits);
+    for (int i = 0; i < bits; i++) {
+      if (r.nextDouble() < density) {
+        result.set(i);
+      }
+    }
+    return result;
+  }
+
+  private static OffsetBitVector toOffsetVector(BitVector v, int offset) {
+    OffsetBitVector result = new OffsetBitVector(offset, v.length());
+    for (int i = v.nextSetBit(0); i >= 0; i = v.nextSetBit(i + 1)) {
+      result.set(offset + i);
+    }
+    return result;
+  }
+
+  @Setup
+  public void setUp() {
+    Random r = new Random(17);
+    a = randomVector(r, bits, 0.3);
+    b = randomVector(r, bits, 0.3);
+    offsetA = toOffsetVector(a, 1024);
+    alignedB = toOffsetVector(b, 1024);
+    unalignedB = toOffsetVector(b, 1024 + 3 * 32);
+  }
+
+  @Benchmark
+  public BitVector or() {
+    a.or(b);
+    return a;
+  }
+
+  @Benchmark
+  public int orWithDelta() {
+    return a.orWithDelta(b);
+  }
+
+  @Benchmark
+  public boolean orWithChange() {
+    return a.orWithChange(b);
+  }
+
+  @Benchmark
+  public BitVector and() {
+    a.and(b);
+    return a;
+  }
+
+  @Benchmark
+  public BitVector andNot() {
+    a.andNot(b);
+    return a;
+  }
+
+  @Benchmark
+  public int populationCount() {
+    return b.populationCount();
+  }
+
+  @Benchmark
+  public OffsetBitVector offsetOrAligned() {
+    offsetA.or(alignedB);
+    return offsetA;
+  }
+
+  @Benchmark
+  public OffsetBitVector offsetOrUnaligned() {
+    offsetA.or(unalignedB);
+    return offsetA;
+  }
+
+  @Benchmark
+  public OffsetBitVector offsetAndAligned() {
+    offsetA.and(alignedB);
+    return offsetA;
+  }
+
+  @Benchmark
+  public OffsetBitVector offsetAndUnaligned() {
+    offsetA.and(unalignedB);
+    return offsetA;
+  }
+
+  /**
+   * A reaching-definitions problem: a random flow graph whose nodes each define a few values and kill a few more.
+   */
+  @State(Scope.Benchmark)
+  public static class Dataflow {
+
+    @Param({ "1024", "8192" })
+    public int definitions;
+
+    /**
+     * number of nodes in the flow graph
+     */
+    private final static int NODES = 500;
+
+    private NumberedGraph<Integer> flowGraph;
+
+    private BitVector[] gen;
+
+    private BitVector[] kill;
+
+    private MutableMapping<Integer> values;
+
+    @Setup
+    public void setUp() {
+      Random r = new Random(17);
+      // a chain of blocks with some branches and loops
+      flowGraph = SlowSparseNumberedGraph.make();
+      for (int i = 0; i < NODES; i++) {
+        flowGraph.addNode(i);
+      }
+      for (int i = 0; i + 1 < NODES; i++) {
+        flowGraph.addEdge(i, i + 1);
+        if (r.nextInt(4) == 0) {
+          flowGraph.addEdge(i, r.nextInt(NODES));
+        }
+      }
+      gen = new BitVector[NODES];
+      kill = new BitVector[NODES];
+      for (int i = 0; i < NODES; i++) {
+        gen[i] = new BitVector(definitions);
+        kill[i] = new BitVector(definitions);
+        for (int k = 0; k < definitions / NODES + 1; k++) {
+          gen[i].set(r.nextInt(definitions));
+          kill[i].set(r.nextInt(definitions));
+        }
+        kill[i].andNot(gen[i]);
+      }
+      values = MutableMapping.make();
+      for (int i = 0; i < definitions; i++) {
+        values.add(i);
+      }
+    }
+
+    BitVectorSolver<Integer> solve() throws CancelException {
+      ITransferFunctionProvider<Integer, BitVectorVariable> functions = new ITransferFunctionProvider<Integer, BitVectorVariable>() {
+        @Override
+        public UnaryOperator<BitVectorVariable> getNodeTransferFunction(Integer node) {
+          return new BitVectorKillGen(kill[node], gen[node]);
+        }
+
+        @Override
+        public boolean hasNodeTransferFunctions() {
+          return true;
+        }
+
+        @Override
+        public UnaryOperator<BitVectorVariable> getEdgeTransferFunction(Integer src, Integer dst) {
+          return null;
+        }
+
+        @Override
+        public boolean hasEdgeTransferFunctions() {
+          return false;
+        }
+
+        @Override
+        public AbstractMeetOperator<BitVectorVariable> getMeetOperator() {
+          return BitVectorUnion.instance();
+        }
+      };
+      BitVectorSolver<Integer> solver = new BitVectorSolver<Integer>(new BitVectorFramework<Integer, Integer>(flowGraph, functions,
+          values));
+      solver.solve(null);
+      return solver;
+    }
+  }
+
+  @Benchmark
+  public BitVectorSolver<Integer> reachingDefinitions(Dataflow d) throws CancelException {
+    return d.solve();
+  }
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+
+/**
+ * 0-1-CFA call graph construction, by {@link com.ibm.wala.ipa.callgraph.propagation.cfa.ZeroXCFABuilder}, from the main methods of
+ * the test data, with and without delta propagation. Each call graph is built with a fresh {@link AnalysisCache}, so IR
+ * construction is included. {@link PropagationWorkReport} counts the work the solver does in each configuration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CallGraphBenchmark {
+
+  @Param({ "Lslice/Slice1", "Lrecurse/NList", "Lhello/Hello" })
+  public String mainClass;
+
+  @Param({ "false", "true" })
+  public boolean useDeltaPropagation;
+
+  private AnalysisScope scope;
+
+  private IClassHierarchy cha;
+
+  private AnalysisOptions options;
+
+  @Setup
+  public void setUp() throws IOException, ClassHierarchyException {
+    scope = BenchmarkData.makeJavaScope();
+    cha = ClassHierarchy.make(scope);
+    options = BenchmarkData.makeOptions(scope, cha, mainClass);
+    options.setUseDeltaPropagation(useDeltaPropagation);
+  }
+
+  @Benchmark
+  public CallGraph makeZeroOneCFACallGraph() throws IllegalArgumentException, CancelException {
+    return Util.makeZeroOneCFABuilder(options, new AnalysisCache(), cha, scope).makeCallGraph(options, null);
+  }
+}
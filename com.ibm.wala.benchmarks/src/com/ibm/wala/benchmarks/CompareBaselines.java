@@ -0,0 +1,123 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Compares two sets of benchmark results written by JMH with -rf json, typically a baseline recorded in the baselines directory
+ * and a new run.
+ * 
+ * Usage: CompareBaselines baseline.json current.json [tolerance]
+ * 
+ * Prints, for each benchmark and parameter combination in both files, the two scores and their ratio, and exits with status 1 if
+ * some benchmark got worse by more than the tolerance, a fraction that defaults to 0.1. A higher score is worse in the
+ * time-per-operation modes and better in the throughput mode.
+ */
+public class CompareBaselines {
+
+  private final static double DEFAULT_TOLERANCE = 0.1;
+
+  private final static class Result {
+    final String mode;
+
+    final double score;
+
+    final double error;
+
+    final String unit;
+
+    Result(String mode, double score, double error, String unit) {
+      this.mode = mode;
+      this.score = score;
+      this.error = error;
+      this.unit = unit;
+    }
+
+    boolean higherIsBetter() {
+      return mode.equals("thrpt");
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("usage: CompareBaselines baseline.json current.json [tolerance]");
+      System.exit(2);
+    }
+    double tolerance = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_TOLERANCE;
+    Map<String, Result> baseline = read(args[0]);
+    Map<String, Result> current = read(args[1]);
+    boolean regressed = false;
+    for (Map.Entry<String, Result> e : current.entrySet()) {
+      Result before = baseline.get(e.getKey());
+      Result after = e.getValue();
+      if (before == null) {
+        System.out.println(e.getKey() + ": new, " + format(after));
+        continue;
+      }
+      double ratio = after.score / before.score;
+      boolean worse = after.higherIsBetter() ? ratio < 1 - tolerance : ratio > 1 + tolerance;
+      regressed |= worse;
+      System.out.println(e.getKey() + ": " + format(before) + " -> " + format(after) + String.format(" (x%.2f)", ratio)
+          + (worse ? " REGRESSION" : ""));
+    }
+    for (String key : baseline.keySet()) {
+      if (!current.containsKey(key)) {
+        System.out.println(key + ": missing");
+      }
+    }
+    System.exit(regressed ? 1 : 0);
+  }
+
+  private static String format(Result r) {
+    return String.format("%.3f +- %.3f %s", r.score, r.error, r.unit);
+  }
+
+  /**
+   * @return the results in a JMH JSON file, keyed by benchmark name and parameters
+   */
+  private static Map<String, Result> read(String fileName) throws IOException {
+    Map<String, Result> result = new TreeMap<String, Result>();
+    Reader r = new InputStreamReader(new FileInputStream(fileName), "UTF-8");
+    try {
+      JsonArray runs = new JsonParser().parse(r).getAsJsonArray();
+      for (JsonElement run : runs) {
+        JsonObject o = run.getAsJsonObject();
+        StringBuilder key = new StringBuilder(o.get("benchmark").getAsString());
+        if (o.has("params")) {
+          // TreeMap so that the order of the parameters does not matter
+          Map<String, String> params = new TreeMap<String, String>();
+          for (Map.Entry<String, JsonElement> p : o.getAsJsonObject("params").entrySet()) {
+            params.put(p.getKey(), p.getValue().getAsString());
+          }
+          key.append(params);
+        }
+        JsonObject metric = o.getAsJsonObject("primaryMetric");
+        double error = metric.get("scoreError").isJsonPrimitive() ? metric.get("scoreError").getAsDouble() : Double.NaN;
+        result.put(key.toString(), new Result(o.get("mode").getAsString(), metric.get("score").getAsDouble(), error, metric.get(
+            "scoreUnit").getAsString()));
+      }
+    } finally {
+      r.close();
+    }
+    return result;
+  }
+}
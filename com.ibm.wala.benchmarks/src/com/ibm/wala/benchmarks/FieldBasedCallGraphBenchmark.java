@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.cast.ipa.callgraph.CAstAnalysisScope;
+import com.ibm.wala.cast.ir.ssa.AstIRFactory;
+import com.ibm.wala.cast.js.callgraph.fieldbased.FieldBasedCallGraphBuilder;
+import com.ibm.wala.cast.js.callgraph.fieldbased.OptimisticCallgraphBuilder;
+import com.ibm.wala.cast.js.callgraph.fieldbased.PessimisticCallGraphBuilder;
+import com.ibm.wala.cast.js.callgraph.fieldbased.WorklistBasedOptimisticCallgraphBuilder;
+import com.ibm.wala.cast.js.callgraph.fieldbased.flowgraph.vertices.ObjectVertex;
+import com.ibm.wala.cast.js.ipa.callgraph.JSCallGraph;
+import com.ibm.wala.cast.js.ipa.callgraph.JSCallGraphUtil;
+import com.ibm.wala.cast.js.loader.JavaScriptLoader;
+import com.ibm.wala.cast.js.loader.JavaScriptLoaderFactory;
+import com.ibm.wala.cast.js.translator.CAstRhinoTranslatorFactory;
+import com.ibm.wala.cast.js.util.Util;
+import com.ibm.wala.classLoader.SourceModule;
+import com.ibm.wala.classLoader.SourceURLModule;
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.NullProgressMonitor;
+import com.ibm.wala.util.WalaException;
+import com.ibm.wala.util.collections.Pair;
+
+/**
+ * Field-based JavaScript call graph construction, by each {@link FieldBasedCallGraphBuilder}, for scripts of the JavaScript test
+ * data. The scripts are parsed once; each call graph is built with a fresh {@link AnalysisCache}, so IR construction is included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class FieldBasedCallGraphBenchmark {
+
+  @Param({ "PESSIMISTIC", "OPTIMISTIC", "OPTIMISTIC_WORKLIST" })
+  public String builderType;
+
+  @Param({ "jquery_spec_test.js", "fieldbased/callbacks.js" })
+  public String script;
+
+  private IClassHierarchy cha;
+
+  private Iterable<Entrypoint> roots;
+
+  private AnalysisOptions options;
+
+  @Setup
+  public void setUp() throws IOException, ClassHierarchyException, WalaException {
+    JavaScriptLoaderFactory loaders = new JavaScriptLoaderFactory(new CAstRhinoTranslatorFactory());
+    SourceModule[] scripts = new SourceModule[] { new SourceURLModule(BenchmarkData.getScript(script)),
+        JSCallGraphUtil.getPrologueFile("prologue.js") };
+    CAstAnalysisScope scope = new CAstAnalysisScope(scripts, loaders, Collections.singleton(JavaScriptLoader.JS));
+    cha = ClassHierarchy.make(scope, loaders, JavaScriptLoader.JS);
+    Util.checkForFrontEndErrors(cha);
+    roots = JSCallGraphUtil.makeScriptRoots(cha);
+    options = JSCallGraphUtil.makeOptions(scope, cha, roots);
+  }
+
+  private FieldBasedCallGraphBuilder makeBuilder() {
+    AnalysisCache cache = new AnalysisCache(AstIRFactory.makeDefaultFactory());
+    if (builderType.equals("PESSIMISTIC")) {
+      return new PessimisticCallGraphBuilder(cha, options, cache, true);
+    } else if (builderType.equals("OPTIMISTIC")) {
+      return new OptimisticCallgraphBuilder(cha, options, cache, true);
+    } else if (builderType.equals("OPTIMISTIC_WORKLIST")) {
+      return new WorklistBasedOptimisticCallgraphBuilder(cha, options, cache, true);
+    } else {
+      throw new IllegalArgumentException("unknown builder " + builderType);
+    }
+  }
+
+  @Benchmark
+  public Pair<JSCallGraph, PointerAnalysis<ObjectVertex>> buildCallGraph() throws CancelException {
+    return makeBuilder().buildCallGraph(roots, new NullProgressMonitor());
+  }
+}
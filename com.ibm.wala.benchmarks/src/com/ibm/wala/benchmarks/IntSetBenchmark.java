@@ -0,0 +1,184 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.BitVectorIntSetFactory;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.intset.MutableIntSetFactory;
+import com.ibm.wala.util.intset.MutableSharedBitVectorIntSet;
+import com.ibm.wala.util.intset.MutableSharedBitVectorIntSetFactory;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSetFactory;
+import com.ibm.wala.util.intset.RoaringIntSet;
+import com.ibm.wala.util.intset.RoaringIntSetFactory;
+import com.ibm.wala.util.intset.SemiSparseMutableIntSet;
+import com.ibm.wala.util.intset.SemiSparseMutableIntSetFactory;
+
+/**
+ * Operations on {@link MutableSharedBitVectorIntSet} and {@link MutableSparseIntSet}, the sets points-to analysis keeps most of,
+ * and on the alternatives {@link SemiSparseMutableIntSet}, {@link BitVectorIntSet} and {@link RoaringIntSet}, on random sets of
+ * the given size drawn from a range of size / density numbers.
+ * 
+ * @see PointsToSetBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IntSetBenchmark {
+
+  @Param({ "sharedBitVector", "sparse", "semiSparse", "bitVector", "roaring" })
+  public String kind;
+
+  @Param({ "100", "10000" })
+  public int size;
+
+  /**
+   * fraction of the range of numbers that is in a set
+   */
+  @Param({ "0.5", "0.01" })
+  public double density;
+
+  private MutableIntSetFactory<?> factory;
+
+  private int[] elements;
+
+  private int[] probes;
+
+  private MutableIntSet a;
+
+  private MutableIntSet b;
+
+  /**
+   * the union of a and b
+   */
+  private MutableIntSet union;
+
+  @Setup
+  public void setUp() {
+    factory = makeFactory(kind);
+    Random r = new Random(17);
+    int range = (int) (size / density);
+    elements = new int[size];
+    probes = new int[size];
+    for (int i = 0; i < size; i++) {
+      elements[i] = r.nextInt(range);
+      probes[i] = r.nextInt(range);
+    }
+    a = make();
+    b = make();
+    for (int i = 0; i < size; i++) {
+      a.add(elements[i]);
+      b.add(probes[i]);
+    }
+    union = copy(a);
+    union.addAll(b);
+  }
+
+  /**
+   * @param kind one of the values of {@link #kind}
+   */
+  static MutableIntSetFactory<?> makeFactory(String kind) {
+    if (kind.equals("sharedBitVector")) {
+      return new MutableSharedBitVectorIntSetFactory();
+    } else if (kind.equals("sparse")) {
+      return new MutableSparseIntSetFactory();
+    } else if (kind.equals("semiSparse")) {
+      return new SemiSparseMutableIntSetFactory();
+    } else if (kind.equals("bitVector")) {
+      return new BitVectorIntSetFactory();
+    } else if (kind.equals("roaring")) {
+      return new RoaringIntSetFactory();
+    } else {
+      throw new IllegalArgumentException("unknown kind " + kind);
+    }
+  }
+
+  private MutableIntSet make() {
+    return factory.make();
+  }
+
+  private MutableIntSet copy(MutableIntSet s) {
+    return factory.makeCopy(s);
+  }
+
+  @Benchmark
+  public IntSet add() {
+    MutableIntSet s = make();
+    for (int x : elements) {
+      s.add(x);
+    }
+    return s;
+  }
+
+  @Benchmark
+  public int contains() {
+    int count = 0;
+    for (int x : probes) {
+      if (a.contains(x)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public IntSet addAll() {
+    MutableIntSet s = copy(a);
+    s.addAll(b);
+    return s;
+  }
+
+  @Benchmark
+  public IntSet intersectWith() {
+    MutableIntSet s = copy(a);
+    s.intersectWith(b);
+    return s;
+  }
+
+  @Benchmark
+  public boolean containsAny() {
+    return a.containsAny(b);
+  }
+
+  @Benchmark
+  public boolean isSubset() {
+    return a.isSubset(union);
+  }
+
+  @Benchmark
+  public void iterate(Blackhole bh) {
+    for (IntIterator it = a.intIterator(); it.hasNext();) {
+      bh.consume(it.next());
+    }
+  }
+}
@@ -0,0 +1,85 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.dataflow.IFDS.CompactLocalPathEdges;
+import com.ibm.wala.dataflow.IFDS.LocalPathEdges;
+
+/**
+ * Filling the path edges of one procedure entry, as {@link LocalPathEdges} and as {@link CompactLocalPathEdges}, with random path
+ * edges that mostly relate two different facts other than 0, as in problems with many facts. Run with <code>-prof gc</code> to
+ * compare the space each representation allocates per edge.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LocalPathEdgesBenchmark {
+
+  private static final int NODES = 300;
+
+  private static final int FACTS = 3000;
+
+  private static final int EDGES = 100000;
+
+  @Param({ "false", "true" })
+  public boolean compact;
+
+  @Param({ "false", "true" })
+  public boolean fastMerge;
+
+  /**
+   * the path edges (i, n, j), as consecutive triples
+   */
+  private int[] edges;
+
+  @Setup
+  public void setUp() {
+    Random r = new Random(42);
+    edges = new int[3 * EDGES];
+    for (int k = 0; k < edges.length; k += 3) {
+      int n = r.nextInt(NODES);
+      int j = r.nextInt(FACTS);
+      int c = r.nextInt(10);
+      edges[k] = c == 0 ? 0 : c == 1 ? j : 1 + r.nextInt(FACTS - 1);
+      edges[k + 1] = n;
+      edges[k + 2] = j;
+    }
+  }
+
+  @Benchmark
+  public LocalPathEdges addPathEdges() {
+    LocalPathEdges result = compact ? new CompactLocalPathEdges(fastMerge) : new LocalPathEdges(fastMerge);
+    for (int k = 0; k < edges.length; k += 3) {
+      if (!result.contains(edges[k], edges[k + 1], edges[k + 2])) {
+        result.addPathEdge(edges[k], edges[k + 1], edges[k + 2]);
+      }
+    }
+    return result;
+  }
+}
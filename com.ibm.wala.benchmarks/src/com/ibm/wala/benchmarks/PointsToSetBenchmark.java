@@ -0,0 +1,181 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.intset.MutableIntSetFactory;
+
+/**
+ * Set operations of the kinds in {@link IntSetBenchmark} on the points-to sets of a 0-1-CFA call graph of the test data, so the
+ * sizes and the clustering of the instance key numbers are those of a real analysis. Each operation is applied to the same
+ * random pairs of points-to sets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointsToSetBenchmark {
+
+  @Param({ "sharedBitVector", "semiSparse", "bitVector", "roaring" })
+  public String kind;
+
+  @Param({ "Lslice/Slice1" })
+  public String mainClass;
+
+  /**
+   * number of pairs of points-to sets operated on
+   */
+  private final static int PAIRS = 10000;
+
+  private MutableIntSetFactory<?> factory;
+
+  /**
+   * the elements of each non-empty points-to set, in increasing order
+   */
+  private int[][] elements;
+
+  private MutableIntSet[] sets;
+
+  private int[] left;
+
+  private int[] right;
+
+  @Setup
+  public void setUp() throws IOException, ClassHierarchyException, IllegalArgumentException, CancelException {
+    AnalysisScope scope = BenchmarkData.makeJavaScope();
+    IClassHierarchy cha = ClassHierarchy.make(scope);
+    AnalysisOptions options = BenchmarkData.makeOptions(scope, cha, mainClass);
+    CallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCache(), cha, scope);
+    builder.makeCallGraph(options, null);
+    PointerAnalysis<InstanceKey> pa = builder.getPointerAnalysis();
+    List<int[]> found = new ArrayList<int[]>();
+    for (PointerKey k : pa.getPointerKeys()) {
+      IntSet s = pa.getPointsToSet(k).getBackingSet();
+      if (s != null && !s.isEmpty()) {
+        int[] e = new int[s.size()];
+        int i = 0;
+        for (IntIterator it = s.intIterator(); it.hasNext();) {
+          e[i++] = it.next();
+        }
+        found.add(e);
+      }
+    }
+    elements = found.toArray(new int[found.size()][]);
+
+    factory = IntSetBenchmark.makeFactory(kind);
+    sets = build();
+    Random r = new Random(17);
+    left = new int[PAIRS];
+    right = new int[PAIRS];
+    for (int i = 0; i < PAIRS; i++) {
+      left[i] = r.nextInt(sets.length);
+      right[i] = r.nextInt(sets.length);
+    }
+  }
+
+  @Benchmark
+  public MutableIntSet[] build() {
+    MutableIntSet[] result = new MutableIntSet[elements.length];
+    for (int i = 0; i < elements.length; i++) {
+      result[i] = factory.make(elements[i]);
+    }
+    return result;
+  }
+
+  /**
+   * the union of all points-to sets, as when one variable flows to every other
+   */
+  @Benchmark
+  public IntSet unionAll() {
+    MutableIntSet result = factory.make();
+    for (MutableIntSet s : sets) {
+      result.addAll(s);
+    }
+    return result;
+  }
+
+  @Benchmark
+  public int addAll() {
+    int changed = 0;
+    for (int i = 0; i < PAIRS; i++) {
+      MutableIntSet s = factory.makeCopy(sets[left[i]]);
+      if (s.addAll(sets[right[i]])) {
+        changed++;
+      }
+    }
+    return changed;
+  }
+
+  @Benchmark
+  public int intersection() {
+    int size = 0;
+    for (int i = 0; i < PAIRS; i++) {
+      size += sets[left[i]].intersection(sets[right[i]]).size();
+    }
+    return size;
+  }
+
+  @Benchmark
+  public int containsAny() {
+    int count = 0;
+    for (int i = 0; i < PAIRS; i++) {
+      if (sets[left[i]].containsAny(sets[right[i]])) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  @Benchmark
+  public int isSubset() {
+    int count = 0;
+    for (int i = 0; i < PAIRS; i++) {
+      if (sets[left[i]].isSubset(sets[right[i]])) {
+        count++;
+      }
+    }
+    return count;
+  }
+}
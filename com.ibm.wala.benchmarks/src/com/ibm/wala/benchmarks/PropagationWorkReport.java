@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.io.IOException;
+
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.PointsToProfiler;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+
+/**
+ * Counts the work of the points-to solver in the configurations of {@link CallGraphBenchmark}, with and without delta
+ * propagation.
+ *
+ * Usage: PropagationWorkReport [-jdk] mainClass...
+ *
+ * Builds a 0-1-CFA call graph from the main method of each class, e.g. Lslice/Slice1, and prints the time taken, the number of
+ * statements evaluated, the number of evaluations of assignments and the number of elements those assignments propagated. With
+ * -jdk, the scope is the one returned by {@link BenchmarkData#makeJDKScope()}, which excludes only a few packages of the Java
+ * runtime.
+ */
+public class PropagationWorkReport {
+
+  public static void main(String[] args) throws IOException, ClassHierarchyException, IllegalArgumentException, CancelException {
+    boolean jdk = args.length > 0 && args[0].equals("-jdk");
+    if (args.length == (jdk ? 1 : 0)) {
+      System.err.println("usage: PropagationWorkReport [-jdk] mainClass...");
+      System.exit(2);
+    }
+    AnalysisScope scope = jdk ? BenchmarkData.makeJDKScope() : BenchmarkData.makeJavaScope();
+    IClassHierarchy cha = ClassHierarchy.make(scope);
+    System.out.println("main class\tdelta\tms\tevaluations\tassignments\telements propagated\tnodes");
+    for (int i = jdk ? 1 : 0; i < args.length; i++) {
+      report(scope, cha, args[i], false);
+      report(scope, cha, args[i], true);
+    }
+  }
+
+  private static void report(AnalysisScope scope, IClassHierarchy cha, String mainClass, boolean useDeltaPropagation)
+      throws IllegalArgumentException, CancelException {
+    AnalysisOptions options = BenchmarkData.makeOptions(scope, cha, mainClass);
+    options.setUseDeltaPropagation(useDeltaPropagation);
+    SSAPropagationCallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCache(), cha, scope);
+    PointsToProfiler profiler = new PointsToProfiler();
+    builder.setPointsToProfiler(profiler);
+    long start = System.currentTimeMillis();
+    CallGraph cg = builder.makeCallGraph(options, null);
+    long time = System.currentTimeMillis() - start;
+    System.out.println(mainClass + "\t" + useDeltaPropagation + "\t" + time + "\t" + profiler.getEvaluations() + "\t"
+        + profiler.getAssignmentEvaluations() + "\t" + profiler.getElementsPropagatedByAssignments() + "\t" + cg.getNumberOfNodes());
+  }
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ipa.slicer.NormalStatement;
+import com.ibm.wala.ipa.slicer.SDG;
+import com.ibm.wala.ipa.slicer.Slicer;
+import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
+import com.ibm.wala.ipa.slicer.Statement;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAAbstractInvokeInstruction;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.util.CancelException;
+
+/**
+ * Slicing, by {@link com.ibm.wala.dataflow.IFDS.TabulationSolver}, from the call to println in the main method of slice.Slice1.
+ * The SDG keeps its PDGs across iterations, so after warmup this measures the tabulation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SlicerBenchmark {
+
+  @Param({ "NO_BASE_NO_HEAP", "NO_HEAP", "FULL" })
+  public String dataDependence;
+
+  private SDG sdg;
+
+  private Statement root;
+
+  @Setup
+  public void setUp() throws IOException, ClassHierarchyException, IllegalArgumentException, CancelException {
+    AnalysisScope scope = BenchmarkData.makeJavaScope();
+    IClassHierarchy cha = ClassHierarchy.make(scope);
+    AnalysisOptions options = BenchmarkData.makeOptions(scope, cha, "Lslice/Slice1");
+    CallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCache(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+    sdg = new SDG(cg, builder.getPointerAnalysis(), DataDependenceOptions.valueOf(dataDependence), ControlDependenceOptions.FULL);
+    root = findCallTo(BenchmarkData.findMainMethod(cg), "println");
+  }
+
+  private static Statement findCallTo(CGNode n, String methodName) {
+    IR ir = n.getIR();
+    SSAInstruction[] instructions = ir.getInstructions();
+    for (int i = 0; i < instructions.length; i++) {
+      if (instructions[i] instanceof SSAAbstractInvokeInstruction) {
+        SSAAbstractInvokeInstruction call = (SSAAbstractInvokeInstruction) instructions[i];
+        if (call.getCallSite().getDeclaredTarget().getName().toString().equals(methodName)) {
+          return new NormalStatement(n, i);
+        }
+      }
+    }
+    throw new IllegalStateException("no call to " + methodName + " in " + n);
+  }
+
+  @Benchmark
+  public Collection<Statement> backwardSlice() throws IllegalArgumentException, CancelException {
+    return Slicer.computeBackwardSlice(sdg, root);
+  }
+
+  @Benchmark
+  public Collection<Statement> forwardSlice() throws IllegalArgumentException, CancelException {
+    return Slicer.computeForwardSlice(sdg, root);
+  }
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.benchmarks;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.ibm.wala.dataflow.graph.BitVectorSolver;
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.CallGraphTransitiveClosure;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ipa.modref.GenReach;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.functions.Function;
+import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.intset.OrdinalSet;
+
+/**
+ * The transitive closure over the 0-1-CFA call graph of slice.Slice1 of a value per node, its declaring class, as a
+ * {@link BitVectorSolver} fixed point over the whole call graph, and as
+ * {@link CallGraphTransitiveClosure#transitiveClosure(CallGraph, Map)} computes it over the strongly connected components.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TransitiveClosureBenchmark {
+
+  private CallGraph cg;
+
+  private Map<CGNode, Collection<TypeReference>> nodeResults;
+
+  @Setup
+  public void setUp() throws IOException, ClassHierarchyException, IllegalArgumentException, CancelException {
+    AnalysisScope scope = BenchmarkData.makeJavaScope();
+    IClassHierarchy cha = ClassHierarchy.make(scope);
+    AnalysisOptions options = BenchmarkData.makeOptions(scope, cha, "Lslice/Slice1");
+    CallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCache(), cha, scope);
+    cg = builder.makeCallGraph(options, null);
+    nodeResults = CallGraphTransitiveClosure.collectNodeResults(cg, new Function<CGNode, Collection<TypeReference>>() {
+      @Override
+      public Collection<TypeReference> apply(CGNode n) {
+        return Collections.singleton(n.getMethod().getDeclaringClass().getReference());
+      }
+    });
+  }
+
+  @Benchmark
+  public BitVectorSolver<CGNode> fixedPoint() throws CancelException {
+    GenReach<CGNode, TypeReference> gr = new GenReach<CGNode, TypeReference>(GraphInverter.invert(cg), nodeResults);
+    BitVectorSolver<CGNode> solver = new BitVectorSolver<CGNode>(gr);
+    solver.solve(null);
+    return solver;
+  }
+
+  @Benchmark
+  public Map<CGNode, OrdinalSet<TypeReference>> components() {
+    return CallGraphTransitiveClosure.transitiveClosure(cg, nodeResults);
+  }
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package slice;
+
+public class TestSliceEach {
+
+  static int check(int x) {
+    if (x < 0) {
+      throw new IllegalArgumentException();
+    }
+    return x + 1;
+  }
+
+  /**
+   * a forward slice from the return value of check reaches the second call to check, and so the throw in check, which returns to
+   * the catch block in second
+   */
+  static int first(int x) {
+    int y = check(x);
+    if (y > 3) {
+      check(y - 3);
+    }
+    return y;
+  }
+
+  static int second(int x) {
+    try {
+      return check(x);
+    } catch (IllegalArgumentException e) {
+      return 0;
+    }
+  }
+
+  private static void doNothing(int x) {
+  }
+
+  public static void main(String[] args) {
+    doNothing(first(args.length));
+    doNothing(second(args.length));
+  }
+}
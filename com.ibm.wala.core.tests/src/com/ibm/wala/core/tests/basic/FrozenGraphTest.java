@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.basic;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.callGraph.CallGraphTestUtil;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.Iterator2Collection;
+import com.ibm.wala.util.graph.GraphUtil;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.dominators.Dominators;
+import com.ibm.wala.util.graph.impl.FrozenNumberedGraph;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import com.ibm.wala.util.graph.traverse.DFS;
+import com.ibm.wala.util.graph.traverse.SCCIterator;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+
+/**
+ * Tests that a {@link FrozenNumberedGraph} has the nodes, numbers and edges of the graph it copies, and that traversals give the
+ * same results on both.
+ */
+public class FrozenGraphTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(FrozenGraphTest.class);
+  }
+
+  /**
+   * a random graph with cycles, self edges and, since some nodes are removed, gaps in the node numbers
+   */
+  private static NumberedGraph<Integer> makeGraph(int size, long seed) {
+    Random r = new Random(seed);
+    NumberedGraph<Integer> g = SlowSparseNumberedGraph.make();
+    for (int i = 0; i < size; i++) {
+      g.addNode(i);
+    }
+    for (int i = 0; i < size; i++) {
+      int edges = r.nextInt(4);
+      for (int k = 0; k < edges; k++) {
+        g.addEdge(i, r.nextInt(size));
+      }
+    }
+    for (int i = 1; i < size; i += 17) {
+      g.removeNodeAndEdges(i);
+    }
+    return g;
+  }
+
+  private static Set<Integer> toSet(IntSet s) {
+    Set<Integer> result = HashSetFactory.make();
+    if (s != null) {
+      for (IntIterator it = s.intIterator(); it.hasNext();) {
+        result.add(it.next());
+      }
+    }
+    return result;
+  }
+
+  private static <T> void assertSameGraph(NumberedGraph<T> expected, NumberedGraph<T> actual) {
+    Assert.assertEquals(expected.getNumberOfNodes(), actual.getNumberOfNodes());
+    Assert.assertEquals(expected.getMaxNumber(), actual.getMaxNumber());
+    Assert.assertEquals(Iterator2Collection.toSet(expected.iterator()), Iterator2Collection.toSet(actual.iterator()));
+    for (T n : expected) {
+      Assert.assertTrue(actual.containsNode(n));
+      Assert.assertEquals(expected.getNumber(n), actual.getNumber(n));
+      Assert.assertEquals(n, actual.getNode(expected.getNumber(n)));
+      Assert.assertEquals(toSet(expected.getSuccNodeNumbers(n)), toSet(actual.getSuccNodeNumbers(n)));
+      Assert.assertEquals(toSet(expected.getPredNodeNumbers(n)), toSet(actual.getPredNodeNumbers(n)));
+      Assert.assertEquals(Iterator2Collection.toSet(expected.getSuccNodes(n)), Iterator2Collection.toSet(actual.getSuccNodes(n)));
+      Assert.assertEquals(Iterator2Collection.toSet(expected.getPredNodes(n)), Iterator2Collection.toSet(actual.getPredNodes(n)));
+      Assert.assertEquals(expected.getSuccNodeCount(n), actual.getSuccNodeCount(n));
+      Assert.assertEquals(expected.getPredNodeCount(n), actual.getPredNodeCount(n));
+      for (Iterator<T> it = expected.getSuccNodes(n); it.hasNext();) {
+        Assert.assertTrue(actual.hasEdge(n, it.next()));
+      }
+    }
+  }
+
+  @Test
+  public void testRandomGraphs() {
+    for (long seed = 0; seed < 5; seed++) {
+      NumberedGraph<Integer> g = makeGraph(1000, seed);
+      NumberedGraph<Integer> frozen = GraphUtil.freeze(g);
+      assertSameGraph(g, frozen);
+      Assert.assertFalse(frozen.hasEdge(0, 1));
+      Assert.assertFalse(frozen.containsNode(1));
+      Assert.assertSame(frozen, GraphUtil.freeze(frozen));
+
+      // depth-first search visits successors in the same order, since both graphs give them in increasing order
+      List<Integer> roots = Iterator2Collection.toList(frozen.iterator());
+      Assert.assertEquals(Iterator2Collection.toList(DFS.iterateFinishTime(g, roots.iterator())),
+          Iterator2Collection.toList(DFS.iterateFinishTime(frozen, roots.iterator())));
+
+      Set<Set<Integer>> sccs = HashSetFactory.make();
+      for (SCCIterator<Integer> it = new SCCIterator<Integer>(g); it.hasNext();) {
+        sccs.add(it.next());
+      }
+      Set<Set<Integer>> frozenSccs = HashSetFactory.make();
+      for (SCCIterator<Integer> it = new SCCIterator<Integer>(frozen); it.hasNext();) {
+        frozenSccs.add(it.next());
+      }
+      Assert.assertEquals(sccs, frozenSccs);
+
+      Dominators<Integer> dom = Dominators.make(g, 0);
+      Dominators<Integer> frozenDom = Dominators.make(frozen, 0);
+      for (Integer n : DFS.getReachableNodes(g, Collections.singleton(0))) {
+        Assert.assertEquals(dom.getIdom(n), frozenDom.getIdom(n));
+      }
+    }
+  }
+
+  /**
+   * the successor numbers of a frozen graph are views over its edge arrays; check that they behave as copies would
+   */
+  @Test
+  public void testNodeNumberSets() {
+    NumberedGraph<Integer> frozen = GraphUtil.freeze(makeGraph(200, 3));
+    IntSet previous = MutableSparseIntSet.makeEmpty();
+    for (Integer n : frozen) {
+      IntSet row = frozen.getSuccNodeNumbers(n);
+      MutableSparseIntSet copy = MutableSparseIntSet.make(row);
+      Assert.assertEquals(copy.size(), row.size());
+      Assert.assertEquals(copy.isEmpty(), row.isEmpty());
+      Assert.assertEquals(copy.toString(), row.toString());
+      Assert.assertTrue(row.sameValue(copy));
+      Assert.assertTrue(copy.sameValue(row));
+      Assert.assertTrue(row.isSubset(copy));
+      if (!row.isEmpty()) {
+        Assert.assertEquals(copy.max(), row.max());
+      }
+      for (int i = -1; i <= frozen.getMaxNumber() + 1; i++) {
+        Assert.assertEquals(copy.contains(i), row.contains(i));
+      }
+      Assert.assertEquals(copy.containsAny(previous), row.containsAny(previous));
+      Assert.assertTrue(copy.intersection(previous).sameValue(row.intersection(previous)));
+      Assert.assertTrue(copy.union(previous).sameValue(row.union(previous)));
+      previous = row;
+    }
+  }
+
+  @Test
+  public void testEmptyGraph() {
+    NumberedGraph<Integer> frozen = GraphUtil.freeze(SlowSparseNumberedGraph.<Integer> make());
+    Assert.assertEquals(0, frozen.getNumberOfNodes());
+    Assert.assertFalse(frozen.iterator().hasNext());
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testImmutable() {
+    NumberedGraph<Integer> frozen = GraphUtil.freeze(makeGraph(10, 1));
+    frozen.addEdge(0, 2);
+  }
+
+  @Test
+  public void testCallGraph() throws ClassHierarchyException, IOException, IllegalArgumentException, CancelException {
+    AnalysisScope scope = CallGraphTestUtil.makeJ2SEAnalysisScope(TestConstants.WALA_TESTDATA, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchy.make(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha, TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    CallGraph cg = Util.makeZeroOneCFABuilder(options, new AnalysisCache(), cha, scope).makeCallGraph(options, null);
+    FrozenNumberedGraph<CGNode> frozen = FrozenNumberedGraph.make(cg);
+    assertSameGraph(cg, frozen);
+    Assert.assertEquals(GraphUtil.countEdges(cg), frozen.getNumberOfEdges());
+    // the call graph gives successors in order of call site, so compare what is reached rather than the order
+    Set<CGNode> roots = Collections.singleton(cg.getFakeRootNode());
+    Assert.assertEquals(DFS.getReachableNodes(cg, roots), DFS.getReachableNodes(frozen, roots));
+  }
+}
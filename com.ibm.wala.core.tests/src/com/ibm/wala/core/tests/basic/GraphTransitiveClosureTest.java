@@ -0,0 +1,134 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.basic;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.Predicate;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.graph.Graph;
+import com.ibm.wala.util.graph.GraphReachability;
+import com.ibm.wala.util.graph.GraphSlicer;
+import com.ibm.wala.util.graph.GraphTransitiveClosure;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.impl.SlowSparseNumberedGraph;
+import com.ibm.wala.util.graph.traverse.DFS;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.OrdinalSet;
+import com.ibm.wala.util.intset.SparseIntSet;
+
+/**
+ * Tests that {@link GraphTransitiveClosure} and {@link GraphReachability} agree with depth-first search on random graphs with
+ * cycles.
+ */
+public class GraphTransitiveClosureTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(GraphTransitiveClosureTest.class);
+  }
+
+  /**
+   * a graph whose edges mostly go from lower to higher numbers, with some back edges to make cycles
+   */
+  private static NumberedGraph<Integer> makeGraph(int size, long seed) {
+    Random r = new Random(seed);
+    NumberedGraph<Integer> g = SlowSparseNumberedGraph.make();
+    for (int i = 0; i < size; i++) {
+      g.addNode(i);
+    }
+    for (int i = 0; i < size; i++) {
+      int edges = r.nextInt(3);
+      for (int k = 0; k < edges; k++) {
+        if (r.nextInt(10) == 0) {
+          g.addEdge(i, r.nextInt(i + 1));
+        } else if (i + 1 < size) {
+          g.addEdge(i, i + 1 + r.nextInt(size - i - 1));
+        }
+      }
+    }
+    return g;
+  }
+
+  private static <T> void checkClosure(Graph<T> g, Map<T, IntSet> nodeSets, Map<T, IntSet> closure) {
+    for (T n : g) {
+      Set<Integer> expected = HashSetFactory.make();
+      for (T m : DFS.getReachableNodes(g, Collections.singleton(n))) {
+        IntSet s = nodeSets.get(m);
+        if (s != null) {
+          for (IntIterator it = s.intIterator(); it.hasNext();) {
+            expected.add(it.next());
+          }
+        }
+      }
+      Set<Integer> actual = HashSetFactory.make();
+      for (IntIterator it = closure.get(n).intIterator(); it.hasNext();) {
+        actual.add(it.next());
+      }
+      Assert.assertEquals(String.valueOf(n), expected, actual);
+    }
+  }
+
+  @Test
+  public void testClosure() throws CancelException {
+    NumberedGraph<Integer> g = makeGraph(2000, 17);
+    Random r = new Random(42);
+    Map<Integer, IntSet> nodeSets = HashMapFactory.make();
+    for (Integer n : g) {
+      // most nodes add nothing, so chains of them share sets
+      if (r.nextInt(4) == 0) {
+        nodeSets.put(n, SparseIntSet.singleton(r.nextInt(500)));
+      }
+    }
+    checkClosure(g, nodeSets, GraphTransitiveClosure.transitiveClosure(g, nodeSets));
+    checkClosure(g, nodeSets, GraphTransitiveClosure.transitiveClosure(g, nodeSets, 4, null));
+
+    // a graph that is not numbered
+    Graph<Integer> pruned = GraphSlicer.prune(g, new Predicate<Integer>() {
+      @Override
+      public boolean test(Integer t) {
+        return t % 7 != 0;
+      }
+    });
+    checkClosure(pruned, nodeSets, GraphTransitiveClosure.transitiveClosure(pruned, nodeSets, 2, null));
+  }
+
+  @Test
+  public void testReachability() throws CancelException {
+    NumberedGraph<Integer> g = makeGraph(500, 3);
+    Predicate<Integer> even = new Predicate<Integer>() {
+      @Override
+      public boolean test(Integer t) {
+        return t % 2 == 0;
+      }
+    };
+    GraphReachability<Integer, Integer> reach = new GraphReachability<Integer, Integer>(g, even);
+    Assert.assertTrue(reach.solve(null));
+    for (Integer n : g) {
+      Set<Integer> expected = HashSetFactory.make();
+      for (Integer m : DFS.getReachableNodes(g, Collections.singleton(n))) {
+        if (even.test(m)) {
+          expected.add(m);
+        }
+      }
+      Assert.assertEquals(String.valueOf(n), expected, OrdinalSet.toCollection(reach.getReachableSet(n)));
+    }
+  }
+}
@@ -15,6 +15,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -34,8 +35,10 @@ import com.ibm.wala.util.intset.BasicNaturalRelation;
 import com.ibm.wala.util.intset.BimodalMutableIntSetFactory;
 import com.ibm.wala.util.intset.BitVector;
 import com.ibm.wala.util.intset.BitVectorBase;
+import com.ibm.wala.util.intset.BitVectorIntSet;
 import com.ibm.wala.util.intset.BitVectorIntSetFactory;
 import com.ibm.wala.util.intset.IBinaryNaturalRelation;
+import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntPair;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetUtil;
@@ -50,6 +53,8 @@ import com.ibm.wala.util.intset.MutableSharedBitVectorIntSetFactory;
 import com.ibm.wala.util.intset.MutableSparseIntSetFactory;
 import com.ibm.wala.util.intset.MutableSparseLongSetFactory;
 import com.ibm.wala.util.intset.OffsetBitVector;
+import com.ibm.wala.util.intset.RoaringIntSet;
+import com.ibm.wala.util.intset.RoaringIntSetFactory;
 import com.ibm.wala.util.intset.SemiSparseMutableIntSet;
 import com.ibm.wala.util.intset.SemiSparseMutableIntSetFactory;
 import com.ibm.wala.util.intset.SparseIntSet;
@@ -348,6 +353,109 @@ public class PrimitivesTest extends WalaTestCase {
     doMutableIntSet(new SemiSparseMutableIntSetFactory());
   }
 
+  /**
+   * Test the RoaringIntSet implementation
+   */
+  @Test public void testRoaringIntSet() {
+    doMutableIntSet(new RoaringIntSetFactory());
+  }
+
+  /**
+   * a random set with elements spread over a few chunks of 2^16, some dense enough for bitmaps and some runs of consecutive
+   * elements
+   */
+  private static RoaringIntSet makeRandomRoaringIntSet(Random r) {
+    RoaringIntSet s = new RoaringIntSet();
+    int chunks = 1 + r.nextInt(3);
+    for (int c = 0; c < chunks; c++) {
+      int base = r.nextInt(4) << 16;
+      switch (r.nextInt(3)) {
+      case 0:
+        for (int i = r.nextInt(100); i > 0; i--) {
+          s.add(base + r.nextInt(1 << 16));
+        }
+        break;
+      case 1:
+        for (int i = 5000 + r.nextInt(3000); i > 0; i--) {
+          s.add(base + r.nextInt(1 << 14));
+        }
+        break;
+      default:
+        for (int run = r.nextInt(5); run >= 0; run--) {
+          int start = r.nextInt(60000);
+          int length = r.nextInt(3000);
+          for (int i = start; i < start + length; i++) {
+            s.add(base + i);
+          }
+        }
+      }
+    }
+    if (r.nextBoolean()) {
+      s.runOptimize();
+    }
+    return s;
+  }
+
+  /**
+   * Test that RoaringIntSet operations with array, bitmap and run containers agree with BitVectorIntSet
+   */
+  @Test public void testRoaringIntSetContainers() {
+    Random r = new Random(7);
+    int[] kinds = new int[3];
+    for (int round = 0; round < 60; round++) {
+      RoaringIntSet a = makeRandomRoaringIntSet(r);
+      RoaringIntSet b = makeRandomRoaringIntSet(r);
+      BitVectorIntSet va = new BitVectorIntSet(a);
+      BitVectorIntSet vb = new BitVectorIntSet(b);
+      int[] k = a.getContainerCounts();
+      for (int i = 0; i < 3; i++) {
+        kinds[i] += k[i];
+      }
+
+      Assert.assertTrue(a.sameValue(va));
+      Assert.assertTrue(va.sameValue(a));
+      Assert.assertEquals(va.size(), a.size());
+      Assert.assertEquals(va.max(), a.max());
+      Assert.assertTrue(a.intersection(b).sameValue(va.intersection(vb)));
+      Assert.assertTrue(a.intersection(vb).sameValue(va.intersection(vb)));
+      Assert.assertTrue(a.union(b).sameValue(va.union(vb)));
+      Assert.assertEquals(va.containsAny(vb), a.containsAny(b));
+      Assert.assertEquals(va.isSubset(vb), a.isSubset(b));
+      Assert.assertTrue(a.isSubset(a.union(b)));
+      Assert.assertTrue(a.intersection(b).isSubset(b));
+      Assert.assertTrue(a.containsAny(a.intersection(b)) == !a.intersection(b).isEmpty());
+
+      RoaringIntSet c = new RoaringIntSet(a);
+      Assert.assertEquals(va.addAll(vb), c.addAll(b));
+      Assert.assertTrue(c.sameValue(va));
+      Assert.assertFalse(c.addAll(b));
+      Assert.assertFalse(c.addAll(a));
+      c.intersectWith(b);
+      Assert.assertTrue(c.sameValue(vb));
+
+      // remove enough elements to shrink bitmaps back to arrays
+      va = new BitVectorIntSet(a);
+      for (int i = 0; i < 6000; i++) {
+        int x = r.nextInt(4 << 16);
+        Assert.assertEquals(va.remove(x), a.remove(x));
+        x = r.nextInt(4 << 16);
+        Assert.assertEquals(va.contains(x), a.contains(x));
+      }
+      Assert.assertTrue(a.sameValue(va));
+      BitVectorIntSet iterated = new BitVectorIntSet();
+      int previous = -1;
+      for (IntIterator it = a.intIterator(); it.hasNext();) {
+        int x = it.next();
+        Assert.assertTrue(x > previous);
+        iterated.add(x);
+        previous = x;
+      }
+      Assert.assertTrue(iterated.sameValue(va));
+    }
+    // all kinds of container were tested
+    Assert.assertTrue(kinds[0] > 0 && kinds[1] > 0 && kinds[2] > 0);
+  }
+
   /**
    * Test the MutableSparseIntSet implementation
    */
@@ -959,6 +1067,82 @@ public class PrimitivesTest extends WalaTestCase {
     testBitVectors(new OffsetBitVector(35, 20), new OffsetBitVector(25, 10));
   }
 
+  private static BitVector makeBitVector(java.util.BitSet bits) {
+    BitVector result = new BitVector();
+    for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+      result.set(i);
+    }
+    return result;
+  }
+
+  private static OffsetBitVector makeOffsetBitVector(java.util.BitSet bits, int offset) {
+    OffsetBitVector result = new OffsetBitVector(offset, 32);
+    for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+      result.set(i);
+    }
+    return result;
+  }
+
+  private static java.util.BitSet randomBits(Random r, int from, int to) {
+    java.util.BitSet result = new java.util.BitSet();
+    int n = r.nextInt(to - from);
+    for (int i = 0; i < n; i++) {
+      result.set(from + r.nextInt(to - from));
+    }
+    return result;
+  }
+
+  private static void assertSameBits(java.util.BitSet expected, BitVectorBase<?> actual) {
+    Assert.assertEquals(expected.cardinality(), actual.populationCount());
+    for (int i = 0; i < 1200; i++) {
+      Assert.assertEquals(String.valueOf(i), expected.get(i), actual.get(i));
+    }
+  }
+
+  /**
+   * the bulk operations of bit vectors of different lengths and offsets agree with {@link java.util.BitSet}
+   */
+  @Test public void testBitVectorKernels() {
+    Random r = new Random(7);
+    for (int k = 0; k < 200; k++) {
+      java.util.BitSet x = randomBits(r, r.nextInt(300), 1000);
+      java.util.BitSet y = randomBits(r, r.nextInt(300), 1000);
+      int xOffset = x.isEmpty() ? 0 : x.nextSetBit(0);
+      int yOffset = y.isEmpty() ? 0 : y.nextSetBit(0);
+
+      java.util.BitSet or = (java.util.BitSet) x.clone();
+      or.or(y);
+      java.util.BitSet and = (java.util.BitSet) x.clone();
+      and.and(y);
+      java.util.BitSet andNot = (java.util.BitSet) x.clone();
+      andNot.andNot(y);
+
+      BitVector v = makeBitVector(x);
+      Assert.assertEquals(or.cardinality() - x.cardinality(), v.orWithDelta(makeBitVector(y)));
+      assertSameBits(or, v);
+      v = makeBitVector(x);
+      Assert.assertEquals(!or.equals(x), v.orWithChange(makeBitVector(y)));
+      assertSameBits(or, v);
+      Assert.assertFalse(v.orWithChange(makeBitVector(y)));
+      v = makeBitVector(x);
+      v.and(makeBitVector(y));
+      assertSameBits(and, v);
+      v = makeBitVector(x);
+      v.andNot(makeBitVector(y));
+      assertSameBits(andNot, v);
+
+      OffsetBitVector o = makeOffsetBitVector(x, xOffset);
+      o.or(makeOffsetBitVector(y, yOffset));
+      assertSameBits(or, o);
+      o = makeOffsetBitVector(x, xOffset);
+      o.and(makeOffsetBitVector(y, yOffset));
+      assertSameBits(and, o);
+      o = makeOffsetBitVector(x, xOffset);
+      o.andNot(makeOffsetBitVector(y, yOffset));
+      assertSameBits(andNot, o);
+    }
+  }
+
   @SuppressWarnings("unchecked")
   private <T extends BitVectorBase> void testBitVectors(T v1, T v2) {
     v1.set(100);
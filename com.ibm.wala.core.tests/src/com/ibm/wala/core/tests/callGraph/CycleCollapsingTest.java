@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.callGraph;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.AllApplicationEntrypoints;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.graph.GraphUtil;
+
+/**
+ * Check that collapsing cycles of assignments between points-to sets does not change the result of the analysis.
+ */
+public class CycleCollapsingTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(CycleCollapsingTest.class);
+  }
+
+  @Test
+  public void testTestdata() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = CallGraphTestUtil.makeJ2SEAnalysisScope(TestConstants.WALA_TESTDATA,
+        CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchy.make(scope);
+    Iterable<Entrypoint> entrypoints = new AllApplicationEntrypoints(scope, cha);
+
+    AnalysisOptions plain = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    SSAPropagationCallGraphBuilder plainBuilder = Util.makeZeroOneCFABuilder(plain, new AnalysisCache(), cha, scope);
+    CallGraph plainCG = plainBuilder.makeCallGraph(plain, null);
+    Map<String, Integer> expected = ParallelSolverTest.pointsToSizes(plainBuilder.getPointerAnalysis());
+
+    AnalysisOptions collapse = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    collapse.setCollapseCycles(true);
+    // maintain often enough that cycles are collapsed while solving, not only after
+    collapse.setPeriodicMaintainInterval(1000);
+    SSAPropagationCallGraphBuilder collapseBuilder = Util.makeZeroOneCFABuilder(collapse, new AnalysisCache(), cha, scope);
+    CallGraph collapseCG = collapseBuilder.makeCallGraph(collapse, null);
+    Assert.assertEquals(1000, collapseBuilder.getPropagationSystem().getPeriodicMaintainInterval());
+    Assert.assertTrue(collapseBuilder.getPropagationSystem().getNumberOfCollapsedVariables() > 0);
+
+    Assert.assertEquals(plainCG.getNumberOfNodes(), collapseCG.getNumberOfNodes());
+    Assert.assertEquals(GraphUtil.countEdges(plainCG), GraphUtil.countEdges(collapseCG));
+    Assert.assertEquals(expected, ParallelSolverTest.pointsToSizes(collapseBuilder.getPointerAnalysis()));
+
+    // collapsing the cycles of a solved system must find some, and must not change any points-to set
+    Assert.assertTrue(plainBuilder.getPropagationSystem().collapseAssignmentCycles() > 0);
+    Assert.assertEquals(expected, ParallelSolverTest.pointsToSizes(plainBuilder.getPointerAnalysis()));
+  }
+}
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.callGraph;
+
+import java.io.IOException;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.AllApplicationEntrypoints;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.graph.GraphUtil;
+
+/**
+ * Check that propagating only differences of points-to sets gives the same result as full propagation.
+ */
+public class DeltaPropagationTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(DeltaPropagationTest.class);
+  }
+
+  @Test
+  public void testTestdata() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = CallGraphTestUtil.makeJ2SEAnalysisScope(TestConstants.WALA_TESTDATA,
+        CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchy.make(scope);
+    Iterable<Entrypoint> entrypoints = new AllApplicationEntrypoints(scope, cha);
+
+    AnalysisOptions full = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    CallGraphBuilder fullBuilder = Util.makeZeroOneCFABuilder(full, new AnalysisCache(), cha, scope);
+    CallGraph fullCG = fullBuilder.makeCallGraph(full, null);
+
+    AnalysisOptions delta = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    delta.setUseDeltaPropagation(true);
+    CallGraphBuilder deltaBuilder = Util.makeZeroOneCFABuilder(delta, new AnalysisCache(), cha, scope);
+    CallGraph deltaCG = deltaBuilder.makeCallGraph(delta, null);
+
+    Assert.assertEquals(fullCG.getNumberOfNodes(), deltaCG.getNumberOfNodes());
+    Assert.assertEquals(GraphUtil.countEdges(fullCG), GraphUtil.countEdges(deltaCG));
+    Assert.assertEquals(ParallelSolverTest.pointsToSizes(fullBuilder.getPointerAnalysis()),
+        ParallelSolverTest.pointsToSizes(deltaBuilder.getPointerAnalysis()));
+  }
+}
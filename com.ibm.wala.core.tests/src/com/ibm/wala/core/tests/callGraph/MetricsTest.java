@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.callGraph;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.propagation.PropagationSystem;
+import com.ibm.wala.ipa.callgraph.propagation.StandardSolver;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.ssa.SSACache;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.perf.MetricsRecorder;
+
+/**
+ * Tests that building a call graph reports its phases, solver evaluations and points-to set sizes to a
+ * {@link MetricsRecorder} given in the {@link AnalysisOptions}.
+ */
+public class MetricsTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(MetricsTest.class);
+  }
+
+  @Test
+  public void testPhases() throws ClassHierarchyException, IOException, IllegalArgumentException, CancelException {
+    AnalysisScope scope = CallGraphTestUtil.makeJ2SEAnalysisScope(TestConstants.WALA_TESTDATA,
+        CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    IClassHierarchy cha = ClassHierarchy.make(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha, TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    MetricsRecorder metrics = new MetricsRecorder();
+    options.setMetricsListener(metrics);
+    CallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCache(), cha, scope);
+    CallGraph cg = builder.makeCallGraph(options, null);
+
+    Assert.assertEquals(1, metrics.getCount(PropagationCallGraphBuilder.CALL_GRAPH_PHASE));
+    Assert.assertTrue(metrics.getCount(StandardSolver.SOLVER_PHASE) > 0);
+    Assert.assertTrue(metrics.getCount(PropagationCallGraphBuilder.CONSTRAINTS_PHASE) > 0);
+    Assert.assertTrue(metrics.getCount(PropagationCallGraphBuilder.CONTEXT_SELECTION_PHASE) > 0);
+    // each node of the call graph but the fake root has an IR built for it, at most once
+    long irs = metrics.getCount(SSACache.IR_CONSTRUCTION_PHASE);
+    Assert.assertTrue(irs > 0 && irs <= cg.getNumberOfNodes());
+    Assert.assertTrue(metrics.getTotalNanos(PropagationCallGraphBuilder.CALL_GRAPH_PHASE) >= metrics
+        .getTotalNanos(StandardSolver.SOLVER_PHASE));
+    Assert.assertTrue(metrics.getEvaluations() > 0);
+    Assert.assertTrue(metrics.getPeak(PropagationSystem.POINTS_TO_SET_SIZE) > 0);
+    checkJSON(metrics);
+  }
+
+  // the entries of the members of the JSON a MetricsRecorder writes
+
+  private static final Pattern PHASE = Pattern
+      .compile("\"([^\"]*)\": \\{\"count\": (-?\\d+), \"totalNanos\": (-?\\d+), \"maxNanos\": (-?\\d+)\\}");
+
+  private static final Pattern EVALUATIONS = Pattern.compile("\"([^\"]*)\": (-?\\d+)");
+
+  private static final Pattern SAMPLE = Pattern.compile("\\[(-?\\d+), (-?\\d+)\\]");
+
+  private static final Pattern QUANTITY = Pattern
+      .compile("\"([^\"]*)\": \\{\"count\": (-?\\d+), \"max\": (-?\\d+), \"total\": (-?\\d+)\\}");
+
+  /**
+   * check that the JSON of metrics has its four members in order, an entry for each phase of call graph construction, and the
+   * counters that metrics holds, none of them negative
+   */
+  private static void checkJSON(MetricsRecorder metrics) {
+    String json = metrics.toJSON();
+    Assert.assertTrue(json, json.startsWith("{") && json.trim().endsWith("}"));
+    int phases = json.indexOf("\"phases\": {");
+    int evaluations = json.indexOf("\"evaluations\": {");
+    int worklist = json.indexOf("\"worklist\": [");
+    int quantities = json.indexOf("\"quantities\": {");
+    Assert.assertTrue(json, 0 < phases && phases < evaluations && evaluations < worklist && worklist < quantities);
+
+    Set<String> phaseNames = HashSetFactory.make();
+    for (Matcher m = PHASE.matcher(json.substring(phases, evaluations)); m.find();) {
+      Assert.assertTrue(json, phaseNames.add(m.group(1)));
+      Assert.assertEquals(metrics.getCount(m.group(1)), Long.parseLong(m.group(2)));
+      Assert.assertEquals(metrics.getTotalNanos(m.group(1)), Long.parseLong(m.group(3)));
+      Assert.assertTrue(json, Long.parseLong(m.group(2)) > 0);
+      Assert.assertTrue(json, Long.parseLong(m.group(4)) >= 0 && Long.parseLong(m.group(4)) <= Long.parseLong(m.group(3)));
+    }
+    Assert.assertTrue(phaseNames.containsAll(Arrays.asList(PropagationCallGraphBuilder.CALL_GRAPH_PHASE,
+        StandardSolver.SOLVER_PHASE, PropagationCallGraphBuilder.CONSTRAINTS_PHASE,
+        PropagationCallGraphBuilder.CONTEXT_SELECTION_PHASE, SSACache.IR_CONSTRUCTION_PHASE)));
+
+    long total = 0;
+    Set<String> operators = HashSetFactory.make();
+    for (Matcher m = EVALUATIONS.matcher(json.substring(evaluations, worklist)); m.find();) {
+      Assert.assertTrue(json, operators.add(m.group(1)));
+      Assert.assertTrue(json, m.group(1).startsWith("com.ibm.wala."));
+      long count = Long.parseLong(m.group(2));
+      Assert.assertTrue(json, count >= 0);
+      total += count;
+    }
+    Assert.assertEquals(metrics.getEvaluations(), total);
+
+    int samples = 0;
+    for (Matcher m = SAMPLE.matcher(json.substring(worklist, quantities)); m.find();) {
+      Assert.assertTrue(json, Long.parseLong(m.group(1)) >= 0 && Long.parseLong(m.group(2)) >= 0);
+      samples++;
+    }
+    Assert.assertEquals(metrics.getWorklistSamples().length, samples);
+
+    boolean pointsToSetSize = false;
+    for (Matcher m = QUANTITY.matcher(json.substring(quantities)); m.find();) {
+      Assert.assertTrue(json, Long.parseLong(m.group(2)) > 0);
+      if (m.group(1).equals(PropagationSystem.POINTS_TO_SET_SIZE)) {
+        Assert.assertEquals(metrics.getPeak(PropagationSystem.POINTS_TO_SET_SIZE), Long.parseLong(m.group(3)));
+        pointsToSetSize = true;
+      }
+    }
+    Assert.assertTrue(json, pointsToSetSize);
+  }
+}
@@ -0,0 +1,122 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.callGraph;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.slicer.SlicerTest;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dataflow.graph.BitVectorSolver;
+import com.ibm.wala.fixpoint.BitVectorVariable;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.CallGraphTransitiveClosure;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.modref.GenReach;
+import com.ibm.wala.ipa.modref.ModRef;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.functions.Function;
+import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.intset.OrdinalSet;
+
+/**
+ * Tests that mod/ref sets and transitive closures over the call graph computed over its strongly connected components, and on
+ * several threads, are those of a fixed point over the whole call graph.
+ */
+public class ModRefTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ModRefTest.class);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    SlicerTest.afterClass();
+  }
+
+  /**
+   * the transitive closure computed by a bit vector fixed point over the inverted call graph
+   */
+  private static <T> Map<CGNode, OrdinalSet<T>> fixedPointClosure(CallGraph cg, Map<CGNode, Collection<T>> nodeResults)
+      throws CancelException {
+    GenReach<CGNode, T> gr = new GenReach<CGNode, T>(GraphInverter.invert(cg), nodeResults);
+    BitVectorSolver<CGNode> solver = new BitVectorSolver<CGNode>(gr);
+    solver.solve(null);
+    Map<CGNode, OrdinalSet<T>> result = HashMapFactory.make();
+    for (CGNode n : cg) {
+      BitVectorVariable bv = solver.getOut(n);
+      result.put(n, new OrdinalSet<T>(bv.getValue(), gr.getLatticeValues()));
+    }
+    return result;
+  }
+
+  private static <T> void assertSameSets(CallGraph cg, Map<CGNode, OrdinalSet<T>> expected, Map<CGNode, OrdinalSet<T>> actual) {
+    for (CGNode n : cg) {
+      Assert.assertEquals(n.toString(), OrdinalSet.toCollection(expected.get(n)), OrdinalSet.toCollection(actual.get(n)));
+    }
+  }
+
+  @Test
+  public void testTransitiveClosure() throws ClassHierarchyException, IOException, CancelException {
+    CallGraph[] cg = new CallGraph[1];
+    SlicerTest.makeZeroOneCFABuilder(TestConstants.SLICE1_MAIN, cg);
+    // each node contributes its declaring class, so most nodes reach many values and share some
+    Map<CGNode, Collection<TypeReference>> nodeResults = CallGraphTransitiveClosure.collectNodeResults(cg[0],
+        new Function<CGNode, Collection<TypeReference>>() {
+          @Override
+          public Collection<TypeReference> apply(CGNode n) {
+            return Collections.singleton(n.getMethod().getDeclaringClass().getReference());
+          }
+        });
+    Map<CGNode, OrdinalSet<TypeReference>> expected = fixedPointClosure(cg[0], nodeResults);
+    Map<CGNode, OrdinalSet<TypeReference>> actual = CallGraphTransitiveClosure.transitiveClosure(cg[0], nodeResults);
+    assertSameSets(cg[0], expected, actual);
+  }
+
+  @Test
+  public void testParallelModRef() throws ClassHierarchyException, IOException, CancelException {
+    CallGraph[] cg = new CallGraph[1];
+    CallGraphBuilder builder = SlicerTest.makeZeroOneCFABuilder(TestConstants.SLICE1_MAIN, cg);
+    PointerAnalysis<InstanceKey> pa = builder.getPointerAnalysis();
+    ModRef<InstanceKey> modRef = ModRef.make();
+    Map<CGNode, OrdinalSet<PointerKey>> mod = modRef.computeMod(cg[0], pa);
+    Map<CGNode, OrdinalSet<PointerKey>> ref = modRef.computeRef(cg[0], pa);
+
+    // a node accesses all that its callees access
+    for (CGNode n : cg[0]) {
+      for (Iterator<CGNode> it = cg[0].getSuccNodes(n); it.hasNext();) {
+        CGNode callee = it.next();
+        Assert.assertTrue(OrdinalSet.toCollection(mod.get(n)).containsAll(OrdinalSet.toCollection(mod.get(callee))));
+        Assert.assertTrue(OrdinalSet.toCollection(ref.get(n)).containsAll(OrdinalSet.toCollection(ref.get(callee))));
+      }
+    }
+
+    ModRef<InstanceKey> parallel = ModRef.make();
+    parallel.setNumberOfThreads(4);
+    assertSameSets(cg[0], mod, parallel.computeMod(cg[0], pa));
+    assertSameSets(cg[0], ref, parallel.computeRef(cg[0], pa));
+  }
+}
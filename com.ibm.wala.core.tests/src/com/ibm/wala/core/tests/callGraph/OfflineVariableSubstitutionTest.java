@@ -0,0 +1,65 @@
+/*******************************************************************************
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.callGraph;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.AllApplicationEntrypoints;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.graph.GraphUtil;
+
+/**
+ * Check that merging equivalent locals before solving does not change the result of the analysis.
+ */
+public class OfflineVariableSubstitutionTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(OfflineVariableSubstitutionTest.class);
+  }
+
+  @Test
+  public void testTestdata() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = CallGraphTestUtil.makeJ2SEAnalysisScope(TestConstants.WALA_TESTDATA,
+        CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchy.make(scope);
+    Iterable<Entrypoint> entrypoints = new AllApplicationEntrypoints(scope, cha);
+
+    AnalysisOptions plain = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    SSAPropagationCallGraphBuilder plainBuilder = Util.makeZeroOneCFABuilder(plain, new AnalysisCache(), cha, scope);
+    CallGraph plainCG = plainBuilder.makeCallGraph(plain, null);
+    Map<String, Integer> expected = ParallelSolverTest.pointsToSizes(plainBuilder.getPointerAnalysis());
+
+    AnalysisOptions substitute = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    substitute.setUseOfflineVariableSubstitution(true);
+    SSAPropagationCallGraphBuilder substituteBuilder = Util.makeZeroOneCFABuilder(substitute, new AnalysisCache(), cha, scope);
+    CallGraph substituteCG = substituteBuilder.makeCallGraph(substitute, null);
+
+    Assert.assertTrue(substituteBuilder.getNumberOfSubstitutedLocals() > 0);
+    Assert.assertEquals(plainCG.getNumberOfNodes(), substituteCG.getNumberOfNodes());
+    Assert.assertEquals(GraphUtil.countEdges(plainCG), GraphUtil.countEdges(substituteCG));
+    Assert.assertEquals(expected, ParallelSolverTest.pointsToSizes(substituteBuilder.getPointerAnalysis()));
+  }
+}
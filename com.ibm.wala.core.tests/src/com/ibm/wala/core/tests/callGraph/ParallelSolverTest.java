@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.callGraph;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.graph.GraphUtil;
+
+/**
+ * Check that solving the points-to constraints with several threads gives the same result as sequential solving.
+ */
+public class ParallelSolverTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ParallelSolverTest.class);
+  }
+
+  @Test
+  public void testJLex() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = CallGraphTestUtil.makeJ2SEAnalysisScope(TestConstants.JLEX, CallGraphTestUtil.REGRESSION_EXCLUSIONS);
+    ClassHierarchy cha = ClassHierarchy.make(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha, TestConstants.JLEX_MAIN);
+
+    AnalysisOptions sequential = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    CallGraphBuilder seqBuilder = Util.makeZeroOneCFABuilder(sequential, new AnalysisCache(), cha, scope);
+    CallGraph seqCG = seqBuilder.makeCallGraph(sequential, null);
+
+    AnalysisOptions parallel = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    parallel.setNumberOfSolverThreads(4);
+    CallGraphBuilder parBuilder = Util.makeZeroOneCFABuilder(parallel, new AnalysisCache(), cha, scope);
+    CallGraph parCG = parBuilder.makeCallGraph(parallel, null);
+
+    Assert.assertEquals(seqCG.getNumberOfNodes(), parCG.getNumberOfNodes());
+    Assert.assertEquals(GraphUtil.countEdges(seqCG), GraphUtil.countEdges(parCG));
+    Assert.assertEquals(pointsToSizes(seqBuilder.getPointerAnalysis()), pointsToSizes(parBuilder.getPointerAnalysis()));
+  }
+
+  static Map<String, Integer> pointsToSizes(PointerAnalysis<InstanceKey> pa) {
+    Map<String, Integer> result = HashMapFactory.make();
+    for (PointerKey pk : pa.getPointerKeys()) {
+      String key = pk.toString();
+      int size = pa.getPointsToSet(pk).size();
+      Integer old = result.get(key);
+      result.put(key, old == null ? size : old + size);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.callGraph;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.slicer.SlicerTest;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import com.ibm.wala.ipa.callgraph.propagation.AbstractLocalPointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointsToProfiler;
+import com.ibm.wala.ipa.callgraph.propagation.PointsToProfiler.Profile;
+import com.ibm.wala.ipa.callgraph.propagation.SSAPropagationCallGraphBuilder;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+
+/**
+ * Tests that a {@link PointsToProfiler} charges every evaluation of the solver to some pointer key, groups the charges by call
+ * graph node and by kind of key, and charges assignments in delta propagation mode only for their deltas.
+ */
+public class PointsToProfilerTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(PointsToProfilerTest.class);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    SlicerTest.afterClass();
+  }
+
+  private static PointsToProfiler profile(boolean useDeltaPropagation, CallGraph[] cg) throws ClassHierarchyException,
+      IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = SlicerTest.findOrCreateAnalysisScope();
+    IClassHierarchy cha = SlicerTest.findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha, TestConstants.SLICE1_MAIN);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    options.setUseDeltaPropagation(useDeltaPropagation);
+    SSAPropagationCallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCache(), cha, scope);
+    PointsToProfiler profiler = new PointsToProfiler();
+    builder.setPointsToProfiler(profiler);
+    cg[0] = builder.makeCallGraph(options, null);
+    return profiler;
+  }
+
+  private static long elementsScanned(PointsToProfiler profiler) {
+    long result = 0;
+    for (Profile p : profiler.getPointerKeyProfiles().values()) {
+      result += p.getElementsScanned();
+    }
+    return result;
+  }
+
+  @Test
+  public void testProfile() throws ClassHierarchyException, IOException, IllegalArgumentException, CancelException {
+    CallGraph[] cgs = new CallGraph[1];
+    PointsToProfiler profiler = profile(false, cgs);
+    CallGraph cg = cgs[0];
+
+    Assert.assertTrue(profiler.getEvaluations() > 0);
+    long total = 0;
+    long local = 0;
+    for (Map.Entry<PointerKey, Profile> e : profiler.getPointerKeyProfiles().entrySet()) {
+      Profile p = e.getValue();
+      Assert.assertTrue(p.getEvaluations() > 0);
+      Assert.assertTrue(p.getFruitlessEvaluations() <= p.getEvaluations());
+      total += p.getEvaluations();
+      if (e.getKey() instanceof AbstractLocalPointerKey) {
+        local += p.getEvaluations();
+      }
+    }
+    Assert.assertEquals(profiler.getEvaluations(), total);
+
+    long byKind = 0;
+    for (Profile p : profiler.getKindProfiles().values()) {
+      byKind += p.getEvaluations();
+    }
+    Assert.assertEquals(total, byKind);
+
+    long byNode = 0;
+    for (Map.Entry<CGNode, Profile> e : profiler.getNodeProfiles().entrySet()) {
+      Assert.assertTrue(cg.containsNode(e.getKey()));
+      byNode += e.getValue().getEvaluations();
+    }
+    Assert.assertEquals(local, byNode);
+
+    List<Map.Entry<PointerKey, Profile>> top = PointsToProfiler.top(profiler.getPointerKeyProfiles(), 5);
+    Assert.assertEquals(5, top.size());
+    for (int i = 1; i < top.size(); i++) {
+      Assert.assertTrue(top.get(i - 1).getValue().getEvaluations() >= top.get(i).getValue().getEvaluations());
+    }
+    String report = profiler.report(5);
+    Assert.assertTrue(report.contains(top.get(0).getKey().toString()));
+  }
+
+  /**
+   * In delta propagation mode, an assignment is charged only for the elements it propagates, not for its whole right-hand side.
+   */
+  @Test
+  public void testDeltaPropagation() throws ClassHierarchyException, IOException, IllegalArgumentException, CancelException {
+    CallGraph[] cg = new CallGraph[1];
+    PointsToProfiler fullProfiler = profile(false, cg);
+    PointsToProfiler deltaProfiler = profile(true, cg);
+    long full = elementsScanned(fullProfiler);
+    long delta = elementsScanned(deltaProfiler);
+    Assert.assertTrue(delta + " elements scanned with delta propagation, " + full + " without", delta < full);
+
+    // the saving is in the assignments, which are evaluated as often in both modes
+    Assert.assertEquals(fullProfiler.getAssignmentEvaluations(), deltaProfiler.getAssignmentEvaluations());
+    Assert.assertTrue(deltaProfiler.getElementsPropagatedByAssignments() < fullProfiler.getElementsPropagatedByAssignments());
+    Assert.assertEquals(full - delta, fullProfiler.getElementsPropagatedByAssignments()
+        - deltaProfiler.getElementsPropagatedByAssignments());
+  }
+}
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.cha;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.ClassHeaderCache;
+import com.ibm.wala.classLoader.FieldImpl;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IField;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.io.FileProvider;
+
+/**
+ * Check that a class hierarchy rehydrated from a {@link ClassHeaderCache} matches one built by parsing the class files.
+ */
+public class ClassHeaderCacheTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ClassHeaderCacheTest.class);
+  }
+
+  private static AnalysisScope makeScope(ClassHeaderCache cache) throws IOException {
+    AnalysisScope scope = AnalysisScopeReader.readJavaScope(TestConstants.WALA_TESTDATA,
+        (new FileProvider()).getFile("J2SEClassHierarchyExclusions.txt"), ClassHeaderCacheTest.class.getClassLoader());
+    scope.setClassHeaderCache(cache);
+    return scope;
+  }
+
+  @Test
+  public void testRehydrate() throws IOException, ClassHierarchyException {
+    File dir = File.createTempFile("wala", "headers");
+    Assert.assertTrue(dir.delete());
+    ClassHeaderCache cache = new ClassHeaderCache(dir);
+    try {
+      ClassHierarchy parsed = ClassHierarchy.make(makeScope(null));
+
+      // the first build populates the cache, the second reads it
+      ClassHierarchy.make(makeScope(cache));
+      Assert.assertTrue(dir.list().length > 0);
+      ClassHierarchy cached = ClassHierarchy.make(makeScope(cache));
+
+      Assert.assertEquals(parsed.getNumberOfClasses(), cached.getNumberOfClasses());
+      for (IClass c : parsed) {
+        IClass d = cached.lookupClass(c.getReference());
+        Assert.assertNotNull(c.toString(), d);
+        Assert.assertEquals(c.getModifiers(), d.getModifiers());
+        Assert.assertEquals(c.getSuperclass() == null ? null : c.getSuperclass().getReference(), d.getSuperclass() == null ? null
+            : d.getSuperclass().getReference());
+        Assert.assertEquals(references(c.getDirectInterfaces()), references(d.getDirectInterfaces()));
+        Assert.assertEquals(fields(c.getDeclaredInstanceFields()), fields(d.getDeclaredInstanceFields()));
+        Assert.assertEquals(fields(c.getDeclaredStaticFields()), fields(d.getDeclaredStaticFields()));
+        Assert.assertEquals(c.getDeclaredMethods().size(), d.getDeclaredMethods().size());
+      }
+    } finally {
+      File[] files = dir.listFiles();
+      if (files != null) {
+        for (File f : files) {
+          f.delete();
+        }
+      }
+      dir.delete();
+    }
+  }
+
+  private static Set<Object> references(Collection<? extends IClass> classes) {
+    Set<Object> result = HashSetFactory.make();
+    for (IClass c : classes) {
+      result.add(c.getReference());
+    }
+    return result;
+  }
+
+  private static Set<String> fields(Collection<IField> fields) {
+    Set<String> result = HashSetFactory.make();
+    for (IField f : fields) {
+      result.add(f.getReference() + " " + f.isFinal() + " " + f.isPrivate() + " " + f.isVolatile() + " "
+          + ((FieldImpl) f).getGenericSignature());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.cha;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.jar.JarFile;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.JarFileModule;
+import com.ibm.wala.classLoader.MappedJarFileModule;
+import com.ibm.wala.classLoader.ModuleEntry;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.io.FileProvider;
+import com.ibm.wala.util.io.FileUtil;
+
+/**
+ * Check that a {@link MappedJarFileModule} reads the same bytes as a {@link JarFile}.
+ */
+public class MappedJarFileModuleTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(MappedJarFileModuleTest.class);
+  }
+
+  @Test
+  public void testContents() throws IOException {
+    JarFile jar = new JarFile((new FileProvider()).getFile("com.ibm.wala.core.testdata_1.0.0.jar", getClass().getClassLoader()),
+        false);
+    MappedJarFileModule mapped = new MappedJarFileModule(jar);
+    int count = 0;
+    for (Iterator<ModuleEntry> it = mapped.getEntries(); it.hasNext();) {
+      ModuleEntry e = it.next();
+      byte[] expected = FileUtil.readBytes(jar.getInputStream(jar.getEntry(e.getName())));
+      InputStream s = e.getInputStream();
+      Assert.assertArrayEquals(e.getName(), expected, FileUtil.readBytes(s));
+      s.close();
+      if (!e.getName().endsWith("/")) {
+        Assert.assertArrayEquals(e.getName(), expected, MappedJarFileModule.readContents(e));
+      }
+      count++;
+    }
+    Assert.assertTrue(count > 0);
+    Assert.assertNull(MappedJarFileModule.readContents(new JarFileModule(jar).getEntries().next()));
+  }
+
+  @Test
+  public void testClassHierarchy() throws IOException, ClassHierarchyException {
+    ClassHierarchy plain = ClassHierarchy.make(makeScope(false));
+    ClassHierarchy mapped = ClassHierarchy.make(makeScope(true));
+    Assert.assertEquals(plain.getNumberOfClasses(), mapped.getNumberOfClasses());
+    for (IClass c : plain) {
+      IClass d = mapped.lookupClass(c.getReference());
+      Assert.assertNotNull(c.toString(), d);
+      Assert.assertEquals(c.getDeclaredMethods().size(), d.getDeclaredMethods().size());
+    }
+  }
+
+  private static AnalysisScope makeScope(boolean map) throws IOException {
+    AnalysisScope scope = AnalysisScopeReader.readJavaScope(TestConstants.WALA_TESTDATA,
+        (new FileProvider()).getFile("J2SEClassHierarchyExclusions.txt"), MappedJarFileModuleTest.class.getClassLoader());
+    scope.setMapJarFiles(map);
+    return scope;
+  }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.cha;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.io.FileProvider;
+
+/**
+ * Check that parsing class files on several threads builds the same class hierarchy as parsing them on one.
+ */
+public class ParallelClassLoadingTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ParallelClassLoadingTest.class);
+  }
+
+  private static AnalysisScope makeScope(int threads) throws IOException {
+    AnalysisScope scope = AnalysisScopeReader.readJavaScope(TestConstants.WALA_TESTDATA,
+        (new FileProvider()).getFile("J2SEClassHierarchyExclusions.txt"), ParallelClassLoadingTest.class.getClassLoader());
+    scope.setNumberOfLoaderThreads(threads);
+    return scope;
+  }
+
+  @Test
+  public void testParallelLoading() throws IOException, ClassHierarchyException {
+    ClassHierarchy sequential = ClassHierarchy.make(makeScope(1));
+    ClassHierarchy parallel = ClassHierarchy.make(makeScope(4));
+
+    Assert.assertEquals(sequential.getNumberOfClasses(), parallel.getNumberOfClasses());
+    for (IClass c : sequential) {
+      IClass d = parallel.lookupClass(c.getReference());
+      Assert.assertNotNull(c.toString(), d);
+      Assert.assertEquals(c.getModifiers(), d.getModifiers());
+      Assert.assertEquals(c.getSuperclass() == null ? null : c.getSuperclass().getReference(), d.getSuperclass() == null ? null
+          : d.getSuperclass().getReference());
+      Assert.assertEquals(references(c.getDirectInterfaces()), references(d.getDirectInterfaces()));
+      Assert.assertEquals(c.getDeclaredInstanceFields().size(), d.getDeclaredInstanceFields().size());
+      Assert.assertEquals(c.getDeclaredStaticFields().size(), d.getDeclaredStaticFields().size());
+      Assert.assertEquals(c.getDeclaredMethods().size(), d.getDeclaredMethods().size());
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidNumberOfThreads() throws IOException {
+    makeScope(0);
+  }
+
+  private static Set<Object> references(Collection<? extends IClass> classes) {
+    Set<Object> result = HashSetFactory.make();
+    for (IClass c : classes) {
+      result.add(c.getReference());
+    }
+    return result;
+  }
+}
@@ -0,0 +1,116 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.BitVectorRepository;
+import com.ibm.wala.util.intset.MutableSharedBitVectorIntSet;
+
+/**
+ * Tests for {@link BitVectorRepository}. The repository is global, so each test uses values no other test uses.
+ */
+public class BitVectorRepositoryTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(BitVectorRepositoryTest.class);
+  }
+
+  private static BitVectorIntSet range(int from, int to) {
+    BitVectorIntSet result = new BitVectorIntSet();
+    for (int i = from; i < to; i++) {
+      result.add(i);
+    }
+    return result;
+  }
+
+  @Test
+  public void testHashConsing() {
+    long queries = BitVectorRepository.getQueries();
+    long exact = BitVectorRepository.getExactHits();
+    BitVectorIntSet a = BitVectorRepository.findOrCreateSharedSubset(range(100000, 100100));
+    Assert.assertEquals(100, a.size());
+    BitVectorIntSet b = range(100000, 100100);
+    // the same bits in a longer array
+    b.add(200000);
+    b.remove(200000);
+    Assert.assertSame(a, BitVectorRepository.findOrCreateSharedSubset(b));
+    Assert.assertEquals(queries + 2, BitVectorRepository.getQueries());
+    Assert.assertEquals(exact + 1, BitVectorRepository.getExactHits());
+
+    BitVectorIntSet other = BitVectorRepository.findOrCreateSharedSubset(range(100001, 100101));
+    Assert.assertNotSame(a, other);
+    Assert.assertTrue(other.sameValue(range(100001, 100101)));
+  }
+
+  @Test
+  public void testSharedSubset() {
+    BitVectorIntSet a = BitVectorRepository.findOrCreateSharedSubset(range(110000, 110100));
+    BitVectorIntSet bigger = range(110000, 110103);
+    Assert.assertSame(a, BitVectorRepository.findOrCreateSharedSubset(bigger));
+    // too many bits more than a
+    BitVectorIntSet tooBig = BitVectorRepository.findOrCreateSharedSubset(range(110000, 110110));
+    Assert.assertEquals(110, tooBig.size());
+  }
+
+  @Test
+  public void testConcurrentSharing() throws Exception {
+    final int N = 500;
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<BitVectorIntSet[]>> results = new ArrayList<Future<BitVectorIntSet[]>>();
+      for (int t = 0; t < 4; t++) {
+        results.add(pool.submit(new Callable<BitVectorIntSet[]>() {
+          @Override
+          public BitVectorIntSet[] call() {
+            BitVectorIntSet[] result = new BitVectorIntSet[N];
+            for (int i = 0; i < N; i++) {
+              // disjoint values, so no value has a subset in the repository
+              result[i] = BitVectorRepository.findOrCreateSharedSubset(range(120000 + 100 * i, 120000 + 100 * i + 50));
+            }
+            return result;
+          }
+        }));
+      }
+      BitVectorIntSet[] first = results.get(0).get();
+      for (Future<BitVectorIntSet[]> f : results) {
+        BitVectorIntSet[] r = f.get();
+        for (int i = 0; i < N; i++) {
+          Assert.assertSame(first[i], r[i]);
+          Assert.assertTrue(r[i].sameValue(range(120000 + 100 * i, 120000 + 100 * i + 50)));
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    Assert.assertTrue(BitVectorRepository.getSharingRatio() > 0.0);
+  }
+
+  @Test
+  public void testSharedIntSets() {
+    long exact = BitVectorRepository.getExactHits();
+    MutableSharedBitVectorIntSet a = new MutableSharedBitVectorIntSet(range(130000, 130200));
+    MutableSharedBitVectorIntSet b = new MutableSharedBitVectorIntSet(range(130000, 130200));
+    Assert.assertTrue(a.sameValue(b));
+    // the second set shares the bits of the first
+    Assert.assertEquals(exact + 1, BitVectorRepository.getExactHits());
+  }
+}
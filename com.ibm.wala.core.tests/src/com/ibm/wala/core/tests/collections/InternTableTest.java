@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.collections;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.InternTable;
+
+/**
+ * Tests for {@link InternTable} and the interning of type references built on it.
+ */
+public class InternTableTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(InternTableTest.class);
+  }
+
+  @Test
+  public void testConcurrentInterning() throws Exception {
+    final int N = 2000;
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<TypeReference[]>> results = new ArrayList<Future<TypeReference[]>>();
+      for (int t = 0; t < 4; t++) {
+        results.add(pool.submit(new Callable<TypeReference[]>() {
+          @Override
+          public TypeReference[] call() {
+            TypeReference[] result = new TypeReference[N];
+            for (int i = 0; i < N; i++) {
+              result[i] = TypeReference.findOrCreate(ClassLoaderReference.Application, "Lintern/C" + i);
+            }
+            return result;
+          }
+        }));
+      }
+      TypeReference[] first = results.get(0).get();
+      for (Future<TypeReference[]> f : results) {
+        TypeReference[] other = f.get();
+        for (int i = 0; i < N; i++) {
+          Assert.assertSame(first[i], other[i]);
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testWeakMode() {
+    InternTable<String, Object> table = new InternTable<String, Object>();
+    Object strong = new Object();
+    Assert.assertSame(strong, table.intern("strong", strong));
+    Assert.assertSame(strong, table.intern("strong", new Object()));
+
+    InternTable.setWeak(true);
+    try {
+      Object kept = table.intern("kept", new Object());
+      WeakReference<Object> dropped = new WeakReference<Object>(table.intern("dropped", new Object()));
+      strong = null;
+      for (int i = 0; i < 100 && dropped.get() != null; i++) {
+        System.gc();
+      }
+      Assert.assertNull(dropped.get());
+      Assert.assertNull(table.find("dropped"));
+      Assert.assertNull(table.find("strong"));
+      Assert.assertSame(kept, table.find("kept"));
+      // stale entries are dropped once the collector enqueues their references
+      for (int i = 0; i < 100 && table.size() > 1; i++) {
+        System.gc();
+      }
+      Assert.assertEquals(1, table.size());
+
+      // canonical values that are still reachable keep their identity across modes
+      TypeReference t = TypeReference.findOrCreate(ClassLoaderReference.Application, "Lintern/Weak");
+      InternTable.setWeak(false);
+      Assert.assertSame(t, TypeReference.findOrCreate(ClassLoaderReference.Application, "Lintern/Weak"));
+      Assert.assertSame(kept, table.find("kept"));
+    } finally {
+      InternTable.setWeak(false);
+    }
+  }
+}
@@ -0,0 +1,177 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.collections;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dataflow.IFDS.CompactLocalPathEdges;
+import com.ibm.wala.dataflow.IFDS.LocalPathEdges;
+import com.ibm.wala.util.intset.IntSet;
+
+/**
+ * Tests that {@link CompactLocalPathEdges} answers queries like {@link LocalPathEdges}.
+ */
+public class LocalPathEdgesTest extends WalaTestCase {
+
+  private static final int NODES = 300;
+
+  private static final int FACTS = 3000;
+
+  public static void main(String[] args) {
+    justThisTest(LocalPathEdgesTest.class);
+  }
+
+  /**
+   * a path edge (i, n, j) mostly from a fact other than 0 to a different fact, as in problems with many facts
+   */
+  private static int[] randomEdge(Random r) {
+    int n = r.nextInt(NODES);
+    int j = r.nextInt(FACTS);
+    int k = r.nextInt(10);
+    int i = k == 0 ? 0 : k == 1 ? j : 1 + r.nextInt(FACTS - 1);
+    return new int[] { i, n, j };
+  }
+
+  private static boolean same(IntSet a, IntSet b) {
+    if (a == null || a.isEmpty()) {
+      return b == null || b.isEmpty();
+    }
+    return b != null && a.sameValue(b);
+  }
+
+  private static void check(boolean fastMerge) {
+    Random r = new Random(42);
+    LocalPathEdges expected = new LocalPathEdges(fastMerge);
+    LocalPathEdges compact = new CompactLocalPathEdges(fastMerge);
+    for (int k = 0; k < 50000; k++) {
+      int[] e = randomEdge(r);
+      expected.addPathEdge(e[0], e[1], e[2]);
+      compact.addPathEdge(e[0], e[1], e[2]);
+    }
+    for (int k = 0; k < 50000; k++) {
+      int[] e = randomEdge(r);
+      Assert.assertEquals(expected.contains(e[0], e[1], e[2]), compact.contains(e[0], e[1], e[2]));
+      Assert.assertTrue(same(expected.getInverse(e[1], e[2]), compact.getInverse(e[1], e[2])));
+    }
+    for (int n = 0; n < NODES; n += 7) {
+      Assert.assertTrue(same(expected.getReachable(n), compact.getReachable(n)));
+      for (int d1 = 0; d1 < FACTS; d1 += 13) {
+        Assert.assertTrue(same(expected.getReachable(n, d1), compact.getReachable(n, d1)));
+      }
+    }
+    Assert.assertTrue(expected.getReachedNodeNumbers().sameValue(compact.getReachedNodeNumbers()));
+  }
+
+  /**
+   * @return a copy of from in to, made with {@link LocalPathEdges#writeEdges(java.io.DataOutput)}
+   */
+  private static LocalPathEdges copy(LocalPathEdges from, LocalPathEdges to) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    from.writeEdges(out);
+    out.flush();
+    to.readEdges(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    return to;
+  }
+
+  @Test
+  public void testWriteEdges() throws IOException {
+    Random r = new Random(42);
+    LocalPathEdges expected = new LocalPathEdges(false);
+    LocalPathEdges compact = new CompactLocalPathEdges(false);
+    for (int k = 0; k < 20000; k++) {
+      int[] e = randomEdge(r);
+      expected.addPathEdge(e[0], e[1], e[2]);
+      compact.addPathEdge(e[0], e[1], e[2]);
+    }
+    LocalPathEdges copy1 = copy(expected, new CompactLocalPathEdges(false));
+    LocalPathEdges copy2 = copy(compact, new LocalPathEdges(false));
+    for (int k = 0; k < 50000; k++) {
+      int[] e = randomEdge(r);
+      boolean contains = expected.contains(e[0], e[1], e[2]);
+      Assert.assertEquals(contains, copy1.contains(e[0], e[1], e[2]));
+      Assert.assertEquals(contains, copy2.contains(e[0], e[1], e[2]));
+    }
+    for (int n = 0; n < NODES; n++) {
+      Assert.assertTrue(same(expected.getReachable(n), copy1.getReachable(n)));
+      Assert.assertTrue(same(expected.getReachable(n), copy2.getReachable(n)));
+    }
+  }
+
+  @Test
+  public void testSameEdges() {
+    check(false);
+  }
+
+  @Test
+  public void testSameEdgesFastMerge() {
+    check(true);
+  }
+
+  /**
+   * check that the two tables give the same answer to each query about nodes below nodes and facts below facts
+   */
+  private static void checkAllQueries(LocalPathEdges expected, LocalPathEdges compact, int nodes, int facts) {
+    for (int n = 0; n < nodes; n++) {
+      Assert.assertTrue(same(expected.getReachable(n), compact.getReachable(n)));
+      for (int d = 0; d < facts; d++) {
+        Assert.assertTrue(same(expected.getInverse(n, d), compact.getInverse(n, d)));
+        Assert.assertTrue(same(expected.getReachable(n, d), compact.getReachable(n, d)));
+        for (int d2 = 0; d2 < facts; d2++) {
+          Assert.assertEquals(expected.contains(d, n, d2), compact.contains(d, n, d2));
+        }
+      }
+    }
+    Assert.assertTrue(same(expected.getReachedNodeNumbers(), compact.getReachedNodeNumbers()));
+  }
+
+  /**
+   * Add the same sequence of edges over a small space, including repeated edges and edges from 0 and to the same fact, to both
+   * tables, and compare the answers to every query after each edge.
+   */
+  private static void checkEdgeSequence(boolean fastMerge) {
+    final int nodes = 6;
+    final int facts = 8;
+    Random r = new Random(7);
+    LocalPathEdges expected = new LocalPathEdges(fastMerge);
+    LocalPathEdges compact = new CompactLocalPathEdges(fastMerge);
+    checkAllQueries(expected, compact, nodes, facts);
+    for (int k = 0; k < 200; k++) {
+      int i = r.nextInt(facts);
+      int n = r.nextInt(nodes);
+      int j = r.nextInt(3) == 0 ? i : r.nextInt(facts);
+      Assert.assertEquals(expected.contains(i, n, j), compact.contains(i, n, j));
+      expected.addPathEdge(i, n, j);
+      compact.addPathEdge(i, n, j);
+      Assert.assertTrue(compact.contains(i, n, j));
+      checkAllQueries(expected, compact, nodes, facts);
+    }
+  }
+
+  @Test
+  public void testEdgeSequence() {
+    checkEdgeSequence(false);
+  }
+
+  @Test
+  public void testEdgeSequenceFastMerge() {
+    checkEdgeSequence(true);
+  }
+}
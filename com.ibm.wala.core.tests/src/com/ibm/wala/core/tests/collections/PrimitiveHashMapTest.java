@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.collections;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.IntIntHashMap;
+import com.ibm.wala.util.collections.IntObjectHashMap;
+import com.ibm.wala.util.collections.LongIntHashMap;
+import com.ibm.wala.util.collections.ObjectIntHashMap;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.LongIterator;
+
+/**
+ * Tests that the primitive hash maps of {@link com.ibm.wala.util.collections} agree with {@link java.util.HashMap} under random
+ * insertions and removals, including the keys the maps treat specially.
+ */
+public class PrimitiveHashMapTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(PrimitiveHashMapTest.class);
+  }
+
+  private static final int OPERATIONS = 20000;
+
+  /**
+   * keys drawn from a small range, so that removals hit present keys and the tables see long probe runs
+   */
+  private static int randomKey(Random r) {
+    return r.nextInt(2000) - 100;
+  }
+
+  @Test
+  public void testObjectIntHashMap() {
+    Random r = new Random(11);
+    ObjectIntHashMap<String> map = new ObjectIntHashMap<String>();
+    Map<String, Integer> expected = HashMapFactory.make();
+    for (int i = 0; i < OPERATIONS; i++) {
+      int k = randomKey(r);
+      String key = k < 0 ? null : String.valueOf(k);
+      if (r.nextInt(3) == 0) {
+        Integer old = expected.remove(key);
+        Assert.assertEquals(old == null ? -1 : old.intValue(), map.remove(key));
+      } else {
+        Integer old = expected.put(key, i);
+        Assert.assertEquals(old == null ? -1 : old.intValue(), map.put(key, i));
+      }
+      Assert.assertEquals(expected.size(), map.size());
+    }
+    for (int k = -100; k < 1900; k++) {
+      String key = k < 0 ? null : String.valueOf(k);
+      Integer v = expected.get(key);
+      Assert.assertEquals(v != null, map.containsKey(key));
+      Assert.assertEquals(v == null ? -1 : v.intValue(), map.get(key));
+    }
+    Set<String> keys = HashSetFactory.make();
+    for (Iterator<String> it = map.keyIterator(); it.hasNext();) {
+      Assert.assertTrue(keys.add(it.next()));
+    }
+    Assert.assertEquals(expected.keySet(), keys);
+    Assert.assertEquals(expected.keySet(), map.keySet());
+
+    for (String key : expected.keySet()) {
+      Assert.assertEquals(expected.get(key).intValue(), map.putIfAbsent(key, -2));
+    }
+    Assert.assertEquals(-1, map.putIfAbsent("absent", 7));
+    Assert.assertEquals(7, map.get("absent"));
+    Assert.assertEquals(7, map.remove("absent"));
+
+    ObjectIntHashMap<String> copy = new ObjectIntHashMap<String>(map);
+    copy.put("copy", 1);
+    Assert.assertFalse(map.containsKey("copy"));
+    Assert.assertEquals(map.size() + 1, copy.size());
+
+    map.clear();
+    Assert.assertTrue(map.isEmpty());
+    Assert.assertFalse(map.keyIterator().hasNext());
+  }
+
+  /**
+   * a key whose hash code changes across serialization
+   */
+  private static final class IdentityKey implements Serializable {
+    private static final long serialVersionUID = 1L;
+  }
+
+  @Test
+  public void testObjectIntHashMapSerialization() throws IOException, ClassNotFoundException {
+    ObjectIntHashMap<Object> map = new ObjectIntHashMap<Object>();
+    Object[] keys = new Object[100];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = new IdentityKey();
+      map.put(keys[i], i);
+    }
+    map.put(null, 100);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(map);
+    out.close();
+    @SuppressWarnings("unchecked")
+    ObjectIntHashMap<Object> read = (ObjectIntHashMap<Object>) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))
+        .readObject();
+    Assert.assertEquals(map.size(), read.size());
+    Assert.assertEquals(100, read.get(null));
+    Set<Integer> values = HashSetFactory.make();
+    for (Iterator<Object> it = read.keyIterator(); it.hasNext();) {
+      int v = read.get(it.next());
+      Assert.assertTrue(v != -1);
+      values.add(v);
+    }
+    Assert.assertEquals(keys.length + 1, values.size());
+  }
+
+  @Test
+  public void testIntIntHashMap() {
+    Random r = new Random(13);
+    IntIntHashMap map = new IntIntHashMap(4, Integer.MIN_VALUE);
+    Map<Integer, Integer> expected = HashMapFactory.make();
+    for (int i = 0; i < OPERATIONS; i++) {
+      int key = randomKey(r);
+      if (r.nextInt(3) == 0) {
+        Integer old = expected.remove(key);
+        Assert.assertEquals(old == null ? Integer.MIN_VALUE : old.intValue(), map.remove(key));
+      } else {
+        Integer old = expected.put(key, i);
+        Assert.assertEquals(old == null ? Integer.MIN_VALUE : old.intValue(), map.put(key, i));
+      }
+      Assert.assertEquals(expected.size(), map.size());
+    }
+    for (int key = -100; key < 1900; key++) {
+      Integer v = expected.get(key);
+      Assert.assertEquals(v != null, map.containsKey(key));
+      Assert.assertEquals(v == null ? Integer.MIN_VALUE : v.intValue(), map.get(key));
+    }
+    Set<Integer> keys = HashSetFactory.make();
+    for (IntIterator it = map.keyIterator(); it.hasNext();) {
+      Assert.assertTrue(keys.add(it.next()));
+    }
+    Assert.assertEquals(expected.keySet(), keys);
+
+    map.clear();
+    Assert.assertTrue(map.isEmpty());
+    Assert.assertFalse(map.containsKey(0));
+  }
+
+  @Test
+  public void testLongIntHashMap() {
+    Random r = new Random(17);
+    LongIntHashMap map = new LongIntHashMap();
+    Map<Long, Integer> expected = HashMapFactory.make();
+    for (int i = 0; i < OPERATIONS; i++) {
+      // keys that differ only in their high words
+      long key = ((long) randomKey(r) << 32) | r.nextInt(2);
+      if (r.nextInt(3) == 0) {
+        Integer old = expected.remove(key);
+        Assert.assertEquals(old == null ? -1 : old.intValue(), map.remove(key));
+      } else {
+        Integer old = expected.put(key, i);
+        Assert.assertEquals(old == null ? -1 : old.intValue(), map.put(key, i));
+      }
+      Assert.assertEquals(expected.size(), map.size());
+    }
+    for (Map.Entry<Long, Integer> e : expected.entrySet()) {
+      Assert.assertEquals(e.getValue().intValue(), map.get(e.getKey()));
+    }
+    Set<Long> keys = HashSetFactory.make();
+    for (LongIterator it = map.keyIterator(); it.hasNext();) {
+      Assert.assertTrue(keys.add(it.next()));
+    }
+    Assert.assertEquals(expected.keySet(), keys);
+  }
+
+  @Test
+  public void testIntObjectHashMap() {
+    Random r = new Random(19);
+    IntObjectHashMap<String> map = new IntObjectHashMap<String>();
+    Map<Integer, String> expected = HashMapFactory.make();
+    for (int i = 0; i < OPERATIONS; i++) {
+      int key = randomKey(r);
+      if (r.nextInt(3) == 0) {
+        Assert.assertEquals(expected.remove(key), map.remove(key));
+      } else {
+        String value = String.valueOf(i);
+        Assert.assertEquals(expected.put(key, value), map.put(key, value));
+      }
+      Assert.assertEquals(expected.size(), map.size());
+    }
+    for (int key = -100; key < 1900; key++) {
+      Assert.assertEquals(expected.get(key), map.get(key));
+      Assert.assertEquals(expected.containsKey(key), map.containsKey(key));
+    }
+    Set<Integer> keys = HashSetFactory.make();
+    for (IntIterator it = map.keyIterator(); it.hasNext();) {
+      Assert.assertTrue(keys.add(it.next()));
+    }
+    Assert.assertEquals(expected.keySet(), keys);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testIntObjectHashMapRejectsNull() {
+    new IntObjectHashMap<String>().put(1, null);
+  }
+}
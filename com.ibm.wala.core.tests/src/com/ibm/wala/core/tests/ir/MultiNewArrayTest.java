@@ -18,6 +18,7 @@ import org.junit.Test;
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.classLoader.NewSiteReference;
 import com.ibm.wala.core.tests.util.TestConstants;
 import com.ibm.wala.core.tests.util.WalaTestCase;
 import com.ibm.wala.ipa.callgraph.AnalysisCache;
@@ -57,7 +58,16 @@ public class MultiNewArrayTest extends WalaTestCase {
         Assert.assertTrue(instr.getNumberOfUses() == 2);
         Assert.assertTrue(ir.getSymbolTable().getIntValue(instr.getUse(0)) == 3);
         Assert.assertTrue(ir.getSymbolTable().getIntValue(instr.getUse(1)) == 4);
+        Assert.assertSame(instr, ir.getNew(((SSANewInstruction) instr).getNewSite()));
       }
     }
+    NewSiteReference missing = NewSiteReference.make(Integer.MAX_VALUE, TypeReference.JavaLangObject);
+    Assert.assertEquals(-1, ir.getNewInstructionIndex(missing));
+    try {
+      ir.getNew(missing);
+      Assert.fail("found an allocation site that is not in the IR");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
   }
 }
@@ -0,0 +1,91 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.ir;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.IBytecodeMethod;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisCache;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.SSAOptions;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.io.FileProvider;
+
+/**
+ * Check that IR built from method bodies that are read and decoded on demand, after the class files were dropped, matches IR
+ * built while the class files are retained.
+ */
+public class ReleaseClassFilesTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ReleaseClassFilesTest.class);
+  }
+
+  private static ClassHierarchy makeClassHierarchy(boolean release) throws IOException, ClassHierarchyException {
+    AnalysisScope scope = AnalysisScopeReader.readJavaScope(TestConstants.WALA_TESTDATA,
+        (new FileProvider()).getFile("J2SEClassHierarchyExclusions.txt"), ReleaseClassFilesTest.class.getClassLoader());
+    scope.setReleaseClassFiles(release);
+    return ClassHierarchy.make(scope);
+  }
+
+  @Test
+  public void testIR() throws IOException, ClassHierarchyException, InvalidClassFileException {
+    ClassHierarchy retained = makeClassHierarchy(false);
+    ClassHierarchy released = makeClassHierarchy(true);
+    AnalysisCache retainedCache = new AnalysisCache();
+    AnalysisCache releasedCache = new AnalysisCache();
+    SSAOptions options = SSAOptions.defaultOptions();
+    int methods = 0;
+    for (IClass c : retained) {
+      if (!c.getClassLoader().getReference().equals(retained.getScope().getApplicationLoader())) {
+        continue;
+      }
+      IClass d = released.lookupClass(c.getReference());
+      Assert.assertNotNull(c.toString(), d);
+      for (IMethod m : c.getDeclaredMethods()) {
+        IMethod n = d.getMethod(m.getSelector());
+        Assert.assertNotNull(m.toString(), n);
+        Assert.assertEquals(Arrays.asList(m.getDeclaredExceptions()), Arrays.asList(n.getDeclaredExceptions()));
+        if (m.isAbstract() || m.isNative()) {
+          continue;
+        }
+        IR ir1 = retainedCache.getSSACache().findOrCreateIR(m, Everywhere.EVERYWHERE, options);
+        IR ir2 = releasedCache.getSSACache().findOrCreateIR(n, Everywhere.EVERYWHERE, options);
+        SSAInstruction[] s1 = ir1.getInstructions();
+        SSAInstruction[] s2 = ir2.getInstructions();
+        Assert.assertEquals(m.toString(), s1.length, s2.length);
+        for (int i = 0; i < s1.length; i++) {
+          Assert.assertEquals(m.toString(), String.valueOf(s1[i]), String.valueOf(s2[i]));
+          if (s1[i] != null) {
+            int bc = ((IBytecodeMethod) m).getBytecodeIndex(i);
+            Assert.assertEquals(m.getLineNumber(bc), n.getLineNumber(bc));
+          }
+        }
+        methods++;
+      }
+    }
+    Assert.assertTrue(methods > 0);
+  }
+}
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.ir;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.Context;
+import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.ipa.cha.ClassHierarchy;
+import com.ibm.wala.ssa.DefUse;
+import com.ibm.wala.ssa.DefaultIRFactory;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSACache;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.ssa.SSAOptions;
+import com.ibm.wala.util.config.AnalysisScopeReader;
+import com.ibm.wala.util.io.FileProvider;
+
+/**
+ * Tests for the concurrent, optionally bounded {@link SSACache}.
+ */
+public class SSACacheTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(SSACacheTest.class);
+  }
+
+  private static List<IMethod> methods;
+
+  /**
+   * counts the IRs built
+   */
+  private static class CountingIRFactory extends DefaultIRFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public IR makeIR(IMethod method, Context c, SSAOptions options) {
+      count.incrementAndGet();
+      return super.makeIR(method, c, options);
+    }
+  }
+
+  @BeforeClass
+  public static void beforeClass() throws Exception {
+    AnalysisScope scope = AnalysisScopeReader.readJavaScope(TestConstants.WALA_TESTDATA,
+        (new FileProvider()).getFile("J2SEClassHierarchyExclusions.txt"), SSACacheTest.class.getClassLoader());
+    ClassHierarchy cha = ClassHierarchy.make(scope);
+    methods = new ArrayList<IMethod>();
+    for (IClass c : cha) {
+      if (c.getClassLoader().getReference().equals(scope.getApplicationLoader())) {
+        for (IMethod m : c.getDeclaredMethods()) {
+          if (!m.isAbstract() && !m.isNative()) {
+            methods.add(m);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testConcurrentRequests() throws Exception {
+    CountingIRFactory factory = new CountingIRFactory();
+    final SSACache cache = new SSACache(factory);
+    final SSAOptions options = SSAOptions.defaultOptions();
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<IR>> results = new ArrayList<Future<IR>>();
+      for (int i = 0; i < 4; i++) {
+        for (final IMethod m : methods) {
+          results.add(pool.submit(new Callable<IR>() {
+            @Override
+            public IR call() {
+              return cache.findOrCreateIR(m, Everywhere.EVERYWHERE, options);
+            }
+          }));
+        }
+      }
+      for (int i = 0; i < results.size(); i++) {
+        Assert.assertSame(results.get(i % methods.size()).get(), results.get(i).get());
+      }
+    } finally {
+      pool.shutdown();
+    }
+    Assert.assertEquals(methods.size(), factory.count.get());
+    SSACache.Statistics s = cache.getIRStatistics();
+    Assert.assertEquals(methods.size(), s.getMisses());
+    Assert.assertEquals(3 * methods.size(), s.getHits());
+    Assert.assertEquals(0, s.getEvictions());
+  }
+
+  @Test
+  public void testUnboundedByDefault() {
+    SSACache cache = new SSACache(new CountingIRFactory());
+    Assert.assertEquals(SSACache.UNBOUNDED, cache.getMaxWeight());
+    SSAOptions options = SSAOptions.defaultOptions();
+    List<IR> irs = new ArrayList<IR>();
+    for (IMethod m : methods) {
+      irs.add(cache.findOrCreateIR(m, Everywhere.EVERYWHERE, options));
+    }
+    // the IRs are held here, so the cache keeps giving the same ones
+    for (int i = 0; i < methods.size(); i++) {
+      Assert.assertSame(irs.get(i), cache.findOrCreateIR(methods.get(i), Everywhere.EVERYWHERE, options));
+    }
+    Assert.assertEquals(0, cache.getIRStatistics().getEvictions());
+  }
+
+  @Test
+  public void testEviction() {
+    CountingIRFactory factory = new CountingIRFactory();
+    SSACache cache = new SSACache(factory);
+    cache.setMaxWeight(1000);
+    SSAOptions options = SSAOptions.defaultOptions();
+    for (IMethod m : methods) {
+      IR ir = cache.findOrCreateIR(m, Everywhere.EVERYWHERE, options);
+      DefUse du = cache.findOrCreateDU(m, Everywhere.EVERYWHERE, options);
+      // the DefUse must belong to the IR currently cached
+      for (SSAInstruction s : ir.getInstructions()) {
+        if (s != null && s.hasDef()) {
+          Assert.assertSame(s, du.getDef(s.getDef()));
+        }
+      }
+      Assert.assertTrue(cache.getIRStatistics().getWeight() <= 1000);
+      Assert.assertTrue(cache.getDUStatistics().getWeight() <= 1000);
+    }
+    Assert.assertTrue(cache.getIRStatistics().getEvictions() > 0);
+
+    // the most recently used IR is still cached
+    IMethod last = methods.get(methods.size() - 1);
+    int built = factory.count.get();
+    cache.findOrCreateIR(last, Everywhere.EVERYWHERE, options);
+    Assert.assertEquals(built, factory.count.get());
+  }
+
+  @Test
+  public void testInvalidate() {
+    CountingIRFactory factory = new CountingIRFactory();
+    SSACache cache = new SSACache(factory);
+    SSAOptions options = SSAOptions.defaultOptions();
+    IMethod m = methods.get(0);
+    IR ir = cache.findOrCreateIR(m, Everywhere.EVERYWHERE, options);
+    Assert.assertSame(ir, cache.findOrCreateIR(m, Everywhere.EVERYWHERE, options));
+    cache.invalidate(m, Everywhere.EVERYWHERE);
+    Assert.assertNotSame(ir, cache.findOrCreateIR(m, Everywhere.EVERYWHERE, options));
+    Assert.assertEquals(2, factory.count.get());
+    cache.wipe();
+    Assert.assertEquals(0, cache.getIRStatistics().getSize());
+  }
+}
@@ -0,0 +1,174 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.slicer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationSolver;
+import com.ibm.wala.dataflow.IFDS.PathEdge;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.slicer.MethodEntryStatement;
+import com.ibm.wala.ipa.slicer.NormalStatement;
+import com.ibm.wala.ipa.slicer.PDG;
+import com.ibm.wala.ipa.slicer.SDG;
+import com.ibm.wala.ipa.slicer.Slicer;
+import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.SliceProblem;
+import com.ibm.wala.ipa.slicer.SlicingSession;
+import com.ibm.wala.ipa.slicer.Statement;
+import com.ibm.wala.ssa.IR;
+import com.ibm.wala.ssa.SSAInstruction;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.util.CancelException;
+
+/**
+ * Tests that computing the slices of many statements in one tabulation gives the slices of each statement alone.
+ */
+public class BatchSliceTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(BatchSliceTest.class);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    SlicerTest.afterClass();
+  }
+
+  /**
+   * @return a statement for each instruction of each application method in cg
+   */
+  private static List<Statement> applicationStatements(CallGraph cg) {
+    List<Statement> result = new ArrayList<Statement>();
+    for (CGNode n : cg) {
+      if (n.getMethod().getDeclaringClass().getClassLoader().getReference().equals(ClassLoaderReference.Application)) {
+        IR ir = n.getIR();
+        SSAInstruction[] instructions = ir.getInstructions();
+        for (int i = 0; i < instructions.length; i++) {
+          if (instructions[i] != null) {
+            result.add(new NormalStatement(n, i));
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  private static void check(SDG sdg, List<Statement> roots, boolean backward) throws CancelException {
+    Map<Statement, Collection<Statement>> slices = backward ? Slicer.computeBackwardSlices(sdg, roots) : Slicer.computeForwardSlices(
+        sdg, roots);
+    Assert.assertEquals(roots.size(), slices.size());
+    for (Statement s : roots) {
+      Collection<Statement> expected = backward ? Slicer.computeBackwardSlice(sdg, s) : Slicer.computeForwardSlice(sdg, s);
+      Assert.assertEquals(s.toString(), expected, slices.get(s));
+    }
+  }
+
+  @Test
+  public void testSlices() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    SDG sdg = SlicerTest.makeSDG(TestConstants.SLICE1_MAIN, DataDependenceOptions.NO_BASE_NO_HEAP, ControlDependenceOptions.FULL);
+    List<Statement> roots = applicationStatements(sdg.getCallGraph());
+    check(sdg, roots, true);
+    check(sdg, roots, false);
+  }
+
+  /**
+   * The forward slice of the return value of check reaches the second call to check in first. Slicing from the return value alone,
+   * the entry of check is tabulated together with it, so the throw in check returns to every caller of check, and the slice holds
+   * the catch block in second.
+   */
+  @Test
+  public void testSliceEach() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    SDG sdg = SlicerTest.makeSDG(TestConstants.SLICE_TEST_SLICE_EACH, DataDependenceOptions.NO_BASE_NO_HEAP,
+        ControlDependenceOptions.FULL);
+    List<Statement> roots = applicationStatements(sdg.getCallGraph());
+    check(sdg, roots, true);
+    check(sdg, roots, false);
+  }
+
+  /**
+   * Seeding the entry of a procedure that a tabulation has already entered by a call lets the exits it has reached return to any
+   * caller.
+   */
+  @Test
+  public void testAddSeed() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    SDG sdg = SlicerTest.makeSDG(TestConstants.SLICE_TEST_SLICE_EACH, DataDependenceOptions.NO_BASE_NO_HEAP,
+        ControlDependenceOptions.FULL);
+    CallGraph cg = sdg.getCallGraph();
+    CGNode check = SlicerTest.findMethod(cg, "check");
+    CGNode first = SlicerTest.findMethod(cg, "first");
+    Statement call = SlicerTest.findCallTo(SlicerTest.findMethod(cg, "second"), "check");
+    SliceProblem p = new SliceProblem(Collections.singleton(call), sdg, false);
+    PartiallyBalancedTabulationSolver<Statement, PDG, Object> solver = PartiallyBalancedTabulationSolver
+        .createPartiallyBalancedTabulationSolver(p, null);
+    Collection<Statement> slice = solver.solve().getSupergraphNodesReached();
+    Statement checkEntry = new MethodEntryStatement(check);
+    Assert.assertTrue(slice.contains(checkEntry));
+    Assert.assertFalse(reachesNode(slice, first));
+
+    solver.addSeed(PathEdge.createPathEdge(checkEntry, 0, checkEntry, 0));
+    Statement firstEntry = new MethodEntryStatement(first);
+    boolean seeded = false;
+    for (PathEdge<Statement> seed : solver.getSeeds()) {
+      if (seed.getEntry().equals(firstEntry)) {
+        Assert.assertEquals(first, seed.getTarget().getNode());
+        seeded = true;
+      }
+    }
+    Assert.assertTrue(seeded);
+    Assert.assertTrue(reachesNode(solver.solve().getSupergraphNodesReached(), first));
+  }
+
+  private static boolean reachesNode(Collection<Statement> slice, CGNode n) {
+    for (Statement s : slice) {
+      if (s.getNode().equals(n)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Test
+  public void testSessionSlices() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    CallGraph[] cg = new CallGraph[1];
+    CallGraphBuilder builder = SlicerTest.makeZeroOneCFABuilder(TestConstants.SLICE1_MAIN, cg);
+    PointerAnalysis<InstanceKey> pa = builder.getPointerAnalysis();
+    CGNode main = SlicerTest.findMainMethod(cg[0]);
+    List<Statement> roots = new ArrayList<Statement>();
+    roots.add(SlicerTest.findCallTo(main, "println"));
+    roots.add(SlicerTest.findCallTo(main, "foo"));
+
+    SlicingSession session = new SlicingSession(cg[0], pa);
+    Map<Statement, Collection<Statement>> slices = session.computeSlices(roots, true, DataDependenceOptions.FULL,
+        ControlDependenceOptions.NONE);
+    for (Statement s : roots) {
+      Assert.assertEquals(session.computeBackwardSlice(s, DataDependenceOptions.FULL, ControlDependenceOptions.NONE), slices.get(s));
+    }
+    Assert.assertEquals(4, session.getStatistics().getQueries());
+  }
+}
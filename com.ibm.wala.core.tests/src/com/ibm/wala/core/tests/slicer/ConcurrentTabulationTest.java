@@ -0,0 +1,71 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.slicer;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationSolver;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.slicer.PDG;
+import com.ibm.wala.ipa.slicer.SDG;
+import com.ibm.wala.ipa.slicer.Slicer;
+import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.SliceProblem;
+import com.ibm.wala.ipa.slicer.Statement;
+import com.ibm.wala.util.CancelException;
+
+/**
+ * Tests that slicing with a concurrent {@link PartiallyBalancedTabulationSolver} gives the same slices as the sequential solver.
+ */
+public class ConcurrentTabulationTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(ConcurrentTabulationTest.class);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    SlicerTest.afterClass();
+  }
+
+  private static Collection<Statement> slice(SDG sdg, Statement s, boolean backward, int numberOfThreads,
+      boolean prepareSupergraph) throws CancelException {
+    SliceProblem p = new SliceProblem(Collections.singleton(s), sdg, backward);
+    PartiallyBalancedTabulationSolver<Statement, PDG, Object> solver = PartiallyBalancedTabulationSolver
+        .createPartiallyBalancedTabulationSolver(p, null);
+    solver.setNumberOfThreads(numberOfThreads);
+    solver.setPrepareSupergraph(prepareSupergraph);
+    return solver.solve().getSupergraphNodesReached();
+  }
+
+  @Test
+  public void testSlice1() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    SDG sdg = SlicerTest.makeSDG(TestConstants.SLICE1_MAIN, DataDependenceOptions.NO_BASE_NO_HEAP, ControlDependenceOptions.NONE);
+    CGNode main = SlicerTest.findMainMethod(sdg.getCallGraph());
+    Statement s = SlicerTest.findCallTo(main, "println");
+    Collection<Statement> expected = Slicer.computeBackwardSlice(sdg, s);
+    Assert.assertEquals(expected, slice(sdg, s, true, 4, true));
+
+    s = SlicerTest.findCallTo(main, "foo");
+    expected = Slicer.computeForwardSlice(sdg, s);
+    Assert.assertEquals(expected, slice(sdg, s, false, 4, false));
+  }
+}
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.slicer;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationSolver;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.slicer.MethodEntryStatement;
+import com.ibm.wala.ipa.slicer.PDG;
+import com.ibm.wala.ipa.slicer.SDG;
+import com.ibm.wala.ipa.slicer.Slicer;
+import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.SliceProblem;
+import com.ibm.wala.ipa.slicer.Statement;
+import com.ibm.wala.util.CancelException;
+
+/**
+ * Tests that slicing with a bound on the path edges kept on the heap, which spills path edges to disk, gives the same slices.
+ */
+public class PathEdgeBudgetTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(PathEdgeBudgetTest.class);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    SlicerTest.afterClass();
+  }
+
+  private static SDG makeSDG(String mainClass) throws ClassHierarchyException, IllegalArgumentException, CancelException,
+      IOException {
+    return SlicerTest.makeSDG(mainClass, DataDependenceOptions.NO_BASE_NO_HEAP, ControlDependenceOptions.FULL);
+  }
+
+  @Test
+  public void testSliceWithBudget() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    SDG sdg = makeSDG(TestConstants.SLICE1_MAIN);
+    CGNode main = SlicerTest.findMainMethod(sdg.getCallGraph());
+    // everything reachable from main is control dependent on its entry, so this slice is large
+    Statement s = new MethodEntryStatement(main);
+    Collection<Statement> expected = Slicer.computeForwardSlice(sdg, s);
+
+    Slicer slicer = new Slicer();
+    slicer.setPathEdgeBudget(500, null);
+    Assert.assertEquals(expected, slicer.slice(sdg, Collections.singleton(s), false));
+  }
+
+  @Test
+  public void testSpilling() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    SDG sdg = makeSDG(TestConstants.SLICE1_MAIN);
+    CGNode main = SlicerTest.findMainMethod(sdg.getCallGraph());
+    Statement s = new MethodEntryStatement(main);
+    Collection<Statement> expected = Slicer.computeForwardSlice(sdg, s);
+
+    for (boolean compact : new boolean[] { false, true }) {
+      SliceProblem p = new SliceProblem(Collections.singleton(s), sdg, false);
+      PartiallyBalancedTabulationSolver<Statement, PDG, Object> solver = PartiallyBalancedTabulationSolver
+          .createPartiallyBalancedTabulationSolver(p, null);
+      solver.setCompactPathEdges(compact);
+      solver.setPathEdgeBudget(100, null);
+      try {
+        Collection<Statement> slice = solver.solve().getSupergraphNodesReached();
+        Assert.assertTrue(solver.getPathEdgeSpillCount() > 0);
+        Assert.assertEquals(expected, slice);
+      } finally {
+        solver.disposeSpilledPathEdges();
+      }
+    }
+  }
+}
@@ -74,7 +74,7 @@ public class SlicerTest {
 
   private static AnalysisScope cachedScope;
 
-  private static AnalysisScope findOrCreateAnalysisScope() throws IOException {
+  public static AnalysisScope findOrCreateAnalysisScope() throws IOException {
     if (cachedScope == null) {
       cachedScope = CallGraphTestUtil.makeJ2SEAnalysisScope(TestConstants.WALA_TESTDATA, "Java60RegressionExclusions.txt");
     }
@@ -83,7 +83,7 @@ public class SlicerTest {
 
   private static IClassHierarchy cachedCHA;
 
-  private static IClassHierarchy findOrCreateCHA(AnalysisScope scope) throws ClassHierarchyException {
+  public static IClassHierarchy findOrCreateCHA(AnalysisScope scope) throws ClassHierarchyException {
     if (cachedCHA == null) {
       cachedCHA = ClassHierarchy.make(scope);
     }
@@ -96,6 +96,33 @@ public class SlicerTest {
     cachedScope = null;
   }
 
+  /**
+   * build a 0-1-CFA call graph for the main method of mainClass, using the cached scope and class hierarchy
+   * 
+   * @param cg holds the call graph on return
+   * @return the builder, which holds the pointer analysis
+   */
+  public static CallGraphBuilder makeZeroOneCFABuilder(String mainClass, CallGraph[] cg) throws ClassHierarchyException,
+      IllegalArgumentException, CancelException, IOException {
+    AnalysisScope scope = findOrCreateAnalysisScope();
+    IClassHierarchy cha = findOrCreateCHA(scope);
+    Iterable<Entrypoint> entrypoints = Util.makeMainEntrypoints(scope, cha, mainClass);
+    AnalysisOptions options = CallGraphTestUtil.makeAnalysisOptions(scope, entrypoints);
+    CallGraphBuilder builder = Util.makeZeroOneCFABuilder(options, new AnalysisCache(), cha, scope);
+    cg[0] = builder.makeCallGraph(options, null);
+    return builder;
+  }
+
+  /**
+   * build an SDG over a 0-1-CFA call graph for the main method of mainClass
+   */
+  public static SDG makeSDG(String mainClass, DataDependenceOptions dOptions, ControlDependenceOptions cOptions)
+      throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    CallGraph[] cg = new CallGraph[1];
+    CallGraphBuilder builder = makeZeroOneCFABuilder(mainClass, cg);
+    return new SDG(cg[0], builder.getPointerAnalysis(), dOptions, cOptions);
+  }
+
   @Test
   public void testSlice1() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
     AnalysisScope scope = findOrCreateAnalysisScope();
@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.core.tests.slicer;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Set;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.ibm.wala.core.tests.util.TestConstants;
+import com.ibm.wala.core.tests.util.WalaTestCase;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.slicer.Slicer;
+import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
+import com.ibm.wala.ipa.slicer.SlicingSession;
+import com.ibm.wala.ipa.slicer.Statement;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashSetFactory;
+
+/**
+ * Tests that a {@link SlicingSession} gives the same slices as {@link Slicer}, and reuses its PDGs across queries.
+ */
+public class SlicingSessionTest extends WalaTestCase {
+
+  public static void main(String[] args) {
+    justThisTest(SlicingSessionTest.class);
+  }
+
+  @AfterClass
+  public static void afterClass() {
+    SlicerTest.afterClass();
+  }
+
+  @Test
+  public void testSession() throws ClassHierarchyException, IllegalArgumentException, CancelException, IOException {
+    CallGraph[] cgs = new CallGraph[1];
+    PointerAnalysis<InstanceKey> pa = SlicerTest.makeZeroOneCFABuilder(TestConstants.SLICE1_MAIN, cgs).getPointerAnalysis();
+    CallGraph cg = cgs[0];
+
+    CGNode main = SlicerTest.findMainMethod(cg);
+    Statement println = SlicerTest.findCallTo(main, "println");
+    Statement foo = SlicerTest.findCallTo(main, "foo");
+
+    SlicingSession session = new SlicingSession(cg, pa);
+    Assert.assertEquals(Slicer.computeBackwardSlice(println, cg, pa, DataDependenceOptions.FULL, ControlDependenceOptions.NONE),
+        session.computeBackwardSlice(println, DataDependenceOptions.FULL, ControlDependenceOptions.NONE));
+    Assert.assertEquals(Slicer.computeForwardSlice(foo, cg, pa, DataDependenceOptions.FULL, ControlDependenceOptions.NONE),
+        session.computeForwardSlice(foo, DataDependenceOptions.FULL, ControlDependenceOptions.NONE));
+    Assert.assertEquals(Slicer.computeBackwardSlice(println, cg, pa, DataDependenceOptions.NO_HEAP, ControlDependenceOptions.FULL),
+        session.computeBackwardSlice(println, DataDependenceOptions.NO_HEAP, ControlDependenceOptions.FULL));
+
+    // the forward slice and the same query again only use PDGs built for the first one
+    int pdgs = session.getStatistics().getPDGs();
+    Collection<Statement> slice = session.computeBackwardSlice(println, DataDependenceOptions.FULL, ControlDependenceOptions.NONE);
+    SlicingSession.Statistics stats = session.getStatistics();
+    Assert.assertEquals(4, stats.getQueries());
+    Assert.assertEquals(2, stats.getQueriesWithoutNewPDGs());
+    Assert.assertEquals(1, stats.getModRefComputations());
+    Assert.assertEquals(2, stats.getSDGs());
+    Assert.assertEquals(pdgs, stats.getPDGs());
+
+    // PDGs built ahead of time give the same slices, and the query builds no more
+    Set<CGNode> nodes = HashSetFactory.make();
+    for (Statement s : slice) {
+      nodes.add(s.getNode());
+    }
+    SlicingSession precomputed = new SlicingSession(cg, pa);
+    precomputed.precomputePDGs(DataDependenceOptions.FULL, ControlDependenceOptions.NONE, nodes);
+    Assert.assertEquals(nodes.size(), precomputed.getStatistics().getPDGs());
+    Assert.assertEquals(slice, precomputed.computeBackwardSlice(println, DataDependenceOptions.FULL, ControlDependenceOptions.NONE));
+    stats = precomputed.getStatistics();
+    Assert.assertEquals(1, stats.getQueries());
+    Assert.assertEquals(1, stats.getQueriesWithoutNewPDGs());
+    Assert.assertEquals(nodes.size(), stats.getPDGs());
+  }
+}
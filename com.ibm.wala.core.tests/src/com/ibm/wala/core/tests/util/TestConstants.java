@@ -133,6 +133,8 @@ public interface TestConstants {
 
   public final static String SLICE_TEST_PRIM_GETTER_SETTER2 = "Lslice/TestPrimGetterSetter2";
 
+  public final static String SLICE_TEST_SLICE_EACH = "Lslice/TestSliceEach";
+
   public final static String SLICE_TESTTHIN1 = "Lslice/TestThin1";
 
   public final static String SLICE_TESTTHROWCATCH = "Lslice/TestThrowCatch";
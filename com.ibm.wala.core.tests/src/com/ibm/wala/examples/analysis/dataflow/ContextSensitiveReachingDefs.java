@@ -284,8 +284,26 @@ public class ContextSensitiveReachingDefs {
    * perform the tabulation analysis and return the {@link TabulationResult}
    */
   public TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> analyze() {
+    return analyze(1);
+  }
+
+  /**
+   * perform the tabulation analysis on the given number of threads and return the {@link TabulationResult}
+   */
+  public TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> analyze(int numberOfThreads) {
+    return analyze(numberOfThreads, false);
+  }
+
+  /**
+   * perform the tabulation analysis on the given number of threads, storing path edges compactly if compactPathEdges is set, and
+   * return the {@link TabulationResult}
+   */
+  public TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> analyze(int numberOfThreads,
+      boolean compactPathEdges) {
     PartiallyBalancedTabulationSolver<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> solver = PartiallyBalancedTabulationSolver
         .createPartiallyBalancedTabulationSolver(new ReachingDefsProblem(), null);
+    solver.setNumberOfThreads(numberOfThreads);
+    solver.setCompactPathEdges(compactPathEdges);
     TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> result = null;
     try {
       result = solver.solve();
@@ -176,6 +176,31 @@ public class DataflowTest extends WalaTestCase {
     }
   }
 
+  /**
+   * a configuration of the tabulation solver under which {@link #testContextSensitive()} runs
+   */
+  private static final class SolverConfiguration {
+    final int numberOfThreads;
+
+    final boolean compactPathEdges;
+
+    SolverConfiguration(int numberOfThreads, boolean compactPathEdges) {
+      this.numberOfThreads = numberOfThreads;
+      this.compactPathEdges = compactPathEdges;
+    }
+
+    @Override
+    public String toString() {
+      return numberOfThreads + " thread(s)" + (compactPathEdges ? ", compact path edges" : "");
+    }
+  }
+
+  /**
+   * the first configuration is the default sequential solver; every other configuration must compute the same result
+   */
+  private static final SolverConfiguration[] SOLVER_CONFIGURATIONS = { new SolverConfiguration(1, false),
+      new SolverConfiguration(4, false), new SolverConfiguration(1, true), new SolverConfiguration(4, true) };
+
   @Test
   public void testContextSensitive() throws IllegalArgumentException, CancelException {
     Iterable<Entrypoint> entrypoints = com.ibm.wala.ipa.callgraph.impl.Util.makeMainEntrypoints(scope, cha,
@@ -186,9 +211,26 @@ public class DataflowTest extends WalaTestCase {
     CallGraph cg = builder.makeCallGraph(options, null);
     AnalysisCache cache = new AnalysisCache();
     ContextSensitiveReachingDefs reachingDefs = new ContextSensitiveReachingDefs(cg, cache);
-    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> result = reachingDefs.analyze();
     ISupergraph<BasicBlockInContext<IExplodedBasicBlock>, CGNode> supergraph = reachingDefs.getSupergraph();
-    for (BasicBlockInContext<IExplodedBasicBlock> bb : supergraph) {
+    TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> expected = null;
+    for (SolverConfiguration configuration : SOLVER_CONFIGURATIONS) {
+      TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> result = reachingDefs.analyze(
+          configuration.numberOfThreads, configuration.compactPathEdges);
+      if (expected == null) {
+        checkContextSensitive(reachingDefs, result);
+        expected = result;
+      } else {
+        Assert.assertEquals(configuration.toString(), expected.getSupergraphNodesReached(), result.getSupergraphNodesReached());
+        for (BasicBlockInContext<IExplodedBasicBlock> bb : supergraph) {
+          Assert.assertTrue(configuration + ": " + bb, expected.getResult(bb).sameValue(result.getResult(bb)));
+        }
+      }
+    }
+  }
+
+  private static void checkContextSensitive(ContextSensitiveReachingDefs reachingDefs,
+      TabulationResult<BasicBlockInContext<IExplodedBasicBlock>, CGNode, Pair<CGNode, Integer>> result) {
+    for (BasicBlockInContext<IExplodedBasicBlock> bb : reachingDefs.getSupergraph()) {
       if (bb.getNode().toString().contains("testInterproc")) {
         IExplodedBasicBlock delegate = bb.getDelegate();
         if (delegate.getNumber() == 4) {
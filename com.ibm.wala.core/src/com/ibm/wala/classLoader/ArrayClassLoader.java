@@ -32,12 +32,15 @@ public class ArrayClassLoader {
 
 
   /**
+   * Synchronized, since the heap model may look up array classes from several threads at once, and each array class must be made
+   * only once.
+   * 
    * @param className
    *          name of the array class
    * @param delegator
    *          class loader to look up element type with
    */
-  public IClass lookupClass(TypeName className, IClassLoader delegator, IClassHierarchy cha) throws IllegalArgumentException {
+  public synchronized IClass lookupClass(TypeName className, IClassLoader delegator, IClassHierarchy cha) throws IllegalArgumentException {
     ArrayClass arrayClass;
     if (DEBUG) {
       assert className.toString().startsWith("[");
@@ -83,7 +86,7 @@ public class ArrayClassLoader {
     return l;
   }
   
-  public int getNumberOfClasses() {
+  public synchronized int getNumberOfClasses() {
     return arrayClasses.size();
   }
 }
@@ -15,12 +15,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.ibm.wala.ipa.cha.ClassHierarchyWarning;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
@@ -121,7 +121,10 @@ public abstract class BytecodeClass<T extends IClassLoader> implements IClass {
    */
   protected int hashCode;
 
-  private final HashMap<Atom, IField> fieldMap = HashMapFactory.make(5);
+  /**
+   * fields found by {@link #getField(Atom)}; concurrent, since the heap model may look up fields from several threads at once
+   */
+  private final Map<Atom, IField> fieldMap = new ConcurrentHashMap<Atom, IField>(5);
   
   /**
    * A warning for when we get a class not found exception
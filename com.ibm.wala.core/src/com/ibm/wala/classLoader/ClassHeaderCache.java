@@ -0,0 +1,373 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.classLoader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.io.FileProvider;
+
+/**
+ * A persistent cache of the class headers in jar file modules: for each class, the data {@link ShrikeClass} extracts when it is
+ * created (name, modifiers, superclass and interface names, and declared fields). With a cache, a class loader can set up the
+ * class hierarchy for an unchanged jar file without parsing any class file; method bodies and annotations are still read from
+ * the jar file on demand.
+ *
+ * Entries are keyed by a hash of the contents of the jar file, so a changed jar simply misses the cache. Each entry is a binary
+ * file that is memory-mapped when read.
+ */
+public class ClassHeaderCache {
+
+  private final static boolean DEBUG = false;
+
+  /**
+   * magic number at the start of each cache file
+   */
+  private final static int MAGIC = 0x57414c48;
+
+  /**
+   * bump this whenever the format of the cache files or the data recorded in a {@link ClassHeader} changes
+   */
+  private final static int VERSION = 1;
+
+  private final static String SUFFIX = ".headers";
+
+  private final static String STAMP_SUFFIX = ".stamp";
+
+  /**
+   * The data {@link ShrikeClass} extracts from a class file when it is created. Names are in the JVM internal form, without the
+   * leading "L".
+   */
+  static final class ClassHeader {
+    final String entryName;
+
+    final String name;
+
+    final int modifiers;
+
+    /**
+     * null for java.lang.Object
+     */
+    final String superName;
+
+    final String[] interfaceNames;
+
+    final int[] fieldModifiers;
+
+    final String[] fieldNames;
+
+    final String[] fieldTypes;
+
+    /**
+     * generic signatures of the fields; an element is null if the field has none
+     */
+    final String[] fieldSignatures;
+
+    ClassHeader(String entryName, String name, int modifiers, String superName, String[] interfaceNames, int[] fieldModifiers,
+        String[] fieldNames, String[] fieldTypes, String[] fieldSignatures) {
+      this.entryName = entryName;
+      this.name = name;
+      this.modifiers = modifiers;
+      this.superName = superName;
+      this.interfaceNames = interfaceNames;
+      this.fieldModifiers = fieldModifiers;
+      this.fieldNames = fieldNames;
+      this.fieldTypes = fieldTypes;
+      this.fieldSignatures = fieldSignatures;
+    }
+  }
+
+  /**
+   * directory holding the cache files
+   */
+  private final File directory;
+
+  public ClassHeaderCache(File directory) {
+    if (directory == null) {
+      throw new IllegalArgumentException("null directory");
+    }
+    this.directory = directory;
+  }
+
+  public File getDirectory() {
+    return directory;
+  }
+
+  /**
+   * @return a hash of the contents of the jar file underlying a module, which identifies its cache entry, or null if the file
+   *         cannot be read. Hashing a large jar file takes a while, so the hash is remembered in a stamp file together with the
+   *         size and modification time of the jar file, and only recomputed when those change.
+   */
+  public String getKey(JarFileModule module) {
+    if (module == null) {
+      throw new IllegalArgumentException("null module");
+    }
+    File jarFile;
+    try {
+      jarFile = (new FileProvider()).getFile(module.getJarFile().getName());
+    } catch (IOException e) {
+      return null;
+    }
+    long length = jarFile.length();
+    long lastModified = jarFile.lastModified();
+    File stamp = new File(directory, hash(jarFile.getAbsolutePath().getBytes()) + STAMP_SUFFIX);
+    if (stamp.isFile()) {
+      DataInputStream in = null;
+      try {
+        in = new DataInputStream(new FileInputStream(stamp));
+        if (in.readLong() == length && in.readLong() == lastModified) {
+          return in.readUTF();
+        }
+      } catch (IOException e) {
+        // recompute the hash
+      } finally {
+        try {
+          if (in != null) {
+            in.close();
+          }
+        } catch (IOException e) {
+        }
+      }
+    }
+    String key = hashContents(jarFile);
+    if (key != null && (directory.isDirectory() || directory.mkdirs())) {
+      File tmp = null;
+      try {
+        tmp = File.createTempFile(key, ".tmp", directory);
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(tmp));
+        try {
+          out.writeLong(length);
+          out.writeLong(lastModified);
+          out.writeUTF(key);
+        } finally {
+          out.close();
+        }
+        rename(tmp, stamp);
+      } catch (IOException e) {
+        if (DEBUG) {
+          e.printStackTrace();
+        }
+      } finally {
+        if (tmp != null && tmp.exists()) {
+          tmp.delete();
+        }
+      }
+    }
+    return key;
+  }
+
+  private static String hashContents(File f) {
+    InputStream s = null;
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      s = new DigestInputStream(new BufferedInputStream(new FileInputStream(f), 65536), digest);
+      byte[] b = new byte[65536];
+      int n = s.read(b);
+      while (n != -1) {
+        n = s.read(b);
+      }
+      return toHex(digest.digest());
+    } catch (IOException e) {
+      return null;
+    } catch (NoSuchAlgorithmException e) {
+      return null;
+    } finally {
+      try {
+        if (s != null) {
+          s.close();
+        }
+      } catch (IOException e) {
+      }
+    }
+  }
+
+  private static String hash(byte[] b) {
+    try {
+      return toHex(MessageDigest.getInstance("SHA-1").digest(b));
+    } catch (NoSuchAlgorithmException e) {
+      return Integer.toHexString(Arrays.hashCode(b));
+    }
+  }
+
+  private static String toHex(byte[] b) {
+    StringBuilder result = new StringBuilder();
+    for (byte x : b) {
+      result.append(Character.forDigit((x >> 4) & 0xf, 16)).append(Character.forDigit(x & 0xf, 16));
+    }
+    return result.toString();
+  }
+
+  /**
+   * rename a temporary file over an existing one
+   */
+  private static void rename(File tmp, File f) {
+    if (!tmp.renameTo(f)) {
+      f.delete();
+      tmp.renameTo(f);
+    }
+  }
+
+  private File getFile(String key) {
+    return new File(directory, key + SUFFIX);
+  }
+
+  /**
+   * @param key a key computed by {@link #getKey(JarFileModule)}
+   * @return the cached class headers, indexed by module entry name, or null if there is no valid cache entry for the key
+   */
+  Map<String, ClassHeader> read(String key) {
+    if (key == null) {
+      return null;
+    }
+    File f = getFile(key);
+    if (!f.isFile()) {
+      return null;
+    }
+    RandomAccessFile file = null;
+    try {
+      file = new RandomAccessFile(f, "r");
+      FileChannel channel = file.getChannel();
+      DataInputStream in = new DataInputStream(new ByteBufferInputStream(channel.map(FileChannel.MapMode.READ_ONLY, 0,
+          channel.size())));
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        return null;
+      }
+      int count = in.readInt();
+      Map<String, ClassHeader> result = HashMapFactory.make(count);
+      for (int i = 0; i < count; i++) {
+        ClassHeader h = readHeader(in);
+        result.put(h.entryName, h);
+      }
+      return result;
+    } catch (IOException e) {
+      // a truncated or otherwise broken cache file is just a miss
+      if (DEBUG) {
+        e.printStackTrace();
+      }
+      return null;
+    } finally {
+      try {
+        if (file != null) {
+          file.close();
+        }
+      } catch (IOException e) {
+      }
+    }
+  }
+
+  /**
+   * Record the class headers for a jar file. The entry is written to a temporary file and renamed, so concurrent readers never
+   * see a partial entry.
+   *
+   * @param key a key computed by {@link #getKey(JarFileModule)}
+   */
+  void write(String key, Collection<ClassHeader> headers) {
+    if (key == null) {
+      return;
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      return;
+    }
+    File tmp = null;
+    DataOutputStream out = null;
+    try {
+      tmp = File.createTempFile(key, ".tmp", directory);
+      out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 65536));
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(headers.size());
+      for (ClassHeader h : headers) {
+        writeHeader(out, h);
+      }
+      out.close();
+      out = null;
+      rename(tmp, getFile(key));
+    } catch (IOException e) {
+      if (DEBUG) {
+        e.printStackTrace();
+      }
+    } finally {
+      try {
+        if (out != null) {
+          out.close();
+        }
+      } catch (IOException e) {
+      }
+      if (tmp != null && tmp.exists()) {
+        tmp.delete();
+      }
+    }
+  }
+
+  private static ClassHeader readHeader(DataInputStream in) throws IOException {
+    String entryName = in.readUTF();
+    String name = in.readUTF();
+    int modifiers = in.readInt();
+    String superName = in.readBoolean() ? in.readUTF() : null;
+    String[] interfaceNames = new String[in.readUnsignedShort()];
+    for (int i = 0; i < interfaceNames.length; i++) {
+      interfaceNames[i] = in.readUTF();
+    }
+    int fieldCount = in.readUnsignedShort();
+    int[] fieldModifiers = new int[fieldCount];
+    String[] fieldNames = new String[fieldCount];
+    String[] fieldTypes = new String[fieldCount];
+    String[] fieldSignatures = new String[fieldCount];
+    for (int i = 0; i < fieldCount; i++) {
+      fieldModifiers[i] = in.readInt();
+      fieldNames[i] = in.readUTF();
+      fieldTypes[i] = in.readUTF();
+      fieldSignatures[i] = in.readBoolean() ? in.readUTF() : null;
+    }
+    return new ClassHeader(entryName, name, modifiers, superName, interfaceNames, fieldModifiers, fieldNames, fieldTypes,
+        fieldSignatures);
+  }
+
+  private static void writeHeader(DataOutputStream out, ClassHeader h) throws IOException {
+    out.writeUTF(h.entryName);
+    out.writeUTF(h.name);
+    out.writeInt(h.modifiers);
+    out.writeBoolean(h.superName != null);
+    if (h.superName != null) {
+      out.writeUTF(h.superName);
+    }
+    out.writeShort(h.interfaceNames.length);
+    for (String s : h.interfaceNames) {
+      out.writeUTF(s);
+    }
+    out.writeShort(h.fieldNames.length);
+    for (int i = 0; i < h.fieldNames.length; i++) {
+      out.writeInt(h.fieldModifiers[i]);
+      out.writeUTF(h.fieldNames[i]);
+      out.writeUTF(h.fieldTypes[i]);
+      out.writeBoolean(h.fieldSignatures[i] != null);
+      if (h.fieldSignatures[i] != null) {
+        out.writeUTF(h.fieldSignatures[i]);
+      }
+    }
+  }
+}
@@ -112,6 +112,14 @@ public class ClassLoaderFactoryImpl implements ClassLoaderFactory {
           cl = new ClassLoaderImpl(classLoaderReference, scope.getArrayClassLoader(), parent, exclusions, cha);
         }
       }
+    if (cl instanceof ClassLoaderImpl && scope.getClassHeaderCache() != null) {
+      ((ClassLoaderImpl) cl).setClassHeaderCache(scope.getClassHeaderCache());
+    }
+    if (cl instanceof ClassLoaderImpl) {
+      ((ClassLoaderImpl) cl).setNumberOfThreads(scope.getNumberOfLoaderThreads());
+      ((ClassLoaderImpl) cl).setMapJarFiles(scope.getMapJarFiles());
+      ((ClassLoaderImpl) cl).setReleaseClassFiles(scope.getReleaseClassFiles());
+    }
     cl.init(scope.getModules(classLoaderReference));
     return cl;
   }
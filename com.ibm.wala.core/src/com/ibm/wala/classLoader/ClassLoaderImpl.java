@@ -19,6 +19,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -26,6 +27,12 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 
@@ -91,6 +98,26 @@ public class ClassLoaderImpl implements IClassLoader {
    */
   private final ArrayClassLoader arrayClassLoader;
 
+  /**
+   * persistent cache of class headers for jar file modules, or null to always parse class files
+   */
+  private ClassHeaderCache headerCache;
+
+  /**
+   * number of threads used to parse class files
+   */
+  private int numberOfThreads = 1;
+
+  /**
+   * read plain jar file modules through a memory mapping
+   */
+  private boolean mapJarFiles = false;
+
+  /**
+   * drop the class file contents of each class once it is loaded
+   */
+  private boolean releaseClassFiles = false;
+
   /**
    * @param loader class loader reference identifying this loader
    * @param parent parent loader for delegation
@@ -114,6 +141,40 @@ public class ClassLoaderImpl implements IClassLoader {
     }
   }
 
+  /**
+   * Use a persistent cache of class headers when loading jar file modules. This must be called before {@link #init(List)}.
+   */
+  public void setClassHeaderCache(ClassHeaderCache headerCache) {
+    this.headerCache = headerCache;
+  }
+
+  /**
+   * Parse class files on several threads. This must be called before {@link #init(List)}.
+   */
+  public void setNumberOfThreads(int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+    this.numberOfThreads = numberOfThreads;
+  }
+
+  /**
+   * Read the plain jar file modules of this loader through a {@link MappedJarFileModule}. This must be called before
+   * {@link #init(List)}.
+   */
+  public void setMapJarFiles(boolean mapJarFiles) {
+    this.mapJarFiles = mapJarFiles;
+  }
+
+  /**
+   * Drop the contents of each class file once the class is loaded, rather than keeping them softly reachable. Method bodies are
+   * then read and decoded again when first needed, e.g. to build IR. This lowers the footprint of clients that only need the
+   * class hierarchy. This must be called before {@link #init(List)}.
+   */
+  public void setReleaseClassFiles(boolean releaseClassFiles) {
+    this.releaseClassFiles = releaseClassFiles;
+  }
+
   /**
    * Return the Set of (ModuleEntry) source files found in a module.
    * 
@@ -245,8 +306,15 @@ public class ClassLoaderImpl implements IClassLoader {
 
   /**
    * Set up the set of classes loaded by this object.
+   * 
+   * @param headers if non-null, cached class headers for jar file entries, indexed by entry name. Classes found here are created
+   *          without parsing their class files, and the headers of other classes that can be cached are added.
+   * @param pool if non-null, parse the class files on the threads of this pool; classes are still registered in the order of
+   *          moduleEntries
    */
-  private void loadAllClasses(Collection<ModuleEntry> moduleEntries, Map<String, Object> fileContents) {
+  private void loadAllClasses(Collection<ModuleEntry> moduleEntries, final Map<String, Object> fileContents,
+      final Map<String, ClassHeaderCache.ClassHeader> headers, ExecutorService pool) {
+    List<ModuleEntry> entries = new ArrayList<ModuleEntry>(moduleEntries.size());
     for (Iterator<ModuleEntry> it = moduleEntries.iterator(); it.hasNext();) {
       ModuleEntry entry = it.next();
       if (!entry.isClassFile()) {
@@ -265,47 +333,120 @@ public class ClassLoaderImpl implements IClassLoader {
         }
         continue;
       }
+      entries.add(entry);
+    }
 
-      ShrikeClassReaderHandle entryReader = new ShrikeClassReaderHandle(entry);
+    List<Future<ShrikeClass>> parsed = null;
+    if (pool != null) {
+      parsed = new ArrayList<Future<ShrikeClass>>(entries.size());
+      for (final ModuleEntry entry : entries) {
+        parsed.add(pool.submit(new Callable<ShrikeClass>() {
+          @Override
+          public ShrikeClass call() {
+            return loadClass(entry, fileContents, headers);
+          }
+        }));
+      }
+    }
 
-      className = "L" + className;
+    for (int i = 0; i < entries.size(); i++) {
+      ModuleEntry entry = entries.get(i);
+      String className = "L" + entry.getClassName().replace('.', '/');
       if (DEBUG_LEVEL > 0) {
         System.err.println("Load class " + className);
       }
-      try {
-        TypeName T = TypeName.string2TypeName(className);
-        if (loadedClasses.get(T) != null) {
-          Warnings.add(MultipleImplementationsWarning.create(className));
-        } else if (parent != null && parent.lookupClass(T) != null) {
-          Warnings.add(MultipleImplementationsWarning.create(className));
-        } else {
-          // try to read from memory
-          ShrikeClassReaderHandle reader = entryReader;
-          if (fileContents != null) {
-            final Object contents = fileContents.get(entry.getName());
-            if (contents != null) {
-              // reader that uses the in-memory bytes
-              reader = new ByteArrayReaderHandle(entry, (byte[]) contents);
-            }
+      TypeName T = TypeName.string2TypeName(className);
+      if (loadedClasses.get(T) != null) {
+        Warnings.add(MultipleImplementationsWarning.create(className));
+      } else if (parent != null && parent.lookupClass(T) != null) {
+        Warnings.add(MultipleImplementationsWarning.create(className));
+      } else {
+        ShrikeClass klass = parsed == null ? loadClass(entry, fileContents, headers) : getParsedClass(parsed.get(i));
+        if (klass != null) {
+          loadedClasses.put(T, klass);
+          if (DEBUG_LEVEL > 1) {
+            System.err.println("put " + T + " ");
           }
-          ShrikeClass tmpKlass = new ShrikeClass(reader, this, cha);
-          if (tmpKlass.getReference().getName().equals(T)) {
-            // always used the reader based on the entry after this point,
-            // so we can null out and re-read class file contents
-            loadedClasses.put(T, new ShrikeClass(entryReader, this, cha));
-            if (DEBUG_LEVEL > 1) {
-              System.err.println("put " + T + " ");
+        }
+      }
+    }
+  }
+
+  private static ShrikeClass getParsedClass(Future<ShrikeClass> f) {
+    try {
+      return f.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new RuntimeException(cause);
+      }
+    }
+  }
+
+  /**
+   * Create the class defined by a class file entry. This does not touch the state of this loader, so it may run on several
+   * threads at once.
+   * 
+   * @return the class, or null if the class file is invalid
+   */
+  private ShrikeClass loadClass(ModuleEntry entry, Map<String, Object> fileContents,
+      Map<String, ClassHeaderCache.ClassHeader> headers) {
+    String className = "L" + entry.getClassName().replace('.', '/');
+    TypeName T = TypeName.string2TypeName(className);
+    ShrikeClassReaderHandle entryReader = new ShrikeClassReaderHandle(entry);
+    try {
+      ClassHeaderCache.ClassHeader header = null;
+      if (headers != null && entry instanceof JarFileEntry) {
+        synchronized (headers) {
+          header = headers.get(entry.getName());
+        }
+      }
+      if (header != null && className.equals("L" + header.name)) {
+        return new ShrikeClass(entryReader, this, cha, header);
+      }
+      // try to read from memory
+      ShrikeClassReaderHandle reader = entryReader;
+      if (fileContents != null) {
+        final Object contents = fileContents.get(entry.getName());
+        if (contents != null) {
+          // reader that uses the in-memory bytes
+          reader = new ByteArrayReaderHandle(entry, (byte[]) contents);
+        }
+      }
+      ShrikeClass tmpKlass = new ShrikeClass(reader, this, cha);
+      if (tmpKlass.getReference().getName().equals(T)) {
+        if (headers != null && entry instanceof JarFileEntry) {
+          header = tmpKlass.makeHeader(entry.getName());
+          if (header != null) {
+            synchronized (headers) {
+              headers.put(entry.getName(), header);
             }
-          } else {
-            Warnings.add(InvalidClassFile.create(className));
           }
         }
-      } catch (InvalidClassFileException e) {
-        if (DEBUG_LEVEL > 0) {
-          System.err.println("Ignoring class " + className + " due to InvalidClassFileException");
+        // always used the reader based on the entry after this point,
+        // so we can null out and re-read class file contents
+        ShrikeClass klass = new ShrikeClass(entryReader, this, cha);
+        if (releaseClassFiles) {
+          entryReader.clear();
         }
+        return klass;
+      } else {
         Warnings.add(InvalidClassFile.create(className));
+        return null;
       }
+    } catch (InvalidClassFileException e) {
+      if (DEBUG_LEVEL > 0) {
+        System.err.println("Ignoring class " + className + " due to InvalidClassFileException");
+      }
+      Warnings.add(InvalidClassFile.create(className));
+      return null;
     }
   }
 
@@ -492,52 +633,102 @@ public class ClassLoaderImpl implements IClassLoader {
     // module are loaded according to the given order (same as in Java VM)
     Set<ModuleEntry> classModuleEntries = HashSetFactory.make();
     Set<ModuleEntry> sourceModuleEntries = HashSetFactory.make();
-    for (Iterator<Module> it = modules.iterator(); it.hasNext();) {
-      Module archive = it.next();
+    ExecutorService pool = numberOfThreads > 1 ? makeThreadPool() : null;
+    try {
+      for (Iterator<Module> it = modules.iterator(); it.hasNext();) {
+        Module archive = it.next();
+        if (mapJarFiles && archive.getClass() == JarFileModule.class) {
+          archive = mapJarFile((JarFileModule) archive);
+        }
+        if (DEBUG_LEVEL > 0) {
+          System.err.println("add archive: " + archive);
+        }
+        // byte[] jarFileContents = null;
+        String cacheKey = null;
+        Map<String, ClassHeaderCache.ClassHeader> headers = null;
+        int cachedHeaders = 0;
+        if (headerCache != null && archive instanceof JarFileModule) {
+          cacheKey = headerCache.getKey((JarFileModule) archive);
+          if (cacheKey != null) {
+            headers = headerCache.read(cacheKey);
+            if (headers == null) {
+              headers = HashMapFactory.make();
+            }
+            cachedHeaders = headers.size();
+          }
+        } else if (OPTIMIZE_JAR_FILE_IO && archive instanceof JarFileModule && !(archive instanceof MappedJarFileModule)) {
+          // if we have a jar file, we read the whole thing into memory and operate on that; enables more
+          // efficient sequential I/O
+          // this is work in progress; for now, we read the file into memory and throw away the contents, which
+          // still gives a speedup for large jar files since it reads sequentially and warms up the FS cache. we get a small slowdown
+          // for smaller jar files or for jar files already in the FS cache. eventually, we should
+          // actually use the bytes read and eliminate the slowdown
+          // 11/22/10: I can't figure out a way to actually use the bytes without hurting performance.  Apparently,
+          // extracting files from a jar stored in memory via a JarInputStream is really slow compared to using
+          // a JarFile.  Will leave this as is for now.  --MS
+          // jarFileContents = archive instanceof JarFileModule ? getJarFileContents((JarFileModule) archive) : null;
+          getJarFileContents((JarFileModule) archive);
+        }
+        Set<ModuleEntry> classFiles = getClassFiles(archive);
+        removeClassFiles(classFiles, classModuleEntries);
+        Set<ModuleEntry> sourceFiles = getSourceFiles(archive);
+        Map<String, Object> allClassAndSourceFileContents = null;
+        if (OPTIMIZE_JAR_FILE_IO) {
+          // work in progress --MS
+          // if (archive instanceof JarFileModule) {
+          // final JarFileModule jfModule = (JarFileModule) archive;
+          // final String name = jfModule.getJarFile().getName();
+          // Map<String, Map<String, Long>> entrySizes = getEntrySizes(jfModule, name);
+          // allClassAndSourceFileContents = getAllClassAndSourceFileContents(jarFileContents, name, entrySizes);
+          // }
+          // jarFileContents = null;
+        }
+        loadAllClasses(classFiles, allClassAndSourceFileContents, headers, pool);
+        if (headers != null && headers.size() > cachedHeaders) {
+          headerCache.write(cacheKey, headers.values());
+        }
+        loadAllSources(sourceFiles);
+        for (Iterator<ModuleEntry> it2 = classFiles.iterator(); it2.hasNext();) {
+          ModuleEntry file = it2.next();
+          classModuleEntries.add(file);
+        }
+        for (Iterator<ModuleEntry> it2 = sourceFiles.iterator(); it2.hasNext();) {
+          ModuleEntry file = it2.next();
+          sourceModuleEntries.add(file);
+        }
+      }
+    } finally {
+      if (pool != null) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  /**
+   * @return a module reading the jar file through a memory mapping, or the module itself if the jar file cannot be mapped
+   */
+  private static JarFileModule mapJarFile(JarFileModule archive) {
+    try {
+      return new MappedJarFileModule(archive.getJarFile());
+    } catch (IOException e) {
       if (DEBUG_LEVEL > 0) {
-        System.err.println("add archive: " + archive);
-      }
-      // byte[] jarFileContents = null;
-      if (OPTIMIZE_JAR_FILE_IO && archive instanceof JarFileModule) {
-        // if we have a jar file, we read the whole thing into memory and operate on that; enables more
-        // efficient sequential I/O
-        // this is work in progress; for now, we read the file into memory and throw away the contents, which
-        // still gives a speedup for large jar files since it reads sequentially and warms up the FS cache. we get a small slowdown
-        // for smaller jar files or for jar files already in the FS cache. eventually, we should
-        // actually use the bytes read and eliminate the slowdown
-        // 11/22/10: I can't figure out a way to actually use the bytes without hurting performance.  Apparently,
-        // extracting files from a jar stored in memory via a JarInputStream is really slow compared to using
-        // a JarFile.  Will leave this as is for now.  --MS
-        // jarFileContents = archive instanceof JarFileModule ? getJarFileContents((JarFileModule) archive) : null;
-        getJarFileContents((JarFileModule) archive);
-      }
-      Set<ModuleEntry> classFiles = getClassFiles(archive);
-      removeClassFiles(classFiles, classModuleEntries);
-      Set<ModuleEntry> sourceFiles = getSourceFiles(archive);
-      Map<String, Object> allClassAndSourceFileContents = null;
-      if (OPTIMIZE_JAR_FILE_IO) {
-        // work in progress --MS
-        // if (archive instanceof JarFileModule) {
-        // final JarFileModule jfModule = (JarFileModule) archive;
-        // final String name = jfModule.getJarFile().getName();
-        // Map<String, Map<String, Long>> entrySizes = getEntrySizes(jfModule, name);
-        // allClassAndSourceFileContents = getAllClassAndSourceFileContents(jarFileContents, name, entrySizes);
-        // }
-        // jarFileContents = null;
-      }
-      loadAllClasses(classFiles, allClassAndSourceFileContents);
-      loadAllSources(sourceFiles);
-      for (Iterator<ModuleEntry> it2 = classFiles.iterator(); it2.hasNext();) {
-        ModuleEntry file = it2.next();
-        classModuleEntries.add(file);
-      }
-      for (Iterator<ModuleEntry> it2 = sourceFiles.iterator(); it2.hasNext();) {
-        ModuleEntry file = it2.next();
-        sourceModuleEntries.add(file);
+        System.err.println("cannot map " + archive + ": " + e);
       }
+      return archive;
     }
   }
 
+  private ExecutorService makeThreadPool() {
+    return Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "WALA class loader");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+  }
+
   @SuppressWarnings("unused")
   private Map<String, Map<String, Long>> getEntrySizes(Module module, String name) {
     Map<String, Map<String, Long>> result = HashMapFactory.make();
@@ -0,0 +1,281 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.classLoader;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.jar.JarFile;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.io.FileProvider;
+
+/**
+ * A jar file module that reads entries from a memory-mapped image of the jar file rather than through {@link JarFile} streams.
+ * The central directory is parsed once when the module is created. The contents of an entry are then read into a single array of
+ * exactly the right size: stored entries are copied straight out of the mapping, and deflated entries are inflated with an
+ * {@link Inflater} that is reused by each thread. This avoids the buffer copying and the per-entry inflater and stream objects of
+ * {@link JarFile}, which add up when building the class hierarchy for large jar files.
+ *
+ * Entries the module cannot read itself (e.g. encrypted ones) are read through the {@link JarFile} as usual.
+ */
+public class MappedJarFileModule extends JarFileModule {
+
+  private final static int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+
+  private final static int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+
+  private final static int END_SIGNATURE = 0x06054b50;
+
+  private final static int END_SIZE = 22;
+
+  private final static int STORED = 0;
+
+  private final static int DEFLATED = 8;
+
+  private final static Charset UTF8 = Charset.forName("UTF-8");
+
+  private final static ThreadLocal<Inflater> inflaters = new ThreadLocal<Inflater>() {
+    @Override
+    protected Inflater initialValue() {
+      return new Inflater(true);
+    }
+  };
+
+  private final static ThreadLocal<byte[]> inflaterInput = new ThreadLocal<byte[]>() {
+    @Override
+    protected byte[] initialValue() {
+      return new byte[8192];
+    }
+  };
+
+  /**
+   * location of an entry, from the central directory
+   */
+  private final static class Location {
+    final int method;
+
+    final int compressedSize;
+
+    final int size;
+
+    final int localHeaderOffset;
+
+    Location(int method, int compressedSize, int size, int localHeaderOffset) {
+      this.method = method;
+      this.compressedSize = compressedSize;
+      this.size = size;
+      this.localHeaderOffset = localHeaderOffset;
+    }
+  }
+
+  /**
+   * read-only mapping of the whole jar file; always accessed through duplicates, so that concurrent readers do not share a
+   * position
+   */
+  private final ByteBuffer image;
+
+  private final Map<String, Location> directory;
+
+  /**
+   * @throws IOException if the jar file cannot be mapped, or its central directory is not understood (e.g. a zip64 file); clients
+   *           can fall back to a plain {@link JarFileModule}
+   */
+  public MappedJarFileModule(JarFile f) throws IOException {
+    super(f);
+    File file = (new FileProvider()).getFile(f.getName());
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("jar file too large to map: " + f.getName());
+      }
+      image = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()).order(ByteOrder.LITTLE_ENDIAN);
+    } finally {
+      // the mapping stays valid after the file is closed
+      raf.close();
+    }
+    directory = readCentralDirectory(image);
+  }
+
+  private static Map<String, Location> readCentralDirectory(ByteBuffer image) throws IOException {
+    int end = findEndOfCentralDirectory(image);
+    int count = image.getShort(end + 10) & 0xffff;
+    long offset = image.getInt(end + 16) & 0xffffffffL;
+    if (count == 0xffff || offset == 0xffffffffL || offset >= image.capacity()) {
+      throw new IOException("unsupported central directory");
+    }
+    Map<String, Location> result = HashMapFactory.make(count);
+    int p = (int) offset;
+    for (int i = 0; i < count; i++) {
+      if (p + 46 > image.capacity() || image.getInt(p) != CENTRAL_HEADER_SIGNATURE) {
+        throw new IOException("bad central directory entry " + i);
+      }
+      int flags = image.getShort(p + 8) & 0xffff;
+      int method = image.getShort(p + 10) & 0xffff;
+      int compressedSize = image.getInt(p + 20);
+      int size = image.getInt(p + 24);
+      int nameLength = image.getShort(p + 28) & 0xffff;
+      int extraLength = image.getShort(p + 30) & 0xffff;
+      int commentLength = image.getShort(p + 32) & 0xffff;
+      int localHeaderOffset = image.getInt(p + 42);
+      byte[] name = new byte[nameLength];
+      ByteBuffer b = image.duplicate();
+      b.position(p + 46);
+      b.get(name);
+      // encrypted entries, unknown methods and sizes beyond 2GB are left to the JarFile
+      if ((flags & 1) == 0 && (method == STORED || method == DEFLATED) && compressedSize >= 0 && size >= 0
+          && localHeaderOffset >= 0) {
+        result.put(new String(name, UTF8), new Location(method, compressedSize, size, localHeaderOffset));
+      }
+      p += 46 + nameLength + extraLength + commentLength;
+    }
+    return result;
+  }
+
+  private static int findEndOfCentralDirectory(ByteBuffer image) throws IOException {
+    // the end record is followed by a comment of at most 64K
+    int min = Math.max(0, image.capacity() - END_SIZE - 0xffff);
+    for (int p = image.capacity() - END_SIZE; p >= min; p--) {
+      if (image.getInt(p) == END_SIGNATURE) {
+        return p;
+      }
+    }
+    throw new IOException("no central directory");
+  }
+
+  @Override
+  protected ModuleEntry createEntry(ZipEntry z) {
+    return new MappedJarFileEntry(z.getName(), this);
+  }
+
+  /**
+   * @return the position of the data of an entry in the image, or -1 if the local header does not make sense
+   */
+  private int getDataOffset(Location l) {
+    if (image.getInt(l.localHeaderOffset) != LOCAL_HEADER_SIGNATURE) {
+      return -1;
+    }
+    int start = l.localHeaderOffset + 30 + (image.getShort(l.localHeaderOffset + 26) & 0xffff)
+        + (image.getShort(l.localHeaderOffset + 28) & 0xffff);
+    return start + l.compressedSize <= image.capacity() ? start : -1;
+  }
+
+  /**
+   * @return the contents of an entry, or null if the entry must be read through the {@link JarFile}
+   */
+  byte[] getBytes(String entryName) {
+    Location l = directory.get(entryName);
+    if (l == null) {
+      return null;
+    }
+    int start = getDataOffset(l);
+    if (start == -1) {
+      return null;
+    }
+    ByteBuffer b = image.duplicate();
+    b.position(start);
+    byte[] result = new byte[l.size];
+    if (l.method == STORED) {
+      b.get(result);
+      return result;
+    }
+    byte[] input = inflaterInput.get();
+    if (input.length < l.compressedSize + 1) {
+      input = new byte[Math.max(l.compressedSize + 1, 2 * input.length)];
+      inflaterInput.set(input);
+    }
+    b.get(input, 0, l.compressedSize);
+    // a raw inflater may need one trailing dummy byte
+    input[l.compressedSize] = 0;
+    Inflater inflater = inflaters.get();
+    try {
+      inflater.setInput(input, 0, l.compressedSize + 1);
+      int n = 0;
+      while (n < result.length) {
+        int k = inflater.inflate(result, n, result.length - n);
+        if (k == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+          return null;
+        }
+        n += k;
+      }
+      return result;
+    } catch (DataFormatException e) {
+      return null;
+    } finally {
+      inflater.reset();
+    }
+  }
+
+  @Override
+  public byte[] getContents(ZipEntry entry) {
+    byte[] b = getBytes(entry.getName());
+    return b != null ? b : super.getContents(entry);
+  }
+
+  /**
+   * An entry whose contents are read from the mapped image of the jar file.
+   */
+  private static class MappedJarFileEntry extends JarFileEntry {
+
+    private final MappedJarFileModule module;
+
+    MappedJarFileEntry(String entryName, MappedJarFileModule module) {
+      super(entryName, module);
+      this.module = module;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      Location l = module.directory.get(getName());
+      if (l != null && l.method == STORED) {
+        int start = module.getDataOffset(l);
+        if (start != -1) {
+          // no copy at all: stream straight from the mapping
+          ByteBuffer b = module.image.duplicate();
+          b.position(start);
+          b.limit(start + l.size);
+          return new ByteBufferInputStream(b.slice());
+        }
+      }
+      byte[] b = module.getBytes(getName());
+      return b != null ? new ByteArrayInputStream(b) : super.getInputStream();
+    }
+
+    @Override
+    public long getSize() {
+      Location l = module.directory.get(getName());
+      return l != null ? l.size : super.getSize();
+    }
+  }
+
+  /**
+   * @return the contents of an entry of a mapped jar file, read without any intermediate buffers, or null if the entry does not
+   *         belong to a mapped jar file or cannot be read from the mapping
+   */
+  public static byte[] readContents(ModuleEntry entry) {
+    if (entry instanceof MappedJarFileEntry) {
+      return ((MappedJarFileEntry) entry).module.getBytes(entry.getName());
+    } else {
+      return null;
+    }
+  }
+}
@@ -124,9 +124,10 @@ public abstract class ShrikeBTMethod implements IMethod, BytecodeConstants {
     protected int[][] localVariableMap;
 
     /**
-     * Exception types this method might throw. Computed on demand.
+     * has {@link ShrikeBTMethod#processDebugInfo(BytecodeInfo)} filled in the maps above? Debug information is only decoded when
+     * first requested.
      */
-    private TypeReference[] exceptionTypes;
+    private boolean hasDebugInfo;
   }
 
   /**
@@ -134,6 +135,11 @@ public abstract class ShrikeBTMethod implements IMethod, BytecodeConstants {
    */
   private SoftReference<BytecodeInfo> bcInfo;
 
+  /**
+   * Exception types this method might throw. Computed on demand, without decoding the bytecodes.
+   */
+  private TypeReference[] exceptionTypes;
+
   public ShrikeBTMethod(IClass klass) {
     this.declaringClass = klass;
   }
@@ -150,6 +156,21 @@ public abstract class ShrikeBTMethod implements IMethod, BytecodeConstants {
     return result;
   }
 
+  /**
+   * @return the bytecode information, with the debug information (line numbers, source positions and local variable tables)
+   *         decoded
+   */
+  protected synchronized BytecodeInfo getBCInfoWithDebugInfo() throws InvalidClassFileException {
+    BytecodeInfo result = getBCInfo();
+    if (!result.hasDebugInfo) {
+      if (result.decoder != null) {
+        processDebugInfo(result);
+      }
+      result.hasDebugInfo = true;
+    }
+    return result;
+  }
+
   /**
    * Return the program counter (bytecode index) for a particular Shrike instruction index.
    * 
@@ -211,7 +232,6 @@ public abstract class ShrikeBTMethod implements IMethod, BytecodeConstants {
    */
   private BytecodeInfo computeBCInfo() throws InvalidClassFileException {
     BytecodeInfo result = new BytecodeInfo();
-    result.exceptionTypes = computeDeclaredExceptions();
 
     if (isNative()) {
       return result;
@@ -423,7 +443,8 @@ public abstract class ShrikeBTMethod implements IMethod, BytecodeConstants {
   protected abstract Decoder makeDecoder();
 
   /**
-   * Walk through the bytecodes and collect trivial information.
+   * Decode the debug information (line numbers, source positions and local variable tables) of a method with bytecodes. Called
+   * on demand by {@link #getBCInfoWithDebugInfo()}.
    * 
    * @throws InvalidClassFileException
    */
@@ -439,8 +460,6 @@ public abstract class ShrikeBTMethod implements IMethod, BytecodeConstants {
     }
     info.pcMap = info.decoder.getInstructionsToBytecodes();
 
-    processDebugInfo(info);
-
     SimpleVisitor simpleVisitor = new SimpleVisitor(info);
 
     BytecodeLanguage lang = (BytecodeLanguage) getDeclaringClass().getClassLoader().getLanguage();
@@ -746,8 +765,12 @@ public abstract class ShrikeBTMethod implements IMethod, BytecodeConstants {
    * @see com.ibm.wala.classLoader.IMethod#getDeclaredExceptions()
    */
   @Override
-  public TypeReference[] getDeclaredExceptions() throws InvalidClassFileException {
-    return (getBCInfo().exceptionTypes == null) ? new TypeReference[0] : getBCInfo().exceptionTypes;
+  public synchronized TypeReference[] getDeclaredExceptions() throws InvalidClassFileException {
+    if (exceptionTypes == null) {
+      TypeReference[] result = computeDeclaredExceptions();
+      exceptionTypes = (result == null) ? new TypeReference[0] : result;
+    }
+    return exceptionTypes;
   }
 
   protected abstract String[] getDeclaredExceptionTypeNames() throws InvalidClassFileException;
@@ -780,14 +803,16 @@ public abstract class ShrikeBTMethod implements IMethod, BytecodeConstants {
    * @see com.ibm.wala.classLoader.IMethod#getSourcePosition(int)
    */
   public SourcePosition getSourcePosition(int bcIndex) throws InvalidClassFileException {
-    return (getBCInfo().positionMap == null) ? null : getBCInfo().positionMap[bcIndex];
+    BytecodeInfo info = getBCInfoWithDebugInfo();
+    return (info.positionMap == null) ? null : info.positionMap[bcIndex];
   }
 
   /*
    * @see com.ibm.wala.classLoader.IMethod#getParameterSourcePosition(int)
    */
   public SourcePosition getParameterSourcePosition(int paramNum) throws InvalidClassFileException {
-    return (getBCInfo().paramPositionMap == null) ? null : getBCInfo().paramPositionMap[paramNum];
+    BytecodeInfo info = getBCInfoWithDebugInfo();
+    return (info.paramPositionMap == null) ? null : info.paramPositionMap[paramNum];
   }
 /** END Custom change: precise bytecode positions */
 
@@ -797,7 +822,8 @@ public abstract class ShrikeBTMethod implements IMethod, BytecodeConstants {
   @Override
   public int getLineNumber(int bcIndex) {
     try {
-      return (getBCInfo().lineNumberMap == null) ? -1 : getBCInfo().lineNumberMap[bcIndex];
+      BytecodeInfo info = getBCInfoWithDebugInfo();
+      return (info.lineNumberMap == null) ? -1 : info.lineNumberMap[bcIndex];
     } catch (InvalidClassFileException e) {
       return -1;
     }
@@ -268,7 +268,7 @@ public final class ShrikeCTMethod extends ShrikeBTMethod implements IBytecodeMet
   public String getLocalVariableName(int bcIndex, int localNumber){
     int[][] map = null;
     try {
-      map = getBCInfo().localVariableMap;
+      map = getBCInfoWithDebugInfo().localVariableMap;
     } catch (InvalidClassFileException e1) {
       return null;
     }
@@ -68,6 +68,71 @@ public final class ShrikeClass extends JVMClass<IClassLoader> {
     computeFields();
   }
 
+  /**
+   * Create a class from a cached header, without parsing the class file. The reader is only used later, to read methods and
+   * annotations on demand.
+   */
+  ShrikeClass(ShrikeClassReaderHandle reader, IClassLoader loader, IClassHierarchy cha, ClassHeaderCache.ClassHeader header) {
+    super(loader, cha);
+    if (reader == null) {
+      throw new IllegalArgumentException("reader is null");
+    }
+    this.reader = reader;
+    typeReference = TypeReference.findOrCreate(getClassLoader().getReference(),
+        TypeName.findOrCreate(ImmutableByteArray.make("L" + header.name)));
+    this.hashCode = 2161 * getReference().hashCode();
+    if (header.superName != null) {
+      superName = ImmutableByteArray.make("L" + header.superName);
+    }
+    modifiers = header.modifiers;
+    interfaceNames = new ImmutableByteArray[header.interfaceNames.length];
+    for (int i = 0; i < interfaceNames.length; i++) {
+      interfaceNames[i] = ImmutableByteArray.make("L" + header.interfaceNames[i]);
+    }
+    List<FieldImpl> instanceList = new ArrayList<FieldImpl>(header.fieldNames.length);
+    List<FieldImpl> staticList = new ArrayList<FieldImpl>(header.fieldNames.length);
+    for (int i = 0; i < header.fieldNames.length; i++) {
+      int accessFlags = header.fieldModifiers[i];
+      Atom name = Atom.findOrCreateUnicodeAtom(header.fieldNames[i]);
+      ImmutableByteArray b = ImmutableByteArray.make(header.fieldTypes[i]);
+      TypeSignature sig = header.fieldSignatures[i] == null ? null : TypeSignature.make(header.fieldSignatures[i]);
+      if ((accessFlags & ClassConstants.ACC_STATIC) == 0) {
+        addFieldToList(instanceList, name, b, accessFlags, null, sig);
+      } else {
+        addFieldToList(staticList, name, b, accessFlags, null, sig);
+      }
+    }
+    instanceFields = new IField[instanceList.size()];
+    populateFieldArrayFromList(instanceList, instanceFields);
+    staticFields = new IField[staticList.size()];
+    populateFieldArrayFromList(staticList, staticFields);
+  }
+
+  /**
+   * @return the header to record for this class in a {@link ClassHeaderCache}, or null if the class cannot be cached because
+   *         one of its fields has annotations, which are not recorded in the cache
+   */
+  ClassHeaderCache.ClassHeader makeHeader(String entryName) throws InvalidClassFileException {
+    ClassReader cr = reader.get();
+    int fieldCount = cr.getFieldCount();
+    int[] fieldModifiers = new int[fieldCount];
+    String[] fieldNames = new String[fieldCount];
+    String[] fieldTypes = new String[fieldCount];
+    String[] fieldSignatures = new String[fieldCount];
+    for (int i = 0; i < fieldCount; i++) {
+      if (!getRuntimeInvisibleAnnotations(i).isEmpty() || !getRuntimeVisibleAnnotations(i).isEmpty()) {
+        return null;
+      }
+      fieldModifiers[i] = cr.getFieldAccessFlags(i);
+      fieldNames[i] = cr.getFieldName(i);
+      fieldTypes[i] = cr.getFieldType(i);
+      SignatureReader signatureReader = getSignatureReader(i);
+      fieldSignatures[i] = signatureReader == null ? null : signatureReader.getSignature();
+    }
+    return new ClassHeaderCache.ClassHeader(entryName, cr.getName(), cr.getAccessFlags(), cr.getSuperName(),
+        cr.getInterfaceNames(), fieldModifiers, fieldNames, fieldTypes, fieldSignatures);
+  }
+
   /**
    * Compute the fields declared by this class
    * 
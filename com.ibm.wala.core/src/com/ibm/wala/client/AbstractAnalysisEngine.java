@@ -41,6 +41,7 @@ import com.ibm.wala.util.config.AnalysisScopeReader;
 import com.ibm.wala.util.config.SetOfClasses;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.io.FileProvider;
+import com.ibm.wala.util.perf.MetricsListener;
 
 /**
  * Abstract base class for analysis engine implementations
@@ -66,6 +67,16 @@ public abstract class AbstractAnalysisEngine implements AnalysisEngine {
    */
   protected static final int DEBUG_LEVEL = 1;
 
+  /**
+   * name of the phase that reads the analysis scope, for {@link MetricsListener}s
+   */
+  public final static String SCOPE_PHASE = "analysis scope";
+
+  /**
+   * name of the phase that builds the class hierarchy, for {@link MetricsListener}s
+   */
+  public final static String CLASS_HIERARCHY_PHASE = "class hierarchy";
+
   /**
    * Name of the file which holds the class hierarchy exclusions directives for this analysis.
    */
@@ -121,6 +132,11 @@ public abstract class AbstractAnalysisEngine implements AnalysisEngine {
    */
   private HeapGraph heapGraph;
 
+  /**
+   * Receives the times of the phases of the analysis, or null
+   */
+  private MetricsListener metrics;
+
   private EntrypointBuilder entrypointBuilder = new EntrypointBuilder() {
     @Override
     public Iterable<Entrypoint> createEntrypoints(AnalysisScope scope, IClassHierarchy cha) {
@@ -300,11 +316,23 @@ public abstract class AbstractAnalysisEngine implements AnalysisEngine {
    * @throws IOException
    */
   public CallGraphBuilder defaultCallGraphBuilder() throws IllegalArgumentException, CancelException, IOException {
-    buildAnalysisScope();
-    IClassHierarchy cha = buildClassHierarchy();
+    long start = phaseStarted(SCOPE_PHASE);
+    try {
+      buildAnalysisScope();
+    } finally {
+      phaseFinished(SCOPE_PHASE, start);
+    }
+    start = phaseStarted(CLASS_HIERARCHY_PHASE);
+    IClassHierarchy cha;
+    try {
+      cha = buildClassHierarchy();
+    } finally {
+      phaseFinished(CLASS_HIERARCHY_PHASE, start);
+    }
     setClassHierarchy(cha);
     Iterable<Entrypoint> eps = entrypointBuilder.createEntrypoints(scope, cha);
     options = getDefaultOptions(eps);
+    options.setMetricsListener(metrics);
     cache = makeDefaultCache();
     return buildCallGraph(cha, options, true, null);
   }
@@ -321,4 +349,29 @@ public abstract class AbstractAnalysisEngine implements AnalysisEngine {
     return options;
   }
 
+  public MetricsListener getMetricsListener() {
+    return metrics;
+  }
+
+  /**
+   * @param metrics receives the times of the phases of the analysis, and is passed to the call graph builder in the
+   *          {@link AnalysisOptions}; null for none
+   */
+  public void setMetricsListener(MetricsListener metrics) {
+    this.metrics = metrics;
+  }
+
+  private long phaseStarted(String phase) {
+    if (metrics != null) {
+      metrics.phaseStarted(phase);
+    }
+    return System.nanoTime();
+  }
+
+  private void phaseFinished(String phase, long start) {
+    if (metrics != null) {
+      metrics.phaseFinished(phase, System.nanoTime() - start);
+    }
+  }
+
 }
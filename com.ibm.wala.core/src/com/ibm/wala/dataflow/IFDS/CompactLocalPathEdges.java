@@ -0,0 +1,385 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.dataflow.IFDS;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import com.ibm.wala.util.collections.LongIntHashMap;
+import com.ibm.wala.util.collections.SparseVector;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+import com.ibm.wala.util.intset.SparseIntSet;
+
+/**
+ * A set of path edges for a particular procedure entry s_p, which stores the path edges <s_p, d1> -> <n, d2> with d1 != 0 and d1
+ * != d2 in primitive arrays rather than in a relation per fact.
+ *
+ * {@link LocalPathEdges} keeps a {@link com.ibm.wala.util.intset.BasicNaturalRelation} for each fact d2, which costs several
+ * objects per fact even when the fact reaches only a handful of nodes. Here, those edges are kept in a single open-addressing
+ * hash table from the pair (n, d2) to the set of d1, where a set with a single element is stored inline and larger sets are sorted
+ * int arrays. Paths from 0 and identity paths are kept in bit vectors, as in {@link LocalPathEdges}.
+ *
+ * When merging, a second table maps the pair (n, d1) to the set of d2, so that {@link #getReachable(int, int)} is a single lookup.
+ */
+public class CompactLocalPathEdges extends LocalPathEdges {
+
+  /**
+   * a map from integer d1 -> int set.
+   *
+   * for fact d1, identityPaths[d1] gives the set of block numbers N s.t. for n \in N, <s_p, d1> -> <n, d1> is a path edge.
+   */
+  private final SparseVector<IntSet> identityPaths = new SparseVector<IntSet>(1, 1.1f);
+
+  /**
+   * a map from integer d2 -> int set
+   *
+   * for fact d2, zeroPaths[d2] gives the set of block numbers N s.t. for n \in N, <s_p, 0> -> <n, d2> is a path edge.
+   */
+  private final SparseVector<IntSet> zeroPaths = new SparseVector<IntSet>(1, 1.1f);
+
+  /**
+   * For each pair (n, d2), the set of d1 s.t. <s_p, d1> -> <n,d2> is a path edge, with d1 != 0 and d1 != d2.
+   */
+  private final PairTable paths = new PairTable();
+
+  /**
+   * If this is non-null, for each pair (n, d1), the set of d2 s.t. <s_p, d1> -> <n,d2> is a path edge, with d1 != d2. Unlike
+   * {@link #paths}, this includes the paths from 0.
+   */
+  private final PairTable altPaths;
+
+  /**
+   * @param fastMerge if true, the representation uses extra space in order to support faster merge operations
+   */
+  public CompactLocalPathEdges(boolean fastMerge) {
+    altPaths = fastMerge ? new PairTable() : null;
+  }
+
+  @Override
+  public void addPathEdge(int i, int n, int j) {
+    if (i == 0) {
+      add(zeroPaths, j, n);
+      if (altPaths != null) {
+        altPaths.add(n, 0, j);
+      }
+    } else if (i == j) {
+      add(identityPaths, i, n);
+    } else {
+      paths.add(n, j, i);
+      if (altPaths != null) {
+        altPaths.add(n, i, j);
+      }
+    }
+  }
+
+  private static void add(SparseVector<IntSet> v, int d, int n) {
+    BitVectorIntSet s = (BitVectorIntSet) v.get(d);
+    if (s == null) {
+      s = new BitVectorIntSet();
+      v.set(d, s);
+    }
+    s.add(n);
+  }
+
+  private static boolean contains(SparseVector<IntSet> v, int d, int n) {
+    IntSet s = v.get(d);
+    return s != null && s.contains(n);
+  }
+
+  /**
+   * As for {@link LocalPathEdges#getInverse(int, int)}, the implicit path edges due to paths from 0 are not included.
+   */
+  @Override
+  public IntSet getInverse(int n, int d2) {
+    boolean zero = contains(zeroPaths, d2, n);
+    boolean identity = contains(identityPaths, d2, n);
+    IntSet related = paths.get(n, d2);
+    if (!zero && !identity) {
+      return related;
+    }
+    if (related == null) {
+      if (zero && identity) {
+        return SparseIntSet.pair(0, d2);
+      } else {
+        return SparseIntSet.singleton(zero ? 0 : d2);
+      }
+    }
+    MutableSparseIntSet result = MutableSparseIntSet.make(related);
+    if (zero) {
+      result.add(0);
+    }
+    if (identity) {
+      result.add(d2);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean contains(int i, int n, int j) {
+    if (n < 0) {
+      throw new IllegalArgumentException("invalid n: " + n);
+    }
+    if (i == 0) {
+      return contains(zeroPaths, j, n);
+    } else if (i == j) {
+      return contains(identityPaths, i, n);
+    } else {
+      return paths.contains(n, j, i);
+    }
+  }
+
+  @Override
+  public IntSet getReachable(int n, int d1) {
+    if (altPaths != null) {
+      IntSet result = altPaths.get(n, d1);
+      if (contains(identityPaths, d1, n)) {
+        if (result == null) {
+          return SparseIntSet.singleton(d1);
+        }
+        MutableSparseIntSet s = MutableSparseIntSet.make(result);
+        s.add(d1);
+        return s;
+      }
+      return result;
+    }
+    MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
+    paths.addKeysWith(n, d1, result);
+    if (contains(identityPaths, d1, n)) {
+      result.add(d1);
+    }
+    if (d1 == 0) {
+      addFactsReaching(zeroPaths, n, result);
+    }
+    return result;
+  }
+
+  @Override
+  public IntSet getReachable(int n) {
+    MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
+    paths.addKeys(n, result);
+    addFactsReaching(identityPaths, n, result);
+    addFactsReaching(zeroPaths, n, result);
+    return result;
+  }
+
+  /**
+   * add to result each fact d s.t. v[d] contains n
+   */
+  private static void addFactsReaching(SparseVector<IntSet> v, int n, MutableIntSet result) {
+    // parallel iteration with the vector's indices and contents, to avoid random access to the sparse vector
+    Iterator<IntSet> contents = v.iterator();
+    for (IntIterator it = v.iterateIndices(); it.hasNext();) {
+      int d = it.next();
+      IntSet s = contents.next();
+      if (s != null && s.contains(n)) {
+        result.add(d);
+      }
+    }
+  }
+
+  @Override
+  public IntSet getReachedNodeNumbers() {
+    MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
+    paths.addNodes(result);
+    for (IntSet s : identityPaths) {
+      result.addAll(s);
+    }
+    for (IntSet s : zeroPaths) {
+      result.addAll(s);
+    }
+    return result;
+  }
+
+  @Override
+  public void writeEdges(DataOutput out) throws IOException {
+    paths.writeEdges(out);
+    writeEdges(out, identityPaths, false);
+    writeEdges(out, zeroPaths, true);
+    out.writeInt(-1);
+  }
+
+  /**
+   * A map from pairs (n, x) of non-negative ints to non-empty sets of non-negative ints, implemented with a
+   * {@link LongIntHashMap} from the pair packed in a long.
+   *
+   * The value of a key is either a non-negative int, which is the only element of its set, or -(r+1), where r indexes a row
+   * holding the size of the set followed by its elements in increasing order. For each n, the x with a non-empty set for (n, x)
+   * are also kept in a sorted set, so that queries about node n look only at the pairs of n.
+   */
+  private static final class PairTable {
+
+    /**
+     * the value of a pair with an empty set
+     */
+    private static final int NONE = Integer.MIN_VALUE;
+
+    private final LongIntHashMap table = new LongIntHashMap(16, NONE);
+
+    /**
+     * for each n, the set of x s.t. the set for (n, x) is not empty
+     */
+    private final SparseVector<MutableSparseIntSet> keys = new SparseVector<MutableSparseIntSet>(1, 1.1f);
+
+    private int[][] rows = new int[4][];
+
+    private int rowCount = 0;
+
+    private static long key(int n, int x) {
+      return ((long) n << 32) | (x & 0xffffffffL);
+    }
+
+    /**
+     * add y to the set for (n, x)
+     *
+     * @return true iff the set changed
+     */
+    boolean add(int n, int x, int y) {
+      long key = key(n, x);
+      int v = table.get(key);
+      if (v == NONE) {
+        table.put(key, y);
+        MutableSparseIntSet s = keys.get(n);
+        if (s == null) {
+          s = MutableSparseIntSet.makeEmpty();
+          keys.set(n, s);
+        }
+        s.add(x);
+        return true;
+      }
+      if (v >= 0) {
+        if (v == y) {
+          return false;
+        }
+        table.put(key, -(newRow(v, y) + 1));
+        return true;
+      }
+      return addToRow(-v - 1, y);
+    }
+
+    private int newRow(int a, int b) {
+      if (rowCount == rows.length) {
+        rows = Arrays.copyOf(rows, rows.length * 2);
+      }
+      rows[rowCount] = a < b ? new int[] { 2, a, b, 0 } : new int[] { 2, b, a, 0 };
+      return rowCount++;
+    }
+
+    private boolean addToRow(int r, int y) {
+      int[] row = rows[r];
+      int n = row[0];
+      int index = Arrays.binarySearch(row, 1, n + 1, y);
+      if (index >= 0) {
+        return false;
+      }
+      index = -index - 1;
+      if (n + 1 == row.length) {
+        row = rows[r] = Arrays.copyOf(row, row.length + (row.length >> 1));
+      }
+      System.arraycopy(row, index, row, index + 1, n + 1 - index);
+      row[index] = y;
+      row[0] = n + 1;
+      return true;
+    }
+
+    private static boolean contains(int[] row, int y) {
+      return Arrays.binarySearch(row, 1, row[0] + 1, y) >= 0;
+    }
+
+    boolean contains(int n, int x, int y) {
+      int v = table.get(key(n, x));
+      if (v == NONE) {
+        return false;
+      }
+      return v >= 0 ? v == y : contains(rows[-v - 1], y);
+    }
+
+    /**
+     * @return the set for (n, x), or null if it is empty
+     */
+    IntSet get(int n, int x) {
+      int v = table.get(key(n, x));
+      if (v == NONE) {
+        return null;
+      }
+      if (v >= 0) {
+        return SparseIntSet.singleton(v);
+      }
+      int[] row = rows[-v - 1];
+      MutableSparseIntSet result = MutableSparseIntSet.createMutableSparseIntSet(row[0]);
+      for (int k = 1; k <= row[0]; k++) {
+        result.add(row[k]);
+      }
+      return result;
+    }
+
+    /**
+     * add to result each x s.t. the set for (n, x) contains y
+     */
+    void addKeysWith(int n, int y, MutableIntSet result) {
+      IntSet s = keys.get(n);
+      if (s != null) {
+        for (IntIterator it = s.intIterator(); it.hasNext();) {
+          int x = it.next();
+          int v = table.get(key(n, x));
+          if (v >= 0 ? v == y : contains(rows[-v - 1], y)) {
+            result.add(x);
+          }
+        }
+      }
+    }
+
+    /**
+     * add to result each x s.t. the set for (n, x) is not empty
+     */
+    void addKeys(int n, MutableIntSet result) {
+      IntSet s = keys.get(n);
+      if (s != null) {
+        result.addAll(s);
+      }
+    }
+
+    /**
+     * write an edge <s_p, y> -> <n, x> for each y in the set for (n, x)
+     */
+    void writeEdges(DataOutput out) throws IOException {
+      for (IntIterator nodes = keys.iterateIndices(); nodes.hasNext();) {
+        int n = nodes.next();
+        for (IntIterator it = keys.get(n).intIterator(); it.hasNext();) {
+          int x = it.next();
+          int v = table.get(key(n, x));
+          if (v >= 0) {
+            writeEdge(out, v, n, x);
+          } else {
+            int[] row = rows[-v - 1];
+            for (int k = 1; k <= row[0]; k++) {
+              writeEdge(out, row[k], n, x);
+            }
+          }
+        }
+      }
+    }
+
+    /**
+     * add to result each n s.t. the set for (n, x) is not empty for some x
+     */
+    void addNodes(MutableIntSet result) {
+      for (IntIterator it = keys.iterateIndices(); it.hasNext();) {
+        result.add(it.next());
+      }
+    }
+  }
+}
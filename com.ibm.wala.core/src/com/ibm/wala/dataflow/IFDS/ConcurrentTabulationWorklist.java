@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.dataflow.IFDS;
+
+/**
+ * A thread-safe {@link ITabulationWorklist} shared by the workers of a concurrent tabulation. It wraps the (priority) worklist of
+ * the solver, and detects termination: the tabulation is done when the worklist is empty and no worker is processing an edge,
+ * since only a worker processing an edge can insert new ones.
+ *
+ * @param <T> represents type of nodes in the supergraph.
+ */
+class ConcurrentTabulationWorklist<T> implements ITabulationWorklist<T> {
+
+  private final ITabulationWorklist<T> delegate;
+
+  /**
+   * number of workers that took an edge and have not yet called {@link #done()}
+   */
+  private int busy = 0;
+
+  /**
+   * has the tabulation been stopped?
+   */
+  private boolean aborted = false;
+
+  ConcurrentTabulationWorklist(ITabulationWorklist<T> delegate) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("delegate is null");
+    }
+    this.delegate = delegate;
+  }
+
+  ITabulationWorklist<T> getDelegate() {
+    return delegate;
+  }
+
+  @Override
+  public synchronized PathEdge<T> take() {
+    return delegate.take();
+  }
+
+  @Override
+  public synchronized void insert(PathEdge<T> elt) {
+    delegate.insert(elt);
+    notify();
+  }
+
+  @Override
+  public synchronized int size() {
+    return delegate.size();
+  }
+
+  /**
+   * Take an edge to process, waiting for one if the worklist is empty while other workers are busy. A worker that gets an edge
+   * must call {@link #done()} once it has processed it.
+   *
+   * @return the next edge to process, or null if the tabulation is finished or has been aborted
+   */
+  synchronized PathEdge<T> awaitTake() throws InterruptedException {
+    while (!aborted && delegate.size() == 0) {
+      if (busy == 0) {
+        notifyAll();
+        return null;
+      }
+      wait();
+    }
+    if (aborted) {
+      return null;
+    }
+    busy++;
+    return delegate.take();
+  }
+
+  /**
+   * Called by a worker when it has finished processing an edge returned by {@link #awaitTake()}.
+   */
+  synchronized void done() {
+    busy--;
+    if (busy == 0 && delegate.size() == 0) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Stop the tabulation; workers waiting for or asking for an edge get null.
+   */
+  synchronized void abort() {
+    aborted = true;
+    notifyAll();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return delegate.toString();
+  }
+}
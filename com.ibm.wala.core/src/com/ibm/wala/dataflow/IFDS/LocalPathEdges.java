@@ -10,6 +10,9 @@
  *******************************************************************************/
 package com.ibm.wala.dataflow.IFDS;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.util.Iterator;
 
 import com.ibm.wala.util.collections.SparseVector;
@@ -24,6 +27,10 @@ import com.ibm.wala.util.intset.SparseIntSet;
 
 /**
  * A set of path edges for a particular procedure entry s_p.
+ *
+ * Instances are not thread-safe. A concurrent tabulation shares them among its workers through a {@link SynchronizedLocalPathEdges},
+ * whose methods hold the lock on the wrapper. Sets returned by queries may be views of the underlying representation; a client
+ * that iterates over one while other threads add edges should copy it while holding that lock.
  */
 public class LocalPathEdges {
 
@@ -50,7 +57,7 @@ public class LocalPathEdges {
    * TODO: more representation optimization. A special representation for triples? sparse representations for CFG? exploit shorts
    * for ints?
    */
-  private final SparseVector<IBinaryNaturalRelation> paths = new SparseVector<IBinaryNaturalRelation>(1, 1.1f);
+  private final SparseVector<IBinaryNaturalRelation> paths;
 
   /**
    * If this is non-null, it holds a redundant representation of the paths information, designed to make getReachable(II) faster.
@@ -75,20 +82,33 @@ public class LocalPathEdges {
    * 
    * for fact d1, identityPaths[d1] gives the set of block numbers N s.t. for n \in N, <s_p, d1> -> <n, d1> is a path edge.
    */
-  private final SparseVector<IntSet> identityPaths = new SparseVector<IntSet>(1, 1.1f);
+  private final SparseVector<IntSet> identityPaths;
 
   /**
    * a map from integer d2 -> int set
    * 
    * for fact d2, zeroPaths[d2] gives the set of block numbers N s.t. for n \in N, <s_p, 0> -> <n, d2> is a path edge.
    */
-  private final SparseVector<IntSet> zeroPaths = new SparseVector<IntSet>(1, 1.1f);
+  private final SparseVector<IntSet> zeroPaths;
 
   /**
    * @param fastMerge if true, the representation uses extra space in order to support faster merge operations
    */
   public LocalPathEdges(boolean fastMerge) {
+    paths = new SparseVector<IBinaryNaturalRelation>(1, 1.1f);
     altPaths = fastMerge ? new SparseVector<IBinaryNaturalRelation>(1, 1.1f) : null;
+    identityPaths = new SparseVector<IntSet>(1, 1.1f);
+    zeroPaths = new SparseVector<IntSet>(1, 1.1f);
+  }
+
+  /**
+   * For subclasses that use their own representation, and so override all public methods.
+   */
+  protected LocalPathEdges() {
+    paths = null;
+    altPaths = null;
+    identityPaths = null;
+    zeroPaths = null;
   }
 
   /**
@@ -220,7 +240,7 @@ public class LocalPathEdges {
             return z.contains(n) ? SparseIntSet.pair(0, d2) : SparseIntSet.singleton(d2);
           }
         } else {
-          return null;
+          return z != null && z.contains(n) ? SparseIntSet.singleton(0) : null;
         }
       }
     } else {
@@ -450,4 +470,54 @@ public class LocalPathEdges {
     }
     return result;
   }
-}
\ No newline at end of file
+
+  /**
+   * Write all path edges <s_p,i> -> <n,j> to out, as triples i, n, j followed by -1. The edges can be added to another instance
+   * with {@link #readEdges(DataInput)}.
+   */
+  public void writeEdges(DataOutput out) throws IOException {
+    Iterator<IBinaryNaturalRelation> relations = paths.iterator();
+    for (IntIterator it = paths.iterateIndices(); it.hasNext();) {
+      int d2 = it.next();
+      for (IntPair p : relations.next()) {
+        writeEdge(out, p.getY(), p.getX(), d2);
+      }
+    }
+    writeEdges(out, identityPaths, false);
+    writeEdges(out, zeroPaths, true);
+    out.writeInt(-1);
+  }
+
+  /**
+   * write the edges of one of the tables of int sets indexed by fact
+   * 
+   * @param zero are these paths from 0, rather than identity paths?
+   */
+  protected static void writeEdges(DataOutput out, SparseVector<IntSet> v, boolean zero) throws IOException {
+    Iterator<IntSet> contents = v.iterator();
+    for (IntIterator it = v.iterateIndices(); it.hasNext();) {
+      int d = it.next();
+      IntSet s = contents.next();
+      for (IntIterator ns = s.intIterator(); ns.hasNext();) {
+        writeEdge(out, zero ? 0 : d, ns.next(), d);
+      }
+    }
+  }
+
+  protected static void writeEdge(DataOutput out, int i, int n, int j) throws IOException {
+    out.writeInt(i);
+    out.writeInt(n);
+    out.writeInt(j);
+  }
+
+  /**
+   * Add the path edges written by {@link #writeEdges(DataOutput)}.
+   */
+  public void readEdges(DataInput in) throws IOException {
+    for (int i = in.readInt(); i != -1; i = in.readInt()) {
+      int n = in.readInt();
+      int j = in.readInt();
+      addPathEdge(i, n, j);
+    }
+  }
+}
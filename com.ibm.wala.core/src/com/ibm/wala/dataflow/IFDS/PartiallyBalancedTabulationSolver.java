@@ -11,14 +11,16 @@
 package com.ibm.wala.dataflow.IFDS;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
-import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
 
 /**
  * Utilities for dealing with tabulation with partially balanced parentheses.
@@ -34,7 +36,7 @@ public class PartiallyBalancedTabulationSolver<T, P, F> extends TabulationSolver
     return new PartiallyBalancedTabulationSolver<T, P, F>(p, monitor);
   }
 
-  private final Collection<Pair<T,Integer>> unbalancedSeeds = HashSetFactory.make();
+  private final Collection<Pair<T,Integer>> unbalancedSeeds = Collections.newSetFromMap(new ConcurrentHashMap<Pair<T,Integer>, Boolean>());
 
   protected PartiallyBalancedTabulationSolver(PartiallyBalancedTabulationProblem<T, P, F> p, IProgressMonitor monitor) {
     super(p, monitor);
@@ -44,41 +46,64 @@ public class PartiallyBalancedTabulationSolver<T, P, F> extends TabulationSolver
   protected boolean propagate(T s_p, int i, T n, int j) {
     boolean result = super.propagate(s_p, i, n, j);
     if (result && wasUsedAsUnbalancedSeed(s_p, i) && supergraph.isExit(n)) {
-      // j was reached from an entry seed. if there are any facts which are reachable from j, even without
-      // balanced parentheses, we can use these as new seeds.
-      for (Iterator<? extends T> it2 = supergraph.getSuccNodes(n); it2.hasNext();) {
-        T retSite = it2.next();
-        PartiallyBalancedTabulationProblem<T, P, F> problem = (PartiallyBalancedTabulationProblem<T, P, F>) getProblem();
-        IFlowFunction f = problem.getFunctionMap().getUnbalancedReturnFlowFunction(n, retSite);
-        // for each fact that can be reached by the return flow ...
-        if (f instanceof IUnaryFlowFunction) {
-          IUnaryFlowFunction uf = (IUnaryFlowFunction) f;
-          IntSet facts = uf.getTargets(j);
-          if (facts != null) {
-            for (IntIterator it4 = facts.intIterator(); it4.hasNext();) {
-              int d3 = it4.next();
-              // d3 would be reached if we ignored parentheses. use it as a new seed.
-              T fakeEntry = problem.getFakeEntry(retSite);
-              PathEdge<T> seed = PathEdge.createPathEdge(fakeEntry, d3, retSite, d3);
-              addSeed(seed);
-            }
+      propagateUnbalancedReturn(n, j);
+    }
+    return result;
+  }
+
+  /**
+   * j was reached at exit n from an entry seed. if there are any facts which are reachable from j, even without balanced
+   * parentheses, we can use these as new seeds.
+   */
+  private void propagateUnbalancedReturn(T n, int j) {
+    for (Iterator<? extends T> it2 = supergraph.getSuccNodes(n); it2.hasNext();) {
+      T retSite = it2.next();
+      PartiallyBalancedTabulationProblem<T, P, F> problem = (PartiallyBalancedTabulationProblem<T, P, F>) getProblem();
+      IFlowFunction f = problem.getFunctionMap().getUnbalancedReturnFlowFunction(n, retSite);
+      // for each fact that can be reached by the return flow ...
+      if (f instanceof IUnaryFlowFunction) {
+        IUnaryFlowFunction uf = (IUnaryFlowFunction) f;
+        IntSet facts = uf.getTargets(j);
+        if (facts != null) {
+          for (IntIterator it4 = facts.intIterator(); it4.hasNext();) {
+            int d3 = it4.next();
+            // d3 would be reached if we ignored parentheses. use it as a new seed.
+            T fakeEntry = problem.getFakeEntry(retSite);
+            PathEdge<T> seed = PathEdge.createPathEdge(fakeEntry, d3, retSite, d3);
+            addSeed(seed);
           }
-        } else {
-          Assertions.UNREACHABLE("Partially balanced logic not supported for binary return flow functions");
         }
+      } else {
+        Assertions.UNREACHABLE("Partially balanced logic not supported for binary return flow functions");
       }
     }
-    return result;
   }
 
   @Override
-  public void addSeed(PathEdge<T> seed) {
+  public synchronized void addSeed(PathEdge<T> seed) {
     if (getSeeds().contains(seed)) {
       return;
     }
-    unbalancedSeeds.add(Pair.make(seed.entry, seed.d1));
+    boolean newUnbalancedSeed = unbalancedSeeds.add(Pair.make(seed.entry, seed.d1));
     super.addSeed(seed);
-
+    if (newUnbalancedSeed) {
+      // the entry may already have reached exits of its procedure, from a call. Those facts may now return to any caller too.
+      LocalPathEdges lp = getLocalPathEdges(seed.entry);
+      if (lp != null) {
+        for (T exit : supergraph.getExitsForProcedure(supergraph.getProcOf(seed.entry))) {
+          IntSet D2;
+          synchronized (lp) {
+            D2 = lp.getReachable(supergraph.getLocalBlockNumber(exit), seed.d1);
+            D2 = D2 == null ? null : MutableSparseIntSet.make(D2);
+          }
+          if (D2 != null) {
+            for (IntIterator it = D2.intIterator(); it.hasNext();) {
+              propagateUnbalancedReturn(exit, it.next());
+            }
+          }
+        }
+      }
+    }
   }
 
   /**
@@ -0,0 +1,272 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.dataflow.IFDS;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ibm.wala.util.WalaRuntimeException;
+import com.ibm.wala.util.collections.HashMapFactory;
+
+/**
+ * A file-backed store for the {@link LocalPathEdges} of procedure entries, which lets a {@link TabulationSolver} bound the number
+ * of path edges it keeps on the heap. When the tables on the heap hold more edges than the budget, the least recently used tables
+ * are written to a temporary file and dropped; they are read back when they are used again.
+ *
+ * The file is append-only; it is rewritten when most of it holds tables that have since been read back, and deleted by
+ * {@link #dispose()} or on exit.
+ *
+ * @param <T> type of node in the supergraph
+ */
+class PathEdgeSpillStore<T> {
+
+  /**
+   * The position and size in the file of a spilled table
+   */
+  private final static class Extent {
+    final long position;
+
+    final int length;
+
+    final int edges;
+
+    Extent(long position, int length, int edges) {
+      this.position = position;
+      this.length = length;
+      this.edges = edges;
+    }
+  }
+
+  /**
+   * bound on the number of path edges in the tables on the heap
+   */
+  private final long maxResidentEdges;
+
+  /**
+   * directory for the file; null means the default temporary directory
+   */
+  private final File directory;
+
+  /**
+   * number of path edges of each table on the heap, least recently used first
+   */
+  private final LinkedHashMap<T, int[]> resident = new LinkedHashMap<T, int[]>(16, 0.75f, true);
+
+  private long residentEdges = 0;
+
+  /**
+   * where each table that is not on the heap is in the file
+   */
+  private final Map<T, Extent> spilled = HashMapFactory.make();
+
+  private File file;
+
+  private RandomAccessFile raf;
+
+  /**
+   * size of the file
+   */
+  private long end = 0;
+
+  /**
+   * bytes of the file that hold tables that have been read back
+   */
+  private long garbage = 0;
+
+  private int spillCount = 0;
+
+  private int faultCount = 0;
+
+  PathEdgeSpillStore(long maxResidentEdges, File directory) {
+    if (maxResidentEdges < 1) {
+      throw new IllegalArgumentException("invalid budget: " + maxResidentEdges);
+    }
+    this.maxResidentEdges = maxResidentEdges;
+    this.directory = directory;
+  }
+
+  /**
+   * record that the table for s_p, which is on the heap, has been used
+   */
+  synchronized void touch(T s_p) {
+    if (resident.get(s_p) == null) {
+      resident.put(s_p, new int[1]);
+    }
+  }
+
+  /**
+   * record that an edge has been added to the table for s_p, which is on the heap
+   */
+  synchronized void edgeAdded(T s_p) {
+    int[] count = resident.get(s_p);
+    if (count == null) {
+      count = new int[1];
+      resident.put(s_p, count);
+    }
+    count[0]++;
+    residentEdges++;
+  }
+
+  synchronized boolean isSpilled(T s_p) {
+    return spilled.containsKey(s_p);
+  }
+
+  /**
+   * @return the entries whose tables are spilled
+   */
+  synchronized Collection<T> getSpilledEntries() {
+    return new ArrayList<T>(spilled.keySet());
+  }
+
+  /**
+   * Read back the spilled table for s_p into table, which should be empty.
+   */
+  synchronized void faultIn(T s_p, LocalPathEdges table) {
+    Extent e = spilled.remove(s_p);
+    if (e == null) {
+      throw new IllegalArgumentException("not spilled: " + s_p);
+    }
+    try {
+      ByteBuffer buffer = ByteBuffer.allocate(e.length);
+      FileChannel channel = raf.getChannel();
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, e.position + buffer.position()) < 0) {
+          throw new IOException("unexpected end of " + file);
+        }
+      }
+      table.readEdges(new DataInputStream(new ByteArrayInputStream(buffer.array())));
+    } catch (IOException x) {
+      throw new WalaRuntimeException("could not read path edges from " + file, x);
+    }
+    garbage += e.length;
+    faultCount++;
+    resident.put(s_p, new int[] { e.edges });
+    residentEdges += e.edges;
+  }
+
+  /**
+   * If the tables on the heap hold more edges than the budget, spill the least recently used ones until they hold at most half the
+   * budget.
+   *
+   * @param tables the tables on the heap; spilled tables are removed
+   */
+  synchronized void spillIfNeeded(Map<T, LocalPathEdges> tables) {
+    if (residentEdges <= maxResidentEdges) {
+      return;
+    }
+    try {
+      for (Iterator<Map.Entry<T, int[]>> it = resident.entrySet().iterator(); it.hasNext() && residentEdges > maxResidentEdges / 2;) {
+        Map.Entry<T, int[]> entry = it.next();
+        LocalPathEdges table = tables.remove(entry.getKey());
+        it.remove();
+        residentEdges -= entry.getValue()[0];
+        if (table != null) {
+          spilled.put(entry.getKey(), write(table, entry.getValue()[0]));
+          spillCount++;
+        }
+      }
+      if (garbage > end / 2 && garbage > (1 << 20)) {
+        compact();
+      }
+    } catch (IOException x) {
+      throw new WalaRuntimeException("could not write path edges to " + file, x);
+    }
+  }
+
+  private Extent write(LocalPathEdges table, int edges) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(12 * edges + 4);
+    DataOutputStream out = new DataOutputStream(bytes);
+    table.writeEdges(out);
+    out.flush();
+    if (raf == null) {
+      file = File.createTempFile("pathEdges", ".bin", directory);
+      file.deleteOnExit();
+      raf = new RandomAccessFile(file, "rw");
+    }
+    Extent result = new Extent(end, bytes.size(), edges);
+    ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+    FileChannel channel = raf.getChannel();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer, end + buffer.position());
+    }
+    end += result.length;
+    return result;
+  }
+
+  /**
+   * rewrite the file with only the tables that are still spilled
+   */
+  private void compact() throws IOException {
+    File oldFile = file;
+    RandomAccessFile old = raf;
+    file = File.createTempFile("pathEdges", ".bin", directory);
+    file.deleteOnExit();
+    raf = new RandomAccessFile(file, "rw");
+    end = 0;
+    garbage = 0;
+    FileChannel from = old.getChannel();
+    FileChannel to = raf.getChannel();
+    for (Map.Entry<T, Extent> e : spilled.entrySet()) {
+      Extent x = e.getValue();
+      for (long done = 0; done < x.length;) {
+        done += from.transferTo(x.position + done, x.length - done, to);
+      }
+      e.setValue(new Extent(end, x.length, x.edges));
+      end += x.length;
+      to.position(end);
+    }
+    old.close();
+    oldFile.delete();
+  }
+
+  /**
+   * @return number of path edges in the tables on the heap
+   */
+  synchronized long getResidentEdges() {
+    return residentEdges;
+  }
+
+  synchronized int getSpillCount() {
+    return spillCount;
+  }
+
+  synchronized int getFaultCount() {
+    return faultCount;
+  }
+
+  /**
+   * Delete the file. Spilled tables are lost.
+   */
+  synchronized void dispose() {
+    spilled.clear();
+    if (raf != null) {
+      try {
+        raf.close();
+      } catch (IOException e) {
+        // nothing to do
+      }
+      file.delete();
+      raf = null;
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.dataflow.IFDS;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.ibm.wala.util.intset.IntSet;
+
+/**
+ * The path edges of a procedure entry shared by the workers of a concurrent tabulation: each method delegates to another
+ * {@link LocalPathEdges} while holding the lock on this object.
+ */
+final class SynchronizedLocalPathEdges extends LocalPathEdges {
+
+  private final LocalPathEdges delegate;
+
+  SynchronizedLocalPathEdges(LocalPathEdges delegate) {
+    if (delegate == null) {
+      throw new IllegalArgumentException("null delegate");
+    }
+    this.delegate = delegate;
+  }
+
+  @Override
+  public synchronized void addPathEdge(int i, int n, int j) {
+    delegate.addPathEdge(i, n, j);
+  }
+
+  @Override
+  public synchronized IntSet getInverse(int n, int d2) {
+    return delegate.getInverse(n, d2);
+  }
+
+  @Override
+  public synchronized boolean contains(int i, int n, int j) {
+    return delegate.contains(i, n, j);
+  }
+
+  @Override
+  public synchronized IntSet getReachable(int n, int d1) {
+    return delegate.getReachable(n, d1);
+  }
+
+  @Override
+  public synchronized IntSet getReachable(int n) {
+    return delegate.getReachable(n);
+  }
+
+  @Override
+  public synchronized IntSet getReachedNodeNumbers() {
+    return delegate.getReachedNodeNumbers();
+  }
+
+  @Override
+  public synchronized void writeEdges(DataOutput out) throws IOException {
+    delegate.writeEdges(out);
+  }
+
+  @Override
+  public synchronized void readEdges(DataInput in) throws IOException {
+    delegate.readEdges(in);
+  }
+}
@@ -10,16 +10,26 @@
  *******************************************************************************/
 package com.ibm.wala.dataflow.IFDS;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import com.ibm.wala.cfg.IBasicBlock;
 import com.ibm.wala.util.CancelException;
@@ -30,7 +40,6 @@ import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Heap;
 import com.ibm.wala.util.collections.Iterator2Collection;
-import com.ibm.wala.util.collections.MapUtil;
 import com.ibm.wala.util.collections.ToStringComparator;
 import com.ibm.wala.util.heapTrace.HeapTracer;
 import com.ibm.wala.util.intset.IntIterator;
@@ -50,8 +59,22 @@ import com.ibm.wala.util.ref.ReferenceCleanser;
  * <li>to support exceptional control flow ... there may be several return sites for each call site.
  * <li>it supports an optional merge operator, useful for non-IFDS problems and widening.
  * <li>it stores summary edges at each callee instead of at each call site.
+ * <li>it can process path edges on several threads (see {@link #setNumberOfThreads(int)}).
  * </ul>
  * <p>
+ * In concurrent mode, several workers take path edges from a shared worklist and process them in parallel, sharing the path
+ * edge, summary edge and call flow edge tables. Since tabulation without a merge function computes a least fixed point, the
+ * result is the same as with the sequential solver. This requires that the supergraph and the flow functions can be used from
+ * several threads at once; by default, before the workers start, the solver visits all nodes of the supergraph and their edges
+ * once, so supergraphs that are built lazily (such as {@link ICFGSupergraph}) are complete and only read during the tabulation
+ * (see {@link #setPrepareSupergraph(boolean)}). Hooks such as {@link #propagate(Object, int, Object, int)} and
+ * {@link #recordCall(Object, Object, int, boolean)} may be called concurrently, and the bounds of the bounded solvers are not
+ * exact. Problems with a merge function are always solved sequentially, since merging depends on the order in which facts
+ * arrive.
+ * <p>
+ * To solve problems whose path edges do not fit on the heap, the solver can bound the number of path edges it keeps in memory
+ * (see {@link #setPathEdgeBudget(long, File)}); the tables of the least recently used procedure entries are then spilled to a
+ * file and read back on demand. Such problems are always solved sequentially.
  * 
  * @param <T> type of node in the supergraph
  * @param <P> type of a procedure (like a box in an RSM)
@@ -115,7 +138,7 @@ public class TabulationSolver<T, P, F> {
    * Logically, this represents a set of edges (s_p,d_i) -> (n, d_j). The data structure is chosen to attempt to save space over
    * representing each edge explicitly.
    */
-  final private Map<T, LocalPathEdges> pathEdges = HashMapFactory.make();
+  final private ConcurrentHashMap<T, LocalPathEdges> pathEdges = new ConcurrentHashMap<T, LocalPathEdges>();
 
   /**
    * A map from Object (entry node in supergraph) -> CallFlowEdges.
@@ -123,23 +146,30 @@ public class TabulationSolver<T, P, F> {
    * Logically, this represents a set of edges (c,d_i) -> (s_p, d_j). The data structure is chosen to attempt to save space over
    * representing each edge explicitly.
    */
-  final private Map<T, CallFlowEdges> callFlowEdges = HashMapFactory.make();
+  final private ConcurrentHashMap<T, CallFlowEdges> callFlowEdges = new ConcurrentHashMap<T, CallFlowEdges>();
 
   /**
    * A map from Object (procedure) -> LocalSummaryEdges.
    * 
    */
-  final protected Map<P, LocalSummaryEdges> summaryEdges = HashMapFactory.make();
+  final protected ConcurrentHashMap<P, LocalSummaryEdges> summaryEdges = new ConcurrentHashMap<P, LocalSummaryEdges>();
 
   /**
-   * the set of all {@link PathEdge}s that were used as seeds during the tabulation, grouped by procedure.
+   * the set of all {@link PathEdge}s that were used as seeds during the tabulation, grouped by procedure. Guarded by itself.
    */
   private final Map<P, Set<PathEdge<T>>> seeds = HashMapFactory.make();
 
   /**
    * All seeds, stored redundantly for quick access.
    */
-  private final Set<PathEdge<T>> allSeeds = HashSetFactory.make();
+  private final Set<PathEdge<T>> allSeeds = Collections.newSetFromMap(new ConcurrentHashMap<PathEdge<T>, Boolean>());
+
+  /**
+   * For each procedure with a seed whose entry is not an entry of the procedure in the supergraph, the entries of the procedure
+   * followed by those seed entries. Summary edges are applied to path edges from any of these. Written under the lock on
+   * {@link #seeds}.
+   */
+  private final ConcurrentHashMap<P, T[]> entriesWithSeeds = new ConcurrentHashMap<P, T[]>();
 
   /**
    * The worklist
@@ -152,18 +182,53 @@ public class TabulationSolver<T, P, F> {
   protected final IProgressMonitor progressMonitor;
 
   /**
-   * the path edge currently being processed in the main loop of {@link #forwardTabulateSLRPs()}; <code>null</code> if
-   * {@link #forwardTabulateSLRPs()} is not currently running. Note that if we are applying a summary edge in
-   * {@link #processExit(PathEdge)}, curPathEdge is modified to be the path edge terminating at the call node in the caller, to
-   * match the behavior in {@link #processCall(PathEdge)}.
+   * The edges being processed by a thread
    */
-  private PathEdge<T> curPathEdge;
+  private final static class Cursor<T> {
+    /**
+     * the path edge currently being processed in the main loop of {@link TabulationSolver#forwardTabulateSLRPs()};
+     * <code>null</code> if {@link TabulationSolver#forwardTabulateSLRPs()} is not currently running. Note that if we are applying
+     * a summary edge in {@link TabulationSolver#processExit(PathEdge)}, curPathEdge is modified to be the path edge terminating at
+     * the call node in the caller, to match the behavior in {@link TabulationSolver#processCall(PathEdge)}.
+     */
+    PathEdge<T> curPathEdge;
+
+    /**
+     * the summary edge currently being applied in {@link TabulationSolver#processCall(PathEdge)} or
+     * {@link TabulationSolver#processExit(PathEdge)}, or <code>null</code> if summary edges are not currently being processed.
+     */
+    PathEdge<T> curSummaryEdge;
+  }
 
   /**
-   * the summary edge currently being applied in {@link #processCall(PathEdge)} or {@link #processExit(PathEdge)}, or
-   * <code>null</code> if summary edges are not currently being processed.
+   * the edges being processed by the sequential solver
    */
-  private PathEdge<T> curSummaryEdge;
+  private final Cursor<T> cursor = new Cursor<T>();
+
+  /**
+   * the edges being processed by each worker during a concurrent tabulation; <code>null</code> otherwise
+   */
+  private volatile ThreadLocal<Cursor<T>> workerCursors;
+
+  /**
+   * number of threads used to process path edges
+   */
+  private int numberOfThreads = 1;
+
+  /**
+   * visit the supergraph before a concurrent tabulation? See {@link #prepareSupergraph()}.
+   */
+  private boolean prepareSupergraph = true;
+
+  /**
+   * store path edges in {@link CompactLocalPathEdges}?
+   */
+  private boolean compactPathEdges = false;
+
+  /**
+   * if non-null, holds the path edge tables that have been spilled out of {@link #pathEdges} to bound memory use
+   */
+  private PathEdgeSpillStore<T> spillStore;
 
   /**
    * @param p a description of the dataflow problem to solve
@@ -180,7 +245,81 @@ public class TabulationSolver<T, P, F> {
   }
 
   /**
-   * Subclasses can override this to plug in a different worklist implementation.
+   * Process path edges on the given number of threads; 1, the default, means sequential tabulation. See the class comment for the
+   * requirements of concurrent tabulation. This must be set before solving.
+   * 
+   * @throws IllegalArgumentException if numberOfThreads &lt; 1
+   */
+  public void setNumberOfThreads(int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+    this.numberOfThreads = numberOfThreads;
+  }
+
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
+  /**
+   * Should a concurrent tabulation start by visiting the whole supergraph (the default)? Clients that know that the supergraph is
+   * complete or safe to use from several threads, for instance because it was prepared by an earlier concurrent tabulation, can
+   * turn this off.
+   */
+  public void setPrepareSupergraph(boolean prepareSupergraph) {
+    this.prepareSupergraph = prepareSupergraph;
+  }
+
+  /**
+   * Should path edges be stored in {@link CompactLocalPathEdges} rather than {@link LocalPathEdges} (the default)? The compact
+   * representation uses less space for problems where each fact reaches few nodes from facts other than 0 and itself. This must be
+   * set before solving.
+   */
+  public void setCompactPathEdges(boolean compactPathEdges) {
+    this.compactPathEdges = compactPathEdges;
+  }
+
+  public boolean isCompactPathEdges() {
+    return compactPathEdges;
+  }
+
+  /**
+   * Bound the number of path edges kept on the heap. When the path edge tables hold more than maxResidentPathEdges edges, the
+   * tables of the least recently used procedure entries are written to a temporary file in spillDirectory, and read back when
+   * they are needed again, by the tabulation or by queries on its result. Memory use is then roughly proportional to the budget
+   * instead of to the number of path edges; summary edges and call flow edges stay on the heap. This must be set before solving,
+   * and makes the tabulation sequential.
+   * 
+   * @param spillDirectory directory for the file, or null for the default temporary directory
+   * @throws IllegalArgumentException if maxResidentPathEdges &lt; 1
+   */
+  public void setPathEdgeBudget(long maxResidentPathEdges, File spillDirectory) {
+    if (spillStore != null) {
+      spillStore.dispose();
+    }
+    spillStore = new PathEdgeSpillStore<T>(maxResidentPathEdges, spillDirectory);
+  }
+
+  /**
+   * @return number of times a path edge table has been spilled to a file (see {@link #setPathEdgeBudget(long, File)})
+   */
+  public int getPathEdgeSpillCount() {
+    return spillStore == null ? 0 : spillStore.getSpillCount();
+  }
+
+  /**
+   * Delete the file holding spilled path edge tables, if any. Path edges that are not on the heap are lost, so the result of the
+   * tabulation must not be used afterwards.
+   */
+  public void disposeSpilledPathEdges() {
+    if (spillStore != null) {
+      spillStore.dispose();
+    }
+  }
+
+  /**
+   * Subclasses can override this to plug in a different worklist implementation. In concurrent mode, the worklist is only accessed
+   * by one thread at a time.
    */
   protected ITabulationWorklist<T> makeWorklist() {
     return new Worklist();
@@ -230,8 +369,23 @@ public class TabulationSolver<T, P, F> {
    * Restart tabulation from a particular path edge. Use with care.
    */
   public void addSeed(PathEdge<T> seed) {
-    Set<PathEdge<T>> s = MapUtil.findOrCreateSet(seeds, supergraph.getProcOf(seed.entry));
-    s.add(seed);
+    P proc = supergraph.getProcOf(seed.entry);
+    synchronized (seeds) {
+      Set<PathEdge<T>> s = seeds.get(proc);
+      if (s == null) {
+        s = HashSetFactory.make();
+        seeds.put(proc, s);
+      }
+      s.add(seed);
+      if (!supergraph.isEntry(seed.entry)) {
+        T[] entries = getEntries(proc);
+        if (!Arrays.asList(entries).contains(seed.entry)) {
+          T[] newEntries = Arrays.copyOf(entries, entries.length + 1);
+          newEntries[entries.length] = seed.entry;
+          entriesWithSeeds.put(proc, newEntries);
+        }
+      }
+    }
     allSeeds.add(seed);
     propagate(seed.entry, seed.d1, seed.target, seed.d2);
   }
@@ -242,10 +396,14 @@ public class TabulationSolver<T, P, F> {
    * @throws CancelException
    */
   private void forwardTabulateSLRPs() throws CancelException {
-    assert curPathEdge == null : "curPathEdge should not be non-null here";
+    assert getCurPathEdge() == null : "curPathEdge should not be non-null here";
     if (worklist == null) {
       worklist = makeWorklist();
     }
+    if (isConcurrent()) {
+      forwardTabulateConcurrently();
+      return;
+    }
     while (worklist.size() > 0) {
       MonitorUtil.throwExceptionIfCanceled(progressMonitor);
       if (verbose) {
@@ -256,38 +414,176 @@ public class TabulationSolver<T, P, F> {
       }
 
       final PathEdge<T> edge = popFromWorkList();
-      if (DEBUG_LEVEL > 0) {
-        System.err.println("TABULATE " + edge);
+      processPathEdge(edge);
+      if (spillStore != null) {
+        spillStore.spillIfNeeded(pathEdges);
+      }
+    }
+  }
+
+  /**
+   * Will path edges be processed by several workers? Problems with a merge function, and path edge tables that may be spilled, are
+   * always tabulated sequentially.
+   */
+  private boolean isConcurrent() {
+    return numberOfThreads > 1 && problem.getMergeFunction() == null && spillStore == null;
+  }
+
+  /**
+   * Run the main loop of {@link #forwardTabulateSLRPs()} on {@link #numberOfThreads} workers sharing the worklist.
+   * 
+   * @throws CancelException
+   */
+  private void forwardTabulateConcurrently() throws CancelException {
+    if (prepareSupergraph) {
+      prepareSupergraph();
+    }
+    final ConcurrentTabulationWorklist<T> work = new ConcurrentTabulationWorklist<T>(worklist);
+    worklist = work;
+    workerCursors = new ThreadLocal<Cursor<T>>() {
+      @Override
+      protected Cursor<T> initialValue() {
+        return new Cursor<T>();
       }
-      curPathEdge = edge;
-      int j = merge(edge.entry, edge.d1, edge.target, edge.d2);
-      if (j == -1 && DEBUG_LEVEL > 0) {
-        System.err.println("merge -1: DROPPING");
+    };
+    ExecutorService pool = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "WALA tabulation solver");
+        t.setDaemon(true);
+        return t;
       }
-      if (j != -1) {
-        if (j != edge.d2) {
-          // this means that we don't want to push the edge. instead,
-          // we'll push the merged fact. a little tricky, but i think should
-          // work.
-          if (DEBUG_LEVEL > 0) {
-            System.err.println("propagating merged fact " + j);
+    });
+    try {
+      List<Future<Object>> workers = new ArrayList<Future<Object>>(numberOfThreads);
+      for (int i = 0; i < numberOfThreads; i++) {
+        workers.add(pool.submit(new Callable<Object>() {
+          @Override
+          public Object call() throws Exception {
+            try {
+              for (PathEdge<T> edge = work.awaitTake(); edge != null; edge = work.awaitTake()) {
+                try {
+                  MonitorUtil.throwExceptionIfCanceled(progressMonitor);
+                  if (verbose) {
+                    performVerboseAction();
+                  }
+                  processPathEdge(edge);
+                } finally {
+                  work.done();
+                }
+              }
+              return null;
+            } catch (Throwable e) {
+              // stop the other workers
+              work.abort();
+              if (e instanceof Exception) {
+                throw (Exception) e;
+              } else {
+                throw (Error) e;
+              }
+            }
           }
-          propagate(edge.entry, edge.d1, edge.target, j);
+        }));
+      }
+      for (Future<Object> f : workers) {
+        joinWorker(f);
+      }
+    } finally {
+      work.abort();
+      pool.shutdownNow();
+      worklist = work.getDelegate();
+      workerCursors = null;
+    }
+  }
+
+  private static void joinWorker(Future<Object> f) throws CancelException {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          f.get();
+          return;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof CancelException) {
+        throw (CancelException) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new RuntimeException(cause);
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Before a concurrent tabulation, visit each node of the supergraph and its edges, so that a supergraph that is built lazily is
+   * complete and only read by the workers.
+   */
+  protected void prepareSupergraph() {
+    for (T n : supergraph) {
+      supergraph.getLocalBlockNumber(n);
+      for (Iterator<? extends T> it = supergraph.getSuccNodes(n); it.hasNext();) {
+        it.next();
+      }
+      for (Iterator<? extends T> it = supergraph.getPredNodes(n); it.hasNext();) {
+        it.next();
+      }
+    }
+  }
+
+  /**
+   * Process one path edge taken from the worklist
+   */
+  private void processPathEdge(final PathEdge<T> edge) {
+    if (DEBUG_LEVEL > 0) {
+      System.err.println("TABULATE " + edge);
+    }
+    getCursor().curPathEdge = edge;
+    int j = merge(edge.entry, edge.d1, edge.target, edge.d2);
+    if (j == -1 && DEBUG_LEVEL > 0) {
+      System.err.println("merge -1: DROPPING");
+    }
+    if (j != -1) {
+      if (j != edge.d2) {
+        // this means that we don't want to push the edge. instead,
+        // we'll push the merged fact. a little tricky, but i think should
+        // work.
+        if (DEBUG_LEVEL > 0) {
+          System.err.println("propagating merged fact " + j);
+        }
+        propagate(edge.entry, edge.d1, edge.target, j);
+      } else {
+        if (supergraph.isCall(edge.target)) {
+          // [13]
+          processCall(edge);
+        } else if (supergraph.isExit(edge.target)) {
+          // [21]
+          processExit(edge);
         } else {
-          if (supergraph.isCall(edge.target)) {
-            // [13]
-            processCall(edge);
-          } else if (supergraph.isExit(edge.target)) {
-            // [21]
-            processExit(edge);
-          } else {
-            // [33]
-            processNormal(edge);
-          }
+          // [33]
+          processNormal(edge);
         }
       }
     }
-    curPathEdge = null;
+    getCursor().curPathEdge = null;
+  }
+
+  /**
+   * @return the edges being processed by the current thread
+   */
+  private Cursor<T> getCursor() {
+    ThreadLocal<Cursor<T>> c = workerCursors;
+    return c == null ? cursor : c.get();
   }
 
   /**
@@ -368,24 +664,50 @@ public class TabulationSolver<T, P, F> {
     if (!summaries.contains(s_p_n, x, edge.d1, edge.d2)) {
       summaries.insertSummaryEdge(s_p_n, x, edge.d1, edge.d2);
     }
-    assert curSummaryEdge == null : "curSummaryEdge should be null here";
-    curSummaryEdge = edge;
+    Cursor<T> cur = getCursor();
+    assert cur.curSummaryEdge == null : "curSummaryEdge should be null here";
+    cur.curSummaryEdge = edge;
 
     final CallFlowEdges callFlow = findOrCreateCallFlowEdges(edge.entry);
 
     // [22] for each c /in callers(p)
-    IntSet callFlowSourceNodes = callFlow.getCallFlowSourceNodes(edge.d1);
+    IntSet callFlowSourceNodes;
+    synchronized (callFlow) {
+      callFlowSourceNodes = snapshot(callFlow.getCallFlowSourceNodes(edge.d1));
+    }
     if (callFlowSourceNodes != null) {
       for (IntIterator it = callFlowSourceNodes.intIterator(); it.hasNext();) {
         // [23] for each d4 s.t. <c,d4> -> <s_p,d1> occurred earlier
         int globalC = it.next();
-        final IntSet D4 = callFlow.getCallFlowSources(globalC, edge.d1);
+        final IntSet D4;
+        synchronized (callFlow) {
+          D4 = snapshot(callFlow.getCallFlowSources(globalC, edge.d1));
+        }
 
         // [23] for each d5 s.t. <e_p,d2> -> <returnSite(c),d5> ...
         propagateToReturnSites(edge, supergraph.getNode(globalC), D4);
       }
     }
-    curSummaryEdge = null;
+    cur.curSummaryEdge = null;
+  }
+
+  /**
+   * During a concurrent tabulation, sets obtained from the shared edge tables may change while they are iterated. So, copy them;
+   * the caller must hold the lock on the table.
+   */
+  private IntSet snapshot(IntSet s) {
+    if (s == null || workerCursors == null) {
+      return s;
+    }
+    return MutableSparseIntSet.make(s);
+  }
+
+  /**
+   * @return the entries of proc, and the entries of seeds in proc that are not entries in the supergraph
+   */
+  private T[] getEntries(P proc) {
+    T[] result = entriesWithSeeds.get(proc);
+    return result == null ? supergraph.getEntriesForProcedure(proc) : result;
   }
 
   /**
@@ -400,7 +722,7 @@ public class TabulationSolver<T, P, F> {
    */
   private void propagateToReturnSites(final PathEdge<T> edge, final T c, final IntSet D4) {
     P proc = supergraph.getProcOf(c);
-    final T[] entries = supergraph.getEntriesForProcedure(proc);
+    final T[] entries = getEntries(proc);
 
     // we iterate over each potential return site;
     // we might have multiple return sites due to exceptions
@@ -504,7 +826,7 @@ public class TabulationSolver<T, P, F> {
                 @Override
                 public void act(int d3) {
                   // set curPathEdge to be consistent with its setting in processCall() when applying a summary edge
-                  curPathEdge = PathEdge.createPathEdge(s_p, d3, c, d4);
+                  getCursor().curPathEdge = PathEdge.createPathEdge(s_p, d3, c, d4);
                   propagate(s_p, d3, retSite, d5);
                 }
               });
@@ -523,11 +845,13 @@ public class TabulationSolver<T, P, F> {
    */
   protected IntSet getInversePathEdges(T s_p, T n, int d2) {
     int number = supergraph.getLocalBlockNumber(n);
-    LocalPathEdges lp = pathEdges.get(s_p);
+    LocalPathEdges lp = lookupLocalPathEdges(s_p);
     if (lp == null) {
       return null;
     }
-    return lp.getInverse(number, d2);
+    synchronized (lp) {
+      return snapshot(lp.getInverse(number, d2));
+    }
   }
 
   /**
@@ -641,7 +965,6 @@ public class TabulationSolver<T, P, F> {
       System.err.println(" reached: " + reached);
     }
     if (reached != null) {
-      final LocalSummaryEdges summaries = summaryEdges.get(supergraph.getProcOf(calleeEntry));
       final CallFlowEdges callFlow = findOrCreateCallFlowEdges(calleeEntry);
       final int s_p_num = supergraph.getLocalBlockNumber(calleeEntry);
 
@@ -655,7 +978,10 @@ public class TabulationSolver<T, P, F> {
           // call flow
           callFlow.addCallEdge(callNodeNum, edge.d2, d1);
           // handle summary edges now as well. this is different from the PoPL
-          // 95 paper.
+          // 95 paper. note that we look for summary edges only after recording the
+          // call edge: a concurrent processExit() records its summary edge before
+          // looking for call edges, so one of us applies the summary edge.
+          final LocalSummaryEdges summaries = summaryEdges.get(supergraph.getProcOf(calleeEntry));
           if (summaries != null) {
             // for each exit from the callee
             P p = supergraph.getProcOf(calleeEntry);
@@ -668,7 +994,10 @@ public class TabulationSolver<T, P, F> {
               int x_num = supergraph.getLocalBlockNumber(exit);
               // reachedBySummary := {d2} s.t. <callee,d1> -> <exit,d2>
               // was recorded as a summary edge
-              IntSet reachedBySummary = summaries.getSummaryEdges(s_p_num, x_num, d1);
+              IntSet reachedBySummary;
+              synchronized (summaries) {
+                reachedBySummary = snapshot(summaries.getSummaryEdges(s_p_num, x_num, d1));
+              }
               if (reachedBySummary != null) {
                 for (final T returnSite : returnSitesForCallee) {
                   // if "exit" is a valid exit from the callee to the return
@@ -678,8 +1007,9 @@ public class TabulationSolver<T, P, F> {
                     reachedBySummary.foreach(new IntSetAction() {
                       @Override
                       public void act(int d2) {
-                        assert curSummaryEdge == null : "curSummaryEdge should be null here";
-                        curSummaryEdge = PathEdge.createPathEdge(calleeEntry, d1, exit, d2);
+                        Cursor<T> cur = getCursor();
+                        assert cur.curSummaryEdge == null : "curSummaryEdge should be null here";
+                        cur.curSummaryEdge = PathEdge.createPathEdge(calleeEntry, d1, exit, d2);
                         if (retf instanceof IBinaryReturnFlowFunction) {
                           final IntSet D5 = computeBinaryFlow(edge.d2, d2, (IBinaryReturnFlowFunction) retf);
                           if (D5 != null) {
@@ -701,7 +1031,7 @@ public class TabulationSolver<T, P, F> {
                             });
                           }
                         }
-                        curSummaryEdge = null;
+                        cur.curSummaryEdge = null;
                       }
                     });
                   }
@@ -769,6 +1099,9 @@ public class TabulationSolver<T, P, F> {
   private PathEdge peekFromWorkList() {
     // horrible. don't use in performance-critical
     assert worklist != null;
+    if (worklist.size() == 0) {
+      return null;
+    }
     PathEdge<T> result = worklist.take();
     worklist.insert(result);
     return result;
@@ -795,19 +1128,50 @@ public class TabulationSolver<T, P, F> {
 
     assert j >= 0;
 
-    if (!pLocal.contains(i, number, j)) {
+    synchronized (pLocal) {
+      if (pLocal.contains(i, number, j)) {
+        return false;
+      }
       if (DEBUG_LEVEL > 0) {
         System.err.println("propagate " + s_p + "  " + i + " " + number + " " + j);
       }
       pLocal.addPathEdge(i, number, j);
-      addToWorkList(s_p, i, n, j);
-      return true;
     }
-    return false;
+    if (spillStore != null) {
+      spillStore.edgeAdded(s_p);
+    }
+    addToWorkList(s_p, i, n, j);
+    return true;
   }
 
+  /**
+   * If path edges are spilled (see {@link #setPathEdgeBudget(long, File)}), the returned table is only valid until the solver
+   * spills it again.
+   */
   public LocalPathEdges getLocalPathEdges(T s_p) {
-    return pathEdges.get(s_p);
+    return lookupLocalPathEdges(s_p);
+  }
+
+  /**
+   * @return the path edges for s_p, reading them back if they have been spilled, or null if there are none
+   */
+  private LocalPathEdges lookupLocalPathEdges(T s_p) {
+    LocalPathEdges result = pathEdges.get(s_p);
+    if (spillStore != null) {
+      if (result != null) {
+        spillStore.touch(s_p);
+      } else {
+        synchronized (spillStore) {
+          result = pathEdges.get(s_p);
+          if (result == null && spillStore.isSpilled(s_p)) {
+            result = makeLocalPathEdges();
+            spillStore.faultIn(s_p, result);
+            pathEdges.put(s_p, result);
+          }
+        }
+      }
+    }
+    return result;
   }
 
   /**
@@ -822,7 +1186,7 @@ public class TabulationSolver<T, P, F> {
     assert j >= 0;
     IMergeFunction alpha = problem.getMergeFunction();
     if (alpha != null) {
-      LocalPathEdges lp = pathEdges.get(s_p);
+      LocalPathEdges lp = lookupLocalPathEdges(s_p);
       IntSet preExistFacts = lp.getReachable(supergraph.getLocalBlockNumber(n), i);
       if (preExistFacts == null) {
         return j;
@@ -851,23 +1215,37 @@ public class TabulationSolver<T, P, F> {
   }
 
   protected LocalPathEdges findOrCreateLocalPathEdges(T s_p) {
-    LocalPathEdges result = pathEdges.get(s_p);
+    LocalPathEdges result = lookupLocalPathEdges(s_p);
     if (result == null) {
       result = makeLocalPathEdges();
-      pathEdges.put(s_p, result);
+      if (isConcurrent()) {
+        result = new SynchronizedLocalPathEdges(result);
+      }
+      LocalPathEdges old = pathEdges.putIfAbsent(s_p, result);
+      if (old != null) {
+        result = old;
+      }
     }
     return result;
   }
 
-  private LocalPathEdges makeLocalPathEdges() {
-    return problem.getMergeFunction() == null ? new LocalPathEdges(false) : new LocalPathEdges(true);
+  /**
+   * Subclasses can override this to plug in a different representation of the path edges of a procedure entry. In a concurrent
+   * tabulation, the solver shares the result among its workers by wrapping it in a {@link SynchronizedLocalPathEdges}.
+   */
+  protected LocalPathEdges makeLocalPathEdges() {
+    boolean fastMerge = problem.getMergeFunction() != null;
+    return compactPathEdges ? new CompactLocalPathEdges(fastMerge) : new LocalPathEdges(fastMerge);
   }
 
   protected LocalSummaryEdges findOrCreateLocalSummaryEdges(P proc) {
     LocalSummaryEdges result = summaryEdges.get(proc);
     if (result == null) {
       result = new LocalSummaryEdges();
-      summaryEdges.put(proc, result);
+      LocalSummaryEdges old = summaryEdges.putIfAbsent(proc, result);
+      if (old != null) {
+        result = old;
+      }
     }
     return result;
   }
@@ -876,7 +1254,10 @@ public class TabulationSolver<T, P, F> {
     CallFlowEdges result = callFlowEdges.get(s_p);
     if (result == null) {
       result = new CallFlowEdges();
-      callFlowEdges.put(s_p, result);
+      CallFlowEdges old = callFlowEdges.putIfAbsent(s_p, result);
+      if (old != null) {
+        result = old;
+      }
     }
     return result;
   }
@@ -901,11 +1282,14 @@ public class TabulationSolver<T, P, F> {
     }    
 
     for (T entry : allEntries){
-    	LocalPathEdges lp = pathEdges.get(entry);
+    	LocalPathEdges lp = lookupLocalPathEdges(entry);
     	if (lp != null) {
     		result.addAll(lp.getReachable(n));
     	}
     }    	
+    if (spillStore != null) {
+      spillStore.spillIfNeeded(pathEdges);
+    }
     
     return result;
   }
@@ -976,17 +1360,29 @@ public class TabulationSolver<T, P, F> {
     public Collection<T> getSupergraphNodesReached() {
       Collection<T> result = HashSetFactory.make();
       for (Entry<T, LocalPathEdges> e : pathEdges.entrySet()) {
-        T key = e.getKey();
-        P proc = supergraph.getProcOf(key);
-        IntSet reached = e.getValue().getReachedNodeNumbers();
-        for (IntIterator ii = reached.intIterator(); ii.hasNext();) {
-          result.add(supergraph.getLocalBlock(proc, ii.next()));
+        addReachedNodes(e.getKey(), e.getValue(), result);
+      }
+      if (spillStore != null) {
+        for (T key : spillStore.getSpilledEntries()) {
+          LocalPathEdges lp = lookupLocalPathEdges(key);
+          if (lp != null) {
+            addReachedNodes(key, lp, result);
+          }
+          spillStore.spillIfNeeded(pathEdges);
         }
       }
 
       return result;
     }
 
+    private void addReachedNodes(T entry, LocalPathEdges lp, Collection<T> result) {
+      P proc = supergraph.getProcOf(entry);
+      IntSet reached = lp.getReachedNodeNumbers();
+      for (IntIterator ii = reached.intIterator(); ii.hasNext();) {
+        result.add(supergraph.getLocalBlock(proc, ii.next()));
+      }
+    }
+
     /**
      * @param n1
      * @param d1
@@ -1058,10 +1454,10 @@ public class TabulationSolver<T, P, F> {
   }
 
   protected PathEdge<T> getCurPathEdge() {
-    return curPathEdge;
+    return getCursor().curPathEdge;
   }
 
   protected PathEdge<T> getCurSummaryEdge() {
-    return curSummaryEdge;
+    return getCursor().curSummaryEdge;
   }
 }
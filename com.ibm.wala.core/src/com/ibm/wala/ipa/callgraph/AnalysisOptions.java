@@ -12,9 +12,11 @@ package com.ibm.wala.ipa.callgraph;
 
 import com.ibm.wala.analysis.reflection.ReflectionContextInterpreter;
 import com.ibm.wala.analysis.reflection.ReflectionContextSelector;
+import com.ibm.wala.fixedpoint.impl.AbstractFixedPointSolver;
 import com.ibm.wala.ipa.callgraph.impl.ExplicitCallGraph;
 import com.ibm.wala.ipa.callgraph.propagation.ReflectionHandler;
 import com.ibm.wala.ssa.SSAOptions;
+import com.ibm.wala.util.perf.MetricsListener;
 
 /**
  * Basic interface for options that control call graph generation.
@@ -191,6 +193,44 @@ public class AnalysisOptions {
    */
   private long maxNumberOfNodes = -1;
 
+  /**
+   * How many threads may the points-to solver use to evaluate independent constraints? The default, <code>1</code>, solves the
+   * constraint system sequentially. Larger values only affect simple assignment and filter constraints; constraints that may add
+   * new constraints to the system are always evaluated by the thread running the solver.
+   */
+  private int numberOfSolverThreads = 1;
+
+  /**
+   * Should the points-to solver propagate only the differences of points-to sets across assignments? This trades a little memory
+   * for recorded deltas against re-unioning full sets whenever an assignment is re-evaluated, which pays off in large cycles of the
+   * constraint graph.
+   */
+  private boolean useDeltaPropagation = false;
+
+  /**
+   * Should the points-to solver periodically detect cycles of assignments and unify the variables in each cycle? Variables in
+   * such a cycle always end up with identical points-to sets, so this saves both memory and repeated propagation.
+   */
+  private boolean collapseCycles = false;
+
+  /**
+   * After how many evaluations does the points-to solver perform its periodic maintenance, which includes collapsing cycles?
+   */
+  private int periodicMaintainInterval = AbstractFixedPointSolver.DEFAULT_PERIODIC_MAINTENANCE_INTERVAL;
+
+  /**
+   * Should the call graph builder merge local variables that provably hold the same points-to set, such as phi nodes whose inputs
+   * all come from one value, before generating constraints for a method? This shrinks the constraint system the solver iterates
+   * over.
+   */
+  private boolean useOfflineVariableSubstitution = false;
+
+  /**
+   * Receives the timings of the phases of call graph construction, the statements evaluated by the points-to solver, and the sizes
+   * of points-to sets; null if none.
+   */
+  private MetricsListener metricsListener = null;
+
   // SJF: I'm not sure these factories and caches belong here.
   // TODO: figure out how to clean this up.
 
@@ -229,6 +269,68 @@ public class AnalysisOptions {
     this.maxNumberOfNodes = maxNumberOfNodes;
   }
 
+  /**
+   * @return the number of threads the points-to solver may use
+   */
+  public int getNumberOfSolverThreads() {
+    return numberOfSolverThreads;
+  }
+
+  /**
+   * @param numberOfSolverThreads number of threads the points-to solver may use; 1 means sequential solving
+   */
+  public void setNumberOfSolverThreads(int numberOfSolverThreads) {
+    if (numberOfSolverThreads < 1) {
+      throw new IllegalArgumentException("invalid number of solver threads: " + numberOfSolverThreads);
+    }
+    this.numberOfSolverThreads = numberOfSolverThreads;
+  }
+
+  public boolean getUseDeltaPropagation() {
+    return useDeltaPropagation;
+  }
+
+  public void setUseDeltaPropagation(boolean useDeltaPropagation) {
+    this.useDeltaPropagation = useDeltaPropagation;
+  }
+
+  public boolean getCollapseCycles() {
+    return collapseCycles;
+  }
+
+  public void setCollapseCycles(boolean collapseCycles) {
+    this.collapseCycles = collapseCycles;
+  }
+
+  public int getPeriodicMaintainInterval() {
+    return periodicMaintainInterval;
+  }
+
+  /**
+   * @param periodicMaintainInterval number of evaluations of the points-to solver between its periodic maintenance
+   */
+  public void setPeriodicMaintainInterval(int periodicMaintainInterval) {
+    if (periodicMaintainInterval < 1) {
+      throw new IllegalArgumentException("invalid periodic maintenance interval: " + periodicMaintainInterval);
+    }
+    this.periodicMaintainInterval = periodicMaintainInterval;
+  }
+
+  public boolean getUseOfflineVariableSubstitution() {
+    return useOfflineVariableSubstitution;
+  }
+
+  public void setUseOfflineVariableSubstitution(boolean useOfflineVariableSubstitution) {
+    this.useOfflineVariableSubstitution = useOfflineVariableSubstitution;
+  }
+
+  public MetricsListener getMetricsListener() {
+    return metricsListener;
+  }
+
+  public void setMetricsListener(MetricsListener metricsListener) {
+    this.metricsListener = metricsListener;
+  }
 
   /**
    * @return Policy that determines methods called at call sites.
@@ -27,10 +27,12 @@ import java.util.jar.Manifest;
 
 import com.ibm.wala.classLoader.ArrayClassLoader;
 import com.ibm.wala.classLoader.BinaryDirectoryTreeModule;
+import com.ibm.wala.classLoader.ClassHeaderCache;
 import com.ibm.wala.classLoader.ClassFileModule;
 import com.ibm.wala.classLoader.IClassLoader;
 import com.ibm.wala.classLoader.JarFileModule;
 import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.classLoader.MappedJarFileModule;
 import com.ibm.wala.classLoader.Module;
 import com.ibm.wala.classLoader.SourceDirectoryTreeModule;
 import com.ibm.wala.classLoader.SourceFileModule;
@@ -117,6 +119,26 @@ public class AnalysisScope {
    */
   private SetOfClasses exclusions;
 
+  /**
+   * A persistent cache of parsed class headers for jar files, or null if class files are always parsed.
+   */
+  private ClassHeaderCache classHeaderCache;
+
+  /**
+   * number of threads class loaders built for this scope use to parse class files
+   */
+  private int numberOfLoaderThreads = 1;
+
+  /**
+   * should class loaders built for this scope read jar files through a memory mapping?
+   */
+  private boolean mapJarFiles = false;
+
+  /**
+   * should class loaders built for this scope drop class file contents once a class is loaded?
+   */
+  private boolean releaseClassFiles = false;
+
   final protected LinkedHashMap<Atom, ClassLoaderReference> loadersByName = new LinkedHashMap<Atom, ClassLoaderReference>();
 
   /**
@@ -317,6 +339,57 @@ public class AnalysisScope {
     exclusions = classes;
   }
 
+  public ClassHeaderCache getClassHeaderCache() {
+    return classHeaderCache;
+  }
+
+  /**
+   * Let class loaders built for this scope rehydrate the classes of unchanged jar files from a persistent cache instead of
+   * parsing them.
+   */
+  public void setClassHeaderCache(ClassHeaderCache classHeaderCache) {
+    this.classHeaderCache = classHeaderCache;
+  }
+
+  public int getNumberOfLoaderThreads() {
+    return numberOfLoaderThreads;
+  }
+
+  /**
+   * Let class loaders built for this scope parse class files on several threads. Classes are still added to each loader in the
+   * same order, so the resulting class hierarchy does not depend on the number of threads.
+   */
+  public void setNumberOfLoaderThreads(int numberOfLoaderThreads) {
+    if (numberOfLoaderThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfLoaderThreads);
+    }
+    this.numberOfLoaderThreads = numberOfLoaderThreads;
+  }
+
+  public boolean getMapJarFiles() {
+    return mapJarFiles;
+  }
+
+  /**
+   * Let class loaders built for this scope read jar files through a {@link MappedJarFileModule}, which copies and allocates
+   * much less than reading through {@link JarFile} streams.
+   */
+  public void setMapJarFiles(boolean mapJarFiles) {
+    this.mapJarFiles = mapJarFiles;
+  }
+
+  public boolean getReleaseClassFiles() {
+    return releaseClassFiles;
+  }
+
+  /**
+   * Let class loaders built for this scope drop the contents of each class file once the class is loaded; method bodies are
+   * read and decoded again when first needed. This suits clients that mostly need just the class hierarchy.
+   */
+  public void setReleaseClassFiles(boolean releaseClassFiles) {
+    this.releaseClassFiles = releaseClassFiles;
+  }
+
   @Override
   public String toString() {
     StringBuffer result = new StringBuffer();
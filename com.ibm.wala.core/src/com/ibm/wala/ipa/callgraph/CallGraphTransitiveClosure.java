@@ -13,15 +13,19 @@ package com.ibm.wala.ipa.callgraph;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
-import com.ibm.wala.dataflow.graph.BitVectorSolver;
-import com.ibm.wala.fixpoint.BitVectorVariable;
-import com.ibm.wala.ipa.modref.GenReach;
-import com.ibm.wala.util.CancelException;
-import com.ibm.wala.util.CancelRuntimeException;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.functions.Function;
-import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.graph.GraphTransitiveClosure;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.intset.OrdinalSet;
 
 /**
@@ -40,23 +44,39 @@ public class CallGraphTransitiveClosure {
    * @return a map from each node to the analysis result for the node and its transitive callees
    */
   public static <T> Map<CGNode, OrdinalSet<T>> transitiveClosure(CallGraph cg, Map<CGNode, Collection<T>> nodeResults) {
-    try {
-      // invert the call graph, to compute the bottom-up result
-      GenReach<CGNode, T> gr = new GenReach<CGNode, T>(GraphInverter.invert(cg), nodeResults);
-      BitVectorSolver<CGNode> solver = new BitVectorSolver<CGNode>(gr);
-      solver.solve(null);
-      Map<CGNode, OrdinalSet<T>> result = HashMapFactory.make();
-      for (Iterator<? extends CGNode> it = cg.iterator(); it.hasNext();) {
-        CGNode n = it.next();
-        BitVectorVariable bv = solver.getOut(n);
-        result.put(n, new OrdinalSet<T>(bv.getValue(), gr.getLatticeValues()));
+    MutableMapping<T> values = MutableMapping.make();
+    Map<CGNode, IntSet> numbered = HashMapFactory.make();
+    for (Map.Entry<CGNode, Collection<T>> e : nodeResults.entrySet()) {
+      BitVectorIntSet s = new BitVectorIntSet();
+      for (T x : e.getValue()) {
+        s.add(values.add(x));
       }
-      return result;
-    } catch (CancelException e) {
-      throw new CancelRuntimeException(e);
+      numbered.put(e.getKey(), s);
     }
+    Map<CGNode, IntSet> closure = transitiveClosureOfIntSets(cg, numbered);
+    Map<CGNode, OrdinalSet<T>> result = HashMapFactory.make();
+    for (Map.Entry<CGNode, IntSet> e : closure.entrySet()) {
+      result.put(e.getKey(), new OrdinalSet<T>(e.getValue(), values));
+    }
+    return result;
   }
-  
+
+  /**
+   * Compute the transitive closure of sets of numbers over all callees, visiting each strongly connected component of the call
+   * graph once (see {@link GraphTransitiveClosure}).
+   * 
+   * @param cg the call graph
+   * @param nodeResults set for each individual node; a node with no entry has the empty set
+   * @return a map from each node to the union of the sets of the node and its transitive callees. Nodes share these sets, which
+   *         must not be modified.
+   */
+  public static Map<CGNode, IntSet> transitiveClosureOfIntSets(CallGraph cg, Map<CGNode, ? extends IntSet> nodeResults) {
+    if (cg == null) {
+      throw new IllegalArgumentException("cg is null");
+    }
+    return GraphTransitiveClosure.transitiveClosure(cg, nodeResults);
+  }
+
   /**
    * Collect analysis result for each {@link CGNode} in a {@link Map}.
    */
@@ -69,4 +89,61 @@ public class CallGraphTransitiveClosure {
     return result;
     
   }
+
+  /**
+   * Collect analysis result for each {@link CGNode} in a {@link Map}, computing the results of different nodes on up to
+   * numberOfThreads threads. nodeResultComputer must be safe to apply to several nodes at once.
+   */
+  public static <R> Map<CGNode, R> collectNodeResults(CallGraph cg, final Function<CGNode, R> nodeResultComputer, int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+    Map<CGNode, R> result = HashMapFactory.make();
+    if (numberOfThreads == 1) {
+      for (Iterator<? extends CGNode> it = cg.iterator(); it.hasNext();) {
+        CGNode n = it.next();
+        result.put(n, nodeResultComputer.apply(n));
+      }
+      return result;
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "WALA call graph node scanner");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    try {
+      Map<CGNode, Future<R>> tasks = HashMapFactory.make();
+      for (Iterator<? extends CGNode> it = cg.iterator(); it.hasNext();) {
+        final CGNode n = it.next();
+        tasks.put(n, pool.submit(new Callable<R>() {
+          @Override
+          public R call() {
+            return nodeResultComputer.apply(n);
+          }
+        }));
+      }
+      for (Map.Entry<CGNode, Future<R>> e : tasks.entrySet()) {
+        try {
+          result.put(e.getKey(), e.getValue().get());
+        } catch (InterruptedException x) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(x);
+        } catch (ExecutionException x) {
+          Throwable cause = x.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          } else if (cause instanceof Error) {
+            throw (Error) cause;
+          }
+          throw new RuntimeException(cause);
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    return result;
+  }
 }
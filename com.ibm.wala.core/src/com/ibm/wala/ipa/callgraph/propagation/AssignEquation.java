@@ -10,18 +10,51 @@
  *******************************************************************************/
 package com.ibm.wala.ipa.callgraph.propagation;
 
+import com.ibm.wala.fixpoint.FixedPointConstants;
 import com.ibm.wala.fixpoint.UnaryOperator;
 import com.ibm.wala.fixpoint.UnaryStatement;
+import com.ibm.wala.util.intset.IntSet;
 
 /**
  * A specialized equation class introduced for efficiency.
  */
 public final class AssignEquation extends UnaryStatement<PointsToSetVariable> {
 
+  /**
+   * in delta propagation mode, the number of elements the last evaluation propagated
+   */
+  private int propagated = 0;
+
   AssignEquation(PointsToSetVariable lhs, PointsToSetVariable rhs) {
     super(lhs, rhs);
   }
 
+  /**
+   * If the right-hand side tracks its recent additions, only propagate the elements added since the last evaluation of an
+   * assignment from it to the left-hand side.
+   */
+  @Override
+  public byte evaluate() {
+    if (!rhs.isTrackingDelta()) {
+      return super.evaluate();
+    }
+    IntSet delta = lhs.readDeltaOf(rhs);
+    if (delta == null) {
+      propagated = 0;
+      return FixedPointConstants.NOT_CHANGED;
+    }
+    propagated = delta.size();
+    return lhs.addAll(delta) ? FixedPointConstants.CHANGED : FixedPointConstants.NOT_CHANGED;
+  }
+
+  /**
+   * @return the number of elements the last evaluation propagated: in delta propagation mode, those added to the right-hand side
+   *         since an assignment to the left-hand side last read it; otherwise, the whole right-hand side
+   */
+  int getElementsPropagated() {
+    return rhs.isTrackingDelta() ? propagated : rhs.size();
+  }
+
   @Override
   public UnaryOperator<PointsToSetVariable> getOperator() {
     return PropagationCallGraphBuilder.assignOperator;
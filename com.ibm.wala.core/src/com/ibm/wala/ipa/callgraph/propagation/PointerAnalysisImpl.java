@@ -38,13 +38,13 @@ import com.ibm.wala.ssa.SSAPiInstruction;
 import com.ibm.wala.ssa.SSAThrowInstruction;
 import com.ibm.wala.types.FieldReference;
 import com.ibm.wala.types.TypeReference;
-import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.intset.MutableSparseIntSet;
 import com.ibm.wala.util.intset.OrdinalSet;
+import com.ibm.wala.util.intset.SparseIntSet;
 
 /**
  * General representation of the results of pointer analysis
@@ -86,6 +86,20 @@ public class PointerAnalysisImpl extends AbstractPointerAnalysis {
     H = makeHeapModel();
   }
 
+  /**
+   * @return the char[] contents of ik if it is a Java string constant, else null
+   */
+  @SuppressWarnings("unchecked")
+  private static StringConstantCharArray getStringContents(InstanceKey ik) {
+    if (ik instanceof ConstantKey) {
+      ConstantKey<?> i = (ConstantKey<?>) ik;
+      if (i.getValue() instanceof String && i.getConcreteType().getClassLoader().getLanguage().equals(Language.JAVA)) {
+        return StringConstantCharArray.make((ConstantKey<String>) i);
+      }
+    }
+    return null;
+  }
+
   @Override
   public String toString() {
     StringBuffer result = new StringBuffer("PointerAnalysis:\n");
@@ -108,7 +122,6 @@ public class PointerAnalysisImpl extends AbstractPointerAnalysis {
    * @see com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis#getPointsToSet(com.ibm.wala.ipa.callgraph.propagation.PointerKey)
    */
   @Override
-  @SuppressWarnings("unchecked")
   public OrdinalSet<InstanceKey> getPointsToSet(PointerKey key) {
     if (pointsToMap.isImplicit(key)) {
       return computeImplicitPointsToSet(key);
@@ -116,16 +129,15 @@ public class PointerAnalysisImpl extends AbstractPointerAnalysis {
 
     // special logic to handle contents of char[] from string constants.
     if (key instanceof InstanceFieldKey) {
-      InstanceFieldKey ifk = (InstanceFieldKey) key;
-      if (ifk.getInstanceKey() instanceof ConstantKey) {
-        ConstantKey<?> i = (ConstantKey<?>) ifk.getInstanceKey();
-        if (i.getValue() instanceof String && i.getConcreteType().getClassLoader().getLanguage().equals(Language.JAVA)) {
-          StringConstantCharArray contents = StringConstantCharArray.make((ConstantKey<String>) i);
-          instanceKeys.add(contents);
-          Collection<InstanceKey> singleton = HashSetFactory.make();
-          singleton.add(contents);
-          return OrdinalSet.toOrdinalSet(singleton, instanceKeys);
+      StringConstantCharArray contents = getStringContents(((InstanceFieldKey) key).getInstanceKey());
+      if (contents != null) {
+        // number the contents on demand, under a lock, so that clients such as ModRef can query the points-to sets of several
+        // nodes at once
+        int index;
+        synchronized (instanceKeys) {
+          index = instanceKeys.add(contents);
         }
+        return new OrdinalSet<InstanceKey>(SparseIntSet.singleton(index), instanceKeys);
       }
     }
 
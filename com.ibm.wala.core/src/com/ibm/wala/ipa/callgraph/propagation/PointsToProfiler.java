@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.ipa.callgraph.propagation;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import com.ibm.wala.fixedpoint.impl.GeneralStatement;
+import com.ibm.wala.fixpoint.AbstractStatement;
+import com.ibm.wala.fixpoint.IVariable;
+import com.ibm.wala.fixpoint.UnaryStatement;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.util.collections.HashMapFactory;
+
+/**
+ * Finds the pointer keys, call graph nodes and instance keys that cause the most work for a {@link PropagationSystem}.
+ * 
+ * Each evaluation of a statement is charged to the pointer key of its left-hand side, or, for side effects such as field
+ * accesses and dispatch, which have no left-hand side, to the pointer key of the first operand. The work of a call graph node is
+ * that of its local pointer keys, and the work of an instance key is that of its fields and array contents. A node or instance
+ * key that does much work suggests a {@link com.ibm.wala.ipa.callgraph.ContextSelector} or {@link InstanceKeyFactory} that
+ * distinguishes too much, or too little.
+ * 
+ * A profiler is not thread safe; the solver calls it from the thread that runs {@link PropagationSystem#solve}.
+ * 
+ * @see PropagationCallGraphBuilder#setPointsToProfiler(PointsToProfiler)
+ */
+public class PointsToProfiler {
+
+  /**
+   * the work charged to a pointer key, or to a group of them
+   */
+  public static class Profile {
+    private long evaluations;
+
+    private long fruitlessEvaluations;
+
+    private long scanned;
+
+    private long size;
+
+    /**
+     * @return number of evaluations of statements charged to this
+     */
+    public long getEvaluations() {
+      return evaluations;
+    }
+
+    /**
+     * @return number of evaluations that changed nothing
+     */
+    public long getFruitlessEvaluations() {
+      return fruitlessEvaluations;
+    }
+
+    /**
+     * @return the sum over evaluations of the number of elements read from the operand sets, a measure of the propagation work;
+     *         an assignment in delta propagation mode reads only the elements added since its last evaluation
+     */
+    public long getElementsScanned() {
+      return scanned;
+    }
+
+    /**
+     * @return the size of the points-to set at its last evaluation; for a group, the sum of these sizes
+     */
+    public long getSize() {
+      return size;
+    }
+
+    private void add(Profile p) {
+      evaluations += p.evaluations;
+      fruitlessEvaluations += p.fruitlessEvaluations;
+      scanned += p.scanned;
+      size += p.size;
+    }
+
+    @Override
+    public String toString() {
+      return evaluations + " evaluations, " + fruitlessEvaluations + " fruitless, " + scanned + " elements scanned, size " + size;
+    }
+  }
+
+  private final Map<PointerKey, Profile> keys = HashMapFactory.make();
+
+  private long evaluations = 0;
+
+  private long assignments = 0;
+
+  private long propagated = 0;
+
+  /**
+   * Charge an evaluation of s to the pointer key it belongs to
+   * 
+   * @param changed did the evaluation change the left-hand side?
+   */
+  void evaluated(AbstractStatement s, boolean changed) {
+    PointsToSetVariable owner = (PointsToSetVariable) s.getLHS();
+    long scanned = 0;
+    if (s instanceof UnaryStatement) {
+      PointsToSetVariable rhs = (PointsToSetVariable) ((UnaryStatement) s).getRightHandSide();
+      if (rhs != null) {
+        // an assignment in delta propagation mode reads only what was added to its right-hand side
+        if (s instanceof AssignEquation) {
+          scanned = ((AssignEquation) s).getElementsPropagated();
+          assignments++;
+          propagated += scanned;
+        } else {
+          scanned = rhs.size();
+        }
+        if (owner == null) {
+          owner = rhs;
+        }
+      }
+    } else if (s instanceof GeneralStatement) {
+      for (IVariable v : ((GeneralStatement<?>) s).getRHS()) {
+        if (v != null) {
+          PointsToSetVariable rhs = (PointsToSetVariable) v;
+          scanned += rhs.size();
+          if (owner == null) {
+            owner = rhs;
+          }
+        }
+      }
+    }
+    if (owner == null) {
+      return;
+    }
+    Profile p = keys.get(owner.getPointerKey());
+    if (p == null) {
+      p = new Profile();
+      keys.put(owner.getPointerKey(), p);
+    }
+    evaluations++;
+    p.evaluations++;
+    if (!changed) {
+      p.fruitlessEvaluations++;
+    }
+    p.scanned += scanned;
+    p.size = owner.size();
+  }
+
+  /**
+   * @return number of evaluations charged to some pointer key
+   */
+  public long getEvaluations() {
+    return evaluations;
+  }
+
+  /**
+   * @return number of evaluations of {@link AssignEquation}s
+   */
+  public long getAssignmentEvaluations() {
+    return assignments;
+  }
+
+  /**
+   * @return the sum over evaluations of {@link AssignEquation}s of the number of elements each read from its right-hand side; in
+   *         delta propagation mode only those added since the last evaluation
+   */
+  public long getElementsPropagatedByAssignments() {
+    return propagated;
+  }
+
+  /**
+   * @return the work charged to each pointer key
+   */
+  public Map<PointerKey, Profile> getPointerKeyProfiles() {
+    return Collections.unmodifiableMap(keys);
+  }
+
+  /**
+   * @return the work charged to the local pointer keys of each call graph node
+   */
+  public Map<CGNode, Profile> getNodeProfiles() {
+    Map<CGNode, Profile> result = HashMapFactory.make();
+    for (Map.Entry<PointerKey, Profile> e : keys.entrySet()) {
+      if (e.getKey() instanceof AbstractLocalPointerKey) {
+        add(result, ((AbstractLocalPointerKey) e.getKey()).getNode(), e.getValue());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the work charged to the fields and array contents of each instance key
+   */
+  public Map<InstanceKey, Profile> getInstanceKeyProfiles() {
+    Map<InstanceKey, Profile> result = HashMapFactory.make();
+    for (Map.Entry<PointerKey, Profile> e : keys.entrySet()) {
+      if (e.getKey() instanceof InstanceFieldPointerKey) {
+        add(result, ((InstanceFieldPointerKey) e.getKey()).getInstanceKey(), e.getValue());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the work charged to each class of pointer key, by simple name
+   */
+  public Map<String, Profile> getKindProfiles() {
+    Map<String, Profile> result = HashMapFactory.make();
+    for (Map.Entry<PointerKey, Profile> e : keys.entrySet()) {
+      add(result, e.getKey().getClass().getSimpleName(), e.getValue());
+    }
+    return result;
+  }
+
+  private static <T> void add(Map<T, Profile> result, T key, Profile p) {
+    Profile q = result.get(key);
+    if (q == null) {
+      q = new Profile();
+      result.put(key, q);
+    }
+    q.add(p);
+  }
+
+  /**
+   * @return the n entries of profiles with the most evaluations, most first; ties are broken by elements scanned
+   */
+  public static <T> List<Map.Entry<T, Profile>> top(Map<T, Profile> profiles, int n) {
+    List<Map.Entry<T, Profile>> result = new ArrayList<Map.Entry<T, Profile>>(profiles.entrySet());
+    Collections.sort(result, new Comparator<Map.Entry<T, Profile>>() {
+      @Override
+      public int compare(Map.Entry<T, Profile> o1, Map.Entry<T, Profile> o2) {
+        Profile p1 = o1.getValue();
+        Profile p2 = o2.getValue();
+        if (p1.evaluations != p2.evaluations) {
+          return p1.evaluations > p2.evaluations ? -1 : 1;
+        }
+        return p1.scanned > p2.scanned ? -1 : (p1.scanned == p2.scanned ? 0 : 1);
+      }
+    });
+    return result.size() > n ? result.subList(0, n) : result;
+  }
+
+  /**
+   * Write the n pointer keys, call graph nodes and instance keys with the most evaluations, with their shares of all
+   * evaluations, and the work of each class of pointer key.
+   */
+  public void writeReport(Writer w, int n) throws IOException {
+    w.write("points-to profile: " + evaluations + " evaluations\n");
+    writeTop(w, "pointer keys", getPointerKeyProfiles(), n);
+    writeTop(w, "call graph nodes", getNodeProfiles(), n);
+    writeTop(w, "instance keys", getInstanceKeyProfiles(), n);
+    Map<String, Profile> kinds = getKindProfiles();
+    writeTop(w, "kinds of pointer key", kinds, kinds.size());
+  }
+
+  private <T> void writeTop(Writer w, String title, Map<T, Profile> profiles, int n) throws IOException {
+    w.write("top " + title + " by evaluations:\n");
+    for (Map.Entry<T, Profile> e : top(profiles, n)) {
+      w.write(String.format("  %5.1f%% %s: %s\n", percent(e.getValue().evaluations), e.getValue(), e.getKey()));
+    }
+  }
+
+  private double percent(long part) {
+    return evaluations == 0 ? 0 : 100.0 * part / evaluations;
+  }
+
+  /**
+   * @return the report written by {@link #writeReport(Writer, int)}
+   */
+  public String report(int n) {
+    StringWriter w = new StringWriter();
+    try {
+      writeReport(w, n);
+    } catch (IOException e) {
+      // a StringWriter does not throw
+      throw new IllegalStateException(e);
+    }
+    return w.toString();
+  }
+
+  @Override
+  public String toString() {
+    return report(10);
+  }
+}
@@ -10,6 +10,8 @@
  *******************************************************************************/
 package com.ibm.wala.ipa.callgraph.propagation;
 
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 import com.ibm.wala.analysis.typeInference.TypeInference;
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.fixpoint.IntSetVariable;
@@ -17,9 +19,13 @@ import com.ibm.wala.ipa.callgraph.CGNode;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.ssa.IR;
 import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.collections.IntIntHashMap;
 import com.ibm.wala.util.debug.Assertions;
+import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetAction;
+import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.intset.MutableSparseIntSet;
 
@@ -45,6 +51,41 @@ public class PointsToSetVariable extends IntSetVariable<PointsToSetVariable> {
 
   private PointerKey pointerKey;
 
+  /**
+   * Does this variable record which elements were added recently? See {@link #getDeltaSince(int)}.
+   */
+  private boolean trackDelta = false;
+
+  /**
+   * incremented whenever the value of this variable changes
+   */
+  private int version = 0;
+
+  /**
+   * {@link #delta} holds every element added after this variable had this version
+   */
+  private int deltaBase = 0;
+
+  /**
+   * elements added since version {@link #deltaBase}; null if none
+   */
+  private MutableIntSet delta;
+
+  /**
+   * how many statements that use this variable have not yet seen the current version? When this drops to zero, the delta may be
+   * discarded on the next change.
+   */
+  private volatile int pendingUses = 0;
+
+  /**
+   * in delta propagation mode, for each variable assigned to this one, by graph node id, the version of it that the assignment last
+   * read; null until an assignment to this variable is evaluated
+   */
+  private IntIntHashMap versionsRead;
+
+  private static final AtomicIntegerFieldUpdater<PointsToSetVariable> PENDING_USES = AtomicIntegerFieldUpdater.newUpdater(
+      PointsToSetVariable.class, "pendingUses");
+
   public PointsToSetVariable(PointerKey key) {
     super();
     if (key == null) {
@@ -82,7 +123,16 @@ public class PointsToSetVariable extends IntSetVariable<PointsToSetVariable> {
       m.add(b);
       checkTypes(m);
     }
-    super.add(b);
+    if (trackDelta) {
+      if (!contains(b)) {
+        super.add(b);
+        MutableSparseIntSet m = MutableSparseIntSet.createMutableSparseIntSet(1);
+        m.add(b);
+        recordAdded(m);
+      }
+    } else {
+      super.add(b);
+    }
     cryIfTooBig();
   }
 
@@ -91,11 +141,169 @@ public class PointsToSetVariable extends IntSetVariable<PointsToSetVariable> {
     if (PARANOID) {
       checkTypes(B);
     }
-    boolean v = super.addAll(B);
+    boolean v;
+    if (trackDelta) {
+      IntSet added = newElements(B);
+      v = added != null;
+      if (v) {
+        super.addAll(added);
+        recordAdded(added);
+      }
+    } else {
+      v = super.addAll(B);
+    }
     cryIfTooBig();
     return v;
   }
 
+  @Override
+  public boolean addAllInIntersection(PointsToSetVariable other, IntSet filter) {
+    if (trackDelta) {
+      return other.getValue() != null && addAllInIntersection(other.getValue(), filter);
+    } else {
+      return super.addAllInIntersection(other, filter);
+    }
+  }
+
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter) {
+    if (trackDelta) {
+      MutableIntSet temp = IntSetUtil.makeMutableCopy(other);
+      temp.intersectWith(filter);
+      return addAll(temp);
+    } else {
+      return super.addAllInIntersection(other, filter);
+    }
+  }
+
+  @Override
+  public void copyState(PointsToSetVariable other) {
+    if (trackDelta) {
+      invalidateDelta();
+    }
+    super.copyState(other);
+  }
+
+  @Override
+  public void remove(int i) {
+    if (trackDelta) {
+      invalidateDelta();
+    }
+    super.remove(i);
+  }
+
+  @Override
+  public void removeAll() {
+    if (trackDelta) {
+      invalidateDelta();
+    }
+    super.removeAll();
+  }
+
+  /**
+   * Start recording the elements added to this variable, so that statements using it can propagate differences only.
+   */
+  void enableDeltaTracking() {
+    trackDelta = true;
+  }
+
+  public boolean isTrackingDelta() {
+    return trackDelta;
+  }
+
+  /**
+   * @return a number that changes whenever the value of this variable changes
+   */
+  public int getVersion() {
+    return version;
+  }
+
+  /**
+   * A statement that last read this variable when it had version <code>since</code> calls this to find out what it must propagate.
+   * 
+   * @param since the version seen at the last evaluation of the caller, or -1 if the caller was never evaluated
+   * @return a set including every element added after version <code>since</code>; this is the full value if the recorded delta
+   *         does not reach back far enough. null if nothing was added.
+   */
+  public IntSet getDeltaSince(int since) {
+    if (since == version) {
+      return null;
+    }
+    PENDING_USES.decrementAndGet(this);
+    if (since >= deltaBase) {
+      return delta;
+    } else {
+      return getValue();
+    }
+  }
+
+  /**
+   * An assignment from rhs to this variable calls this to find out what it must propagate. The solver makes assignment equations
+   * afresh whenever it schedules one, so the version of rhs that the last assignment read is kept here, not in the equation.
+   * 
+   * @return a set including every element added to rhs since the last call for rhs, or the full value of rhs on the first call;
+   *         null if nothing was added
+   */
+  IntSet readDeltaOf(PointsToSetVariable rhs) {
+    if (versionsRead == null) {
+      versionsRead = new IntIntHashMap(2, -1);
+    }
+    return rhs.getDeltaSince(versionsRead.put(rhs.getGraphNodeId(), rhs.getVersion()));
+  }
+
+  /**
+   * Record that the statements using this variable have been scheduled for re-evaluation after a change.
+   * 
+   * @param n the number of statements that use this variable
+   */
+  void setPendingUses(int n) {
+    pendingUses = n;
+  }
+
+  /**
+   * @return the elements of B not yet in this set, or null if there are none
+   */
+  private IntSet newElements(IntSet B) {
+    MutableIntSet value = getValue();
+    if (value == null || value.isEmpty()) {
+      return B.isEmpty() ? null : B;
+    }
+    MutableSparseIntSet result = null;
+    for (IntIterator it = B.intIterator(); it.hasNext();) {
+      int x = it.next();
+      if (!value.contains(x)) {
+        if (result == null) {
+          result = MutableSparseIntSet.makeEmpty();
+        }
+        result.add(x);
+      }
+    }
+    return result;
+  }
+
+  private void recordAdded(IntSet added) {
+    if (pendingUses <= 0) {
+      // every user has seen the current version; start a new delta
+      deltaBase = version;
+      delta = null;
+    }
+    if (delta == null) {
+      delta = IntSetUtil.getDefaultIntSetFactory().makeCopy(added);
+    } else {
+      delta.addAll(added);
+    }
+    version++;
+  }
+
+  /**
+   * forget the delta, forcing every user to propagate the full value next time.
+   */
+  private void invalidateDelta() {
+    version++;
+    deltaBase = version;
+    delta = null;
+  }
+
   /**
    * check that the types of all instance keys are assignable to declared type of pointer key
    */
@@ -140,6 +348,9 @@ public class PointsToSetVariable extends IntSetVariable<PointsToSetVariable> {
 
   @Override
   public boolean addAll(PointsToSetVariable other) {
+    if (trackDelta) {
+      return other.getValue() != null && addAll(other.getValue());
+    }
     if (PARANOID) {
       checkTypes(other.getValue());
     }
@@ -47,6 +47,7 @@ import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetAction;
 import com.ibm.wala.util.intset.IntSetUtil;
 import com.ibm.wala.util.intset.MutableIntSet;
+import com.ibm.wala.util.perf.MetricsListener;
 import com.ibm.wala.util.warnings.Warning;
 import com.ibm.wala.util.warnings.Warnings;
 
@@ -76,6 +77,16 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder {
 
   private final static boolean DEBUG_ENTRYPOINTS = DEBUG_ALL | false;
 
+  /**
+   * names of the phases of call graph construction, as reported to a {@link MetricsListener}: all of it, the generation of
+   * constraints for newly discovered nodes, and the selection of a context for each call target
+   */
+  public final static String CALL_GRAPH_PHASE = "call graph construction";
+
+  public final static String CONSTRAINTS_PHASE = "constraint generation";
+
+  public final static String CONTEXT_SELECTION_PHASE = "context selection";
+
   /**
    * Meta-data regarding how pointers are modeled
    */
@@ -170,6 +181,11 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder {
    */
   final private boolean rememberGetPutHistory = true;
 
+  /**
+   * Charged with the work of the solver, when profiling; null otherwise
+   */
+  private PointsToProfiler profiler;
+
   /**
    * @param cha governing class hierarchy
    * @param options governing call graph construction options
@@ -239,6 +255,15 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder {
     system.setMinEquationsForTopSort(options.getMinEquationsForTopSort());
     system.setTopologicalGrowthFactor(options.getTopologicalGrowthFactor());
     system.setMaxEvalBetweenTopo(options.getMaxEvalBetweenTopo());
+    system.setNumberOfSolverThreads(options.getNumberOfSolverThreads());
+    system.setUseDeltaPropagation(options.getUseDeltaPropagation());
+    system.setCollapseCycles(options.getCollapseCycles());
+    system.setPeriodicMaintainInterval(options.getPeriodicMaintainInterval());
+    system.setMetricsListener(options.getMetricsListener());
+    system.setPointsToProfiler(profiler);
+    if (options.getMetricsListener() != null) {
+      getAnalysisCache().getSSACache().setMetricsListener(options.getMetricsListener());
+    }
 
     discoveredNodes = HashSetFactory.make();
     discoveredNodes.add(callGraph.getFakeRootNode());
@@ -266,6 +291,11 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder {
     customInit();
 
     solver = makeSolver();
+    MetricsListener metrics = system.getMetricsListener();
+    if (metrics != null) {
+      metrics.phaseStarted(CALL_GRAPH_PHASE);
+    }
+    long start = System.nanoTime();
     try {
       solver.solve(monitor);
     } catch (CancelException e) {
@@ -276,6 +306,11 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder {
       CallGraphBuilderCancelException c = CallGraphBuilderCancelException.createCallGraphBuilderCancelException(e, callGraph,
           system.extractPointerAnalysis(this));
       throw c;
+    } finally {
+      if (metrics != null) {
+        metrics.phaseFinished(CALL_GRAPH_PHASE, System.nanoTime() - start);
+        system.reportPointsToSetSizes(metrics);
+      }
     }
 
     return callGraph;
@@ -328,16 +363,27 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder {
    * @throws CancelException 
    */
   protected boolean addConstraintsFromNewNodes(IProgressMonitor monitor) throws CancelException {
-    boolean result = false;
-    while (!discoveredNodes.isEmpty()) {
-      Iterator<CGNode> it = discoveredNodes.iterator();
-      discoveredNodes = HashSetFactory.make();
-      while (it.hasNext()) {
-        CGNode n = it.next();
-        result |= addConstraintsFromNode(n, monitor);
+    MetricsListener metrics = system.getMetricsListener();
+    if (metrics != null) {
+      metrics.phaseStarted(CONSTRAINTS_PHASE);
+    }
+    long start = System.nanoTime();
+    try {
+      boolean result = false;
+      while (!discoveredNodes.isEmpty()) {
+        Iterator<CGNode> it = discoveredNodes.iterator();
+        discoveredNodes = HashSetFactory.make();
+        while (it.hasNext()) {
+          CGNode n = it.next();
+          result |= addConstraintsFromNode(n, monitor);
+        }
+      }
+      return result;
+    } finally {
+      if (metrics != null) {
+        metrics.phaseFinished(CONSTRAINTS_PHASE, System.nanoTime() - start);
       }
     }
-    return result;
   }
 
   /**
@@ -720,7 +766,19 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder {
     if (targetMethod == null || targetMethod.isAbstract()) {
       return null;
     }
-    Context targetContext = contextSelector.getCalleeTarget(caller, site, targetMethod, iKey);
+    Context targetContext;
+    MetricsListener metrics = system.getMetricsListener();
+    if (metrics == null) {
+      targetContext = contextSelector.getCalleeTarget(caller, site, targetMethod, iKey);
+    } else {
+      metrics.phaseStarted(CONTEXT_SELECTION_PHASE);
+      long start = System.nanoTime();
+      try {
+        targetContext = contextSelector.getCalleeTarget(caller, site, targetMethod, iKey);
+      } finally {
+        metrics.phaseFinished(CONTEXT_SELECTION_PHASE, System.nanoTime() - start);
+      }
+    }
     
     if (targetContext instanceof IllegalArgumentExceptionContext) {
       return null;
@@ -751,6 +809,20 @@ public abstract class PropagationCallGraphBuilder implements CallGraphBuilder {
     this.instanceKeyFactory = keys;
   }
 
+  public PointsToProfiler getPointsToProfiler() {
+    return profiler;
+  }
+
+  /**
+   * Profile the work of the solver in the next call to {@link #makeCallGraph(AnalysisOptions, IProgressMonitor)}, to find the
+   * pointer keys, contexts and instance keys that cost the most.
+   * 
+   * @param profiler charged with each evaluation of the solver; null to not profile
+   */
+  public void setPointsToProfiler(PointsToProfiler profiler) {
+    this.profiler = profiler;
+  }
+
   /**
    * @return the InstanceKey that acts as a representative for the class of objects that includes objects allocated at the given new
    *         instruction in the given node
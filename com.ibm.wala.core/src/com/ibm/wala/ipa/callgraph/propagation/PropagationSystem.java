@@ -10,6 +10,7 @@
  *******************************************************************************/
 package com.ibm.wala.ipa.callgraph.propagation;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -19,6 +20,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import com.ibm.wala.classLoader.ArrayClass;
 import com.ibm.wala.classLoader.IClass;
@@ -35,6 +42,9 @@ import com.ibm.wala.ipa.callgraph.propagation.PropagationCallGraphBuilder.Filter
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.ipa.cha.ClassHierarchyWarning;
 import com.ibm.wala.types.TypeReference;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.collections.Iterator2Collection;
@@ -43,6 +53,7 @@ import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.debug.VerboseAction;
 import com.ibm.wala.util.graph.Graph;
 import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.traverse.SCCIterator;
 import com.ibm.wala.util.heapTrace.HeapTracer;
 import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
@@ -50,6 +61,7 @@ import com.ibm.wala.util.intset.IntSetAction;
 import com.ibm.wala.util.intset.IntSetUtil;
 import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.intset.MutableMapping;
+import com.ibm.wala.util.perf.MetricsListener;
 import com.ibm.wala.util.ref.ReferenceCleanser;
 import com.ibm.wala.util.warnings.Warnings;
 
@@ -66,6 +78,11 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
 
   private final static int DEBUG_MEM_INTERVAL = 5;
 
+  /**
+   * name of the quantity reported for each points-to set by {@link #reportPointsToSetSizes(MetricsListener)}
+   */
+  public final static String POINTS_TO_SET_SIZE = "points-to set size";
+
   /**
    * object that tracks points-to sets
    */
@@ -118,6 +135,38 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
 
   private int periodicMaintainInterval = DEFAULT_PERIODIC_MAINTENANCE_INTERVAL;
 
+  /**
+   * number of threads used to evaluate independent statements. 1 means sequential solving.
+   */
+  private int numberOfSolverThreads = 1;
+
+  /**
+   * the parallel solver only hands a batch of statements to worker threads when the batch is at least this big
+   */
+  private final static int MIN_PARALLEL_BATCH = 64;
+
+  /**
+   * the parallel solver evaluates at most this many statements per worker thread in one batch
+   */
+  private final static int MAX_BATCH_PER_THREAD = 1024;
+
+  /**
+   * should assignments propagate only the elements added to their right-hand side since their last evaluation?
+   */
+  private boolean useDeltaPropagation = false;
+
+  /**
+   * should cycles in the assignment graph be collapsed during periodic maintenance?
+   */
+  private boolean collapseCycles = false;
+
+  private int numberOfCollapsedVariables = 0;
+
+  /**
+   * charged with each evaluation, when profiling; null otherwise
+   */
+  private PointsToProfiler profiler;
+
   public PropagationSystem(CallGraph cg, PointerKeyFactory pointerKeyFactory, InstanceKeyFactory instanceKeyFactory) {
     if (cg == null) {
       throw new IllegalArgumentException("null cg");
@@ -269,6 +318,9 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     PointsToSetVariable result = pointsToMap.getPointsToSet(key);
     if (result == null) {
       result = new PointsToSetVariable(key);
+      if (useDeltaPropagation) {
+        result.enableDeltaTracking();
+      }
       pointsToMap.put(key, result);
     } else {
       // check that the filter for this variable remains unique
@@ -333,6 +385,10 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     }
     PointsToSetVariable L = findOrCreatePointsToSet(lhs);
     PointsToSetVariable R = findOrCreatePointsToSet(rhs);
+    if (L == R && op instanceof AssignOperator) {
+      // lhs and rhs have been unified
+      return false;
+    }
     if (op instanceof FilterOperator) {
       // we do not want to revert the lhs to pre-transitive form;
       // we instead want to check in the outer loop of the pre-transitive
@@ -359,8 +415,6 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     if (DEBUG) {
       System.err.println("Add constraint A: " + lhs + " " + op + " " + rhs);
     }
-    assert !pointsToMap.isUnified(lhs);
-    assert !pointsToMap.isUnified(rhs);
     PointsToSetVariable L = findOrCreatePointsToSet(lhs);
     PointsToSetVariable R = findOrCreatePointsToSet(rhs);
     return newStatement(L, op, new PointsToSetVariable[] { R }, true, true);
@@ -382,9 +436,6 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     if (DEBUG) {
       System.err.println("Add constraint A: " + lhs + " " + op + " " + rhs1 + ", " + rhs2);
     }
-    assert !pointsToMap.isUnified(lhs);
-    assert !pointsToMap.isUnified(rhs1);
-    assert !pointsToMap.isUnified(rhs2);
     PointsToSetVariable L = findOrCreatePointsToSet(lhs);
     PointsToSetVariable R1 = findOrCreatePointsToSet(rhs1);
     PointsToSetVariable R2 = findOrCreatePointsToSet(rhs2);
@@ -569,7 +620,6 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     if (DEBUG) {
       System.err.println("add constraint D: " + op + " " + arg0);
     }
-    assert !pointsToMap.isUnified(arg0);
     PointsToSetVariable v1 = findOrCreatePointsToSet(arg0);
     newStatement(null, op, v1, true, true);
   }
@@ -583,7 +633,6 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     }
     PointsToSetVariable[] vs = new PointsToSetVariable[ arg0.length ];
     for(int i = 0; i < arg0.length; i++) {
-      assert !pointsToMap.isUnified(arg0[i]);
       vs[i] = findOrCreatePointsToSet(arg0[i]);
     }
     newStatement(null, op, vs, true, true);
@@ -593,8 +642,6 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     if (DEBUG) {
       System.err.println("add constraint D: " + op + " " + arg0);
     }
-    assert !pointsToMap.isUnified(arg0);
-    assert !pointsToMap.isUnified(arg1);
     PointsToSetVariable v1 = findOrCreatePointsToSet(arg0);
     PointsToSetVariable v2 = findOrCreatePointsToSet(arg1);
     newStatement(null, op, v1, v2, true, true);
@@ -684,6 +731,25 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     return pointsToMap.iterateKeys();
   }
 
+  /**
+   * Report the size of each points-to set to metrics, as the quantity {@link #POINTS_TO_SET_SIZE}, and under the name of the kind
+   * of pointer key that owns the set. Points-to sets only grow, so their peak sizes are the sizes reported here once solving is
+   * done. Unified sets are reported once, for their representative; implicit sets are not reported.
+   */
+  public void reportPointsToSetSizes(MetricsListener metrics) {
+    for (Iterator<PointerKey> it = pointsToMap.iterateKeys(); it.hasNext();) {
+      PointerKey key = it.next();
+      if (pointsToMap.isImplicit(key) || pointsToMap.isUnified(key)) {
+        continue;
+      }
+      PointsToSetVariable v = pointsToMap.getPointsToSet(pointsToMap.getIndex(key));
+      if (v != null) {
+        metrics.valueObserved(POINTS_TO_SET_SIZE, v.size());
+        metrics.valueObserved(POINTS_TO_SET_SIZE + " of " + key.getClass().getSimpleName(), v.size());
+      }
+    }
+  }
+
   /**
    * warning: this is _real_ slow; don't use it anywhere performance critical
    */
@@ -740,7 +806,371 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
   @Override
   protected void periodicMaintenance() {
     super.periodicMaintenance();
-    ReferenceCleanser.clearSoftCaches();
+    if (verbose) {
+      ReferenceCleanser.clearSoftCaches();
+    }
+    if (collapseCycles) {
+      collapseAssignmentCycles();
+    }
+  }
+
+  /**
+   * Should strongly connected components of the assignment graph be collapsed during {@link #periodicMaintenance()}?
+   */
+  public void setCollapseCycles(boolean collapseCycles) {
+    this.collapseCycles = collapseCycles;
+  }
+
+  public boolean getCollapseCycles() {
+    return collapseCycles;
+  }
+
+  /**
+   * @param profiler charged with each evaluation of a statement; null to stop profiling
+   */
+  public void setPointsToProfiler(PointsToProfiler profiler) {
+    this.profiler = profiler;
+  }
+
+  public PointsToProfiler getPointsToProfiler() {
+    return profiler;
+  }
+
+  @Override
+  protected boolean isRecordingEvaluations() {
+    return profiler != null || super.isRecordingEvaluations();
+  }
+
+  @Override
+  protected void recordEvaluation(AbstractStatement s, byte code) {
+    super.recordEvaluation(s, code);
+    if (profiler != null) {
+      profiler.evaluated(s, isChanged(code));
+    }
+  }
+
+  /**
+   * @return the number of variables merged into another variable by {@link #collapseAssignmentCycles()} so far
+   */
+  public int getNumberOfCollapsedVariables() {
+    return numberOfCollapsedVariables;
+  }
+
+  /**
+   * Find the strongly connected components of the assignment graph and unify the variables in each component, since they must
+   * hold the same points-to set at the fixed point. Variables whose pointer key may later acquire a type filter (parameters and
+   * return values), filtered variables, and the fixed sets of side effects are left alone. This must only be called between
+   * evaluations of the solver loop.
+   * 
+   * @return the number of variables merged into another variable
+   */
+  public int collapseAssignmentCycles() {
+    List<IntSet> components = new ArrayList<IntSet>();
+    for (Iterator<Set<PointsToSetVariable>> it = new SCCIterator<PointsToSetVariable>(getAssignmentGraph()); it.hasNext();) {
+      Set<PointsToSetVariable> scc = it.next();
+      if (scc.size() > 1) {
+        MutableIntSet s = IntSetUtil.make();
+        for (PointsToSetVariable v : scc) {
+          if (isCollapsible(v)) {
+            s.add(pointsToMap.getIndex(v.getPointerKey()));
+          }
+        }
+        if (s.size() > 1) {
+          components.add(s);
+        }
+      }
+    }
+    if (components.isEmpty()) {
+      return 0;
+    }
+
+    int collapsed = 0;
+    List<PointsToSetVariable> reps = new ArrayList<PointsToSetVariable>(components.size());
+    Set<PointsToSetVariable> merged = HashSetFactory.make();
+    for (IntSet s : components) {
+      for (IntIterator it = s.intIterator(); it.hasNext();) {
+        merged.add(pointsToMap.getPointsToSet(it.next()));
+      }
+      unify(s);
+      PointsToSetVariable rep = pointsToMap.getPointsToSet(s.intIterator().next());
+      merged.remove(rep);
+      reps.add(rep);
+      collapsed += s.size() - 1;
+    }
+
+    // drop statements removed by unification from the worklist, and schedule the statements that now read or write the
+    // representatives
+    List<AbstractStatement> pending = new ArrayList<AbstractStatement>();
+    while (!workList.isEmpty()) {
+      pending.add(workList.takeStatement());
+    }
+    for (AbstractStatement s : pending) {
+      if (!mentionsAny(s, merged)) {
+        workList.insertStatement(s);
+      }
+    }
+    for (PointsToSetVariable rep : reps) {
+      for (Iterator<AbstractStatement> it = getStatementsThatDef(rep); it.hasNext();) {
+        addToWorkList(it.next());
+      }
+      changedVariable(rep);
+    }
+
+    numberOfCollapsedVariables += collapsed;
+    if (verbose) {
+      System.err.println("Collapsed " + collapsed + " variables in " + components.size() + " cycles");
+    }
+    return collapsed;
+  }
+
+  private static boolean mentionsAny(AbstractStatement s, Set<PointsToSetVariable> vars) {
+    if (vars.contains(s.getLHS())) {
+      return true;
+    }
+    if (s instanceof UnaryStatement) {
+      return vars.contains(((UnaryStatement) s).getRightHandSide());
+    }
+    IVariable[] rhs = s.getRHS();
+    if (rhs != null) {
+      for (IVariable v : rhs) {
+        if (vars.contains(v)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  private boolean isCollapsible(PointsToSetVariable v) {
+    PointerKey key = v.getPointerKey();
+    if (key instanceof FilteredPointerKey || key instanceof ReturnValueKey) {
+      return false;
+    }
+    if (key instanceof LocalPointerKey && ((LocalPointerKey) key).isParameter()) {
+      return false;
+    }
+    return !fixedSetMap.containsKey(v);
+  }
+
+  /**
+   * In delta propagation mode, each points-to set records the elements added since its users last read it, and assignments only
+   * push those differences instead of re-unioning the full right-hand side. This must be chosen before any constraints are added.
+   */
+  public void setUseDeltaPropagation(boolean useDeltaPropagation) {
+    this.useDeltaPropagation = useDeltaPropagation;
+  }
+
+  public boolean getUseDeltaPropagation() {
+    return useDeltaPropagation;
+  }
+
+  /**
+   * In delta propagation mode, also record how many assignments must read the new value before the recorded delta can be
+   * discarded.
+   */
+  @Override
+  public void changedVariable(PointsToSetVariable v) {
+    if (!v.isTrackingDelta()) {
+      super.changedVariable(v);
+      return;
+    }
+    int deltaUses = 0;
+    for (Iterator<AbstractStatement> it = getStatementsThatUse(v); it.hasNext();) {
+      AbstractStatement s = it.next();
+      if (s instanceof AssignEquation) {
+        deltaUses++;
+      }
+      addToWorkList(s);
+    }
+    v.setPendingUses(deltaUses);
+  }
+
+  public int getNumberOfSolverThreads() {
+    return numberOfSolverThreads;
+  }
+
+  /**
+   * @param numberOfSolverThreads number of threads used to evaluate independent statements; 1 means sequential solving
+   */
+  public void setNumberOfSolverThreads(int numberOfSolverThreads) {
+    if (numberOfSolverThreads < 1) {
+      throw new IllegalArgumentException("invalid number of solver threads: " + numberOfSolverThreads);
+    }
+    this.numberOfSolverThreads = numberOfSolverThreads;
+  }
+
+  /**
+   * When more than one solver thread is configured, the worklist is drained in batches of mutually independent statements; i.e., no
+   * statement in a batch defines a variable that another statement in the batch uses or defines. Such a batch is evaluated by a
+   * pool of worker threads. Only statements accepted by {@link #isParallelizable(AbstractStatement)} are batched; all other
+   * statements, in particular side effects that add new constraints, are evaluated one at a time by the calling thread. Since
+   * the system is monotone, the fixed point reached is the same as with sequential solving.
+   */
+  @Override
+  public boolean solve(IProgressMonitor monitor) throws CancelException {
+    if (numberOfSolverThreads <= 1) {
+      return super.solve(monitor);
+    }
+
+    if (isFirstSolve()) {
+      initForFirstSolve();
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(numberOfSolverThreads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "WALA points-to solver");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    try {
+      boolean globalChange = false;
+      while (!workList.isEmpty()) {
+        MonitorUtil.throwExceptionIfCanceled(monitor);
+        orderStatements();
+
+        List<AbstractStatement<PointsToSetVariable, ?>> batch = takeIndependentStatements();
+        byte[] codes = (batch.size() < MIN_PARALLEL_BATCH) ? evaluate(batch, 0, batch.size()) : evaluateInParallel(pool, batch);
+
+        for (int i = 0; i < codes.length; i++) {
+          AbstractStatement<PointsToSetVariable, ?> s = batch.get(i);
+          if (isRecordingEvaluations()) {
+            recordEvaluation(s, codes[i]);
+          }
+          if (verbose) {
+            incNumberOfEvaluations();
+            if (getNumberOfEvaluations() % getVerboseInterval() == 0) {
+              performVerboseAction();
+            }
+          }
+          if (isChanged(codes[i])) {
+            globalChange = true;
+            if (s.getLHS() != null) {
+              changedVariable(s.getLHS());
+            }
+          }
+          if (isFixed(codes[i])) {
+            removeStatement(s);
+          }
+        }
+        countEvaluationsForMaintenance(codes.length);
+      }
+      return globalChange;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Can statement s be evaluated concurrently with other statements that neither use nor define its left-hand side? This holds for
+   * statements whose evaluation only reads the right-hand side and writes the left-hand side, without touching any other state of
+   * the system.
+   */
+  protected boolean isParallelizable(AbstractStatement s) {
+    if (!(s instanceof UnaryStatement) || s.getLHS() == null) {
+      return false;
+    }
+    AbstractOperator op = s.getOperator();
+    if (op instanceof AssignOperator) {
+      return true;
+    } else if (op instanceof FilterOperator) {
+      // other filters may create instance key numbers or consult caches while evaluating
+      PointerKey pk = ((PointsToSetVariable) s.getLHS()).getPointerKey();
+      return pk instanceof FilteredPointerKey
+          && ((FilteredPointerKey) pk).getTypeFilter() instanceof FilteredPointerKey.SingleClassFilter;
+    } else {
+      return false;
+    }
+  }
+
+  /**
+   * Take the next statements from the worklist, stopping at the first statement that cannot be evaluated concurrently with those
+   * taken so far. The result holds at least one statement.
+   */
+  private List<AbstractStatement<PointsToSetVariable, ?>> takeIndependentStatements() {
+    List<AbstractStatement<PointsToSetVariable, ?>> batch = new ArrayList<AbstractStatement<PointsToSetVariable, ?>>();
+    AbstractStatement<PointsToSetVariable, ?> first = takeStatement();
+    batch.add(first);
+    if (!isParallelizable(first)) {
+      return batch;
+    }
+    Set<PointsToSetVariable> defs = HashSetFactory.make();
+    Set<PointsToSetVariable> uses = HashSetFactory.make();
+    defs.add(first.getLHS());
+    uses.add((PointsToSetVariable) ((UnaryStatement) first).getRightHandSide());
+
+    int max = numberOfSolverThreads * MAX_BATCH_PER_THREAD;
+    while (!workList.isEmpty() && batch.size() < max) {
+      AbstractStatement<PointsToSetVariable, ?> s = takeStatement();
+      if (!isParallelizable(s)) {
+        workList.insertStatement(s);
+        break;
+      }
+      PointsToSetVariable lhs = s.getLHS();
+      PointsToSetVariable rhs = (PointsToSetVariable) ((UnaryStatement) s).getRightHandSide();
+      if (defs.contains(lhs) || uses.contains(lhs) || defs.contains(rhs)) {
+        workList.insertStatement(s);
+        break;
+      }
+      defs.add(lhs);
+      uses.add(rhs);
+      batch.add(s);
+    }
+    return batch;
+  }
+
+  /**
+   * the worklist is untyped, but every statement of this system is over {@link PointsToSetVariable}s
+   */
+  @SuppressWarnings("unchecked")
+  private AbstractStatement<PointsToSetVariable, ?> takeStatement() {
+    return workList.takeStatement();
+  }
+
+  private static byte[] evaluate(List<AbstractStatement<PointsToSetVariable, ?>> batch, int from, int to) {
+    byte[] codes = new byte[to - from];
+    for (int i = from; i < to; i++) {
+      codes[i - from] = batch.get(i).evaluate();
+    }
+    return codes;
+  }
+
+  private byte[] evaluateInParallel(ExecutorService pool, final List<AbstractStatement<PointsToSetVariable, ?>> batch) throws CancelException {
+    int chunk = (batch.size() + numberOfSolverThreads - 1) / numberOfSolverThreads;
+    List<Callable<byte[]>> tasks = new ArrayList<Callable<byte[]>>(numberOfSolverThreads);
+    for (int start = 0; start < batch.size(); start += chunk) {
+      final int from = start;
+      final int to = Math.min(start + chunk, batch.size());
+      tasks.add(new Callable<byte[]>() {
+        @Override
+        public byte[] call() {
+          return evaluate(batch, from, to);
+        }
+      });
+    }
+    byte[] codes = new byte[batch.size()];
+    try {
+      int i = 0;
+      for (Future<byte[]> f : pool.invokeAll(tasks)) {
+        byte[] part = f.get();
+        System.arraycopy(part, 0, codes, i, part.length);
+        i += part.length;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw CancelException.make("interrupted during parallel solving");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        Assertions.UNREACHABLE(cause);
+      }
+    }
+    return codes;
   }
 
   @Override
@@ -767,6 +1197,32 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
     this.periodicMaintainInterval = periodicMaintainInteval;
   }
 
+  /**
+   * Unify the points-to sets for two pointer keys, creating their variables if necessary.
+   * 
+   * @return true iff the keys were not already unified
+   */
+  public boolean unify(PointerKey a, PointerKey b) {
+    if (a == null) {
+      throw new IllegalArgumentException("a is null");
+    }
+    if (b == null) {
+      throw new IllegalArgumentException("b is null");
+    }
+    findOrCreatePointsToSet(a);
+    findOrCreatePointsToSet(b);
+    int i = pointsToMap.getIndex(a);
+    int j = pointsToMap.getIndex(b);
+    if (pointsToMap.getRepresentative(i) == pointsToMap.getRepresentative(j)) {
+      return false;
+    }
+    MutableIntSet s = IntSetUtil.make();
+    s.add(i);
+    s.add(j);
+    unify(s);
+    return true;
+  }
+
   /**
    * Unify the points-to-sets for the variables identified by the set s
    * 
@@ -856,7 +1312,8 @@ public class PropagationSystem extends DefaultFixedPointSolver<PointsToSetVariab
             replaceRHS(pRef, p, as);
           }
         }
-        if (flowGraph.getNumberOfStatementsThatDef(p) == 0 && flowGraph.getNumberOfStatementsThatUse(p) == 0) {
+        if (p.getGraphNodeId() != -1 && flowGraph.getNumberOfStatementsThatDef(p) == 0
+            && flowGraph.getNumberOfStatementsThatUse(p) == 0) {
           flowGraph.removeVariable(p);
         }
       }
@@ -83,6 +83,7 @@ import com.ibm.wala.util.intset.IntIterator;
 import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.IntSetAction;
 import com.ibm.wala.util.intset.IntSetUtil;
+import com.ibm.wala.util.intset.IntegerUnionFind;
 import com.ibm.wala.util.intset.MutableIntSet;
 import com.ibm.wala.util.ref.ReferenceCleanser;
 import com.ibm.wala.util.warnings.Warning;
@@ -156,6 +157,11 @@ public abstract class SSAPropagationCallGraphBuilder extends PropagationCallGrap
 
   private final Set<IClass> finalizeVisited = HashSetFactory.make();
 
+  /**
+   * number of locals whose points-to sets were merged into an equivalent local by {@link #substituteEquivalentLocals}
+   */
+  private int numberOfSubstitutedLocals = 0;
+
   public IProgressMonitor monitor;
 
   protected SSAPropagationCallGraphBuilder(IClassHierarchy cha, AnalysisOptions options, AnalysisCache cache,
@@ -230,14 +236,104 @@ public abstract class SSAPropagationCallGraphBuilder extends PropagationCallGrap
       return false;
     }
 
+    DefUse du = getCFAContextInterpreter().getDU(node);
+    if (options.getUseOfflineVariableSubstitution()) {
+      numberOfSubstitutedLocals += substituteEquivalentLocals(node, ir, du);
+    }
+
     addNodeInstructionConstraints(node, monitor);
 
-    DefUse du = getCFAContextInterpreter().getDU(node);
     addNodePassthruExceptionConstraints(node, ir, du);
     // conservatively assume something changed
     return true;
   }
 
+  /**
+   * Offline variable substitution: before any constraints are generated for a node, unify the points-to sets of locals that
+   * provably hold the same value. SSA form has no copies, but a phi whose inputs, ignoring itself and inputs that contribute no
+   * instance keys, all come from a single value is a copy of that value; chains and cycles of such phis collapse onto their source.
+   * 
+   * @return the number of locals unified with another local
+   */
+  protected int substituteEquivalentLocals(CGNode node, IR ir, DefUse du) {
+    SymbolTable symbolTable = ir.getSymbolTable();
+    byte[] substitutable = new byte[symbolTable.getMaxValueNumber() + 1];
+    List<SSAPhiInstruction> phis = new ArrayList<SSAPhiInstruction>();
+    for (Iterator<? extends SSAInstruction> it = ir.iteratePhis(); it.hasNext();) {
+      SSAPhiInstruction phi = (SSAPhiInstruction) it.next();
+      if (phi != null && isSubstitutable(node, symbolTable, du, phi.getDef(), substitutable)) {
+        phis.add(phi);
+      }
+    }
+    if (phis.isEmpty()) {
+      return 0;
+    }
+
+    // merge each phi into the class of its unique source until nothing changes
+    IntegerUnionFind uf = new IntegerUnionFind(substitutable.length);
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (SSAPhiInstruction phi : phis) {
+        int def = uf.find(phi.getDef());
+        int source = -1;
+        for (int i = 0; i < phi.getNumberOfUses(); i++) {
+          int use = phi.getUse(i);
+          if (use <= 0 || uf.find(use) == def) {
+            continue;
+          }
+          if (contentsAreInvariant(symbolTable, du, use) && getInvariantContents(symbolTable, du, node, use, this).length == 0) {
+            continue;
+          }
+          if (!isSubstitutable(node, symbolTable, du, use, substitutable) || (source != -1 && source != uf.find(use))) {
+            source = -1;
+            break;
+          }
+          source = uf.find(use);
+        }
+        if (source != -1) {
+          uf.union(def, source);
+          changed = true;
+        }
+      }
+    }
+
+    int result = 0;
+    for (int vn = 1; vn < substitutable.length; vn++) {
+      int rep = uf.find(vn);
+      if (rep != vn && system.unify(getPointerKeyForLocal(node, vn), getPointerKeyForLocal(node, rep))) {
+        result++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Can the points-to set for a local take part in offline variable substitution? Its key must be a plain local pointer key that
+   * will be represented explicitly, and never acquire a type filter, so parameters and the results of casts and pi nodes are
+   * excluded.
+   * 
+   * @param cache memo of earlier answers, indexed by value number: 0 unknown, 1 yes, 2 no
+   */
+  private boolean isSubstitutable(CGNode node, SymbolTable symbolTable, DefUse du, int vn, byte[] cache) {
+    if (cache[vn] == 0) {
+      SSAInstruction def = du.getDef(vn);
+      PointerKey key = getPointerKeyForLocal(node, vn);
+      boolean ok = key instanceof LocalPointerKey && !(key instanceof FilteredPointerKey) && !symbolTable.isParameter(vn)
+          && !(def instanceof SSACheckCastInstruction) && !(def instanceof SSAPiInstruction)
+          && !contentsAreInvariant(symbolTable, du, vn) && !hasNoInterestingUses(node, vn, du);
+      cache[vn] = ok ? (byte) 1 : (byte) 2;
+    }
+    return cache[vn] == 1;
+  }
+
+  /**
+   * @return the number of locals unified with an equivalent local by offline variable substitution so far
+   */
+  public int getNumberOfSubstitutedLocals() {
+    return numberOfSubstitutedLocals;
+  }
+
   /**
    * @return a visitor to examine instructions in the ir
    */
@@ -684,8 +780,6 @@ public abstract class SSAPropagationCallGraphBuilder extends PropagationCallGrap
             }
           }
         } else {
-          assert !system.isUnified(result);
-          assert !system.isUnified(arrayRefPtrKey);
           system.newSideEffect(getBuilder().new ArrayLoadOperator(system.findOrCreatePointsToSet(result)), arrayRefPtrKey);
         }
       }
@@ -739,7 +833,6 @@ public abstract class SSAPropagationCallGraphBuilder extends PropagationCallGrap
           InstanceKey[] ik = getInvariantContents(value);
           for (int i = 0; i < ik.length; i++) {
             system.findOrCreateIndexForInstanceKey(ik[i]);
-            assert !system.isUnified(arrayRefPtrKey);
             system.newSideEffect(getBuilder().new InstanceArrayStoreOperator(ik[i]), arrayRefPtrKey);
           }
         } else {
@@ -13,6 +13,7 @@ package com.ibm.wala.ipa.callgraph.propagation;
 
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.perf.MetricsListener;
 
 /**
  * standard fixed-point iterative solver for pointer analysis
@@ -20,6 +21,14 @@ import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 public class StandardSolver extends AbstractPointsToSolver {
 
   private static final boolean DEBUG_PHASES = DEBUG || false;
+
+  /**
+   * names of the phases of each iteration, as reported to a {@link MetricsListener}: solving the current constraints, and
+   * handling reflection
+   */
+  public static final String SOLVER_PHASE = "points-to solver iteration";
+
+  public static final String REFLECTION_PHASE = "reflection";
   
   public StandardSolver(PropagationSystem system, PropagationCallGraphBuilder builder) {
     super(system, builder);
@@ -37,7 +46,18 @@ public class StandardSolver extends AbstractPointsToSolver {
       if (DEBUG_PHASES) {
         System.err.println("Iteration " + i);
       }
-      getSystem().solve(monitor);
+      MetricsListener metrics = getSystem().getMetricsListener();
+      if (metrics != null) {
+        metrics.phaseStarted(SOLVER_PHASE);
+      }
+      long start = System.nanoTime();
+      try {
+        getSystem().solve(monitor);
+      } finally {
+        if (metrics != null) {
+          metrics.phaseFinished(SOLVER_PHASE, System.nanoTime() - start);
+        }
+      }
       if (DEBUG_PHASES) {
         System.err.println("Solved " + i);
       }
@@ -63,7 +83,17 @@ public class StandardSolver extends AbstractPointsToSolver {
         System.err.println("handling reflection");
       }
       if (i <= getBuilder().getOptions().getReflectionOptions().getNumFlowToCastIterations()) {
-        getReflectionHandler().updateForReflection(monitor);
+        if (metrics != null) {
+          metrics.phaseStarted(REFLECTION_PHASE);
+        }
+        start = System.nanoTime();
+        try {
+          getReflectionHandler().updateForReflection(monitor);
+        } finally {
+          if (metrics != null) {
+            metrics.phaseFinished(REFLECTION_PHASE, System.nanoTime() - start);
+          }
+        }
       }
       // Handling reflection may have discovered new nodes!
       if (DEBUG_PHASES) {
@@ -15,6 +15,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.IField;
@@ -134,9 +135,10 @@ public class ZeroXInstanceKeys implements InstanceKeyFactory {
   final private RTAContextInterpreter contextInterpreter;
 
   /**
-   * a Map from CGNode->Set<IClass> that should be smushed.
+   * a Map from CGNode->Set<IClass> that should be smushed. Concurrent, since clients such as ModRef may ask for instance keys from
+   * several threads at once.
    */
-  protected final Map<CGNode, Set<IClass>> smushMap = HashMapFactory.make();
+  protected final Map<CGNode, Set<IClass>> smushMap = new ConcurrentHashMap<CGNode, Set<IClass>>();
 
   public ZeroXInstanceKeys(AnalysisOptions options, IClassHierarchy cha, RTAContextInterpreter contextInterpreter, int policy) {
     if (options == null) {
@@ -222,6 +224,7 @@ public class ZeroXInstanceKeys implements InstanceKeyFactory {
         }
       }
       s = smushees.isEmpty() ? Collections.<IClass> emptySet() : smushees;
+      // another thread may have computed the same set meanwhile
       smushMap.put(node, s);
     }
     return s.contains(c);
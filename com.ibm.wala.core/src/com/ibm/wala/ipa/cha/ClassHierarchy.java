@@ -1330,7 +1330,7 @@ public class ClassHierarchy implements IClassHierarchy {
   }
 
 /** BEGIN Custom change: remember unresolved classes */
-  private final Set<TypeReference> unresolved = HashSetFactory.make();
+  private final Set<TypeReference> unresolved = Collections.newSetFromMap(new ConcurrentHashMap<TypeReference, Boolean>());
 
   @Override
   public final Set<TypeReference> getUnresolvedClasses() {
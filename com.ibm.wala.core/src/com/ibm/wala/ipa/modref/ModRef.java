@@ -32,8 +32,13 @@ import com.ibm.wala.ssa.SSAGetInstruction;
 import com.ibm.wala.ssa.SSAInstruction;
 import com.ibm.wala.ssa.SSANewInstruction;
 import com.ibm.wala.ssa.SSAPutInstruction;
+import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 import com.ibm.wala.util.functions.Function;
+import com.ibm.wala.util.graph.GraphTransitiveClosure;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.intset.OrdinalSet;
 
 /**
@@ -44,25 +49,55 @@ import com.ibm.wala.util.intset.OrdinalSet;
  */
 public class ModRef<T extends InstanceKey> {
 
-  public static ModRef make() {
-    return new ModRef();
+  public static <T extends InstanceKey> ModRef<T> make() {
+    return new ModRef<T>();
   }
 
+  /**
+   * number of threads to scan call graph nodes on
+   */
+  private int numberOfThreads = 1;
+
   protected ModRef() {
   }
 
+  /**
+   * Scan the instructions of call graph nodes on the given number of threads; 1, the default, means sequentially. With more than
+   * one thread, the pointer analysis, its heap model and the class hierarchy are queried from several threads at once, and
+   * {@link #makeModVisitor} and {@link #makeRefVisitor} must make visitors that can run at the same time. A
+   * {@link com.ibm.wala.ipa.callgraph.propagation.PointerAnalysisImpl} whose instance keys come from
+   * {@link com.ibm.wala.ipa.callgraph.propagation.cfa.ZeroXInstanceKeys}, and a {@link com.ibm.wala.ipa.cha.ClassHierarchy}, may be
+   * queried so.
+   * 
+   * @throws IllegalArgumentException if numberOfThreads &lt; 1
+   */
+  public void setNumberOfThreads(int numberOfThreads) {
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+    this.numberOfThreads = numberOfThreads;
+  }
+
+  public int getNumberOfThreads() {
+    return numberOfThreads;
+  }
+
   /**
    * For each call graph node, what heap locations (as determined by a heap model) may it write, including its callees transitively
    * 
    * @throws IllegalArgumentException if cg is null
    * 
    */
-  public Map<CGNode, OrdinalSet<PointerKey>> computeMod(CallGraph cg, PointerAnalysis<T> pa, HeapExclusions heapExclude) {
+  public Map<CGNode, OrdinalSet<PointerKey>> computeMod(CallGraph cg, final PointerAnalysis<T> pa, final HeapExclusions heapExclude) {
     if (cg == null) {
       throw new IllegalArgumentException("cg is null");
     }
-    Map<CGNode, Collection<PointerKey>> scan = scanForMod(cg, pa, heapExclude);
-    return CallGraphTransitiveClosure.transitiveClosure(cg, scan);
+    return transitiveClosure(cg, new Function<CGNode, Collection<PointerKey>>() {
+      @Override
+      public Collection<PointerKey> apply(CGNode n) {
+        return scanNodeForMod(n, pa, heapExclude);
+      }
+    });
   }
 
   /**
@@ -71,12 +106,16 @@ public class ModRef<T extends InstanceKey> {
    * @throws IllegalArgumentException if cg is null
    * 
    */
-  public Map<CGNode, OrdinalSet<PointerKey>> computeRef(CallGraph cg, PointerAnalysis<T> pa, HeapExclusions heapExclude) {
+  public Map<CGNode, OrdinalSet<PointerKey>> computeRef(CallGraph cg, final PointerAnalysis<T> pa, final HeapExclusions heapExclude) {
     if (cg == null) {
       throw new IllegalArgumentException("cg is null");
     }
-    Map<CGNode, Collection<PointerKey>> scan = scanForRef(cg, pa, heapExclude);
-    return CallGraphTransitiveClosure.transitiveClosure(cg, scan);
+    return transitiveClosure(cg, new Function<CGNode, Collection<PointerKey>>() {
+      @Override
+      public Collection<PointerKey> apply(CGNode n) {
+        return scanNodeForRef(n, pa, heapExclude);
+      }
+    });
   }
 
   /**
@@ -96,36 +135,33 @@ public class ModRef<T extends InstanceKey> {
   }
 
   /**
-   * For each call graph node, what heap locations (as determined by a heap model) may it write, <bf> NOT </bf> including its
-   * callees transitively
-   * 
-   * @param heapExclude
-   */
-  private Map<CGNode, Collection<PointerKey>> scanForMod(CallGraph cg, final PointerAnalysis<T> pa, final HeapExclusions heapExclude) {
-
-    return CallGraphTransitiveClosure.collectNodeResults(cg, new Function<CGNode, Collection<PointerKey>>() {
-
-      @Override
-      public Collection<PointerKey> apply(CGNode n) {
-        return scanNodeForMod(n, pa, heapExclude);
-      }
-    });
-  }
-
-  /**
-   * For each call graph node, what heap locations (as determined by a heap model) may it read, <bf> NOT </bf> including its callees
-   * transitively
+   * Scan each call graph node for the heap locations it accesses, <bf> NOT </bf> including its callees, numbering the locations as
+   * they are found so that each node's locations are kept as a bit vector; then close the bit vectors over the callees, computing
+   * independent strongly connected components of the call graph on up to numberOfThreads threads.
    * 
-   * @param heapExclude
+   * @param scan the heap locations a node accesses
    */
-  private Map<CGNode, Collection<PointerKey>> scanForRef(CallGraph cg, final PointerAnalysis<T> pa, final HeapExclusions heapExclude) {
-    return CallGraphTransitiveClosure.collectNodeResults(cg, new Function<CGNode, Collection<PointerKey>>() {
-
+  private Map<CGNode, OrdinalSet<PointerKey>> transitiveClosure(CallGraph cg, final Function<CGNode, Collection<PointerKey>> scan) {
+    final MutableMapping<PointerKey> keys = MutableMapping.make();
+    Map<CGNode, IntSet> nodeResults = CallGraphTransitiveClosure.collectNodeResults(cg, new Function<CGNode, IntSet>() {
       @Override
-      public Collection<PointerKey> apply(CGNode n) {
-        return scanNodeForRef(n, pa, heapExclude);
+      public IntSet apply(CGNode n) {
+        Collection<PointerKey> c = scan.apply(n);
+        BitVectorIntSet result = new BitVectorIntSet();
+        synchronized (keys) {
+          for (PointerKey k : c) {
+            result.add(keys.add(k));
+          }
+        }
+        return result;
       }
-    });
+    }, numberOfThreads);
+    Map<CGNode, IntSet> closure = GraphTransitiveClosure.transitiveClosure(cg, nodeResults, numberOfThreads);
+    Map<CGNode, OrdinalSet<PointerKey>> result = HashMapFactory.make();
+    for (Map.Entry<CGNode, IntSet> e : closure.entrySet()) {
+      result.put(e.getKey(), new OrdinalSet<PointerKey>(e.getValue(), keys));
+    }
+    return result;
   }
 
   public ExtendedHeapModel makeHeapModel(PointerAnalysis<T> pa) {
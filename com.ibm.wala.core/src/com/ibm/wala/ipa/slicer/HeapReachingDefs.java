@@ -48,6 +48,7 @@ import com.ibm.wala.util.CancelRuntimeException;
 import com.ibm.wala.util.Predicate;
 import com.ibm.wala.util.collections.FilterIterator;
 import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.IntObjectHashMap;
 import com.ibm.wala.util.collections.Iterator2Collection;
 import com.ibm.wala.util.collections.Iterator2Iterable;
 import com.ibm.wala.util.collections.ObjectArrayMapping;
@@ -122,7 +123,7 @@ public class HeapReachingDefs<T extends InstanceKey> {
     OrdinalSetMapping<Statement> domain = createStatementDomain(statements);
 
     // map SSAInstruction indices to statements
-    Map<Integer, NormalStatement> ssaInstructionIndex2Statement = mapInstructionsToStatements(domain);
+    IntObjectHashMap<NormalStatement> ssaInstructionIndex2Statement = mapInstructionsToStatements(domain);
 
     // solve reaching definitions as a dataflow problem
     BitVectorFramework<IExplodedBasicBlock, Statement> rd = new BitVectorFramework<IExplodedBasicBlock, Statement>(cfg, new RD(node,
@@ -152,7 +153,7 @@ public class HeapReachingDefs<T extends InstanceKey> {
 
     RDMap(BitVectorSolver<? extends ISSABasicBlock> solver, OrdinalSetMapping<Statement> domain, CGNode node, ExtendedHeapModel h,
         PointerAnalysis<T> pa, Map<CGNode, OrdinalSet<PointerKey>> mod, ExplodedControlFlowGraph cfg,
-        Map<Integer, NormalStatement> ssaInstructionIndex2Statement, HeapExclusions exclusions, CallGraph cg) {
+        IntObjectHashMap<NormalStatement> ssaInstructionIndex2Statement, HeapExclusions exclusions, CallGraph cg) {
       if (VERBOSE) {
         System.err.println("Init pointer Key mod ");
       }
@@ -171,7 +172,7 @@ public class HeapReachingDefs<T extends InstanceKey> {
     private void eagerPopulate(Map<PointerKey, MutableIntSet> pointerKeyMod, BitVectorSolver<? extends ISSABasicBlock> solver,
         OrdinalSetMapping<Statement> domain, CGNode node, ExtendedHeapModel h, PointerAnalysis<T> pa,
         Map<CGNode, OrdinalSet<PointerKey>> mod, ExplodedControlFlowGraph cfg,
-        Map<Integer, NormalStatement> ssaInstruction2Statement) {
+        IntObjectHashMap<NormalStatement> ssaInstruction2Statement) {
       for (Statement s : domain) {
         delegate.put(s, computeResult(s, pointerKeyMod, solver, domain, node, h, pa, mod, cfg, ssaInstruction2Statement));
       }
@@ -307,7 +308,7 @@ public class HeapReachingDefs<T extends InstanceKey> {
     OrdinalSet<Statement> computeResult(Statement s, Map<PointerKey, MutableIntSet> pointerKeyMod,
         BitVectorSolver<? extends ISSABasicBlock> solver, OrdinalSetMapping<Statement> domain, CGNode node, ExtendedHeapModel h,
         PointerAnalysis<T> pa, Map<CGNode, OrdinalSet<PointerKey>> mod, ExplodedControlFlowGraph cfg,
-        Map<Integer, NormalStatement> ssaInstructionIndex2Statement) {
+        IntObjectHashMap<NormalStatement> ssaInstructionIndex2Statement) {
       switch (s.getKind()) {
       case NORMAL:
         NormalStatement n = (NormalStatement) s;
@@ -399,7 +400,7 @@ public class HeapReachingDefs<T extends InstanceKey> {
   private Map<Statement, OrdinalSet<Statement>> makeResult(BitVectorSolver<? extends ISSABasicBlock> solver,
       OrdinalSetMapping<Statement> domain, CGNode node, ExtendedHeapModel h, PointerAnalysis<T> pa,
       Map<CGNode, OrdinalSet<PointerKey>> mod, ExplodedControlFlowGraph cfg,
-      Map<Integer, NormalStatement> ssaInstructionIndex2Statement, HeapExclusions exclusions, CallGraph cg) {
+      IntObjectHashMap<NormalStatement> ssaInstructionIndex2Statement, HeapExclusions exclusions, CallGraph cg) {
 
     return new RDMap(solver, domain, node, h, pa, mod, cfg, ssaInstructionIndex2Statement, exclusions, cg);
   }
@@ -453,8 +454,8 @@ public class HeapReachingDefs<T extends InstanceKey> {
   /**
    * map each SSAInstruction index to the NormalStatement which represents it.
    */
-  private static Map<Integer, NormalStatement> mapInstructionsToStatements(OrdinalSetMapping<Statement> domain) {
-    Map<Integer, NormalStatement> result = HashMapFactory.make();
+  private static IntObjectHashMap<NormalStatement> mapInstructionsToStatements(OrdinalSetMapping<Statement> domain) {
+    IntObjectHashMap<NormalStatement> result = new IntObjectHashMap<NormalStatement>(domain.getSize());
     for (Statement s : domain) {
       if (s.getKind().equals(Kind.NORMAL)) {
         NormalStatement n = (NormalStatement) s;
@@ -483,7 +484,7 @@ public class HeapReachingDefs<T extends InstanceKey> {
 
     private final PointerAnalysis<? extends InstanceKey> pa;
 
-    private final Map<Integer, NormalStatement> ssaInstructionIndex2Statement;
+    private final IntObjectHashMap<NormalStatement> ssaInstructionIndex2Statement;
 
     private final HeapExclusions exclusions;
 
@@ -494,7 +495,7 @@ public class HeapReachingDefs<T extends InstanceKey> {
     private final IBinaryNaturalRelation heapReturnCaller = new BasicNaturalRelation();
 
     public RD(CGNode node, ExplodedControlFlowGraph cfg, PointerAnalysis<? extends InstanceKey> pa2, OrdinalSetMapping<Statement> domain,
-        Map<Integer, NormalStatement> ssaInstructionIndex2Statement, HeapExclusions exclusions) {
+        IntObjectHashMap<NormalStatement> ssaInstructionIndex2Statement, HeapExclusions exclusions) {
       this.node = node;
       this.cfg = cfg;
       this.domain = domain;
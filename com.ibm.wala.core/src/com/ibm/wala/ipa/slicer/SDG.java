@@ -14,6 +14,7 @@ import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.ibm.wala.classLoader.CallSiteReference;
 import com.ibm.wala.ipa.callgraph.CGNode;
@@ -81,9 +82,10 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
   private final PointerAnalysis<T> pa;
 
   /**
-   * keeps track of PDG for each call graph node
+   * keeps track of PDG for each call graph node. Concurrent, so that the workers of a concurrent tabulation over this SDG may look
+   * up its PDGs.
    */
-  private final Map<CGNode, PDG> pdgMap = HashMapFactory.make();
+  private final ConcurrentHashMap<CGNode, PDG<T>> pdgMap = new ConcurrentHashMap<CGNode, PDG<T>>();
 
   /**
    * governs data dependence edges in the graph
@@ -115,7 +117,7 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
    */
   private final HeapExclusions heapExclude;
 
-  private final ModRef modRef;
+  private final ModRef<T> modRef;
 
   /**
    * Have we eagerly populated all nodes of this SDG?
@@ -123,16 +125,39 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
   private boolean eagerComputed = false;
 
   public SDG(final CallGraph cg, PointerAnalysis<T> pa, DataDependenceOptions dOptions, ControlDependenceOptions cOptions) {
-    this(cg, pa, ModRef.make(), dOptions, cOptions, null);
+    this(cg, pa, ModRef.<T> make(), dOptions, cOptions, null);
   }
 
-  public SDG(final CallGraph cg, PointerAnalysis<T> pa, ModRef modRef, DataDependenceOptions dOptions,
+  public SDG(final CallGraph cg, PointerAnalysis<T> pa, ModRef<T> modRef, DataDependenceOptions dOptions,
       ControlDependenceOptions cOptions) {
     this(cg, pa, modRef, dOptions, cOptions, null);
   }
 
-  public SDG(CallGraph cg, PointerAnalysis<T> pa, ModRef modRef, DataDependenceOptions dOptions, ControlDependenceOptions cOptions,
-      HeapExclusions heapExclude) throws IllegalArgumentException {
+  public SDG(CallGraph cg, PointerAnalysis<T> pa, ModRef<T> modRef, DataDependenceOptions dOptions,
+      ControlDependenceOptions cOptions, HeapExclusions heapExclude) throws IllegalArgumentException {
+    this(cg, pa, modRef, computeMod(cg, pa, modRef, dOptions, heapExclude), computeRef(cg, pa, modRef, dOptions, heapExclude),
+        dOptions, cOptions, heapExclude);
+  }
+
+  private static <T extends InstanceKey> Map<CGNode, OrdinalSet<PointerKey>> computeMod(CallGraph cg, PointerAnalysis<T> pa,
+      ModRef<T> modRef, DataDependenceOptions dOptions, HeapExclusions heapExclude) {
+    if (dOptions == null) {
+      throw new IllegalArgumentException("dOptions must not be null");
+    }
+    return dOptions.isIgnoreHeap() ? null : modRef.computeMod(cg, pa, heapExclude);
+  }
+
+  private static <T extends InstanceKey> Map<CGNode, OrdinalSet<PointerKey>> computeRef(CallGraph cg, PointerAnalysis<T> pa,
+      ModRef<T> modRef, DataDependenceOptions dOptions, HeapExclusions heapExclude) {
+    return dOptions.isIgnoreHeap() ? null : modRef.computeRef(cg, pa, heapExclude);
+  }
+
+  /**
+   * Use mod and ref maps already computed with modRef for cg, pa and heapExclude; they are ignored if dOptions ignores the heap.
+   */
+  SDG(CallGraph cg, PointerAnalysis<T> pa, ModRef<T> modRef, Map<CGNode, OrdinalSet<PointerKey>> mod,
+      Map<CGNode, OrdinalSet<PointerKey>> ref, DataDependenceOptions dOptions, ControlDependenceOptions cOptions,
+      HeapExclusions heapExclude) {
     super();
     if (dOptions == null) {
       throw new IllegalArgumentException("dOptions must not be null");
@@ -140,8 +165,8 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
     this.modRef = modRef;
     this.cg = cg;
     this.pa = pa;
-    this.mod = dOptions.isIgnoreHeap() ? null : modRef.computeMod(cg, pa, heapExclude);
-    this.ref = dOptions.isIgnoreHeap() ? null : modRef.computeRef(cg, pa, heapExclude);
+    this.mod = dOptions.isIgnoreHeap() ? null : mod;
+    this.ref = dOptions.isIgnoreHeap() ? null : ref;
     this.dOptions = dOptions;
     this.cOptions = cOptions;
     this.heapExclude = heapExclude;
@@ -170,7 +195,7 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
     if (!eagerComputed) {
       eagerComputed = true;
       computeAllPDGs();
-      for (PDG pdg : pdgMap.values()) {
+      for (PDG<T> pdg : pdgMap.values()) {
         addPDGStatementNodes(pdg.getCallGraphNode());
       }
     }
@@ -179,7 +204,7 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
   private void addPDGStatementNodes(CGNode node) {
     if (!statementsAdded.contains(node)) {
       statementsAdded.add(node);
-      PDG pdg = getPDG(node);
+      PDG<T> pdg = getPDG(node);
       for (Iterator<? extends Statement> it = pdg.iterator(); it.hasNext();) {
         addNode(it.next());
       }
@@ -790,10 +815,13 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
 
   @Override
   public PDG<T> getPDG(CGNode node) {
-    PDG result = pdgMap.get(node);
+    PDG<T> result = pdgMap.get(node);
     if (result == null) {
       result = new PDG<T>(node, pa, mod, ref, dOptions, cOptions, heapExclude, cg, modRef);
-      pdgMap.put(node, result);
+      PDG<T> old = pdgMap.putIfAbsent(node, result);
+      if (old != null) {
+        result = old;
+      }
       // Let's not eagerly add nodes, shall we?
       // for (Iterator<? extends Statement> it = result.iterator(); it.hasNext();) {
       // nodeMgr.addNode(it.next());
@@ -802,6 +830,13 @@ public class SDG<T extends InstanceKey> extends AbstractNumberedGraph<Statement>
     return result;
   }
 
+  /**
+   * @return the number of PDGs created so far
+   */
+  public int getNumberOfPDGs() {
+    return pdgMap.size();
+  }
+
   @Override
   public ControlDependenceOptions getCOptions() {
     return cOptions;
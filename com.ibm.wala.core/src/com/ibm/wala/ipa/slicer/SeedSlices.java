@@ -0,0 +1,236 @@
+/*******************************************************************************
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.ipa.slicer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.ibm.wala.dataflow.IFDS.IFlowFunction;
+import com.ibm.wala.dataflow.IFDS.IPartiallyBalancedFlowFunctions;
+import com.ibm.wala.dataflow.IFDS.ISupergraph;
+import com.ibm.wala.dataflow.IFDS.IUnaryFlowFunction;
+import com.ibm.wala.dataflow.IFDS.LocalPathEdges;
+import com.ibm.wala.dataflow.IFDS.PartiallyBalancedTabulationSolver;
+import com.ibm.wala.dataflow.IFDS.PathEdge;
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+
+/**
+ * The slices of several roots, read from one tabulation of a slice problem in which each root, and each return site reached by an
+ * unbalanced return, is the entry of its own group of path edges (see {@link Slicer#sliceEach(SDG, Collection, boolean)}).
+ *
+ * A group holds the statements of one procedure that are reached from its entry by same-level paths. The groups of callee entries
+ * do not depend on the root that reached them, so they are tabulated once and shared by all roots. The slice of a root is the union
+ * of the groups reachable from it: from the root's group and the return site groups reachable from it by unbalanced returns, and
+ * from there into the groups of the callees they reach.
+ *
+ * Slicing from one root, the {@link Slicer} keys the path edges of the root and of the return sites with the fake entry of their
+ * procedure, which is also the entry that calls reach. The callee group of that entry is then tabulated together with them, and may
+ * leave by unbalanced returns too. So that each slice is the same as the one computed for its root alone, a callee group of the
+ * fake entry of a procedure that the slice has entered without a call is treated as such a group here as well.
+ *
+ * @param <P> type of procedures in the supergraph
+ */
+class SeedSlices<P> {
+
+  /**
+   * A group of path edges, with the groups it leads to
+   */
+  private final static class Group {
+    final List<Statement> statements;
+
+    /**
+     * entries of the callees reached from the statements
+     */
+    final Set<Statement> callees;
+
+    /**
+     * return sites reached from exits among the statements by unbalanced returns, or null if not computed yet
+     */
+    Set<Statement> returnSites;
+
+    Group(List<Statement> statements, Set<Statement> callees) {
+      this.statements = statements;
+      this.callees = callees;
+    }
+  }
+
+  private final PartiallyBalancedTabulationSolver<Statement, P, Object> solver;
+
+  private final ISupergraph<Statement, P> supergraph;
+
+  private final IPartiallyBalancedFlowFunctions<Statement> flowFunctions;
+
+  private final boolean backward;
+
+  private final Map<Statement, Group> groups = HashMapFactory.make();
+
+  /**
+   * @param solver a solver that has tabulated a problem whose fake entry for each statement is the statement itself
+   * @param backward are the slices backward?
+   */
+  SeedSlices(PartiallyBalancedTabulationSolver<Statement, P, Object> solver, IPartiallyBalancedFlowFunctions<Statement> flowFunctions,
+      boolean backward) {
+    this.solver = solver;
+    this.supergraph = solver.getSupergraph();
+    this.flowFunctions = flowFunctions;
+    this.backward = backward;
+  }
+
+  /**
+   * @param root a root of the tabulated problem
+   * @return the slice of root
+   * @throws CancelException
+   */
+  Collection<Statement> getSlice(Statement root) throws CancelException {
+    Set<Statement> result = HashSetFactory.make();
+    // entries of the groups reached so far
+    Set<Statement> reached = HashSetFactory.make();
+    // groups we may leave by unbalanced returns
+    Set<Statement> up = HashSetFactory.make();
+    // nodes of the procedures entered without a call
+    Set<CGNode> upNodes = HashSetFactory.make();
+    List<Statement> worklist = new ArrayList<Statement>();
+    reached.add(root);
+    up.add(root);
+    worklist.add(root);
+    while (!worklist.isEmpty()) {
+      Statement entry = worklist.remove(worklist.size() - 1);
+      boolean isUp = up.contains(entry);
+      if (isUp && upNodes.add(entry.getNode())) {
+        Statement fakeEntry = getFakeEntry(entry.getNode());
+        if (reached.contains(fakeEntry) && up.add(fakeEntry)) {
+          worklist.add(fakeEntry);
+        }
+      }
+      Group g = isUp ? getUpGroup(entry) : getGroup(entry);
+      result.addAll(g.statements);
+      if (isUp) {
+        for (Statement r : getReturnSites(g)) {
+          reached.add(r);
+          if (up.add(r)) {
+            worklist.add(r);
+          }
+        }
+      }
+      for (Statement e : g.callees) {
+        boolean isNew = reached.add(e);
+        if (upNodes.contains(e.getNode()) && e.equals(getFakeEntry(e.getNode()))) {
+          if (up.add(e)) {
+            worklist.add(e);
+          }
+        } else if (isNew) {
+          worklist.add(e);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * the entry with which the {@link Slicer} keys the path edges of a procedure entered without a call
+   */
+  private Statement getFakeEntry(CGNode node) {
+    return backward ? new MethodExitStatement(node) : new MethodEntryStatement(node);
+  }
+
+  /**
+   * Get the group of entry, first making sure that the solver has seeded the return sites of its exits. Roots and return sites are
+   * seeded already; the entry of a callee is seeded here, and the tabulation resumed, the first time a slice leaves it by an
+   * unbalanced return.
+   */
+  private Group getUpGroup(Statement entry) throws CancelException {
+    PathEdge<Statement> seed = PathEdge.createPathEdge(entry, 0, entry, 0);
+    if (!solver.getSeeds().contains(seed)) {
+      solver.addSeed(seed);
+      solver.solve();
+    }
+    return getGroup(entry);
+  }
+
+  private Group getGroup(Statement entry) {
+    Group result = groups.get(entry);
+    if (result == null) {
+      List<Statement> statements = new ArrayList<Statement>();
+      Set<Statement> callees = HashSetFactory.make();
+      LocalPathEdges lp = solver.getLocalPathEdges(entry);
+      if (lp != null) {
+        P proc = supergraph.getProcOf(entry);
+        IntSet reached;
+        synchronized (lp) {
+          reached = lp.getReachedNodeNumbers();
+        }
+        for (IntIterator it = reached.intIterator(); it.hasNext();) {
+          Statement s = supergraph.getLocalBlock(proc, it.next());
+          statements.add(s);
+          if (supergraph.isCall(s)) {
+            addCallees(s, callees);
+          }
+        }
+      }
+      result = new Group(statements, callees);
+      groups.put(entry, result);
+    }
+    return result;
+  }
+
+  /**
+   * add the entries of the callees that call reaches to callees
+   */
+  private void addCallees(Statement call, Set<Statement> callees) {
+    for (Iterator<? extends Statement> it = supergraph.getCalledNodes(call); it.hasNext();) {
+      Statement callee = it.next();
+      boolean reaches = reaches(flowFunctions.getCallFlowFunction(call, callee, null));
+      for (Iterator<? extends Statement> rs = supergraph.getReturnSites(call, supergraph.getProcOf(callee)); !reaches && rs.hasNext();) {
+        reaches = reaches(flowFunctions.getCallFlowFunction(call, callee, rs.next()));
+      }
+      if (reaches) {
+        callees.add(callee);
+      }
+    }
+  }
+
+  private Set<Statement> getReturnSites(Group g) {
+    if (g.returnSites == null) {
+      g.returnSites = HashSetFactory.make();
+      for (Statement s : g.statements) {
+        if (supergraph.isExit(s)) {
+          for (Iterator<? extends Statement> it = supergraph.getSuccNodes(s); it.hasNext();) {
+            Statement retSite = it.next();
+            if (reaches(flowFunctions.getUnbalancedReturnFlowFunction(s, retSite))) {
+              g.returnSites.add(retSite);
+            }
+          }
+        }
+      }
+    }
+    return g.returnSites;
+  }
+
+  /**
+   * does f keep the reachability fact 0?
+   */
+  private static boolean reaches(IFlowFunction f) {
+    if (!(f instanceof IUnaryFlowFunction)) {
+      return false;
+    }
+    IntSet targets = ((IUnaryFlowFunction) f).getTargets(0);
+    return targets != null && targets.contains(0);
+  }
+}
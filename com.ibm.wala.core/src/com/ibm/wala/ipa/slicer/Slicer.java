@@ -10,8 +10,10 @@
  *******************************************************************************/
 package com.ibm.wala.ipa.slicer;
 
+import java.io.File;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 
 import com.ibm.wala.dataflow.IFDS.BackwardsSupergraph;
 import com.ibm.wala.dataflow.IFDS.IMergeFunction;
@@ -28,6 +30,7 @@ import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
 import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
 import com.ibm.wala.ipa.modref.ModRef;
 import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
 
 /**
@@ -43,6 +46,16 @@ public class Slicer {
 
   public final static boolean VERBOSE = false;
 
+  /**
+   * bound on the number of path edges kept on the heap during tabulation; 0 means no bound
+   */
+  private long maxResidentPathEdges = 0;
+
+  /**
+   * directory for path edges spilled to disk; null means the default temporary directory
+   */
+  private File spillDirectory;
+
   /**
    * options to control data dependence edges in the SDG
    */
@@ -184,6 +197,46 @@ public class Slicer {
     return new Slicer().slice(sdg, ss, backward);
   }
 
+  /**
+   * Use the passed-in SDG
+   * 
+   * @param ss a collection of statements of interest
+   * @return a map from each statement in ss to its backward slice. See {@link #sliceEach(SDG, Collection, boolean)}.
+   * @throws CancelException
+   */
+  public static Map<Statement, Collection<Statement>> computeBackwardSlices(SDG sdg, Collection<Statement> ss)
+      throws IllegalArgumentException, CancelException {
+    return new Slicer().sliceEach(sdg, ss, true);
+  }
+
+  /**
+   * Use the passed-in SDG
+   * 
+   * @param ss a collection of statements of interest
+   * @return a map from each statement in ss to its forward slice. See {@link #sliceEach(SDG, Collection, boolean)}.
+   * @throws CancelException
+   */
+  public static Map<Statement, Collection<Statement>> computeForwardSlices(SDG sdg, Collection<Statement> ss)
+      throws IllegalArgumentException, CancelException {
+    return new Slicer().sliceEach(sdg, ss, false);
+  }
+
+  /**
+   * Bound the number of path edges kept on the heap while slicing, spilling the path edges of procedures that have not been used
+   * recently to a file in spillDirectory, so that slices of large SDGs can be computed in a fixed amount of memory. See
+   * {@link com.ibm.wala.dataflow.IFDS.TabulationSolver#setPathEdgeBudget(long, File)}.
+   * 
+   * @param maxResidentPathEdges the bound, or 0 for no bound (the default)
+   * @param spillDirectory directory for the file, or null for the default temporary directory
+   */
+  public void setPathEdgeBudget(long maxResidentPathEdges, File spillDirectory) {
+    if (maxResidentPathEdges < 0) {
+      throw new IllegalArgumentException("invalid budget: " + maxResidentPathEdges);
+    }
+    this.maxResidentPathEdges = maxResidentPathEdges;
+    this.spillDirectory = spillDirectory;
+  }
+
   /**
    * Main driver logic.
    * 
@@ -202,9 +255,16 @@ public class Slicer {
 
     PartiallyBalancedTabulationSolver<Statement, PDG, Object> solver = PartiallyBalancedTabulationSolver
         .createPartiallyBalancedTabulationSolver(p, null);
-    TabulationResult<Statement, PDG, Object> tr = solver.solve();
-
-    Collection<Statement> slice = tr.getSupergraphNodesReached();
+    if (maxResidentPathEdges > 0) {
+      solver.setPathEdgeBudget(maxResidentPathEdges, spillDirectory);
+    }
+    Collection<Statement> slice;
+    try {
+      TabulationResult<Statement, PDG, Object> tr = solver.solve();
+      slice = tr.getSupergraphNodesReached();
+    } finally {
+      solver.disposeSpilledPathEdges();
+    }
 
     if (VERBOSE) {
       System.err.println("Slicer done.");
@@ -213,6 +273,54 @@ public class Slicer {
     return slice;
   }
 
+  /**
+   * Compute the slice of each root separately, with a single tabulation for all of them. Slicing from each root in turn tabulates
+   * the procedures that several slices share once per slice; here, each procedure entry is tabulated once, and only the
+   * statements that reach or are reached from each root directly, without passing through a call, are tabulated per root.
+   * 
+   * The slices are the same as those {@link #slice(SDG, Collection, boolean)} computes for each root alone. The tabulation does not
+   * use {@link #makeSliceProblem(Collection, ISDG, boolean)}.
+   * 
+   * @param sdg governing system dependence graph
+   * @param roots statements to slice from
+   * @param backward do backwards slices?
+   * @return a map from each root to its slice
+   * @throws CancelException
+   */
+  public Map<Statement, Collection<Statement>> sliceEach(SDG sdg, Collection<Statement> roots, boolean backward)
+      throws CancelException {
+    if (sdg == null) {
+      throw new IllegalArgumentException("sdg cannot be null");
+    }
+    if (roots == null) {
+      throw new IllegalArgumentException("roots cannot be null");
+    }
+
+    SliceProblem p = new RootsAsEntriesSliceProblem(roots, sdg, backward);
+
+    PartiallyBalancedTabulationSolver<Statement, PDG, Object> solver = PartiallyBalancedTabulationSolver
+        .createPartiallyBalancedTabulationSolver(p, null);
+    if (maxResidentPathEdges > 0) {
+      solver.setPathEdgeBudget(maxResidentPathEdges, spillDirectory);
+    }
+    Map<Statement, Collection<Statement>> result = HashMapFactory.make();
+    try {
+      solver.solve();
+      SeedSlices<PDG> slices = new SeedSlices<PDG>(solver, p.getFunctionMap(), backward);
+      for (Statement root : roots) {
+        result.put(root, slices.getSlice(root));
+      }
+    } finally {
+      solver.disposeSpilledPathEdges();
+    }
+
+    if (VERBOSE) {
+      System.err.println("Slicer done.");
+    }
+
+    return result;
+  }
+
   /**
    * Return an object which encapsulates the tabulation logic for the slice problem. Subclasses can override this method to
    * implement special semantics.
@@ -312,4 +420,33 @@ public class Slicer {
 
   }
 
+  /**
+   * A slice problem in which each root, and each statement reached by a return from a procedure entered without a call, is the
+   * entry of its own group of path edges, rather than sharing one with the other statements of its procedure. This keeps the path
+   * edges of each root apart, so that {@link SeedSlices} can tell the slices of the roots apart.
+   */
+  private static class RootsAsEntriesSliceProblem extends SliceProblem {
+
+    private final Collection<Statement> roots;
+
+    RootsAsEntriesSliceProblem(Collection<Statement> roots, ISDG sdg, boolean backward) {
+      super(roots, sdg, backward);
+      this.roots = roots;
+    }
+
+    @Override
+    public Collection<PathEdge<Statement>> initialSeeds() {
+      Collection<PathEdge<Statement>> result = HashSetFactory.make();
+      for (Statement st : roots) {
+        result.add(PathEdge.createPathEdge(st, 0, st, 0));
+      }
+      return result;
+    }
+
+    @Override
+    public Statement getFakeEntry(Statement node) {
+      return node;
+    }
+  }
+
 }
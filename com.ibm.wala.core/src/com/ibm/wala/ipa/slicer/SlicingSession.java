@@ -0,0 +1,291 @@
+/*******************************************************************************
+ * Copyright (c) 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.ipa.slicer;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+
+import com.ibm.wala.ipa.callgraph.CGNode;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.callgraph.propagation.PointerAnalysis;
+import com.ibm.wala.ipa.callgraph.propagation.PointerKey;
+import com.ibm.wala.ipa.modref.ModRef;
+import com.ibm.wala.ipa.slicer.Slicer.ControlDependenceOptions;
+import com.ibm.wala.ipa.slicer.Slicer.DataDependenceOptions;
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.Pair;
+import com.ibm.wala.util.intset.OrdinalSet;
+
+/**
+ * A session for answering many slice queries against one call graph and pointer analysis.
+ *
+ * Each static method of {@link Slicer} that takes a call graph builds a new {@link SDG}, and so recomputes the mod and ref sets of
+ * all call graph nodes and the {@link PDG} of each node the slice reaches. A session computes the mod and ref sets once, and keeps
+ * one SDG for each pair of data and control dependence options, so that PDGs, and the heap reaching definitions computed for
+ * them, are built once and shared by all later queries.
+ *
+ * PDGs are built on demand as slices reach them. {@link #precomputePDGs(DataDependenceOptions, ControlDependenceOptions, Collection)}
+ * builds the PDGs of given nodes ahead of time. PDGs are built on one thread, since building them queries the pointer analysis
+ * and its heap model, which are not safe to use from several threads.
+ *
+ * Queries are answered one at a time.
+ */
+public class SlicingSession {
+
+  /**
+   * Counts of the work done and saved by a session
+   */
+  public static final class Statistics {
+    private final int queries;
+
+    private final int queriesWithoutNewPDGs;
+
+    private final int modRefComputations;
+
+    private final int sdgs;
+
+    private final int pdgs;
+
+    private Statistics(int queries, int queriesWithoutNewPDGs, int modRefComputations, int sdgs, int pdgs) {
+      this.queries = queries;
+      this.queriesWithoutNewPDGs = queriesWithoutNewPDGs;
+      this.modRefComputations = modRefComputations;
+      this.sdgs = sdgs;
+      this.pdgs = pdgs;
+    }
+
+    /**
+     * @return the number of slices computed
+     */
+    public int getQueries() {
+      return queries;
+    }
+
+    /**
+     * @return the number of slices computed only with PDGs built earlier
+     */
+    public int getQueriesWithoutNewPDGs() {
+      return queriesWithoutNewPDGs;
+    }
+
+    /**
+     * @return the number of times the mod and ref sets of the call graph were computed
+     */
+    public int getModRefComputations() {
+      return modRefComputations;
+    }
+
+    /**
+     * @return the number of SDGs in the session
+     */
+    public int getSDGs() {
+      return sdgs;
+    }
+
+    /**
+     * @return the number of PDGs built, over all SDGs
+     */
+    public int getPDGs() {
+      return pdgs;
+    }
+
+    @Override
+    public String toString() {
+      return "queries: " + queries + " without new PDGs: " + queriesWithoutNewPDGs + " mod/ref computations: " + modRefComputations
+          + " SDGs: " + sdgs + " PDGs: " + pdgs;
+    }
+  }
+
+  private final CallGraph cg;
+
+  private final PointerAnalysis<InstanceKey> pa;
+
+  private final ModRef<InstanceKey> modRef;
+
+  private final HeapExclusions heapExclude;
+
+  /**
+   * mod sets of the call graph nodes, or null if not computed yet
+   */
+  private Map<CGNode, OrdinalSet<PointerKey>> mod;
+
+  /**
+   * ref sets of the call graph nodes, or null if not computed yet
+   */
+  private Map<CGNode, OrdinalSet<PointerKey>> ref;
+
+  private final Map<Pair<DataDependenceOptions, ControlDependenceOptions>, SDG<InstanceKey>> sdgs = HashMapFactory.make();
+
+  private int queries = 0;
+
+  private int queriesWithoutNewPDGs = 0;
+
+  private int modRefComputations = 0;
+
+  public SlicingSession(CallGraph cg, PointerAnalysis<InstanceKey> pa) {
+    this(cg, pa, ModRef.make(), null);
+  }
+
+  /**
+   * @param heapExclude if non-null, the heap locations to exclude from data dependence
+   */
+  public SlicingSession(CallGraph cg, PointerAnalysis<InstanceKey> pa, ModRef<InstanceKey> modRef, HeapExclusions heapExclude) {
+    if (cg == null) {
+      throw new IllegalArgumentException("cg is null");
+    }
+    if (modRef == null) {
+      throw new IllegalArgumentException("modRef is null");
+    }
+    this.cg = cg;
+    this.pa = pa;
+    this.modRef = modRef;
+    this.heapExclude = heapExclude;
+  }
+
+  /**
+   * @return the SDG of this session for the given options, which is created on first use
+   */
+  public synchronized SDG<InstanceKey> getSDG(DataDependenceOptions dOptions, ControlDependenceOptions cOptions) {
+    if (dOptions == null) {
+      throw new IllegalArgumentException("dOptions must not be null");
+    }
+    Pair<DataDependenceOptions, ControlDependenceOptions> key = Pair.make(dOptions, cOptions);
+    SDG<InstanceKey> result = sdgs.get(key);
+    if (result == null) {
+      if (!dOptions.isIgnoreHeap() && mod == null) {
+        mod = modRef.computeMod(cg, pa, heapExclude);
+        ref = modRef.computeRef(cg, pa, heapExclude);
+        modRefComputations++;
+      }
+      result = new SDG<InstanceKey>(cg, pa, modRef, mod, ref, dOptions, cOptions, heapExclude);
+      sdgs.put(key, result);
+    }
+    return result;
+  }
+
+  /**
+   * @return the backward slice of s, with full data and control dependences
+   */
+  public Collection<Statement> computeBackwardSlice(Statement s) throws CancelException {
+    return computeBackwardSlice(s, DataDependenceOptions.FULL, ControlDependenceOptions.FULL);
+  }
+
+  /**
+   * @return the backward slice of s
+   */
+  public Collection<Statement> computeBackwardSlice(Statement s, DataDependenceOptions dOptions, ControlDependenceOptions cOptions)
+      throws CancelException {
+    return computeSlice(Collections.singleton(s), true, dOptions, cOptions);
+  }
+
+  /**
+   * @return the forward slice of s
+   */
+  public Collection<Statement> computeForwardSlice(Statement s, DataDependenceOptions dOptions, ControlDependenceOptions cOptions)
+      throws CancelException {
+    return computeSlice(Collections.singleton(s), false, dOptions, cOptions);
+  }
+
+  /**
+   * @param ss a collection of statements of interest
+   * @return the slice of ss
+   */
+  public synchronized Collection<Statement> computeSlice(Collection<Statement> ss, boolean backward, DataDependenceOptions dOptions,
+      ControlDependenceOptions cOptions) throws CancelException {
+    SDG<InstanceKey> sdg = getSDG(dOptions, cOptions);
+    int pdgs = sdg.getNumberOfPDGs();
+    Collection<Statement> result = makeSlicer().slice(sdg, ss, backward);
+    queries++;
+    if (sdg.getNumberOfPDGs() == pdgs) {
+      queriesWithoutNewPDGs++;
+    }
+    return result;
+  }
+
+  /**
+   * @param ss a collection of statements of interest
+   * @return a map from each statement in ss to its slice, all computed in one tabulation with
+   *         {@link Slicer#sliceEach(SDG, Collection, boolean)}. Each slice counts as a query.
+   */
+  public synchronized Map<Statement, Collection<Statement>> computeSlices(Collection<Statement> ss, boolean backward,
+      DataDependenceOptions dOptions, ControlDependenceOptions cOptions) throws CancelException {
+    SDG<InstanceKey> sdg = getSDG(dOptions, cOptions);
+    int pdgs = sdg.getNumberOfPDGs();
+    Map<Statement, Collection<Statement>> result = makeSlicer().sliceEach(sdg, ss, backward);
+    queries += result.size();
+    if (sdg.getNumberOfPDGs() == pdgs) {
+      queriesWithoutNewPDGs += result.size();
+    }
+    return result;
+  }
+
+  /**
+   * Subclasses can override this to slice with a differently configured {@link Slicer}.
+   */
+  protected Slicer makeSlicer() {
+    return new Slicer();
+  }
+
+  /**
+   * Build the PDGs of the given nodes, including their heap data dependences, in the SDG for the given options.
+   */
+  public synchronized void precomputePDGs(DataDependenceOptions dOptions, ControlDependenceOptions cOptions,
+      Collection<? extends CGNode> nodes) {
+    SDG<InstanceKey> sdg = getSDG(dOptions, cOptions);
+    for (CGNode n : nodes) {
+      populate(sdg.getPDG(n));
+    }
+  }
+
+  /**
+   * compute all edges of pdg, which computes the heap data dependences
+   */
+  private static void populate(PDG<InstanceKey> pdg) {
+    for (Iterator<Statement> it = pdg.iterator(); it.hasNext();) {
+      Statement s = it.next();
+      for (Iterator<Statement> succ = pdg.getSuccNodes(s); succ.hasNext();) {
+        succ.next();
+      }
+      for (Iterator<Statement> pred = pdg.getPredNodes(s); pred.hasNext();) {
+        pred.next();
+      }
+    }
+  }
+
+  public synchronized Statistics getStatistics() {
+    int pdgs = 0;
+    for (SDG<InstanceKey> sdg : sdgs.values()) {
+      pdgs += sdg.getNumberOfPDGs();
+    }
+    return new Statistics(queries, queriesWithoutNewPDGs, modRefComputations, sdgs.size(), pdgs);
+  }
+
+  /**
+   * Drop all cached SDGs, PDGs and mod and ref sets.
+   */
+  public synchronized void clear() {
+    sdgs.clear();
+    mod = null;
+    ref = null;
+  }
+
+  public CallGraph getCallGraph() {
+    return cg;
+  }
+
+  public PointerAnalysis<InstanceKey> getPointerAnalysis() {
+    return pa;
+  }
+}
@@ -10,121 +10,385 @@
  *******************************************************************************/
 package com.ibm.wala.ssa;
 
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.ipa.callgraph.Context;
-import com.ibm.wala.util.collections.HashMapFactory;
-import com.ibm.wala.util.collections.HashSetFactory;
-import com.ibm.wala.util.collections.MapUtil;
-import com.ibm.wala.util.collections.Pair;
 import com.ibm.wala.util.ref.CacheReference;
 
 /**
  * A cache for auxiliary information based on an SSA representation
- * 
- * A mapping from (IMethod,Context) -> SSAOptions -> SoftReference -> something
- * 
- * This doesn't work very well ... GCs don't do such a great job with SoftReferences ... revamp it.
+ *
+ * A mapping from (IMethod,Context,SSAOptions) -> something
+ *
+ * Lookups do not lock, and when several threads ask for the same missing key, only one of them builds the value while the others
+ * wait for it. By default the cache is unbounded, and values are held through {@link CacheReference}s, so that they are only
+ * dropped under memory pressure. If a bound on the total weight (the number of instructions in the underlying IRs) is set, values
+ * are held strongly, and when the bound is exceeded the least recently used values are evicted until the cache is back to three
+ * quarters of the bound.
  */
 class AuxiliaryCache {
 
+  private final static class Key {
+    private final IMethod method;
+
+    private final Context context;
+
+    private final SSAOptions options;
+
+    private final int hashCode;
+
+    Key(IMethod method, Context context, SSAOptions options) {
+      this.method = method;
+      this.context = context;
+      this.options = options;
+      this.hashCode = 31 * (31 * method.hashCode() + (context == null ? 0 : context.hashCode()))
+          + (options == null ? 0 : options.hashCode());
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return method.equals(other.method) && (context == null ? other.context == null : context.equals(other.context))
+          && (options == null ? other.options == null : options.equals(other.options));
+    }
+  }
+
+  private final static class Entry {
+    /**
+     * computes the value; null once the value is in {@link #ref}
+     */
+    volatile FutureTask<Object> value;
+
+    /**
+     * the value, or a {@link CacheReference} to it if {@link #soft}; set before {@link #value} is cleared
+     */
+    volatile Object ref;
+
+    /**
+     * is the value held by a {@link CacheReference}? Set with {@link #ref}.
+     */
+    volatile boolean soft;
+
+    /**
+     * the thread building the value
+     */
+    final Thread builder;
+
+    /**
+     * value of {@link AuxiliaryCache#clock} when the entry was last used
+     */
+    volatile long lastUse;
+
+    /**
+     * weight of the value; only valid if counted is set. Guarded by the cache.
+     */
+    int weight;
+
+    /**
+     * has the weight been added to {@link AuxiliaryCache#totalWeight}? Guarded by the cache.
+     */
+    boolean counted;
+
+    Entry(FutureTask<Object> value, long lastUse) {
+      this.value = value;
+      this.builder = Thread.currentThread();
+      this.lastUse = lastUse;
+    }
+  }
+
   /**
-   * A mapping from IMethod -> SSAOptions -> SoftReference -> IR
+   * the maximum weight of a cache with no bound
    */
-  private HashMap<Pair<IMethod, Context>, Map<SSAOptions, Object>> dictionary = HashMapFactory.make();
+  static final long UNBOUNDED = Long.MAX_VALUE;
+
+  private final ConcurrentHashMap<Key, Entry> dictionary = new ConcurrentHashMap<Key, Entry>();
 
   /**
-   * Help out the garbage collector: clear this cache when the number of items is > RESET_THRESHOLD
+   * maximum total weight of the cached values
    */
-  final private static int RESET_THRESHOLD = 2000;
+  private volatile long maxWeight;
 
   /**
-   * number of items cached here.
+   * total weight of the cached values. Guarded by this.
    */
-  private int nItems = 0;
+  private long totalWeight = 0;
+
+  private final AtomicLong clock = new AtomicLong();
+
+  private final AtomicLong hits = new AtomicLong();
+
+  private final AtomicLong misses = new AtomicLong();
+
+  private final AtomicLong evictions = new AtomicLong();
+
+  AuxiliaryCache() {
+    this(UNBOUNDED);
+  }
+
+  AuxiliaryCache(long maxWeight) {
+    setMaxWeight(maxWeight);
+  }
+
+  void setMaxWeight(long maxWeight) {
+    if (maxWeight < 0) {
+      throw new IllegalArgumentException("invalid maximum weight: " + maxWeight);
+    }
+    this.maxWeight = maxWeight;
+    evictIfNeeded();
+  }
+
+  long getMaxWeight() {
+    return maxWeight;
+  }
 
   /**
    * The existence of this is unfortunate.
    */
   public synchronized void wipe() {
-    dictionary = HashMapFactory.make();
-    nItems = 0;
+    dictionary.clear();
+    totalWeight = 0;
   }
 
   /**
-   * clear out things from which no IR is reachable
+   * @param m a method
+   * @param options options governing ssa construction
+   * @return the object cached for m, or null if none found
    */
-  private void reset() {
-    Map<Pair<IMethod, Context>, Map<SSAOptions, Object>> oldDictionary = dictionary;
-    dictionary = HashMapFactory.make();
-    nItems = 0;
-
-    for (Iterator<Map.Entry<Pair<IMethod, Context>, Map<SSAOptions, Object>>> it = oldDictionary.entrySet().iterator(); it
-        .hasNext();) {
-      Map.Entry<Pair<IMethod, Context>, Map<SSAOptions, Object>> e = it.next();
-      Map<SSAOptions, Object> m = e.getValue();
-      HashSet<Object> toRemove = HashSetFactory.make();
-      for (Iterator it2 = m.entrySet().iterator(); it2.hasNext();) {
-        Map.Entry e2 = (Map.Entry) it2.next();
-        Object key = e2.getKey();
-        Object val = e2.getValue();
-        if (CacheReference.get(val) == null) {
-          toRemove.add(key);
-        }
-      }
-      for (Iterator<Object> it2 = toRemove.iterator(); it2.hasNext();) {
-        m.remove(it2.next());
-      }
-      if (m.size() > 0) {
-        dictionary.put(e.getKey(), m);
+  public Object find(IMethod m, Context c, SSAOptions options) {
+    Key key = new Key(m, c, options);
+    Entry e = dictionary.get(key);
+    FutureTask<Object> f = e == null ? null : e.value;
+    Object result = e == null || (f != null && !f.isDone()) ? null : getValue(null, e);
+    if (result == null) {
+      if (e != null && e.soft) {
+        // the value was dropped under memory pressure
+        remove(key, e);
       }
+      misses.incrementAndGet();
+      return null;
     }
+    hits.incrementAndGet();
+    e.lastUse = clock.incrementAndGet();
+    return result;
   }
 
   /**
+   * cache new auxiliary information for an <m,options> pair, replacing any information cached before
+   *
    * @param m a method
    * @param options options governing ssa construction
-   * @return the object cached for m, or null if none found
    */
-  public synchronized Object find(IMethod m, Context c, SSAOptions options) {
-    // methodMap: SSAOptions -> SoftReference
-    Pair<IMethod, Context> p = Pair.make(m, c);
-    Map methodMap = MapUtil.findOrCreateMap(dictionary, p);
-    Object ref = methodMap.get(options);
-    if (ref == null || CacheReference.get(ref) == null) {
-      return null;
-    } else {
-      return CacheReference.get(ref);
+  public void cache(IMethod m, Context c, SSAOptions options, final Object aux) {
+    FutureTask<Object> f = new FutureTask<Object>(new Callable<Object>() {
+      @Override
+      public Object call() {
+        return aux;
+      }
+    });
+    f.run();
+    Key key = new Key(m, c, options);
+    Entry e = new Entry(f, clock.incrementAndGet());
+    Entry old = dictionary.put(key, e);
+    synchronized (this) {
+      if (old != null && old.counted) {
+        totalWeight -= old.weight;
+      }
     }
+    count(key, e, aux);
   }
 
   /**
-   * cache new auxiliary information for an <m,options> pair
-   * 
    * @param m a method
    * @param options options governing ssa construction
+   * @param builder computes the information if it is not cached; if several threads ask for the same missing information at the
+   *          same time, only one of them runs its builder
+   * @return the information cached for m, computed by builder if necessary
    */
-  public synchronized void cache(IMethod m, Context c, SSAOptions options, Object aux) {
-    nItems++;
+  public Object findOrCreate(IMethod m, Context c, SSAOptions options, Callable<Object> builder) {
+    Key key = new Key(m, c, options);
+    while (true) {
+      Entry e = dictionary.get(key);
+      if (e == null) {
+        Entry fresh = new Entry(new FutureTask<Object>(builder), clock.incrementAndGet());
+        e = dictionary.putIfAbsent(key, fresh);
+        if (e == null) {
+          misses.incrementAndGet();
+          FutureTask<Object> f = fresh.value;
+          f.run();
+          Object result = getValue(key, fresh);
+          count(key, fresh, result);
+          return result;
+        }
+      }
+      FutureTask<Object> f = e.value;
+      if (f != null && !f.isDone() && e.builder == Thread.currentThread()) {
+        throw new IllegalStateException("recursive request for " + m + " in " + c);
+      }
+      Object result = getValue(key, e);
+      if (result == null && e.soft) {
+        // the value was dropped under memory pressure; build it again
+        remove(key, e);
+        continue;
+      }
+      hits.incrementAndGet();
+      e.lastUse = clock.incrementAndGet();
+      return result;
+    }
+  }
 
-    if (nItems > RESET_THRESHOLD) {
-      reset();
+  /**
+   * @return the value of e, waiting for it to be computed if necessary; null if it was dropped under memory pressure
+   */
+  private Object getValue(Key key, Entry e) {
+    FutureTask<Object> f = e.value;
+    if (f == null) {
+      Object r = e.ref;
+      return e.soft ? CacheReference.get(r) : r;
+    }
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return f.get();
+        } catch (InterruptedException ex) {
+          interrupted = true;
+        }
+      }
+    } catch (ExecutionException ex) {
+      if (key != null) {
+        // don't cache failures
+        remove(key, e);
+      }
+      Throwable cause = ex.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      } else {
+        throw new RuntimeException(cause);
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
     }
-    Pair<IMethod, Context> p = Pair.make(m, c);
-    // methodMap: SSAOptions -> SoftReference
-    Map<SSAOptions, Object> methodMap = MapUtil.findOrCreateMap(dictionary, p);
-    Object ref = CacheReference.make(aux);
-    methodMap.put(options, ref);
+  }
+
+  /**
+   * account for the weight of a freshly computed value, and hold it strongly if the cache is bounded and by a
+   * {@link CacheReference} if not
+   */
+  private void count(Key key, Entry e, Object value) {
+    synchronized (this) {
+      if (dictionary.get(key) == e && !e.counted) {
+        e.weight = weight(value);
+        e.counted = true;
+        totalWeight += e.weight;
+      }
+      if (e.value != null) {
+        e.soft = maxWeight == UNBOUNDED && value != null;
+        e.ref = e.soft ? CacheReference.make(value) : value;
+        e.value = null;
+      }
+    }
+    evictIfNeeded();
+  }
+
+  private synchronized void remove(Key key, Entry e) {
+    if (dictionary.remove(key, e) && e.counted) {
+      totalWeight -= e.weight;
+    }
+  }
+
+  private synchronized void evictIfNeeded() {
+    if (totalWeight <= maxWeight) {
+      return;
+    }
+    List<Map.Entry<Key, Entry>> done = new ArrayList<Map.Entry<Key, Entry>>(dictionary.size());
+    for (Map.Entry<Key, Entry> e : dictionary.entrySet()) {
+      if (e.getValue().counted) {
+        done.add(e);
+      }
+    }
+    Collections.sort(done, new Comparator<Map.Entry<Key, Entry>>() {
+      @Override
+      public int compare(Map.Entry<Key, Entry> o1, Map.Entry<Key, Entry> o2) {
+        long u1 = o1.getValue().lastUse;
+        long u2 = o2.getValue().lastUse;
+        return u1 < u2 ? -1 : (u1 == u2 ? 0 : 1);
+      }
+    });
+    long target = maxWeight - maxWeight / 4;
+    for (Iterator<Map.Entry<Key, Entry>> it = done.iterator(); it.hasNext() && totalWeight > target;) {
+      Map.Entry<Key, Entry> e = it.next();
+      if (dictionary.remove(e.getKey(), e.getValue())) {
+        totalWeight -= e.getValue().weight;
+        evictions.incrementAndGet();
+      }
+    }
+  }
+
+  /**
+   * @return the weight of a cached value: the number of instructions of the IR it is based on
+   */
+  private static int weight(Object value) {
+    IR ir = null;
+    if (value instanceof IR) {
+      ir = (IR) value;
+    } else if (value instanceof DefUse) {
+      ir = ((DefUse) value).getIR();
+    }
+    return ir == null ? 1 : 1 + ir.getInstructions().length;
   }
 
   /**
    * invalidate all cached information about a method
    */
   public void invalidate(IMethod method, Context c) {
-    dictionary.remove(Pair.make(method, c));
+    for (Map.Entry<Key, Entry> e : dictionary.entrySet()) {
+      Key k = e.getKey();
+      if (k.method.equals(method) && (c == null ? k.context == null : c.equals(k.context))) {
+        remove(k, e.getValue());
+      }
+    }
+  }
+
+  long getHits() {
+    return hits.get();
+  }
+
+  long getMisses() {
+    return misses.get();
+  }
+
+  long getEvictions() {
+    return evictions.get();
+  }
+
+  int size() {
+    return dictionary.size();
+  }
+
+  synchronized long getTotalWeight() {
+    return totalWeight;
   }
 }
@@ -186,4 +186,11 @@ public class DefUse {
   public int getNumberOfUses(int v) {
     return uses[v] == null ? 0 : uses[v].size();
   }
+
+  /**
+   * @return the IR this information was computed for
+   */
+  IR getIR() {
+    return ir;
+  }
 }
@@ -26,6 +26,7 @@ import com.ibm.wala.types.TypeReference;
 import com.ibm.wala.util.collections.CompoundIterator;
 import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.HashSetFactory;
+import com.ibm.wala.util.collections.ObjectIntHashMap;
 import com.ibm.wala.util.debug.Assertions;
 import com.ibm.wala.util.intset.BasicNaturalRelation;
 import com.ibm.wala.util.intset.IntIterator;
@@ -77,12 +78,12 @@ public abstract class IR {
   /**
    * Mapping from NewSiteReference program counters to instruction[] indices
    */
-  private final Map<NewSiteReference, Integer> newSiteMapping = HashMapFactory.make();
+  private final ObjectIntHashMap<NewSiteReference> newSiteMapping = new ObjectIntHashMap<NewSiteReference>();
 
   /**
    * Mapping from PEI program counters to instruction[] indices
    */
-  final private Map<ProgramCounter, Integer> peiMapping = HashMapFactory.make();
+  final private ObjectIntHashMap<ProgramCounter> peiMapping = new ObjectIntHashMap<ProgramCounter>();
 
   /**
    * Mapping from SSAInstruction to Basic Block, computed lazily
@@ -124,10 +125,10 @@ public abstract class IR {
           callSiteMapping.add(((SSAAbstractInvokeInstruction) x).getCallSite().getProgramCounter(), i);
         }
         if (x instanceof SSANewInstruction) {
-          newSiteMapping.put(((SSANewInstruction) x).getNewSite(), new Integer(i));
+          newSiteMapping.put(((SSANewInstruction) x).getNewSite(), i);
         }
         if (x.isPEI()) {
-           peiMapping.put(new ProgramCounter(cfg.getProgramCounter(i)), new Integer(i));
+           peiMapping.put(new ProgramCounter(cfg.getProgramCounter(i)), i);
         }
       }
     }
@@ -552,34 +553,42 @@ public abstract class IR {
 
   /**
    * Return the new instruction corresponding to an allocation site
+   * 
+   * @throws IllegalArgumentException if site is not an allocation site of this IR
    */
   public SSANewInstruction getNew(NewSiteReference site) {
-    Integer i = newSiteMapping.get(site);
-    return (SSANewInstruction) instructions[i.intValue()];
+    int i = newSiteMapping.get(site);
+    if (i == -1) {
+      throw new IllegalArgumentException("no allocation site " + site + " in " + method);
+    }
+    return (SSANewInstruction) instructions[i];
   }
 
   /**
-   * Return the instruction index corresponding to an allocation site
+   * Return the instruction index corresponding to an allocation site, or -1 if there is none
    */
   public int getNewInstructionIndex(NewSiteReference site) {
-    Integer i = newSiteMapping.get(site);
-    return i.intValue();
+    return newSiteMapping.get(site);
   }
 
   /**
    * @param pc a program counter
    * @return the instruction (a PEI) at this program counter
+   * @throws IllegalArgumentException if there is no PEI at pc
    */
   public SSAInstruction getPEI(ProgramCounter pc) {
-    Integer i = peiMapping.get(pc);
-    return instructions[i.intValue()];
+    int i = peiMapping.get(pc);
+    if (i == -1) {
+      throw new IllegalArgumentException("no PEI at " + pc + " in " + method);
+    }
+    return instructions[i];
   }
 
   /**
    * @return an {@link Iterator} of all the allocation sites ( {@link NewSiteReference}s ) in this IR
    */
   public Iterator<NewSiteReference> iterateNewSites() {
-    return newSiteMapping.keySet().iterator();
+    return newSiteMapping.keyIterator();
   }
 
   /**
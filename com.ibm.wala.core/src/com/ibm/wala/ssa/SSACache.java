@@ -10,22 +10,92 @@
  *******************************************************************************/
 package com.ibm.wala.ssa;
 
+import java.util.concurrent.Callable;
+
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.ipa.callgraph.Context;
 import com.ibm.wala.ipa.callgraph.impl.Everywhere;
+import com.ibm.wala.util.perf.MetricsListener;
 
 /**
- * A mapping from IMethod -> SSAOptions -> SoftReference -> Something
- * 
- * This doesn't work very well ... GCs don't do such a great job with SoftReferences ... revamp it.
+ * A mapping from (IMethod,Context,SSAOptions) -> IR, and likewise for {@link DefUse}.
+ *
+ * The caches may be used from several threads at once; each IR or {@link DefUse} is built only once, even if several threads ask
+ * for it at the same time. By default the caches are unbounded, and drop entries only under memory pressure. A client may bound
+ * each cache by the total number of instructions of the IRs involved (see {@link #setMaxWeight(long)}); the least recently used
+ * entries are then evicted when the bound is exceeded, so the same method and context may get a new IR later in an analysis.
  */
 public class SSACache {
 
+  /**
+   * the maximum weight of a cache with no bound, which is the default
+   */
+  public static final long UNBOUNDED = AuxiliaryCache.UNBOUNDED;
+
+  /**
+   * name of the phase in which an IR is built, as reported to a {@link MetricsListener}
+   */
+  public static final String IR_CONSTRUCTION_PHASE = "IR construction";
+
   /**
    * used for debugging
    */
   private static final boolean DISABLE = false;
 
+  /**
+   * Hit, miss and eviction counts of a cache
+   */
+  public static final class Statistics {
+    private final long hits;
+
+    private final long misses;
+
+    private final long evictions;
+
+    private final int size;
+
+    private final long weight;
+
+    private Statistics(AuxiliaryCache cache) {
+      this.hits = cache.getHits();
+      this.misses = cache.getMisses();
+      this.evictions = cache.getEvictions();
+      this.size = cache.size();
+      this.weight = cache.getTotalWeight();
+    }
+
+    public long getHits() {
+      return hits;
+    }
+
+    public long getMisses() {
+      return misses;
+    }
+
+    public long getEvictions() {
+      return evictions;
+    }
+
+    /**
+     * @return the number of entries in the cache
+     */
+    public int getSize() {
+      return size;
+    }
+
+    /**
+     * @return the total number of IR instructions in the cache
+     */
+    public long getWeight() {
+      return weight;
+    }
+
+    @Override
+    public String toString() {
+      return "hits: " + hits + " misses: " + misses + " evictions: " + evictions + " size: " + size + " weight: " + weight;
+    }
+  }
+
   /**
    * The factory that actually creates new IR objects
    */
@@ -41,6 +111,11 @@ public class SSACache {
    */
   final private AuxiliaryCache duCache = new AuxiliaryCache();
 
+  /**
+   * receives the time spent building each IR; null if none
+   */
+  private volatile MetricsListener metrics;
+
   /**
    * @param factory a factory for creating IRs
    */
@@ -48,13 +123,45 @@ public class SSACache {
     this.factory = factory;
   }
 
+  /**
+   * Bound each cache by a total number of IR instructions; {@link #UNBOUNDED} for no bound. Entries cached while the caches are
+   * unbounded stay softly reachable.
+   */
+  public void setMaxWeight(long maxWeight) {
+    irCache.setMaxWeight(maxWeight);
+    duCache.setMaxWeight(maxWeight);
+  }
+
+  public long getMaxWeight() {
+    return irCache.getMaxWeight();
+  }
+
+  /**
+   * @param metrics receives the time spent building each IR, as the phase {@link #IR_CONSTRUCTION_PHASE}; null for none
+   */
+  public void setMetricsListener(MetricsListener metrics) {
+    this.metrics = metrics;
+  }
+
+  public MetricsListener getMetricsListener() {
+    return metrics;
+  }
+
+  public Statistics getIRStatistics() {
+    return new Statistics(irCache);
+  }
+
+  public Statistics getDUStatistics() {
+    return new Statistics(duCache);
+  }
+
   /**
    * @param m a "normal" (bytecode-based) method
    * @param options options governing ssa construction
    * @return an IR for m, built according to the specified options. null if m is abstract or native.
    * @throws IllegalArgumentException if m is null
    */
-  public synchronized IR findOrCreateIR(final IMethod m, Context c, final SSAOptions options) {
+  public IR findOrCreateIR(final IMethod m, Context c, final SSAOptions options) {
 
     if (m == null) {
       throw new IllegalArgumentException("m is null");
@@ -71,12 +178,23 @@ public class SSACache {
       return factory.makeIR(m, c, options);
     }
 
-    IR ir = (IR) irCache.find(m, c, options);
-    if (ir == null) {
-      ir = factory.makeIR(m, c, options);
-      irCache.cache(m, c, options, ir);
-    }
-    return ir;
+    final Context context = c;
+    return (IR) irCache.findOrCreate(m, c, options, new Callable<Object>() {
+      @Override
+      public Object call() {
+        MetricsListener l = metrics;
+        if (l == null) {
+          return factory.makeIR(m, context, options);
+        }
+        l.phaseStarted(IR_CONSTRUCTION_PHASE);
+        long start = System.nanoTime();
+        try {
+          return factory.makeIR(m, context, options);
+        } finally {
+          l.phaseFinished(IR_CONSTRUCTION_PHASE, System.nanoTime() - start);
+        }
+      }
+    });
   }
 
   /**
@@ -85,7 +203,7 @@ public class SSACache {
    * @return DefUse information for m, built according to the specified options. null if unavailable
    * @throws IllegalArgumentException if m is null
    */
-  public synchronized DefUse findOrCreateDU(IMethod m, Context c, SSAOptions options) {
+  public DefUse findOrCreateDU(IMethod m, Context c, SSAOptions options) {
     if (m == null) {
       throw new IllegalArgumentException("m is null");
     }
@@ -96,25 +214,25 @@ public class SSACache {
       c = Everywhere.EVERYWHERE;
     }
 
-    DefUse du = (DefUse) duCache.find(m, c, options);
-    if (du == null) {
-      IR ir = findOrCreateIR(m, c, options);
-      du = new DefUse(ir);
-      duCache.cache(m, c, options, du);
-    }
-    return du;
+    return findOrCreateDU(findOrCreateIR(m, c, options), c);
   }
 
   /**
    * @return {@link DefUse} information for m, built according to the specified options. null if unavailable
    * @throws IllegalArgumentException if ir is null
    */
-  public synchronized DefUse findOrCreateDU(IR ir, Context C) {
+  public DefUse findOrCreateDU(final IR ir, Context C) {
     if (ir == null) {
       throw new IllegalArgumentException("ir is null");
     }
-    DefUse du = (DefUse) duCache.find(ir.getMethod(), C, ir.getOptions());
-    if (du == null) {
+    DefUse du = (DefUse) duCache.findOrCreate(ir.getMethod(), C, ir.getOptions(), new Callable<Object>() {
+      @Override
+      public Object call() {
+        return new DefUse(ir);
+      }
+    });
+    if (du.getIR() != ir) {
+      // the IR was rebuilt since the cached information was computed
       du = new DefUse(ir);
       duCache.cache(ir.getMethod(), C, ir.getOptions(), du);
     }
@@ -18,6 +18,7 @@ import java.io.Serializable;
 import java.util.Map;
 
 import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.InternTable;
 
 /**
  * A class to represent the reference in a class file to some type (class, primitive or array). A type reference is
@@ -48,7 +49,7 @@ public final class TypeReference implements Serializable {
   /**
    * Used to canonicalize TypeReferences.
    */
-  private final static Map<Key, TypeReference> dictionary = HashMapFactory.make();
+  private final static InternTable<Key, TypeReference> dictionary = new InternTable<Key, TypeReference>();
 
   /*********************************************************************************************************************
    * Primitive Dispatch *
@@ -378,7 +379,7 @@ public final class TypeReference implements Serializable {
    * 
    * @param cl the classloader (defining/initiating depending on usage)
    */
-  public static synchronized TypeReference findOrCreate(ClassLoaderReference cl, TypeName typeName) {
+  public static TypeReference findOrCreate(ClassLoaderReference cl, TypeName typeName) {
 
     if (cl == null) {
       throw new IllegalArgumentException("null cl");
@@ -398,13 +399,11 @@ public final class TypeReference implements Serializable {
     }
 
     Key key = new Key(cl, typeName);
-    TypeReference val = dictionary.get(key);
+    TypeReference val = dictionary.find(key);
     if (val != null) {
       return val;
     } else {
-      val = new TypeReference(cl, typeName);
-      dictionary.put(key, val);
-      return val;
+      return dictionary.intern(key, new TypeReference(cl, typeName));
     }
   }
 
@@ -414,11 +413,11 @@ public final class TypeReference implements Serializable {
    * @param cl the classloader (defining/initiating depending on usage)
    * @param typeName something like "Ljava/util/Arrays"
    */
-  public static synchronized TypeReference findOrCreate(ClassLoaderReference cl, String typeName) {
+  public static TypeReference findOrCreate(ClassLoaderReference cl, String typeName) {
     return findOrCreate(cl, TypeName.string2TypeName(typeName));
   }
 
-  public static synchronized TypeReference find(ClassLoaderReference cl, String typeName) {
+  public static TypeReference find(ClassLoaderReference cl, String typeName) {
     return find(cl, TypeName.string2TypeName(typeName));
   }
 
@@ -427,7 +426,7 @@ public final class TypeReference implements Serializable {
    * 
    * @param cl the classloader (defining/initiating depending on usage)
    */
-  public static synchronized TypeReference find(ClassLoaderReference cl, TypeName typeName) {
+  public static TypeReference find(ClassLoaderReference cl, TypeName typeName) {
     if (cl == null) {
       throw new IllegalArgumentException("null cl");
     }
@@ -446,7 +445,7 @@ public final class TypeReference implements Serializable {
     }
 
     Key key = new Key(cl, typeName);
-    TypeReference val = dictionary.get(key);
+    TypeReference val = dictionary.find(key);
 
     return val;
   }
@@ -9,7 +9,6 @@ import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import com.ibm.wala.shrikeBT.Compiler.Output;
 import com.ibm.wala.shrikeBT.GotoInstruction;
@@ -25,7 +24,7 @@ import com.ibm.wala.shrikeCT.StackMapConstants.ObjectType;
 import com.ibm.wala.shrikeCT.StackMapConstants.StackMapFrame;
 import com.ibm.wala.shrikeCT.StackMapConstants.StackMapType;
 import com.ibm.wala.shrikeCT.StackMapConstants.UninitializedType;
-import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.IntIntHashMap;
 
 public class StackMapTableWriter extends Element {
   private final byte[] data;
@@ -61,7 +60,7 @@ public class StackMapTableWriter extends Element {
 
   private static List<StackMapFrame> remapStackFrames(List<StackMapFrame> sm, int[] newBytecodesToOldBytecodes) {
     // mapping to new bytecode
-    Map<Integer,Integer> oldToNew = HashMapFactory.make();
+    IntIntHashMap oldToNew = new IntIntHashMap(newBytecodesToOldBytecodes.length, -1);
     for(int i = newBytecodesToOldBytecodes.length - 1; i >= 0; i--) {
       oldToNew.put(newBytecodesToOldBytecodes[i], i);
     }
@@ -25,6 +25,7 @@ import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.MonitorUtil;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.debug.VerboseAction;
+import com.ibm.wala.util.perf.MetricsListener;
 
 /**
  * Represents a set of {@link IFixedPointStatement}s to be solved by a {@link IFixedPointSolver}
@@ -50,6 +51,11 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<?>> implement
 
   static public final int DEFAULT_PERIODIC_MAINTENANCE_INTERVAL = 100000;
 
+  /**
+   * number of evaluations between two samples of the worklist size reported to the {@link MetricsListener}
+   */
+  static public final int METRICS_SAMPLE_INTERVAL = 1000;
+
   /**
    * A tuning parameter; how may new IStatementDefinitionss must be added before doing a new topological sort? TODO: Tune this
    * empirically.
@@ -91,6 +97,21 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<?>> implement
    */
   private int nCreated = 0;
 
+  /**
+   * number of evaluations in {@link #solve(IProgressMonitor)} since the last call to {@link #periodicMaintenance()}
+   */
+  private int evaluationsSinceMaintenance = 0;
+
+  /**
+   * receives the operator of each evaluated statement and samples of the worklist size; null if none
+   */
+  private MetricsListener metrics;
+
+  /**
+   * number of evaluations reported to {@link #metrics}
+   */
+  private long metricsEvaluations = 0;
+
   /**
    * worklist for the iterative solver
    */
@@ -113,6 +134,13 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<?>> implement
     firstSolve = false;
   }
 
+  /**
+   * @return true iff {@link #initForFirstSolve()} has not been performed yet
+   */
+  protected boolean isFirstSolve() {
+    return firstSolve;
+  }
+
   /**
    * @return true iff work list is empty
    */
@@ -148,15 +176,14 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<?>> implement
         System.err.println(("Before evaluation " + s));
       }
       byte code = s.evaluate();
+      if (isRecordingEvaluations()) {
+        recordEvaluation(s, code);
+      }
       if (verbose) {
         nEvaluated++;
         if (nEvaluated % getVerboseInterval() == 0) {
           performVerboseAction();
         }
-        if (nEvaluated % getPeriodicMaintainInterval() == 0) {
-          periodicMaintenance();
-        }
-
       }
       if (DEBUG) {
         System.err.println(("After evaluation  " + s + " " + isChanged(code)));
@@ -168,10 +195,66 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<?>> implement
       if (isFixed(code)) {
         removeStatement(s);
       }
+      countEvaluationForMaintenance();
     }
     return globalChange;
   }
 
+  /**
+   * Record that the solver loop evaluated one more statement, and call {@link #periodicMaintenance()} if it is due. Subclasses
+   * with their own solver loop should call this between evaluations, when the system is in a consistent state.
+   */
+  protected void countEvaluationForMaintenance() {
+    countEvaluationsForMaintenance(1);
+  }
+
+  /**
+   * Record that the solver loop evaluated n more statements, and call {@link #periodicMaintenance()} if it is due.
+   * 
+   * @see #countEvaluationForMaintenance()
+   */
+  protected void countEvaluationsForMaintenance(int n) {
+    evaluationsSinceMaintenance += n;
+    if (evaluationsSinceMaintenance >= getPeriodicMaintainInterval()) {
+      evaluationsSinceMaintenance = 0;
+      periodicMaintenance();
+    }
+  }
+
+  /**
+   * @return true if {@link #recordEvaluation(AbstractStatement, byte)} should be called after each evaluation
+   */
+  protected boolean isRecordingEvaluations() {
+    return metrics != null;
+  }
+
+  /**
+   * Report an evaluation of s to the {@link MetricsListener}, with a sample of the worklist size every
+   * {@link #METRICS_SAMPLE_INTERVAL} evaluations. Subclasses with their own solver loop should call this after each evaluation
+   * when {@link #isRecordingEvaluations()}.
+   * 
+   * @param code the result of the evaluation
+   */
+  protected void recordEvaluation(AbstractStatement s, byte code) {
+    if (metrics != null) {
+      metrics.statementEvaluated(s.getOperator());
+      if (++metricsEvaluations % METRICS_SAMPLE_INTERVAL == 0) {
+        metrics.worklistSize(metricsEvaluations, workList.size());
+      }
+    }
+  }
+
+  /**
+   * @param metrics receives the operator of each statement evaluated and samples of the worklist size; null for none
+   */
+  public void setMetricsListener(MetricsListener metrics) {
+    this.metrics = metrics;
+  }
+
+  public MetricsListener getMetricsListener() {
+    return metrics;
+  }
+
   @Override
   public void performVerboseAction() {
     System.err.println("Evaluated " + nEvaluated);
@@ -288,14 +371,14 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<?>> implement
   private void incorporateNewStatement(boolean toWorkList, boolean eager, AbstractStatement s) {
     if (eager) {
       byte code = s.evaluate();
+      if (isRecordingEvaluations()) {
+        recordEvaluation(s, code);
+      }
       if (verbose) {
         nEvaluated++;
         if (nEvaluated % getVerboseInterval() == 0) {
           performVerboseAction();
         }
-        if (nEvaluated % getPeriodicMaintainInterval() == 0) {
-          periodicMaintenance();
-        }
       }
       if (isChanged(code)) {
         updateWorkList(s);
@@ -576,7 +659,8 @@ public abstract class AbstractFixedPointSolver<T extends IVariable<?>> implement
   }
 
   /**
-   * a method that will be called every N evaluations. subclasses should override as desired.
+   * a method that will be called every N evaluations of the solver loop, between evaluations. subclasses should override as
+   * desired.
    */
   protected void periodicMaintenance() {
   }
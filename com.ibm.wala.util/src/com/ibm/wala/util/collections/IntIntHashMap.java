@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.collections;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import com.ibm.wala.util.intset.IntIterator;
+
+/**
+ * A map from ints to ints, implemented with open addressing and linear probing on parallel arrays of keys and values, with no
+ * boxing. A lookup of a missing key returns the missing value given at construction.
+ */
+public class IntIntHashMap implements Serializable {
+
+  private static final long serialVersionUID = 6187342350719263520L;
+
+  /**
+   * marks a free slot; the value of the key 0 is kept apart
+   */
+  private static final int FREE = 0;
+
+  private int[] keys;
+
+  private int[] values;
+
+  /**
+   * number of keys in the table, not counting 0
+   */
+  private int size = 0;
+
+  private boolean hasZeroKey = false;
+
+  private int zeroValue;
+
+  private final int missingValue;
+
+  /**
+   * a map whose missing value is -1
+   */
+  public IntIntHashMap() {
+    this(16, -1);
+  }
+
+  /**
+   * @param expectedSize number of keys the map should hold without growing
+   * @param missingValue the value returned for keys not in the map
+   */
+  public IntIntHashMap(int expectedSize, int missingValue) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("illegal expectedSize: " + expectedSize);
+    }
+    int capacity = OpenAddressing.capacityFor(expectedSize);
+    keys = new int[capacity];
+    values = new int[capacity];
+    this.missingValue = missingValue;
+    this.zeroValue = missingValue;
+  }
+
+  /**
+   * @return the slot holding key, or the free slot where it would go
+   */
+  private int slot(int key) {
+    int[] k = keys;
+    int mask = k.length - 1;
+    int i = OpenAddressing.mix(key) & mask;
+    int o;
+    while ((o = k[i]) != FREE && o != key) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  public int size() {
+    return hasZeroKey ? size + 1 : size;
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public int getMissingValue() {
+    return missingValue;
+  }
+
+  /**
+   * @return the value of key, or the missing value if key is not in the map
+   */
+  public int get(int key) {
+    if (key == FREE) {
+      return zeroValue;
+    }
+    int i = slot(key);
+    return keys[i] == FREE ? missingValue : values[i];
+  }
+
+  public boolean containsKey(int key) {
+    return key == FREE ? hasZeroKey : keys[slot(key)] != FREE;
+  }
+
+  /**
+   * @return the previous value of key, or the missing value if key was not in the map
+   */
+  public int put(int key, int value) {
+    if (key == FREE) {
+      int old = zeroValue;
+      hasZeroKey = true;
+      zeroValue = value;
+      return old;
+    }
+    int i = slot(key);
+    if (keys[i] != FREE) {
+      int old = values[i];
+      values[i] = value;
+      return old;
+    }
+    keys[i] = key;
+    values[i] = value;
+    if (OpenAddressing.isFull(++size, keys.length)) {
+      grow();
+    }
+    return missingValue;
+  }
+
+  /**
+   * @return the value key had, or the missing value if key was not in the map
+   */
+  public int remove(int key) {
+    if (key == FREE) {
+      int old = zeroValue;
+      hasZeroKey = false;
+      zeroValue = missingValue;
+      return old;
+    }
+    int i = slot(key);
+    if (keys[i] == FREE) {
+      return missingValue;
+    }
+    int old = values[i];
+    // shift back the keys after i that probed past it, so that every probe sequence stays unbroken
+    int[] k = keys;
+    int mask = k.length - 1;
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      int o = k[j];
+      if (o == FREE) {
+        break;
+      }
+      if (OpenAddressing.isBetween(i, OpenAddressing.mix(o) & mask, j)) {
+        continue;
+      }
+      k[i] = o;
+      values[i] = values[j];
+      i = j;
+    }
+    k[i] = FREE;
+    size--;
+    return old;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, FREE);
+    size = 0;
+    hasZeroKey = false;
+    zeroValue = missingValue;
+  }
+
+  private void grow() {
+    int[] oldKeys = keys;
+    int[] oldValues = values;
+    keys = new int[oldKeys.length * 2];
+    values = new int[oldKeys.length * 2];
+    for (int i = 0; i < oldKeys.length; i++) {
+      int k = oldKeys[i];
+      if (k != FREE) {
+        int j = slot(k);
+        keys[j] = k;
+        values[j] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * @return an iterator over the keys, in no particular order. The map must not change during the iteration.
+   */
+  public IntIterator keyIterator() {
+    return new IntIterator() {
+      private boolean zero = hasZeroKey;
+
+      private int next = advance(0);
+
+      private int advance(int i) {
+        while (i < keys.length && keys[i] == FREE) {
+          i++;
+        }
+        return i;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return zero || next < keys.length;
+      }
+
+      @Override
+      public int next() {
+        if (zero) {
+          zero = false;
+          return FREE;
+        }
+        if (next >= keys.length) {
+          throw new NoSuchElementException();
+        }
+        int result = keys[next];
+        next = advance(next + 1);
+        return result;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    StringBuffer result = new StringBuffer("{");
+    for (IntIterator it = keyIterator(); it.hasNext();) {
+      int k = it.next();
+      result.append(k).append('=').append(get(k));
+      if (it.hasNext()) {
+        result.append(", ");
+      }
+    }
+    return result.append('}').toString();
+  }
+}
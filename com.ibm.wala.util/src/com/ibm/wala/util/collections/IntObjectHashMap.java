@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.collections;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import com.ibm.wala.util.intset.IntIterator;
+
+/**
+ * A map from ints to objects, implemented with open addressing and linear probing on parallel arrays of keys and values, with no
+ * boxing. Values may not be null; a null value marks a free slot, so any int may be a key.
+ */
+public class IntObjectHashMap<V> implements Serializable {
+
+  private static final long serialVersionUID = 3370591384206573104L;
+
+  private int[] keys;
+
+  private Object[] values;
+
+  private int size = 0;
+
+  public IntObjectHashMap() {
+    this(16);
+  }
+
+  /**
+   * @param expectedSize number of keys the map should hold without growing
+   */
+  public IntObjectHashMap(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("illegal expectedSize: " + expectedSize);
+    }
+    int capacity = OpenAddressing.capacityFor(expectedSize);
+    keys = new int[capacity];
+    values = new Object[capacity];
+  }
+
+  /**
+   * @return the slot holding key, or the free slot where it would go
+   */
+  private int slot(int key) {
+    int[] k = keys;
+    Object[] v = values;
+    int mask = k.length - 1;
+    int i = OpenAddressing.mix(key) & mask;
+    while (v[i] != null && k[i] != key) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * @return the value of key, or null if key is not in the map
+   */
+  @SuppressWarnings("unchecked")
+  public V get(int key) {
+    return (V) values[slot(key)];
+  }
+
+  public boolean containsKey(int key) {
+    return values[slot(key)] != null;
+  }
+
+  /**
+   * @return the previous value of key, or null if key was not in the map
+   * @throws IllegalArgumentException if value is null
+   */
+  @SuppressWarnings("unchecked")
+  public V put(int key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("null value");
+    }
+    int i = slot(key);
+    Object old = values[i];
+    keys[i] = key;
+    values[i] = value;
+    if (old == null && OpenAddressing.isFull(++size, keys.length)) {
+      grow();
+    }
+    return (V) old;
+  }
+
+  /**
+   * @return the value key had, or null if key was not in the map
+   */
+  @SuppressWarnings("unchecked")
+  public V remove(int key) {
+    int i = slot(key);
+    Object old = values[i];
+    if (old == null) {
+      return null;
+    }
+    // shift back the keys after i that probed past it, so that every probe sequence stays unbroken
+    int[] k = keys;
+    Object[] v = values;
+    int mask = k.length - 1;
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      if (v[j] == null) {
+        break;
+      }
+      if (OpenAddressing.isBetween(i, OpenAddressing.mix(k[j]) & mask, j)) {
+        continue;
+      }
+      k[i] = k[j];
+      v[i] = v[j];
+      i = j;
+    }
+    v[i] = null;
+    size--;
+    return (V) old;
+  }
+
+  public void clear() {
+    Arrays.fill(values, null);
+    size = 0;
+  }
+
+  private void grow() {
+    int[] oldKeys = keys;
+    Object[] oldValues = values;
+    keys = new int[oldKeys.length * 2];
+    values = new Object[oldKeys.length * 2];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldValues[i] != null) {
+        int j = slot(oldKeys[i]);
+        keys[j] = oldKeys[i];
+        values[j] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * @return an iterator over the keys, in no particular order. The map must not change during the iteration.
+   */
+  public IntIterator keyIterator() {
+    return new IntIterator() {
+      private int next = advance(0);
+
+      private int advance(int i) {
+        while (i < values.length && values[i] == null) {
+          i++;
+        }
+        return i;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next < values.length;
+      }
+
+      @Override
+      public int next() {
+        if (next >= values.length) {
+          throw new NoSuchElementException();
+        }
+        int result = keys[next];
+        next = advance(next + 1);
+        return result;
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    StringBuffer result = new StringBuffer("{");
+    boolean first = true;
+    for (int i = 0; i < keys.length; i++) {
+      if (values[i] != null) {
+        if (!first) {
+          result.append(", ");
+        }
+        first = false;
+        result.append(keys[i]).append('=').append(values[i]);
+      }
+    }
+    return result.append('}').toString();
+  }
+}
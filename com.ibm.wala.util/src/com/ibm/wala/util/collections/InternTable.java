@@ -0,0 +1,161 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.collections;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * A table mapping keys to canonical values, as used to intern atoms, type names and type and member references. Lookups do not
+ * lock, and concurrent attempts to intern the same key agree on a single value.
+ *
+ * By default the table holds its values strongly, so interned values live as long as the process. In weak mode (see
+ * {@link #setWeak(boolean)}), the table only holds weak references to its values, so values no longer used anywhere else are
+ * collected and dropped from the table. A value is canonical as long as it is reachable, so weak mode does not change the
+ * identity of any value a client can still observe; it lets a long-running process that runs many analyses reclaim the values
+ * of finished ones.
+ */
+public class InternTable<K, V> {
+
+  /**
+   * all tables created, so that switching the mode applies to every table
+   */
+  private final static List<InternTable<?, ?>> tables = new CopyOnWriteArrayList<InternTable<?, ?>>();
+
+  /**
+   * are new values held weakly?
+   */
+  private static volatile boolean weak = false;
+
+  /**
+   * a weak reference to a value, remembering its key so that the entry can be dropped once the value is collected
+   */
+  private final static class WeakValue<K, V> extends WeakReference<V> {
+    private final K key;
+
+    WeakValue(K key, V value, ReferenceQueue<V> queue) {
+      super(value, queue);
+      this.key = key;
+    }
+  }
+
+  /**
+   * mapping from key to either a value or a {@link WeakValue}
+   */
+  private final ConcurrentHashMap<K, Object> map;
+
+  private final ReferenceQueue<V> queue = new ReferenceQueue<V>();
+
+  public InternTable() {
+    this(16);
+  }
+
+  public InternTable(int initialCapacity) {
+    map = new ConcurrentHashMap<K, Object>(initialCapacity);
+    tables.add(this);
+  }
+
+  /**
+   * @return the value interned for key, or null if there is none
+   */
+  public V find(K key) {
+    Object v = map.get(key);
+    return v == null ? null : value(v);
+  }
+
+  /**
+   * @return the value interned for key if there is one, and value, which is interned for key, otherwise
+   */
+  public V intern(K key, V value) {
+    if (value == null) {
+      throw new IllegalArgumentException("null value");
+    }
+    expungeStaleEntries();
+    Object v = weak ? new WeakValue<K, V>(key, value, queue) : value;
+    while (true) {
+      Object old = map.putIfAbsent(key, v);
+      if (old == null) {
+        return value;
+      }
+      V existing = value(old);
+      if (existing != null) {
+        return existing;
+      }
+      // the old value has been collected
+      if (map.replace(key, old, v)) {
+        return value;
+      }
+    }
+  }
+
+  /**
+   * @return the number of entries, including entries whose values have been collected but not yet dropped
+   */
+  public int size() {
+    expungeStaleEntries();
+    return map.size();
+  }
+
+  @SuppressWarnings("unchecked")
+  private V value(Object v) {
+    if (v instanceof WeakValue) {
+      return ((WeakValue<K, V>) v).get();
+    } else {
+      return (V) v;
+    }
+  }
+
+  private void expungeStaleEntries() {
+    for (Reference<? extends V> r = queue.poll(); r != null; r = queue.poll()) {
+      map.remove(((WeakValue<?, ?>) r).key, r);
+    }
+  }
+
+  private void convert(boolean toWeak) {
+    for (Map.Entry<K, Object> e : map.entrySet()) {
+      Object v = e.getValue();
+      if (toWeak && !(v instanceof WeakValue)) {
+        @SuppressWarnings("unchecked")
+        V value = (V) v;
+        map.replace(e.getKey(), v, new WeakValue<K, V>(e.getKey(), value, queue));
+      } else if (!toWeak && v instanceof WeakValue) {
+        V value = value(v);
+        if (value == null) {
+          map.remove(e.getKey(), v);
+        } else {
+          map.replace(e.getKey(), v, value);
+        }
+      }
+    }
+    expungeStaleEntries();
+  }
+
+  /**
+   * Switch all intern tables between holding their values strongly (the default) and weakly. Existing entries are converted.
+   */
+  public static synchronized void setWeak(boolean weak) {
+    if (weak != InternTable.weak) {
+      InternTable.weak = weak;
+      for (InternTable<?, ?> t : tables) {
+        t.convert(weak);
+      }
+    }
+  }
+
+  public static boolean isWeak() {
+    return weak;
+  }
+}
@@ -10,7 +10,6 @@
  *******************************************************************************/
 package com.ibm.wala.util.collections;
 
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
@@ -26,17 +25,18 @@ public class ObjectArrayMapping<T> implements OrdinalSetMapping<T> {
   final private T[] array;
 
   /**
-   * A mapping from object to Integer
+   * A mapping from object to index; -1 for objects not mapped
    */
-  final private HashMap<T, Integer> map = HashMapFactory.make();
+  final private ObjectIntHashMap<T> map;
 
   public ObjectArrayMapping(final T[] array) {
     if (array == null) {
       throw new IllegalArgumentException("null array");
     }
     this.array = array;
+    map = new ObjectIntHashMap<T>(array.length, -1);
     for (int i = 0; i < array.length; i++) {
-      map.put(array[i], Integer.valueOf(i));
+      map.put(array[i], i);
     }
   }
 
@@ -51,20 +51,17 @@ public class ObjectArrayMapping<T> implements OrdinalSetMapping<T> {
 
   @Override
   public int getMappedIndex(Object o) {
-    if (map.get(o) == null) {
-      return -1;
-    }
-    return map.get(o).intValue();
+    return map.get(o);
   }
 
   @Override
   public boolean hasMappedIndex(Object o) {
-    return map.get(o) != null;
+    return map.containsKey(o);
   }
 
   @Override
   public Iterator<T> iterator() {
-    return map.keySet().iterator();
+    return map.keyIterator();
   }
 
   @Override
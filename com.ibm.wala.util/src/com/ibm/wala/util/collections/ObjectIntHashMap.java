@@ -0,0 +1,364 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.collections;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map from objects to ints, implemented with open addressing and linear probing on parallel arrays of keys, hash codes and
+ * values, so that neither the entries nor the values are objects. As in {@link java.util.HashMap}, the hash code of each key is
+ * kept, so that a probe calls equals only on keys with the same hash code. A lookup of a missing key returns the missing value
+ * given at construction. Keys may be null.
+ */
+public class ObjectIntHashMap<K> implements Serializable {
+
+  private static final long serialVersionUID = -3196420432853744751L;
+
+  /**
+   * stands for the null key, since null marks a free slot
+   */
+  private static final class NullKey implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private Object readResolve() {
+      return NULL_KEY;
+    }
+  }
+
+  private static final Object NULL_KEY = new NullKey();
+
+  private transient Object[] keys;
+
+  /**
+   * the mixed hash code of the key in each slot
+   */
+  private transient int[] hashes;
+
+  private transient int[] values;
+
+  private transient int size = 0;
+
+  private final int missingValue;
+
+  /**
+   * incremented by each change to the keys, to detect modification during iteration
+   */
+  private transient int modCount = 0;
+
+  /**
+   * a map whose missing value is -1
+   */
+  public ObjectIntHashMap() {
+    this(16, -1);
+  }
+
+  /**
+   * @param expectedSize number of keys the map should hold without growing
+   * @param missingValue the value returned for keys not in the map
+   */
+  public ObjectIntHashMap(int expectedSize, int missingValue) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("illegal expectedSize: " + expectedSize);
+    }
+    int capacity = OpenAddressing.capacityFor(expectedSize);
+    keys = new Object[capacity];
+    hashes = new int[capacity];
+    values = new int[capacity];
+    this.missingValue = missingValue;
+  }
+
+  public ObjectIntHashMap(ObjectIntHashMap<? extends K> other) {
+    if (other == null) {
+      throw new IllegalArgumentException("other is null");
+    }
+    keys = other.keys.clone();
+    hashes = other.hashes.clone();
+    values = other.values.clone();
+    size = other.size;
+    missingValue = other.missingValue;
+  }
+
+  private static Object mask(Object key) {
+    return key == null ? NULL_KEY : key;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K> K unmask(Object key) {
+    return key == NULL_KEY ? null : (K) key;
+  }
+
+  private static int hash(Object key) {
+    return OpenAddressing.mix(key.hashCode());
+  }
+
+  /**
+   * @param h the hash of key
+   * @return the slot holding key, or the free slot where it would go
+   */
+  private int slot(Object key, int h) {
+    Object[] k = keys;
+    int[] hs = hashes;
+    int mask = k.length - 1;
+    int i = h & mask;
+    Object o;
+    while ((o = k[i]) != null && (hs[i] != h || (o != key && !o.equals(key)))) {
+      i = (i + 1) & mask;
+    }
+    return i;
+  }
+
+  private int slot(Object key) {
+    return slot(key, hash(key));
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int getMissingValue() {
+    return missingValue;
+  }
+
+  /**
+   * @return the value of key, or the missing value if key is not in the map
+   */
+  public int get(Object key) {
+    int i = slot(mask(key));
+    return keys[i] == null ? missingValue : values[i];
+  }
+
+  public boolean containsKey(Object key) {
+    return keys[slot(mask(key))] != null;
+  }
+
+  /**
+   * @return the previous value of key, or the missing value if key was not in the map
+   */
+  public int put(K key, int value) {
+    Object k = mask(key);
+    int h = hash(k);
+    int i = slot(k, h);
+    if (keys[i] != null) {
+      int old = values[i];
+      values[i] = value;
+      return old;
+    }
+    keys[i] = k;
+    hashes[i] = h;
+    values[i] = value;
+    modCount++;
+    if (OpenAddressing.isFull(++size, keys.length)) {
+      grow();
+    }
+    return missingValue;
+  }
+
+  /**
+   * map key to value unless key is already in the map
+   *
+   * @return the value of key, or the missing value if key was not in the map and is now mapped to value
+   */
+  public int putIfAbsent(K key, int value) {
+    Object k = mask(key);
+    int h = hash(k);
+    int i = slot(k, h);
+    if (keys[i] != null) {
+      return values[i];
+    }
+    keys[i] = k;
+    hashes[i] = h;
+    values[i] = value;
+    modCount++;
+    if (OpenAddressing.isFull(++size, keys.length)) {
+      grow();
+    }
+    return missingValue;
+  }
+
+  /**
+   * @return the value key had, or the missing value if key was not in the map
+   */
+  public int remove(Object key) {
+    int i = slot(mask(key));
+    if (keys[i] == null) {
+      return missingValue;
+    }
+    int old = values[i];
+    // shift back the keys after i that probed past it, so that every probe sequence stays unbroken
+    Object[] k = keys;
+    int mask = k.length - 1;
+    int j = i;
+    while (true) {
+      j = (j + 1) & mask;
+      Object o = k[j];
+      if (o == null) {
+        break;
+      }
+      int home = hashes[j] & mask;
+      if (OpenAddressing.isBetween(i, home, j)) {
+        continue;
+      }
+      k[i] = o;
+      hashes[i] = hashes[j];
+      values[i] = values[j];
+      i = j;
+    }
+    k[i] = null;
+    size--;
+    modCount++;
+    return old;
+  }
+
+  public void clear() {
+    Arrays.fill(keys, null);
+    size = 0;
+    modCount++;
+  }
+
+  private void grow() {
+    Object[] oldKeys = keys;
+    int[] oldHashes = hashes;
+    int[] oldValues = values;
+    keys = new Object[oldKeys.length * 2];
+    hashes = new int[oldKeys.length * 2];
+    values = new int[oldKeys.length * 2];
+    int mask = keys.length - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != null) {
+        // the keys are distinct, so the first free slot will do
+        int j = oldHashes[i] & mask;
+        while (keys[j] != null) {
+          j = (j + 1) & mask;
+        }
+        keys[j] = oldKeys[i];
+        hashes[j] = oldHashes[i];
+        values[j] = oldValues[i];
+      }
+    }
+  }
+
+  /**
+   * write the entries rather than the table, since hash codes need not survive serialization
+   */
+  private void writeObject(ObjectOutputStream s) throws IOException {
+    s.defaultWriteObject();
+    s.writeInt(size);
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) {
+        s.writeObject(keys[i]);
+        s.writeInt(values[i]);
+      }
+    }
+  }
+
+  private void readObject(ObjectInputStream s) throws IOException, ClassNotFoundException {
+    s.defaultReadObject();
+    int n = s.readInt();
+    int capacity = OpenAddressing.capacityFor(n);
+    keys = new Object[capacity];
+    hashes = new int[capacity];
+    values = new int[capacity];
+    for (int i = 0; i < n; i++) {
+      K key = unmask(s.readObject());
+      put(key, s.readInt());
+    }
+  }
+
+  /**
+   * @return a view of the keys; the view does not support removal
+   */
+  public Set<K> keySet() {
+    return new AbstractSet<K>() {
+      @Override
+      public Iterator<K> iterator() {
+        return keyIterator();
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+
+      @Override
+      public boolean contains(Object o) {
+        return containsKey(o);
+      }
+    };
+  }
+
+  public Iterator<K> keyIterator() {
+    return new Iterator<K>() {
+      private final int expectedModCount = modCount;
+
+      private int next = advance(0);
+
+      private int advance(int i) {
+        while (i < keys.length && keys[i] == null) {
+          i++;
+        }
+        return i;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return next < keys.length;
+      }
+
+      @Override
+      public K next() {
+        if (modCount != expectedModCount) {
+          throw new ConcurrentModificationException();
+        }
+        if (next >= keys.length) {
+          throw new NoSuchElementException();
+        }
+        K result = unmask(keys[next]);
+        next = advance(next + 1);
+        return result;
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @Override
+  public String toString() {
+    StringBuffer result = new StringBuffer("{");
+    boolean first = true;
+    for (int i = 0; i < keys.length; i++) {
+      if (keys[i] != null) {
+        if (!first) {
+          result.append(", ");
+        }
+        first = false;
+        Object key = unmask(keys[i]);
+        result.append(key).append('=').append(values[i]);
+      }
+    }
+    return result.append('}').toString();
+  }
+}
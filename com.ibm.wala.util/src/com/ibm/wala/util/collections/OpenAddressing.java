@@ -0,0 +1,70 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.collections;
+
+/**
+ * Helpers shared by the open-addressing maps of this package, which keep their keys in a power-of-two array and probe linearly
+ * from the slot given by a mixed hash. Tables are kept at most two thirds full.
+ */
+final class OpenAddressing {
+
+  private OpenAddressing() {
+  }
+
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  /**
+   * spread the bits of h so that hash codes differing only in their high bits select different slots
+   */
+  static int mix(int h) {
+    // the finalizer of MurmurHash3: every bit of h affects the low bits used as the slot
+    h ^= h >>> 16;
+    h *= 0x85EBCA6B;
+    h ^= h >>> 13;
+    h *= 0xC2B2AE35;
+    return h ^ (h >>> 16);
+  }
+
+  static int mix(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h >>> 32);
+  }
+
+  /**
+   * @return the capacity of a table holding expectedSize keys without growing
+   */
+  static int capacityFor(int expectedSize) {
+    long needed = (long) expectedSize * 3 / 2 + 1;
+    int capacity = 4;
+    while (capacity < needed && capacity < MAX_CAPACITY) {
+      capacity <<= 1;
+    }
+    return capacity;
+  }
+
+  /**
+   * @return true iff a table of capacity slots holding size keys must grow
+   */
+  static boolean isFull(int size, int capacity) {
+    if (capacity >= MAX_CAPACITY && size < capacity) {
+      return false;
+    }
+    return (long) size * 3 > (long) capacity * 2;
+  }
+
+  /**
+   * @return true iff h lies in the cyclic range (i, j]. A key at slot j whose home slot h is in that range cannot move back to the
+   *         free slot i during deletion, since lookups starting from h would no longer reach it.
+   */
+  static boolean isBetween(int i, int h, int j) {
+    return i <= j ? (i < h && h <= j) : (i < h || h <= j);
+  }
+}
@@ -11,30 +11,23 @@
 package com.ibm.wala.util.graph;
 
 import java.util.Iterator;
+import java.util.Map;
 
-import com.ibm.wala.dataflow.graph.AbstractMeetOperator;
-import com.ibm.wala.dataflow.graph.BitVectorFramework;
-import com.ibm.wala.dataflow.graph.BitVectorIdentity;
-import com.ibm.wala.dataflow.graph.BitVectorSolver;
-import com.ibm.wala.dataflow.graph.BitVectorUnion;
-import com.ibm.wala.dataflow.graph.BitVectorUnionConstant;
-import com.ibm.wala.dataflow.graph.DataflowSolver;
-import com.ibm.wala.dataflow.graph.ITransferFunctionProvider;
-import com.ibm.wala.fixpoint.BitVectorVariable;
-import com.ibm.wala.fixpoint.UnaryOperator;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
 import com.ibm.wala.util.Predicate;
 import com.ibm.wala.util.collections.FilterIterator;
+import com.ibm.wala.util.collections.HashMapFactory;
 import com.ibm.wala.util.collections.Iterator2Collection;
-import com.ibm.wala.util.debug.Assertions;
-import com.ibm.wala.util.graph.impl.GraphInverter;
+import com.ibm.wala.util.intset.IntSet;
 import com.ibm.wala.util.intset.MutableMapping;
 import com.ibm.wala.util.intset.OrdinalSet;
 import com.ibm.wala.util.intset.OrdinalSetMapping;
+import com.ibm.wala.util.intset.SparseIntSet;
 
 /**
- * A dataflow system that computes, for each graph node, the set of "interesting" nodes that are reachable
+ * Computes, for each graph node, the set of "interesting" nodes that are reachable, as a {@link GraphTransitiveClosure} of the
+ * interesting nodes
  */
 public class GraphReachability<T, S> {
 
@@ -44,9 +37,9 @@ public class GraphReachability<T, S> {
   private final Graph<T> g;
 
   /**
-   * Killdall-style dataflow solver
+   * the numbers of the interesting nodes reachable from each node, or null before solve()
    */
-  private DataflowSolver<T, BitVectorVariable> solver;
+  private Map<T, IntSet> reachable;
 
   /**
    * set of "interesting" CGNodes
@@ -72,75 +65,39 @@ public class GraphReachability<T, S> {
    * @return the set of interesting nodes reachable from n
    */
   public OrdinalSet<S> getReachableSet(Object n) throws IllegalStateException {
-    if (solver == null) {
+    if (reachable == null) {
       throw new IllegalStateException("must call solve() before calling getReachableSet()");
     }
-    BitVectorVariable v = solver.getOut(n);
-    assert v != null : "null variable for node " + n;
-    if (v.getValue() == null) {
+    IntSet s = reachable.get(n);
+    assert s != null : "no reachable set for node " + n;
+    if (s == null || s.isEmpty()) {
       return OrdinalSet.empty();
     } else {
-      return new OrdinalSet<S>(v.getValue(), domain);
+      return new OrdinalSet<S>(s, domain);
     }
   }
 
   /**
-   * @return true iff the evaluation of some equation caused a change in the value of some variable.
+   * @return true iff some node reaches some interesting node
    */
   public boolean solve(IProgressMonitor monitor) throws CancelException {
+    return solve(1, monitor);
+  }
 
-    ITransferFunctionProvider<T, BitVectorVariable> functions = new ITransferFunctionProvider<T, BitVectorVariable>() {
-
-      /*
-       * @see com.ibm.wala.dataflow.graph.ITransferFunctionProvider#getNodeTransferFunction(java.lang.Object)
-       */
-      @Override
-      public UnaryOperator<BitVectorVariable> getNodeTransferFunction(T n) {
-        int index = domain.getMappedIndex(n);
-        if (index > -1) {
-          return new BitVectorUnionConstant(index);
-        } else {
-          return BitVectorIdentity.instance();
-        }
-      }
-
-      /*
-       * @see com.ibm.wala.dataflow.graph.ITransferFunctionProvider#hasNodeTransferFunctions()
-       */
-      @Override
-      public boolean hasNodeTransferFunctions() {
-        return true;
-      }
-
-      /*
-       * @see com.ibm.wala.dataflow.graph.ITransferFunctionProvider#getEdgeTransferFunction(java.lang.Object, java.lang.Object)
-       */
-      @Override
-      public UnaryOperator<BitVectorVariable> getEdgeTransferFunction(Object from, Object to) {
-        Assertions.UNREACHABLE();
-        return null;
-      }
-
-      /*
-       * @see com.ibm.wala.dataflow.graph.ITransferFunctionProvider#hasEdgeTransferFunctions()
-       */
-      @Override
-      public boolean hasEdgeTransferFunctions() {
-        return false;
-      }
-
-      /*
-       * @see com.ibm.wala.dataflow.graph.ITransferFunctionProvider#getMeetOperator()
-       */
-      @Override
-      public AbstractMeetOperator<BitVectorVariable> getMeetOperator() {
-        return BitVectorUnion.instance();
+  /**
+   * @param numberOfThreads number of threads to compute the reachable sets on
+   * @return true iff some node reaches some interesting node
+   */
+  public boolean solve(int numberOfThreads, IProgressMonitor monitor) throws CancelException {
+    Map<T, IntSet> interesting = HashMapFactory.make();
+    for (T n : g) {
+      int index = domain.getMappedIndex(n);
+      if (index > -1) {
+        interesting.put(n, SparseIntSet.singleton(index));
       }
-    };
-
-    BitVectorFramework<T, S> f = new BitVectorFramework<T, S>(GraphInverter.invert(g), functions, domain);
-    solver = new BitVectorSolver<T>(f);
-    return solver.solve(monitor);
+    }
+    reachable = GraphTransitiveClosure.transitiveClosure(g, interesting, numberOfThreads, monitor);
+    return !interesting.isEmpty();
   }
 
-}
\ No newline at end of file
+}
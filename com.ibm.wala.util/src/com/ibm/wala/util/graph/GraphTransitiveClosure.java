@@ -0,0 +1,313 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.graph;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.ibm.wala.util.CancelException;
+import com.ibm.wala.util.MonitorUtil;
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.graph.traverse.SCCIterator;
+import com.ibm.wala.util.intset.BitVectorIntSet;
+import com.ibm.wala.util.intset.EmptyIntSet;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.MutableIntSet;
+
+/**
+ * Computes, for each node of a graph, the union of the sets of integers given for the node and for every node reachable from it.
+ *
+ * The graph is condensed into its strongly connected components, which are visited once each, successors first; the set of a
+ * component is one union of the sets of its successor components. Rather than iterating to a fixed point, as a dataflow solver
+ * over the whole graph does, each set is computed once. All nodes of a component share one set, as does a component that adds
+ * nothing to the set of its only successor component, so chains of such components cost no space. The sets of the result are
+ * therefore shared between nodes, and are read-only: a client that modifies one must copy it first. Components at the same height
+ * in the condensation do not depend on each other, and can be computed on several threads.
+ */
+public class GraphTransitiveClosure {
+
+  /**
+   * at least this many components of one height are computed on several threads; fewer are computed on the calling thread
+   */
+  private final static int PARALLEL_THRESHOLD = 64;
+
+  /**
+   * @param g the graph
+   * @param nodeSets a set for each node; a node with no set has the empty set
+   * @return a map from each node of g to the union of the sets of the node and the nodes reachable from it. Nodes share these
+   *         sets, which must not be modified.
+   */
+  public static <T> Map<T, IntSet> transitiveClosure(Graph<T> g, Map<T, ? extends IntSet> nodeSets) {
+    return transitiveClosure(g, nodeSets, 1);
+  }
+
+  /**
+   * @param g the graph
+   * @param nodeSets a set for each node; a node with no set has the empty set
+   * @param numberOfThreads number of threads to compute independent components on; 1 means the calling thread only
+   * @return a map from each node of g to the union of the sets of the node and the nodes reachable from it. Nodes share these
+   *         sets, which must not be modified.
+   */
+  public static <T> Map<T, IntSet> transitiveClosure(Graph<T> g, Map<T, ? extends IntSet> nodeSets, int numberOfThreads) {
+    try {
+      return transitiveClosure(g, nodeSets, numberOfThreads, null);
+    } catch (CancelException e) {
+      throw new IllegalStateException("cannot be canceled without a monitor", e);
+    }
+  }
+
+  /**
+   * @param g the graph
+   * @param nodeSets a set for each node; a node with no set has the empty set
+   * @param numberOfThreads number of threads to compute independent components on; 1 means the calling thread only
+   * @param monitor a progress monitor, or null
+   * @return a map from each node of g to the union of the sets of the node and the nodes reachable from it. Nodes share these
+   *         sets, which must not be modified.
+   * @throws CancelException if the monitor cancels the computation
+   */
+  public static <T> Map<T, IntSet> transitiveClosure(final Graph<T> g, final Map<T, ? extends IntSet> nodeSets, int numberOfThreads,
+      IProgressMonitor monitor) throws CancelException {
+    if (g == null) {
+      throw new IllegalArgumentException("g is null");
+    }
+    if (nodeSets == null) {
+      throw new IllegalArgumentException("nodeSets is null");
+    }
+    if (numberOfThreads < 1) {
+      throw new IllegalArgumentException("invalid number of threads: " + numberOfThreads);
+    }
+
+    // SCCIterator finds the components in topological order, so their successors come after them
+    final List<Set<T>> sccs = new ArrayList<Set<T>>();
+    ComponentNumbers<T> sccOf = makeComponentNumbers(g);
+    for (SCCIterator<T> it = new SCCIterator<T>(g); it.hasNext();) {
+      Set<T> scc = it.next();
+      for (T n : scc) {
+        sccOf.set(n, sccs.size());
+      }
+      sccs.add(scc);
+    }
+    final int[][] successors = new int[sccs.size()][];
+    for (int i = 0; i < sccs.size(); i++) {
+      BitVectorIntSet s = new BitVectorIntSet();
+      for (T n : sccs.get(i)) {
+        for (Iterator<? extends T> it = g.getSuccNodes(n); it.hasNext();) {
+          int j = sccOf.get(it.next());
+          if (j != i) {
+            assert j > i : "successor component out of order";
+            s.add(j);
+          }
+        }
+      }
+      successors[i] = toArray(s);
+    }
+
+    final IntSet[] sccSets = new IntSet[sccs.size()];
+    if (numberOfThreads == 1) {
+      for (int i = sccs.size() - 1; i >= 0; i--) {
+        MonitorUtil.throwExceptionIfCanceled(monitor);
+        sccSets[i] = union(sccs.get(i), successors[i], nodeSets, sccSets);
+      }
+    } else {
+      computeByHeight(sccs, successors, nodeSets, sccSets, numberOfThreads, monitor);
+    }
+
+    Map<T, IntSet> result = HashMapFactory.make();
+    for (int i = 0; i < sccs.size(); i++) {
+      for (T n : sccs.get(i)) {
+        result.put(n, sccSets[i]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * compute the components of each height, leaves first, computing the components of one height on several threads
+   */
+  private static <T> void computeByHeight(final List<Set<T>> sccs, final int[][] successors, final Map<T, ? extends IntSet> nodeSets,
+      final IntSet[] sccSets, int numberOfThreads, IProgressMonitor monitor) throws CancelException {
+    int[] height = new int[sccs.size()];
+    int maxHeight = 0;
+    for (int i = sccs.size() - 1; i >= 0; i--) {
+      for (int j : successors[i]) {
+        height[i] = Math.max(height[i], height[j] + 1);
+      }
+      maxHeight = Math.max(maxHeight, height[i]);
+    }
+    List<List<Integer>> byHeight = new ArrayList<List<Integer>>(maxHeight + 1);
+    for (int h = 0; h <= maxHeight; h++) {
+      byHeight.add(new ArrayList<Integer>());
+    }
+    for (int i = 0; i < sccs.size(); i++) {
+      byHeight.get(height[i]).add(i);
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(r, "WALA transitive closure");
+        t.setDaemon(true);
+        return t;
+      }
+    });
+    try {
+      for (List<Integer> level : byHeight) {
+        MonitorUtil.throwExceptionIfCanceled(monitor);
+        if (level.size() < PARALLEL_THRESHOLD) {
+          for (int i : level) {
+            sccSets[i] = union(sccs.get(i), successors[i], nodeSets, sccSets);
+          }
+          continue;
+        }
+        int chunk = (level.size() + numberOfThreads - 1) / numberOfThreads;
+        List<Future<Object>> tasks = new ArrayList<Future<Object>>(numberOfThreads);
+        for (int from = 0; from < level.size(); from += chunk) {
+          final List<Integer> part = level.subList(from, Math.min(from + chunk, level.size()));
+          tasks.add(pool.submit(new Callable<Object>() {
+            @Override
+            public Object call() {
+              for (int i : part) {
+                sccSets[i] = union(sccs.get(i), successors[i], nodeSets, sccSets);
+              }
+              return null;
+            }
+          }));
+        }
+        // Future.get() makes the sets of this height visible to the threads that compute the next one
+        for (Future<Object> f : tasks) {
+          try {
+            f.get();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+          } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+              throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+              throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+          }
+        }
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * @return the union of the sets of the nodes in scc and of the successor components, sharing the set of a successor component
+   *         when the union adds nothing to it, and sharing {@link EmptyIntSet#instance} when the union is empty
+   */
+  private static <T> IntSet union(Set<T> scc, int[] successors, Map<T, ? extends IntSet> nodeSets, IntSet[] sccSets) {
+    MutableIntSet own = null;
+    for (T n : scc) {
+      IntSet s = nodeSets.get(n);
+      if (s != null && !s.isEmpty()) {
+        if (own == null) {
+          own = new BitVectorIntSet();
+        }
+        own.addAll(s);
+      }
+    }
+    IntSet successor = null;
+    MutableIntSet merged = null;
+    for (int j : successors) {
+      IntSet s = sccSets[j];
+      if (s.isEmpty() || s == successor) {
+        continue;
+      }
+      if (successor == null) {
+        successor = s;
+      } else {
+        if (merged == null) {
+          merged = new BitVectorIntSet(successor);
+        }
+        merged.addAll(s);
+      }
+    }
+    if (merged != null) {
+      if (own != null) {
+        merged.addAll(own);
+      }
+      return merged;
+    } else if (successor != null) {
+      if (own == null || own.isSubset(successor)) {
+        return successor;
+      }
+      own.addAll(successor);
+      return own;
+    } else {
+      return own == null ? EmptyIntSet.instance : own;
+    }
+  }
+
+  private static int[] toArray(IntSet s) {
+    int[] result = new int[s.size()];
+    int k = 0;
+    for (IntIterator it = s.intIterator(); it.hasNext();) {
+      result[k++] = it.next();
+    }
+    return result;
+  }
+
+  /**
+   * the component of each node
+   */
+  private static interface ComponentNumbers<T> {
+    void set(T n, int scc);
+
+    int get(T n);
+  }
+
+  private static <T> ComponentNumbers<T> makeComponentNumbers(final Graph<T> g) {
+    if (g instanceof NumberedGraph) {
+      final NumberedGraph<T> ng = (NumberedGraph<T>) g;
+      final int[] sccOf = new int[ng.getMaxNumber() + 1];
+      return new ComponentNumbers<T>() {
+        @Override
+        public void set(T n, int scc) {
+          sccOf[ng.getNumber(n)] = scc;
+        }
+
+        @Override
+        public int get(T n) {
+          return sccOf[ng.getNumber(n)];
+        }
+      };
+    } else {
+      final Map<T, Integer> sccOf = HashMapFactory.make();
+      return new ComponentNumbers<T>() {
+        @Override
+        public void set(T n, int scc) {
+          sccOf.put(n, scc);
+        }
+
+        @Override
+        public int get(T n) {
+          return sccOf.get(n);
+        }
+      };
+    }
+  }
+}
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package com.ibm.wala.util.graph;
 
+import com.ibm.wala.util.graph.impl.FrozenNumberedGraph;
 
 /**
  * Utility methods for graphs.
@@ -30,4 +31,13 @@ public class GraphUtil {
     return edgeCount;
   }
 
+  /**
+   * @return an immutable copy of g in compressed sparse row form, which is smaller and faster to traverse than most mutable graphs;
+   *         its nodes have the numbers they have in g
+   * @see FrozenNumberedGraph
+   */
+  public static <T> NumberedGraph<T> freeze(NumberedGraph<T> g) {
+    return FrozenNumberedGraph.make(g);
+  }
+
 }
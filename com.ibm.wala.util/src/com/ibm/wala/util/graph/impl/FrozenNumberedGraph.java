@@ -0,0 +1,512 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.graph.impl;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.ibm.wala.util.collections.ObjectIntHashMap;
+import com.ibm.wala.util.graph.AbstractNumberedGraph;
+import com.ibm.wala.util.graph.NumberedEdgeManager;
+import com.ibm.wala.util.graph.NumberedGraph;
+import com.ibm.wala.util.graph.NumberedNodeManager;
+import com.ibm.wala.util.intset.IntIterator;
+import com.ibm.wala.util.intset.IntSet;
+import com.ibm.wala.util.intset.IntSetAction;
+import com.ibm.wala.util.intset.MutableSparseIntSet;
+
+/**
+ * An immutable copy of a {@link NumberedGraph} in compressed sparse row form: the successors of all nodes are kept in one int
+ * array, ordered by node number, with an array of offsets giving where the successors of each node start, and likewise for
+ * predecessors. A node keeps the number it has in the original graph, and its successors and predecessors are in increasing order.
+ *
+ * Use this for a graph that is built once and then only traversed, such as a call graph or an SDG after construction. The copy
+ * takes two ints per edge and a few words per node, rather than an {@link IntSet} per node and direction, and iterating over
+ * successors reads consecutive array elements. All methods that modify the graph throw {@link UnsupportedOperationException}.
+ */
+public class FrozenNumberedGraph<T> extends AbstractNumberedGraph<T> {
+
+  private final Nodes<T> nodeManager;
+
+  private final Edges<T> edgeManager;
+
+  /**
+   * @return an immutable copy of g
+   * @throws IllegalArgumentException if g is null
+   */
+  public static <T> FrozenNumberedGraph<T> make(NumberedGraph<T> g) {
+    if (g == null) {
+      throw new IllegalArgumentException("g is null");
+    }
+    if (g instanceof FrozenNumberedGraph) {
+      return (FrozenNumberedGraph<T>) g;
+    }
+    return new FrozenNumberedGraph<T>(g);
+  }
+
+  private FrozenNumberedGraph(NumberedGraph<T> g) {
+    nodeManager = new Nodes<T>(g);
+    edgeManager = new Edges<T>(g, nodeManager);
+  }
+
+  @Override
+  protected NumberedNodeManager<T> getNodeManager() {
+    return nodeManager;
+  }
+
+  @Override
+  protected NumberedEdgeManager<T> getEdgeManager() {
+    return edgeManager;
+  }
+
+  /**
+   * @return the number of edges in the graph
+   */
+  public int getNumberOfEdges() {
+    return edgeManager.succ.length;
+  }
+
+  /**
+   * the nodes, in an array indexed by number
+   */
+  private static final class Nodes<T> implements NumberedNodeManager<T> {
+
+    private final Object[] nodes;
+
+    private final ObjectIntHashMap<T> numbers;
+
+    Nodes(NumberedGraph<T> g) {
+      nodes = new Object[g.getMaxNumber() + 1];
+      numbers = new ObjectIntHashMap<T>(g.getNumberOfNodes(), -1);
+      for (T n : g) {
+        int number = g.getNumber(n);
+        nodes[number] = n;
+        numbers.put(n, number);
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T getNode(int number) {
+      if (number < 0) {
+        throw new IllegalArgumentException("number must be >= 0");
+      }
+      return number < nodes.length ? (T) nodes[number] : null;
+    }
+
+    @Override
+    public int getNumber(T n) {
+      return numbers.get(n);
+    }
+
+    @Override
+    public int getMaxNumber() {
+      return nodes.length - 1;
+    }
+
+    @Override
+    public int getNumberOfNodes() {
+      return numbers.size();
+    }
+
+    @Override
+    public boolean containsNode(T n) {
+      return numbers.containsKey(n);
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+      return new Iterator<T>() {
+        private int next = advance(0);
+
+        private int advance(int i) {
+          while (i < nodes.length && nodes[i] == null) {
+            i++;
+          }
+          return i;
+        }
+
+        @Override
+        public boolean hasNext() {
+          return next < nodes.length;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public T next() {
+          if (next >= nodes.length) {
+            throw new NoSuchElementException();
+          }
+          T result = (T) nodes[next];
+          next = advance(next + 1);
+          return result;
+        }
+
+        @Override
+        public void remove() {
+          throw new UnsupportedOperationException();
+        }
+      };
+    }
+
+    @Override
+    public Iterator<T> iterateNodes(IntSet s) {
+      return new NumberedNodeIterator<T>(s, this);
+    }
+
+    @Override
+    public void addNode(T n) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeNode(T n) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * the edges, in compressed sparse row form
+   */
+  private static final class Edges<T> implements NumberedEdgeManager<T> {
+
+    private final Nodes<T> nodes;
+
+    /**
+     * the successors of node i are succ[succStart[i]] .. succ[succStart[i+1]-1]
+     */
+    private final int[] succStart;
+
+    private final int[] succ;
+
+    /**
+     * the predecessors of node i are pred[predStart[i]] .. pred[predStart[i+1]-1]
+     */
+    private final int[] predStart;
+
+    private final int[] pred;
+
+    Edges(NumberedGraph<T> g, Nodes<T> nodes) {
+      this.nodes = nodes;
+      int max = nodes.getMaxNumber();
+      succStart = new int[max + 2];
+      long edges = 0;
+      for (int i = 0; i <= max; i++) {
+        succStart[i] = (int) edges;
+        T n = nodes.getNode(i);
+        if (n != null) {
+          IntSet s = g.getSuccNodeNumbers(n);
+          if (s != null) {
+            edges += s.size();
+            if (edges > Integer.MAX_VALUE) {
+              throw new IllegalArgumentException("too many edges to freeze: " + edges);
+            }
+          }
+        }
+      }
+      succStart[max + 1] = (int) edges;
+      succ = new int[(int) edges];
+      int[] predCount = new int[max + 2];
+      for (int i = 0; i <= max; i++) {
+        T n = nodes.getNode(i);
+        if (n != null) {
+          IntSet s = g.getSuccNodeNumbers(n);
+          if (s != null) {
+            int k = succStart[i];
+            for (IntIterator it = s.intIterator(); it.hasNext();) {
+              int j = it.next();
+              succ[k++] = j;
+              predCount[j]++;
+            }
+            // not every IntSet iterates in increasing order
+            Arrays.sort(succ, succStart[i], k);
+          }
+        }
+      }
+
+      // the predecessors are the transpose of the successors; filling them in order of source makes each row sorted
+      predStart = new int[max + 2];
+      for (int i = 0; i <= max; i++) {
+        predStart[i + 1] = predStart[i] + predCount[i];
+      }
+      pred = new int[succ.length];
+      int[] fill = Arrays.copyOf(predStart, max + 1);
+      for (int i = 0; i <= max; i++) {
+        for (int k = succStart[i]; k < succStart[i + 1]; k++) {
+          pred[fill[succ[k]]++] = i;
+        }
+      }
+    }
+
+    private int number(T n) {
+      int number = nodes.getNumber(n);
+      if (number < 0) {
+        throw new IllegalArgumentException(n + " is not in graph");
+      }
+      return number;
+    }
+
+    @Override
+    public Iterator<T> getSuccNodes(T n) {
+      int i = number(n);
+      return new RowIterator<T>(nodes, succ, succStart[i], succStart[i + 1]);
+    }
+
+    @Override
+    public Iterator<T> getPredNodes(T n) {
+      int i = number(n);
+      return new RowIterator<T>(nodes, pred, predStart[i], predStart[i + 1]);
+    }
+
+    @Override
+    public int getSuccNodeCount(T n) {
+      int i = number(n);
+      return succStart[i + 1] - succStart[i];
+    }
+
+    @Override
+    public int getPredNodeCount(T n) {
+      int i = number(n);
+      return predStart[i + 1] - predStart[i];
+    }
+
+    @Override
+    public IntSet getSuccNodeNumbers(T n) {
+      int i = number(n);
+      return new RowSet(succ, succStart[i], succStart[i + 1]);
+    }
+
+    @Override
+    public IntSet getPredNodeNumbers(T n) {
+      int i = number(n);
+      return new RowSet(pred, predStart[i], predStart[i + 1]);
+    }
+
+    @Override
+    public boolean hasEdge(T src, T dst) {
+      int x = nodes.getNumber(src);
+      int y = nodes.getNumber(dst);
+      if (x < 0 || y < 0) {
+        return false;
+      }
+      return Arrays.binarySearch(succ, succStart[x], succStart[x + 1], y) >= 0;
+    }
+
+    @Override
+    public void addEdge(T src, T dst) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeEdge(T src, T dst) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeAllIncidentEdges(T node) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeIncomingEdges(T node) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void removeOutgoingEdges(T node) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /**
+   * a read-only view of the numbers a[from] .. a[to-1], a row of successor or predecessor numbers, which are in increasing order
+   */
+  private static final class RowSet implements IntSet {
+
+    private final int[] a;
+
+    private final int from;
+
+    private final int to;
+
+    RowSet(int[] a, int from, int to) {
+      this.a = a;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public boolean contains(int i) {
+      return Arrays.binarySearch(a, from, to, i) >= 0;
+    }
+
+    @Override
+    public boolean containsAny(IntSet set) {
+      if (set == null) {
+        throw new IllegalArgumentException("set == null");
+      }
+      for (int k = from; k < to; k++) {
+        if (set.contains(a[k])) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public IntSet intersection(IntSet that) {
+      if (that == null) {
+        throw new IllegalArgumentException("that == null");
+      }
+      MutableSparseIntSet result = MutableSparseIntSet.makeEmpty();
+      for (int k = from; k < to; k++) {
+        if (that.contains(a[k])) {
+          result.add(a[k]);
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public IntSet union(IntSet that) {
+      MutableSparseIntSet result = MutableSparseIntSet.make(this);
+      result.addAll(that);
+      return result;
+    }
+
+    @Override
+    public boolean isEmpty() {
+      return from == to;
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
+
+    @Override
+    public IntIterator intIterator() {
+      return new IntIterator() {
+        private int next = from;
+
+        @Override
+        public boolean hasNext() {
+          return next < to;
+        }
+
+        @Override
+        public int next() {
+          if (next >= to) {
+            throw new NoSuchElementException();
+          }
+          return a[next++];
+        }
+      };
+    }
+
+    @Override
+    public void foreach(IntSetAction action) {
+      if (action == null) {
+        throw new IllegalArgumentException("action == null");
+      }
+      for (int k = from; k < to; k++) {
+        action.act(a[k]);
+      }
+    }
+
+    @Override
+    public void foreachExcluding(IntSet X, IntSetAction action) {
+      if (action == null) {
+        throw new IllegalArgumentException("action == null");
+      }
+      for (int k = from; k < to; k++) {
+        if (!X.contains(a[k])) {
+          action.act(a[k]);
+        }
+      }
+    }
+
+    @Override
+    public int max() {
+      if (from == to) {
+        throw new NoSuchElementException();
+      }
+      return a[to - 1];
+    }
+
+    @Override
+    public boolean sameValue(IntSet that) {
+      return that != null && that.size() == size() && isSubset(that);
+    }
+
+    @Override
+    public boolean isSubset(IntSet that) {
+      if (that == null) {
+        throw new IllegalArgumentException("that == null");
+      }
+      for (int k = from; k < to; k++) {
+        if (!that.contains(a[k])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder result = new StringBuilder("{ ");
+      for (int k = from; k < to; k++) {
+        result.append(a[k]).append(' ');
+      }
+      return result.append('}').toString();
+    }
+  }
+
+  /**
+   * the nodes whose numbers are a[from] .. a[to-1]
+   */
+  private static final class RowIterator<T> implements Iterator<T> {
+
+    private final Nodes<T> nodes;
+
+    private final int[] a;
+
+    private int next;
+
+    private final int to;
+
+    RowIterator(Nodes<T> nodes, int[] a, int from, int to) {
+      this.nodes = nodes;
+      this.a = a;
+      this.next = from;
+      this.to = to;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < to;
+    }
+
+    @Override
+    public T next() {
+      if (next >= to) {
+        throw new NoSuchElementException();
+      }
+      return nodes.getNode(a[next++]);
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -11,6 +11,7 @@
 package com.ibm.wala.util.intset;
 
 import java.io.Serializable;
+import java.util.Arrays;
 
 /**
  */
@@ -141,13 +142,8 @@ public class BitVector extends BitVectorBase<BitVector> implements Serializable
       return;
     }
     int n = Math.min(bits.length, set.bits.length);
-    for (int i = n - 1; i >= 0;) {
-      bits[i] &= set.bits[i];
-      i--;
-    }
-    for (int i = n; i < bits.length; i++) {
-      bits[i] = 0;
-    }
+    andWords(bits, 0, set.bits, 0, n);
+    Arrays.fill(bits, n, bits.length, 0);
   }
 
   /**
@@ -179,11 +175,7 @@ public class BitVector extends BitVectorBase<BitVector> implements Serializable
       return;
     }
     ensureCapacity(set);
-    int n = Math.min(bits.length, set.bits.length);
-    for (int i = n - 1; i >= 0;) {
-      bits[i] |= set.bits[i];
-      i--;
-    }
+    orWords(bits, 0, set.bits, 0, set.bits.length);
   }
 
   private void ensureCapacity(BitVector set) {
@@ -204,23 +196,27 @@ public class BitVector extends BitVectorBase<BitVector> implements Serializable
     if (set == null) {
       throw new IllegalArgumentException("set is null");
     }
-    int delta = 0;
-
     ensureCapacity(set);
-    int[] otherBits = set.bits;
-    int n = Math.min(bits.length, otherBits.length);
-    for (int i = n - 1; i >= 0;) {
-      int v1 = bits[i];
-      int v2 = otherBits[i];
-      if (v1 != v2) {
-        delta -= Bits.populationCount(v1);
-        int v3 = v1 | v2;
-        delta += Bits.populationCount(v3);
-        bits[i] = v3;
-      }
-      i--;
+    return orWordsWithDelta(bits, 0, set.bits, 0, set.bits.length);
+  }
+
+  /**
+   * Logically ORs this bit set with the specified set of bits, in one pass that also finds whether this changed; cheaper than
+   * {@link #orWithDelta(BitVector)} when the number of bits added is not needed.
+   * 
+   * @param set
+   * @return true iff any bit was added to this
+   * @throws IllegalArgumentException if set is null
+   */
+  public final boolean orWithChange(BitVector set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    if (this == set) {
+      return false;
     }
-    return delta;
+    ensureCapacity(set);
+    return orWordsWithChange(bits, 0, set.bits, 0, set.bits.length);
   }
 
   /**
@@ -366,11 +362,11 @@ public class BitVector extends BitVectorBase<BitVector> implements Serializable
     if (vector == null) {
       throw new IllegalArgumentException("null vector");
     }
-    int ai = 0;
-    int bi = 0;
-    for (ai = 0, bi = 0; ai < bits.length && bi < vector.bits.length; ai++, bi++) {
-      bits[ai] = bits[ai] & (~vector.bits[bi]);
+    if (this == vector) {
+      clearAll();
+      return;
     }
+    andNotWords(bits, 0, vector.bits, 0, Math.min(bits.length, vector.bits.length));
   }
 
   /**
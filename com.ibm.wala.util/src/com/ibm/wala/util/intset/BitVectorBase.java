@@ -82,13 +82,106 @@ abstract public class BitVectorBase<T extends BitVectorBase> implements Cloneabl
    * How many bits are set?
    */
   public final int populationCount() {
+    int[] a = bits;
     int count = 0;
-    for (int i = 0; i < bits.length; i++) {
-      count += Bits.populationCount(bits[i]);
+    for (int i = 0; i < a.length; i++) {
+      count += Integer.bitCount(a[i]);
     }
     return count;
   }
 
+  /*
+   * Word kernels shared by the subclasses. Each is a counted loop over local arrays with no branch in its body, which the JIT can
+   * unroll and vectorize; when the words of a and b line up, the loop indexes both arrays alike. Callers check the bounds.
+   */
+
+  /**
+   * a[aFrom+i] |= b[bFrom+i] for 0 <= i < n
+   */
+  protected static void orWords(int[] a, int aFrom, int[] b, int bFrom, int n) {
+    int end = aFrom + n;
+    if (aFrom == bFrom) {
+      for (int i = aFrom; i < end; i++) {
+        a[i] |= b[i];
+      }
+    } else {
+      int d = bFrom - aFrom;
+      for (int i = aFrom; i < end; i++) {
+        a[i] |= b[i + d];
+      }
+    }
+  }
+
+  /**
+   * a[aFrom+i] |= b[bFrom+i] for 0 <= i < n
+   * 
+   * @return true iff any word of a changed
+   */
+  protected static boolean orWordsWithChange(int[] a, int aFrom, int[] b, int bFrom, int n) {
+    int end = aFrom + n;
+    int d = bFrom - aFrom;
+    int added = 0;
+    for (int i = aFrom; i < end; i++) {
+      int v = a[i];
+      int w = v | b[i + d];
+      a[i] = w;
+      added |= w ^ v;
+    }
+    return added != 0;
+  }
+
+  /**
+   * a[aFrom+i] |= b[bFrom+i] for 0 <= i < n
+   * 
+   * @return the number of bits added to a
+   */
+  protected static int orWordsWithDelta(int[] a, int aFrom, int[] b, int bFrom, int n) {
+    int end = aFrom + n;
+    int d = bFrom - aFrom;
+    int delta = 0;
+    for (int i = aFrom; i < end; i++) {
+      int v = a[i];
+      int w = b[i + d];
+      delta += Integer.bitCount(w & ~v);
+      a[i] = v | w;
+    }
+    return delta;
+  }
+
+  /**
+   * a[aFrom+i] &= b[bFrom+i] for 0 <= i < n
+   */
+  protected static void andWords(int[] a, int aFrom, int[] b, int bFrom, int n) {
+    int end = aFrom + n;
+    if (aFrom == bFrom) {
+      for (int i = aFrom; i < end; i++) {
+        a[i] &= b[i];
+      }
+    } else {
+      int d = bFrom - aFrom;
+      for (int i = aFrom; i < end; i++) {
+        a[i] &= b[i + d];
+      }
+    }
+  }
+
+  /**
+   * a[aFrom+i] &= ~b[bFrom+i] for 0 <= i < n
+   */
+  protected static void andNotWords(int[] a, int aFrom, int[] b, int bFrom, int n) {
+    int end = aFrom + n;
+    if (aFrom == bFrom) {
+      for (int i = aFrom; i < end; i++) {
+        a[i] &= ~b[i];
+      }
+    } else {
+      int d = bFrom - aFrom;
+      for (int i = aFrom; i < end; i++) {
+        a[i] &= ~b[i + d];
+      }
+    }
+  }
+
   public boolean isZero() {
     int setLength = bits.length;
     for (int i = setLength - 1; i >= 0;) {
@@ -99,6 +99,10 @@ public final class BitVectorIntSet implements MutableIntSet {
   public boolean addAll(IntSet set) {
     if (set instanceof BitVectorIntSet) {
       BitVector B = ((BitVectorIntSet) set).bitVector;
+      if (populationCount == UNDEFINED) {
+        // no count to keep up to date
+        return bitVector.orWithChange(B);
+      }
       int delta = bitVector.orWithDelta(B);
       populationCount += delta;
       populationCount = (populationCount == (delta + UNDEFINED)) ? UNDEFINED : populationCount;
@@ -367,9 +371,11 @@ public final class BitVectorIntSet implements MutableIntSet {
       return sameValueInternal((SparseIntSet) that);
     } else if (that instanceof MutableSharedBitVectorIntSet) {
       return sameValue(((MutableSharedBitVectorIntSet) that).makeDenseCopy());
+    } else if (that instanceof RoaringIntSet) {
+      return that.sameValue(this);
     } else {
-      Assertions.UNREACHABLE("unexpected argument type " + that.getClass());
-      return false;
+      // some other implementation, such as a read-only view; compare element by element
+      return size() == that.size() && isSubset(that);
     }
   }
 
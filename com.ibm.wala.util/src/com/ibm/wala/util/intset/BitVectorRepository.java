@@ -10,15 +10,19 @@
  *******************************************************************************/
 package com.ibm.wala.util.intset;
 
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.Map;
-
-import com.ibm.wala.util.collections.HashMapFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * A repository for shared bit vectors as described by Heintze
+ * A repository for shared bit vectors as described by Heintze.
+ * 
+ * Vectors are hash-consed on their contents, so a value that is already in the repository is found by one hash lookup. Failing
+ * that, the most recently added vectors of the few sizes just below the size of the value are searched for a subset of it; the
+ * number of vectors examined is bounded, so the cost of a query does not grow with the repository. The repository may be used
+ * from several threads at once.
  */
 public class BitVectorRepository {
 
@@ -26,13 +30,33 @@ public class BitVectorRepository {
 
   private final static int STATS_WINDOW = 100;
 
-  private static int queries = 0;
+  private final static int SUBSET_DELTA = 5;
 
-  private static int hits = 0;
+  /**
+   * number of the most recently added vectors of each size that are searched for a subset
+   */
+  private final static int MAX_PROBES = 16;
 
-  private final static int SUBSET_DELTA = 5;
+  private final static AtomicLong queries = new AtomicLong();
 
-  final private static Map<Integer, LinkedList<WeakReference<BitVectorIntSet>>> buckets = HashMapFactory.make();
+  private final static AtomicLong exactHits = new AtomicLong();
+
+  private final static AtomicLong subsetHits = new AtomicLong();
+
+  /**
+   * the canonical vectors, each mapped to itself
+   */
+  private final static ConcurrentMap<Entry, Entry> canonical = new ConcurrentHashMap<Entry, Entry>();
+
+  /**
+   * the most recently added vectors of each size
+   */
+  private final static ConcurrentMap<Integer, Probes> bySize = new ConcurrentHashMap<Integer, Probes>();
+
+  /**
+   * entries whose vectors have been collected
+   */
+  private final static ReferenceQueue<BitVectorIntSet> cleared = new ReferenceQueue<BitVectorIntSet>();
 
   /**
    * @param value
@@ -41,68 +65,195 @@ public class BitVectorRepository {
    *         as value, except it may exclude up to SUBSET_DELTA bits.
    * @throws IllegalArgumentException  if value is null
    */
-  public static synchronized BitVectorIntSet findOrCreateSharedSubset(BitVectorIntSet value) {
+  public static BitVectorIntSet findOrCreateSharedSubset(BitVectorIntSet value) {
     if (value == null) {
       throw new IllegalArgumentException("value is null");
     }
-    if (STATS) {
-      queries++;
-      if (queries % STATS_WINDOW == 0) {
-        reportStats();
-      }
+    long q = queries.incrementAndGet();
+    if (STATS && q % STATS_WINDOW == 0) {
+      reportStats();
     }
     int size = value.size();
-    for (int i = size; i > size - SUBSET_DELTA; i--) {
-      LinkedList<WeakReference<BitVectorIntSet>> m = buckets.get(Integer.valueOf(i));
-      if (m != null) {
-        Iterator<WeakReference<BitVectorIntSet>> it = m.iterator();
-        while (it.hasNext()) {
-          WeakReference<BitVectorIntSet> wr = it.next();
-          BitVectorIntSet bv = wr.get();
-          if (bv != null) {
-            if (bv.isSubset(value)) {
-              // FOUND ONE!
-              if (STATS) {
-                hits++;
-              }
-              return bv;            
-            }
-          } else {
-            // remove the weak reference to avoid leaks
-            it.remove();
-          }
+    Entry e = canonical.get(new Entry(value, size, null));
+    if (e != null) {
+      BitVectorIntSet bv = e.get();
+      if (bv != null) {
+        exactHits.incrementAndGet();
+        return bv;
+      }
+    }
+    for (int i = size - 1; i > size - SUBSET_DELTA; i--) {
+      Probes p = bySize.get(Integer.valueOf(i));
+      if (p != null) {
+        BitVectorIntSet bv = p.findSubset(value);
+        if (bv != null) {
+          subsetHits.incrementAndGet();
+          return bv;
         }
       }
     }
     // didn't find one. create one.
-    LinkedList<WeakReference<BitVectorIntSet>> m = buckets.get(size);
-    if (m == null) {
-      m = new LinkedList<WeakReference<BitVectorIntSet>>();
-      buckets.put(size, m);
-    }
+    expungeCleared();
     BitVectorIntSet bv = new BitVectorIntSet(value);
-    m.add(new WeakReference<BitVectorIntSet>(bv));
+    Entry fresh = new Entry(bv, size, cleared);
+    for (Entry old = canonical.putIfAbsent(fresh, fresh); old != null; old = canonical.putIfAbsent(fresh, fresh)) {
+      // another thread added the same value
+      BitVectorIntSet other = old.get();
+      if (other != null) {
+        exactHits.incrementAndGet();
+        return other;
+      }
+      canonical.remove(old, old);
+    }
+    Probes p = bySize.get(Integer.valueOf(size));
+    if (p == null) {
+      Probes np = new Probes();
+      p = bySize.putIfAbsent(Integer.valueOf(size), np);
+      if (p == null) {
+        p = np;
+      }
+    }
+    p.add(fresh);
     return bv;
   }
 
   /**
-   * 
+   * @return the number of queries answered so far
+   */
+  public static long getQueries() {
+    return queries.get();
+  }
+
+  /**
+   * @return the number of queries answered with a vector already in the repository, equal to or a subset of the value
+   */
+  public static long getHits() {
+    return exactHits.get() + subsetHits.get();
+  }
+
+  /**
+   * @return the number of queries answered with a vector already in the repository that was equal to the value
+   */
+  public static long getExactHits() {
+    return exactHits.get();
+  }
+
+  /**
+   * @return the fraction of queries answered with a vector already in the repository, or 0 if there have been no queries
+   */
+  public static double getSharingRatio() {
+    long q = queries.get();
+    return q == 0 ? 0.0 : (double) getHits() / q;
+  }
+
+  /**
+   * @return the number of vectors in the repository. Vectors that have been collected may still be counted.
    */
+  public static int getNumberOfEntries() {
+    expungeCleared();
+    return canonical.size();
+  }
+
   private static void reportStats() {
-    double percent = 100.0 * hits / queries;
-    System.err.println(("BitVectorRepository: queries " + queries + " hits " + percent));
-    System.err.println(("                     entries " + countEntries()));
+    System.err.println(("BitVectorRepository: queries " + getQueries() + " hits " + (100.0 * getSharingRatio()) + "% (exact "
+        + getExactHits() + ")"));
+    System.err.println(("                     entries " + getNumberOfEntries()));
   }
 
   /**
+   * remove the entries whose vectors have been collected, to avoid leaks
    */
-  private static int countEntries() {
-    int result = 0;
-    for (LinkedList<WeakReference<BitVectorIntSet>> l : buckets.values()) {
-      // don't worry about cleared WeakReferences; count will be rough
-      result += l.size();
+  private static void expungeCleared() {
+    for (Object e = cleared.poll(); e != null; e = cleared.poll()) {
+      canonical.remove(e, e);
     }
-    return result;
   }
 
-}
\ No newline at end of file
+  /**
+   * a hash of the bits of v that does not depend on the length of its array
+   */
+  private static int contentHash(BitVector v) {
+    int[] bits = v.bits;
+    int last = bits.length - 1;
+    while (last >= 0 && bits[last] == 0) {
+      last--;
+    }
+    int h = 0;
+    for (int i = 0; i <= last; i++) {
+      h = 31 * h + bits[i];
+    }
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * A weak reference to a vector, equal to another for the same contents. Once the vector is collected, the entry is equal only
+   * to itself, so it can still be removed from the map.
+   */
+  private final static class Entry extends WeakReference<BitVectorIntSet> {
+    private final int hash;
+
+    private final int size;
+
+    Entry(BitVectorIntSet bv, int size, ReferenceQueue<BitVectorIntSet> q) {
+      super(bv, q);
+      this.hash = contentHash(bv.getBitVector());
+      this.size = size;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry other = (Entry) o;
+      if (hash != other.hash || size != other.size) {
+        return false;
+      }
+      BitVectorIntSet a = get();
+      BitVectorIntSet b = other.get();
+      return a != null && b != null && a.getBitVector().sameBits(b.getBitVector());
+    }
+  }
+
+  /**
+   * The most recently added vectors of one size, in a ring of MAX_PROBES entries. Older vectors of the size stay in the repository,
+   * and can still be found by value, but are no longer searched for subsets.
+   */
+  private final static class Probes {
+    private final Entry[] ring = new Entry[MAX_PROBES];
+
+    private int next = 0;
+
+    synchronized void add(Entry e) {
+      ring[next] = e;
+      next = (next + 1) % MAX_PROBES;
+    }
+
+    /**
+     * @return a vector that is a subset of value, or null
+     */
+    BitVectorIntSet findSubset(BitVectorIntSet value) {
+      Entry[] snapshot;
+      synchronized (this) {
+        snapshot = ring.clone();
+      }
+      for (Entry e : snapshot) {
+        if (e != null) {
+          BitVectorIntSet bv = e.get();
+          if (bv != null && bv.isSubset(value)) {
+            return bv;
+          }
+        }
+      }
+      return null;
+    }
+  }
+}
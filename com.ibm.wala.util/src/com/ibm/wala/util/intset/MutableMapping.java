@@ -13,10 +13,9 @@ package com.ibm.wala.util.intset;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Iterator;
 
-import com.ibm.wala.util.collections.HashMapFactory;
+import com.ibm.wala.util.collections.ObjectIntHashMap;
 
 /**
  * A bit set mapping based on an object array. This is not terribly efficient, but is useful for prototyping.
@@ -36,9 +35,9 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
   private int nextIndex = 0;
 
   /**
-   * A mapping from object to Integer.
+   * A mapping from object to index; -1 for objects not mapped.
    */
-  final HashMap<T, Integer> map = HashMapFactory.make();
+  final ObjectIntHashMap<T> map = new ObjectIntHashMap<T>();
 
   /**
    * @throws IllegalArgumentException if array is null
@@ -51,7 +50,7 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
     this.array = new Object[2 * array.length];
     for (int i = 0; i < array.length; i++) {
       this.array[i] = array[i];
-      map.put((T) array[i], Integer.valueOf(i));
+      map.put((T) array[i], i);
     }
     nextIndex = array.length;
   }
@@ -73,18 +72,12 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
 
   @Override
   public int getMappedIndex(Object o) {
-    Integer I = map.get(o);
-    if (I == null) {
-      return -1;
-    } else {
-      return I.intValue();
-    }
-
+    return map.get(o);
   }
 
   @Override
   public boolean hasMappedIndex(T o) {
-    return map.get(o) != null;
+    return map.containsKey(o);
   }
 
   /**
@@ -94,11 +87,10 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
    */
   @Override
   public int add(T o) {
-    Integer I = map.get(o);
-    if (I != null) {
-      return I.intValue();
+    int index = map.putIfAbsent(o, nextIndex);
+    if (index != -1) {
+      return index;
     }
-    map.put(o, new Integer(nextIndex));
     if (nextIndex >= array.length) {
       Object[] old = array;
       array = new Object[2 * array.length];
@@ -123,7 +115,7 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
    */
   @Override
   public Iterator<T> iterator() {
-    return map.keySet().iterator();
+    return map.keyIterator();
   }
 
   /*
@@ -157,7 +149,7 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
       throw new IllegalArgumentException("first element does not exist in map");
     }
     map.remove(a);
-    map.put(b, new Integer(i));
+    map.put(b, i);
     array[i] = b;
   }
 
@@ -169,8 +161,7 @@ public class MutableMapping<T> implements OrdinalSetMapping<T>, Serializable {
     if (i < 0 || i > MAX_SIZE) {
       throw new IllegalArgumentException("invalid i: " + i);
     }
-    Integer I = Integer.valueOf(i);
-    map.put(o, I);
+    map.put(o, i);
     if (i >= array.length) {
       Object[] old = array;
       array = new Object[2 * i];
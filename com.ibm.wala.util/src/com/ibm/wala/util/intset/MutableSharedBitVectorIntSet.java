@@ -353,9 +353,11 @@ public class MutableSharedBitVectorIntSet implements MutableIntSet {
       return sameValue((BitVectorIntSet) that);
     } else if (that instanceof SemiSparseMutableIntSet) {
       return that.sameValue(this);
+    } else if (that instanceof RoaringIntSet) {
+      return that.sameValue(this);
     } else {
-      Assertions.UNREACHABLE("unexpected class " + that.getClass());
-      return false;
+      // some other implementation, such as a read-only view; compare element by element
+      return size() == that.size() && isSubset(that);
     }
   }
 
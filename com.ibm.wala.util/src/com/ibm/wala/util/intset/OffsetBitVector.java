@@ -10,6 +10,8 @@
  *******************************************************************************/
 package com.ibm.wala.util.intset;
 
+import java.util.Arrays;
+
 /**
  */
 public final class OffsetBitVector extends BitVectorBase<OffsetBitVector> {
@@ -387,19 +389,13 @@ public final class OffsetBitVector extends BitVectorBase<OffsetBitVector> {
     int wordDiff = wordDiff(offset, set.offset);
     int maxWord = Math.min(bits.length, set.bits.length - wordDiff);
 
-    int i = 0;
-
-    for (; i < -wordDiff; i++) {
-      bits[i] = 0;
-    }
-
-    for (; i < maxWord; i++) {
-      bits[i] &= set.bits[i + wordDiff];
-    }
-
-    for (; i < bits.length; i++) {
-      bits[i] = 0;
+    int i = Math.min(bits.length, Math.max(0, -wordDiff));
+    Arrays.fill(bits, 0, i, 0);
+    if (maxWord > i) {
+      andWords(bits, i, set.bits, i + wordDiff, maxWord - i);
+      i = maxWord;
     }
+    Arrays.fill(bits, i, bits.length, 0);
   }
 
   /**
@@ -422,10 +418,7 @@ public final class OffsetBitVector extends BitVectorBase<OffsetBitVector> {
     ensureCapacity(newOffset, newCapacity);
 
     int wordDiff = wordDiff(newOffset, set.offset);
-
-    for (int i = 0; i < set.bits.length; i++) {
-      bits[i - wordDiff] |= set.bits[i];
-    }
+    orWords(bits, -wordDiff, set.bits, 0, set.bits.length);
   }
 
   /**
@@ -469,9 +462,8 @@ public final class OffsetBitVector extends BitVectorBase<OffsetBitVector> {
     int maxWord = Math.min(bits.length, set.bits.length - wordDiff);
 
     int i = Math.max(0, -wordDiff);
-
-    for (; i < maxWord; i++) {
-      bits[i] &= ~set.bits[i + wordDiff];
+    if (maxWord > i) {
+      andNotWords(bits, i, set.bits, i + wordDiff, maxWord - i);
     }
   }
 
@@ -0,0 +1,1372 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.intset;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A {@link MutableIntSet} of non-negative integers, compressed in the manner of Roaring bitmaps (Chambi, Lemire, Kaser and
+ * Godin, "Better bitmap performance with Roaring bitmaps", Software: Practice and Experience, 2016).
+ * 
+ * The integers are grouped into chunks of 2^16 by their high 16 bits, and each chunk holds the low 16 bits of its integers in a
+ * container: a sorted array while the chunk has at most {@link #MAX_ARRAY} elements, a bitmap of 2^16 bits when it has more, or
+ * a list of runs of consecutive integers when that is smaller than either. So the space of a set is about proportional to its
+ * size, whatever its largest element, and adding an element copies at most one array container, never the whole set. Binary
+ * operations on two {@link RoaringIntSet}s work chunk by chunk, on words of a bitmap at a time when one of the containers is a
+ * bitmap.
+ * 
+ * Adding and removing single elements keeps array and bitmap containers; runs are made by {@link #runOptimize()} and by operations
+ * that compute a new container, such as unions that overflow an array.
+ */
+public class RoaringIntSet implements MutableIntSet {
+
+  private static final long serialVersionUID = -3407208452178306342L;
+
+  /**
+   * the largest number of elements of an array container
+   */
+  public final static int MAX_ARRAY = 4096;
+
+  /**
+   * number of longs in a bitmap container
+   */
+  private final static int WORDS = 1 << 10;
+
+  private final static char[] NO_KEYS = new char[0];
+
+  private final static Container[] NO_CONTAINERS = new Container[0];
+
+  /**
+   * high 16 bits of the integers of each chunk, in increasing order
+   */
+  private char[] keys = NO_KEYS;
+
+  /**
+   * containers of the low 16 bits of each chunk; none is empty
+   */
+  private Container[] containers = NO_CONTAINERS;
+
+  /**
+   * number of chunks
+   */
+  private int chunks = 0;
+
+  public RoaringIntSet() {
+  }
+
+  public RoaringIntSet(RoaringIntSet set) throws IllegalArgumentException {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    copySet(set);
+  }
+
+  private static int high(int i) {
+    return i >>> 16;
+  }
+
+  private static int low(int i) {
+    return i & 0xFFFF;
+  }
+
+  private int chunkIndex(int key) {
+    return Arrays.binarySearch(keys, 0, chunks, (char) key);
+  }
+
+  private void insertChunk(int index, int key, Container c) {
+    if (chunks == keys.length) {
+      int capacity = Math.max(1, chunks * 2);
+      keys = Arrays.copyOf(keys, capacity);
+      containers = Arrays.copyOf(containers, capacity);
+    }
+    System.arraycopy(keys, index, keys, index + 1, chunks - index);
+    System.arraycopy(containers, index, containers, index + 1, chunks - index);
+    keys[index] = (char) key;
+    containers[index] = c;
+    chunks++;
+  }
+
+  private void removeChunk(int index) {
+    System.arraycopy(keys, index + 1, keys, index, chunks - index - 1);
+    System.arraycopy(containers, index + 1, containers, index, chunks - index - 1);
+    containers[--chunks] = null;
+  }
+
+  /**
+   * append a chunk with a key larger than those of all chunks
+   */
+  private void appendChunk(int key, Container c) {
+    insertChunk(chunks, key, c);
+  }
+
+  @Override
+  public boolean contains(int i) {
+    if (i < 0) {
+      return false;
+    }
+    int k = chunkIndex(high(i));
+    return k >= 0 && containers[k].contains(low(i));
+  }
+
+  /**
+   * @throws IllegalArgumentException if i is negative
+   */
+  @Override
+  public boolean add(int i) throws IllegalArgumentException {
+    if (i < 0) {
+      throw new IllegalArgumentException("negative element " + i);
+    }
+    int k = chunkIndex(high(i));
+    if (k < 0) {
+      ArrayContainer c = new ArrayContainer(new char[4], 0);
+      c.add(low(i));
+      insertChunk(-k - 1, high(i), c);
+      return true;
+    }
+    Container c = containers[k];
+    int before = c.cardinality();
+    c = c.add(low(i));
+    containers[k] = c;
+    return c.cardinality() != before;
+  }
+
+  @Override
+  public boolean remove(int i) {
+    if (i < 0) {
+      return false;
+    }
+    int k = chunkIndex(high(i));
+    if (k < 0) {
+      return false;
+    }
+    Container c = containers[k];
+    int before = c.cardinality();
+    c = c.remove(low(i));
+    if (c.cardinality() == 0) {
+      removeChunk(k);
+    } else {
+      containers[k] = c;
+    }
+    return c.cardinality() != before;
+  }
+
+  @Override
+  public void clear() {
+    keys = NO_KEYS;
+    containers = NO_CONTAINERS;
+    chunks = 0;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return chunks == 0;
+  }
+
+  @Override
+  public int size() {
+    int result = 0;
+    for (int k = 0; k < chunks; k++) {
+      result += containers[k].cardinality();
+    }
+    return result;
+  }
+
+  /**
+   * @return the largest element, or -1 if this is empty
+   */
+  @Override
+  public int max() {
+    if (chunks == 0) {
+      return -1;
+    }
+    return (keys[chunks - 1] << 16) | containers[chunks - 1].last();
+  }
+
+  @Override
+  public void copySet(IntSet set) throws IllegalArgumentException {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (set == this) {
+      return;
+    }
+    if (set instanceof RoaringIntSet) {
+      RoaringIntSet that = (RoaringIntSet) set;
+      keys = Arrays.copyOf(that.keys, that.chunks);
+      containers = new Container[that.chunks];
+      for (int k = 0; k < that.chunks; k++) {
+        containers[k] = that.containers[k].copy();
+      }
+      chunks = that.chunks;
+    } else {
+      clear();
+      addAll(set);
+    }
+  }
+
+  /**
+   * @throws IllegalArgumentException if set is null or contains a negative element
+   */
+  @Override
+  public boolean addAll(IntSet set) throws IllegalArgumentException {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (set instanceof RoaringIntSet) {
+      return addAll((RoaringIntSet) set);
+    }
+    boolean changed = false;
+    for (IntIterator it = set.intIterator(); it.hasNext();) {
+      changed |= add(it.next());
+    }
+    return changed;
+  }
+
+  private boolean addAll(RoaringIntSet that) {
+    if (that == this) {
+      return false;
+    }
+    int newKeys = 0;
+    for (int i = 0, j = 0; j < that.chunks;) {
+      if (i == chunks || that.keys[j] < keys[i]) {
+        newKeys++;
+        j++;
+      } else if (that.keys[j] == keys[i]) {
+        i++;
+        j++;
+      } else {
+        i++;
+      }
+    }
+    boolean changed = newKeys > 0;
+    if (newKeys == 0) {
+      // every chunk of that is a chunk of this: merge in place
+      for (int i = 0, j = 0; j < that.chunks; i++) {
+        if (keys[i] == that.keys[j]) {
+          Container c = containers[i];
+          int before = c.cardinality();
+          c = c.or(that.containers[j]);
+          containers[i] = c;
+          changed |= c.cardinality() != before;
+          j++;
+        }
+      }
+    } else {
+      int capacity = chunks + newKeys;
+      char[] mergedKeys = new char[capacity];
+      Container[] merged = new Container[capacity];
+      int n = 0;
+      int i = 0;
+      int j = 0;
+      while (i < chunks || j < that.chunks) {
+        if (j == that.chunks || (i < chunks && keys[i] < that.keys[j])) {
+          mergedKeys[n] = keys[i];
+          merged[n++] = containers[i++];
+        } else if (i == chunks || that.keys[j] < keys[i]) {
+          mergedKeys[n] = that.keys[j];
+          merged[n++] = that.containers[j++].copy();
+        } else {
+          mergedKeys[n] = keys[i];
+          merged[n++] = containers[i++].or(that.containers[j++]);
+        }
+      }
+      keys = mergedKeys;
+      containers = merged;
+      chunks = n;
+    }
+    return changed;
+  }
+
+  @Override
+  public IntSet union(IntSet that) {
+    RoaringIntSet result = new RoaringIntSet(this);
+    result.addAll(that);
+    return result;
+  }
+
+  @Override
+  public IntSet intersection(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that == null");
+    }
+    RoaringIntSet result = new RoaringIntSet();
+    if (that instanceof RoaringIntSet) {
+      RoaringIntSet other = (RoaringIntSet) that;
+      for (int i = 0, j = 0; i < chunks && j < other.chunks;) {
+        if (keys[i] < other.keys[j]) {
+          i++;
+        } else if (other.keys[j] < keys[i]) {
+          j++;
+        } else {
+          Container c = containers[i].and(other.containers[j]);
+          if (c.cardinality() > 0) {
+            result.appendChunk(keys[i], c);
+          }
+          i++;
+          j++;
+        }
+      }
+    } else {
+      // elements come in increasing order, so each is added to the last chunk
+      for (IntIterator it = intIterator(); it.hasNext();) {
+        int x = it.next();
+        if (that.contains(x)) {
+          result.add(x);
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void intersectWith(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    RoaringIntSet result = (RoaringIntSet) intersection(set);
+    keys = result.keys;
+    containers = result.containers;
+    chunks = result.chunks;
+  }
+
+  @Override
+  public boolean addAllInIntersection(IntSet other, IntSet filter) {
+    if (other == null) {
+      throw new IllegalArgumentException("other == null");
+    }
+    if (filter == null) {
+      throw new IllegalArgumentException("filter == null");
+    }
+    if (other instanceof RoaringIntSet && filter instanceof RoaringIntSet) {
+      return addAll(((RoaringIntSet) other).intersection(filter));
+    }
+    boolean changed = false;
+    for (IntIterator it = other.intIterator(); it.hasNext();) {
+      int x = it.next();
+      if (filter.contains(x)) {
+        changed |= add(x);
+      }
+    }
+    return changed;
+  }
+
+  @Override
+  public boolean containsAny(IntSet set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set == null");
+    }
+    if (set instanceof RoaringIntSet) {
+      RoaringIntSet that = (RoaringIntSet) set;
+      for (int i = 0, j = 0; i < chunks && j < that.chunks;) {
+        if (keys[i] < that.keys[j]) {
+          i++;
+        } else if (that.keys[j] < keys[i]) {
+          j++;
+        } else {
+          if (containers[i].intersects(that.containers[j])) {
+            return true;
+          }
+          i++;
+          j++;
+        }
+      }
+      return false;
+    }
+    for (IntIterator it = set.intIterator(); it.hasNext();) {
+      if (contains(it.next())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean isSubset(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that == null");
+    }
+    if (that instanceof RoaringIntSet) {
+      RoaringIntSet other = (RoaringIntSet) that;
+      int j = 0;
+      for (int i = 0; i < chunks; i++) {
+        while (j < other.chunks && other.keys[j] < keys[i]) {
+          j++;
+        }
+        if (j == other.chunks || other.keys[j] != keys[i] || !containers[i].isSubsetOf(other.containers[j])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (size() > that.size()) {
+      return false;
+    }
+    for (IntIterator it = intIterator(); it.hasNext();) {
+      if (!that.contains(it.next())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public boolean sameValue(IntSet that) {
+    if (that == null) {
+      throw new IllegalArgumentException("that == null");
+    }
+    if (that instanceof RoaringIntSet) {
+      RoaringIntSet other = (RoaringIntSet) that;
+      if (chunks != other.chunks) {
+        return false;
+      }
+      for (int k = 0; k < chunks; k++) {
+        if (keys[k] != other.keys[k] || containers[k].cardinality() != other.containers[k].cardinality()
+            || !containers[k].isSubsetOf(other.containers[k])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return size() == that.size() && isSubset(that);
+  }
+
+  @Override
+  public IntIterator intIterator() {
+    return new IntIterator() {
+      private int k = 0;
+
+      private IntIterator current = chunks == 0 ? null : containers[0].iterator(keys[0] << 16);
+
+      @Override
+      public boolean hasNext() {
+        while (current != null && !current.hasNext()) {
+          k++;
+          current = k < chunks ? containers[k].iterator(keys[k] << 16) : null;
+        }
+        return current != null;
+      }
+
+      @Override
+      public int next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return current.next();
+      }
+    };
+  }
+
+  @Override
+  public void foreach(IntSetAction action) {
+    if (action == null) {
+      throw new IllegalArgumentException("null action");
+    }
+    for (int k = 0; k < chunks; k++) {
+      containers[k].foreach(keys[k] << 16, action);
+    }
+  }
+
+  @Override
+  public void foreachExcluding(IntSet X, IntSetAction action) {
+    if (action == null) {
+      throw new IllegalArgumentException("null action");
+    }
+    for (IntIterator it = intIterator(); it.hasNext();) {
+      int x = it.next();
+      if (!X.contains(x)) {
+        action.act(x);
+      }
+    }
+  }
+
+  /**
+   * Replace each container that is larger than the runs of its elements by a list of the runs.
+   */
+  public void runOptimize() {
+    for (int k = 0; k < chunks; k++) {
+      containers[k] = containers[k].runOptimize();
+    }
+  }
+
+  /**
+   * @return the number of containers of each kind: arrays, bitmaps and runs
+   */
+  public int[] getContainerCounts() {
+    int[] result = new int[3];
+    for (int k = 0; k < chunks; k++) {
+      if (containers[k] instanceof ArrayContainer) {
+        result[0]++;
+      } else if (containers[k] instanceof BitmapContainer) {
+        result[1]++;
+      } else {
+        result[2]++;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    StringBuffer sb = new StringBuffer("{ ");
+    for (IntIterator it = intIterator(); it.hasNext();) {
+      sb.append(it.next());
+      sb.append(" ");
+    }
+    sb.append("}");
+    return sb.toString();
+  }
+
+  /**
+   * @return the cheapest container for the bits of words, which must not all be zero. The container may use words.
+   */
+  private static Container bestContainer(long[] words) {
+    int card = 0;
+    for (int i = 0; i < WORDS; i++) {
+      card += Long.bitCount(words[i]);
+    }
+    int runs = BitmapContainer.numberOfRuns(words);
+    if (4 * runs < Math.min(2 * card, 8 * WORDS)) {
+      return RunContainer.fromWords(words, runs);
+    } else if (card <= MAX_ARRAY) {
+      return ArrayContainer.fromWords(words, card);
+    } else {
+      return new BitmapContainer(words, card);
+    }
+  }
+
+  /**
+   * set the bits from start to end, inclusive
+   */
+  private static void setRange(long[] words, int start, int end) {
+    int first = start >>> 6;
+    int last = end >>> 6;
+    long firstMask = -1L << start;
+    long lastMask = -1L >>> (63 - (end & 63));
+    if (first == last) {
+      words[first] |= firstMask & lastMask;
+    } else {
+      words[first] |= firstMask;
+      for (int i = first + 1; i < last; i++) {
+        words[i] = -1L;
+      }
+      words[last] |= lastMask;
+    }
+  }
+
+  /**
+   * The low 16 bits of the elements of one chunk. Operations that may change the kind of container return the container that
+   * holds the result, which may be this one.
+   */
+  private static abstract class Container implements Serializable {
+
+    private static final long serialVersionUID = 2468735246139870557L;
+
+    abstract int cardinality();
+
+    abstract boolean contains(int x);
+
+    abstract Container add(int x);
+
+    abstract Container remove(int x);
+
+    /**
+     * @return a container holding the union of this and c; c is not changed
+     */
+    abstract Container or(Container c);
+
+    /**
+     * @return a new container holding the intersection of this and c, perhaps empty
+     */
+    abstract Container and(Container c);
+
+    abstract boolean intersects(Container c);
+
+    /**
+     * @return true iff this contains some element from start to end, inclusive
+     */
+    abstract boolean intersectsRange(int start, int end);
+
+    /**
+     * @return true iff this contains every element from start to end, inclusive
+     */
+    abstract boolean containsRange(int start, int end);
+
+    abstract boolean isSubsetOf(Container c);
+
+    /**
+     * set the bit of each element in words
+     */
+    abstract void orInto(long[] words);
+
+    abstract int last();
+
+    abstract Container copy();
+
+    abstract Container runOptimize();
+
+    abstract void foreach(int base, IntSetAction action);
+
+    abstract IntIterator iterator(int base);
+  }
+
+  private static final class ArrayContainer extends Container {
+
+    private static final long serialVersionUID = 7193367328542718346L;
+
+    private char[] values;
+
+    private int card;
+
+    ArrayContainer(char[] values, int card) {
+      this.values = values;
+      this.card = card;
+    }
+
+    static ArrayContainer fromWords(long[] words, int card) {
+      char[] values = new char[card];
+      int n = 0;
+      for (int i = 0; i < WORDS; i++) {
+        for (long w = words[i]; w != 0; w &= w - 1) {
+          values[n++] = (char) ((i << 6) + Long.numberOfTrailingZeros(w));
+        }
+      }
+      return new ArrayContainer(values, card);
+    }
+
+    private int indexOf(int x) {
+      return Arrays.binarySearch(values, 0, card, (char) x);
+    }
+
+    /**
+     * Is one of this and a so much smaller that searching the other for each of its elements beats a merge?
+     */
+    private boolean isLopsided(ArrayContainer a) {
+      return 16 * card < a.card || 16 * a.card < card;
+    }
+
+    /**
+     * @return the number of elements of this in a
+     */
+    private int countIn(ArrayContainer a) {
+      int count = 0;
+      if (isLopsided(a)) {
+        for (int i = 0; i < card; i++) {
+          if (a.indexOf(values[i]) >= 0) {
+            count++;
+          }
+        }
+      } else {
+        for (int i = 0, j = 0; i < card && j < a.card;) {
+          if (values[i] < a.values[j]) {
+            i++;
+          } else if (a.values[j] < values[i]) {
+            j++;
+          } else {
+            count++;
+            i++;
+            j++;
+          }
+        }
+      }
+      return count;
+    }
+
+    @Override
+    int cardinality() {
+      return card;
+    }
+
+    @Override
+    boolean contains(int x) {
+      return indexOf(x) >= 0;
+    }
+
+    @Override
+    Container add(int x) {
+      int i = indexOf(x);
+      if (i >= 0) {
+        return this;
+      }
+      if (card == MAX_ARRAY) {
+        BitmapContainer b = toBitmap();
+        b.add(x);
+        return b;
+      }
+      i = -i - 1;
+      if (card == values.length) {
+        values = Arrays.copyOf(values, Math.min(MAX_ARRAY, Math.max(4, 2 * card)));
+      }
+      System.arraycopy(values, i, values, i + 1, card - i);
+      values[i] = (char) x;
+      card++;
+      return this;
+    }
+
+    @Override
+    Container remove(int x) {
+      int i = indexOf(x);
+      if (i >= 0) {
+        System.arraycopy(values, i + 1, values, i, card - i - 1);
+        card--;
+      }
+      return this;
+    }
+
+    @Override
+    Container or(Container c) {
+      if (c instanceof ArrayContainer) {
+        ArrayContainer a = (ArrayContainer) c;
+        int added = a.card - a.countIn(this);
+        if (added == 0) {
+          return this;
+        }
+        if (card + added <= MAX_ARRAY) {
+          if (card + added > values.length) {
+            values = Arrays.copyOf(values, Math.min(MAX_ARRAY, Math.max(card + added, 2 * card)));
+          }
+          // merge from the back, so the elements of this move at most once
+          int i = card - 1;
+          int j = a.card - 1;
+          for (int n = card + added - 1; j >= 0; n--) {
+            if (i >= 0 && values[i] > a.values[j]) {
+              values[n] = values[i--];
+            } else {
+              if (i >= 0 && values[i] == a.values[j]) {
+                i--;
+              }
+              values[n] = a.values[j--];
+            }
+          }
+          card += added;
+          return this;
+        }
+      } else if (c instanceof BitmapContainer) {
+        BitmapContainer b = (BitmapContainer) c.copy();
+        for (int i = 0; i < card; i++) {
+          b.add(values[i]);
+        }
+        return b;
+      }
+      long[] words = new long[WORDS];
+      orInto(words);
+      c.orInto(words);
+      return bestContainer(words);
+    }
+
+    @Override
+    Container and(Container c) {
+      char[] result = new char[Math.min(card, c.cardinality())];
+      int n = 0;
+      if (c instanceof ArrayContainer && !isLopsided((ArrayContainer) c)) {
+        ArrayContainer a = (ArrayContainer) c;
+        for (int i = 0, j = 0; i < card && j < a.card;) {
+          if (values[i] < a.values[j]) {
+            i++;
+          } else if (a.values[j] < values[i]) {
+            j++;
+          } else {
+            result[n++] = values[i++];
+            j++;
+          }
+        }
+      } else if (c instanceof ArrayContainer && ((ArrayContainer) c).card < card) {
+        return c.and(this);
+      } else {
+        for (int i = 0; i < card; i++) {
+          if (c.contains(values[i])) {
+            result[n++] = values[i];
+          }
+        }
+      }
+      return new ArrayContainer(result, n);
+    }
+
+    @Override
+    boolean intersects(Container c) {
+      if (c instanceof ArrayContainer) {
+        ArrayContainer a = (ArrayContainer) c;
+        if (isLopsided(a)) {
+          return a.card < card ? a.countIn(this) > 0 : countIn(a) > 0;
+        }
+        for (int i = 0, j = 0; i < card && j < a.card;) {
+          if (values[i] < a.values[j]) {
+            i++;
+          } else if (a.values[j] < values[i]) {
+            j++;
+          } else {
+            return true;
+          }
+        }
+        return false;
+      }
+      for (int i = 0; i < card; i++) {
+        if (c.contains(values[i])) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean intersectsRange(int start, int end) {
+      int i = indexOf(start);
+      if (i >= 0) {
+        return true;
+      }
+      i = -i - 1;
+      return i < card && values[i] <= end;
+    }
+
+    @Override
+    boolean containsRange(int start, int end) {
+      int i = indexOf(start);
+      if (i < 0) {
+        return false;
+      }
+      // the values are distinct and sorted
+      int j = i + end - start;
+      return j < card && values[j] == end;
+    }
+
+    @Override
+    boolean isSubsetOf(Container c) {
+      if (card > c.cardinality()) {
+        return false;
+      }
+      for (int i = 0; i < card; i++) {
+        if (!c.contains(values[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    void orInto(long[] words) {
+      for (int i = 0; i < card; i++) {
+        int v = values[i];
+        words[v >>> 6] |= 1L << v;
+      }
+    }
+
+    @Override
+    int last() {
+      return values[card - 1];
+    }
+
+    @Override
+    Container copy() {
+      return new ArrayContainer(Arrays.copyOf(values, card), card);
+    }
+
+    @Override
+    Container runOptimize() {
+      int runs = 0;
+      for (int i = 0; i < card; i++) {
+        if (i == 0 || values[i] != values[i - 1] + 1) {
+          runs++;
+        }
+      }
+      if (4 * runs >= 2 * card) {
+        return this;
+      }
+      long[] words = new long[WORDS];
+      orInto(words);
+      return RunContainer.fromWords(words, runs);
+    }
+
+    BitmapContainer toBitmap() {
+      long[] words = new long[WORDS];
+      orInto(words);
+      return new BitmapContainer(words, card);
+    }
+
+    @Override
+    void foreach(int base, IntSetAction action) {
+      for (int i = 0; i < card; i++) {
+        action.act(base + values[i]);
+      }
+    }
+
+    @Override
+    IntIterator iterator(final int base) {
+      return new IntIterator() {
+        private int i = 0;
+
+        @Override
+        public boolean hasNext() {
+          return i < card;
+        }
+
+        @Override
+        public int next() {
+          return base + values[i++];
+        }
+      };
+    }
+  }
+
+  private static final class BitmapContainer extends Container {
+
+    private static final long serialVersionUID = -2279405126352707325L;
+
+    private final long[] words;
+
+    private int card;
+
+    BitmapContainer(long[] words, int card) {
+      this.words = words;
+      this.card = card;
+    }
+
+    /**
+     * @return the number of runs of set bits in words
+     */
+    static int numberOfRuns(long[] words) {
+      int runs = 0;
+      long previous = 0;
+      for (int i = 0; i < WORDS; i++) {
+        long w = words[i];
+        // a run starts at each set bit whose predecessor is clear
+        runs += Long.bitCount(w & ~((w << 1) | (previous >>> 63)));
+        previous = w;
+      }
+      return runs;
+    }
+
+    @Override
+    int cardinality() {
+      return card;
+    }
+
+    @Override
+    boolean contains(int x) {
+      return (words[x >>> 6] & (1L << x)) != 0;
+    }
+
+    @Override
+    Container add(int x) {
+      long w = words[x >>> 6];
+      long n = w | (1L << x);
+      if (n != w) {
+        words[x >>> 6] = n;
+        card++;
+      }
+      return this;
+    }
+
+    @Override
+    Container remove(int x) {
+      long w = words[x >>> 6];
+      long n = w & ~(1L << x);
+      if (n != w) {
+        words[x >>> 6] = n;
+        card--;
+        if (card <= MAX_ARRAY) {
+          return ArrayContainer.fromWords(words, card);
+        }
+      }
+      return this;
+    }
+
+    @Override
+    Container or(Container c) {
+      if (c instanceof ArrayContainer) {
+        ArrayContainer a = (ArrayContainer) c;
+        for (int i = 0; i < a.card; i++) {
+          add(a.values[i]);
+        }
+      } else {
+        c.orInto(words);
+        card = 0;
+        for (int i = 0; i < WORDS; i++) {
+          card += Long.bitCount(words[i]);
+        }
+      }
+      return this;
+    }
+
+    @Override
+    Container and(Container c) {
+      if (c instanceof BitmapContainer) {
+        long[] result = new long[WORDS];
+        long[] other = ((BitmapContainer) c).words;
+        int n = 0;
+        for (int i = 0; i < WORDS; i++) {
+          result[i] = words[i] & other[i];
+          n += Long.bitCount(result[i]);
+        }
+        return n == 0 ? new ArrayContainer(new char[0], 0) : bestContainer(result);
+      }
+      return c.and(this);
+    }
+
+    @Override
+    boolean intersects(Container c) {
+      if (c instanceof BitmapContainer) {
+        long[] other = ((BitmapContainer) c).words;
+        for (int i = 0; i < WORDS; i++) {
+          if ((words[i] & other[i]) != 0) {
+            return true;
+          }
+        }
+        return false;
+      }
+      return c.intersects(this);
+    }
+
+    @Override
+    boolean intersectsRange(int start, int end) {
+      int first = start >>> 6;
+      int last = end >>> 6;
+      long firstMask = -1L << start;
+      long lastMask = -1L >>> (63 - (end & 63));
+      if (first == last) {
+        return (words[first] & firstMask & lastMask) != 0;
+      }
+      if ((words[first] & firstMask) != 0 || (words[last] & lastMask) != 0) {
+        return true;
+      }
+      for (int i = first + 1; i < last; i++) {
+        if (words[i] != 0) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean containsRange(int start, int end) {
+      int first = start >>> 6;
+      int last = end >>> 6;
+      long firstMask = -1L << start;
+      long lastMask = -1L >>> (63 - (end & 63));
+      if (first == last) {
+        long mask = firstMask & lastMask;
+        return (words[first] & mask) == mask;
+      }
+      if ((words[first] & firstMask) != firstMask || (words[last] & lastMask) != lastMask) {
+        return false;
+      }
+      for (int i = first + 1; i < last; i++) {
+        if (words[i] != -1L) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    boolean isSubsetOf(Container c) {
+      if (card > c.cardinality()) {
+        return false;
+      }
+      if (c instanceof BitmapContainer) {
+        long[] other = ((BitmapContainer) c).words;
+        for (int i = 0; i < WORDS; i++) {
+          if ((words[i] & ~other[i]) != 0) {
+            return false;
+          }
+        }
+        return true;
+      }
+      for (int i = 0; i < WORDS; i++) {
+        for (long w = words[i]; w != 0; w &= w - 1) {
+          if (!c.contains((i << 6) + Long.numberOfTrailingZeros(w))) {
+            return false;
+          }
+        }
+      }
+      return true;
+    }
+
+    @Override
+    void orInto(long[] other) {
+      for (int i = 0; i < WORDS; i++) {
+        other[i] |= words[i];
+      }
+    }
+
+    @Override
+    int last() {
+      for (int i = WORDS - 1;; i--) {
+        if (words[i] != 0) {
+          return (i << 6) + 63 - Long.numberOfLeadingZeros(words[i]);
+        }
+      }
+    }
+
+    @Override
+    Container copy() {
+      return new BitmapContainer(words.clone(), card);
+    }
+
+    @Override
+    Container runOptimize() {
+      int runs = numberOfRuns(words);
+      return 4 * runs < 8 * WORDS ? RunContainer.fromWords(words, runs) : this;
+    }
+
+    @Override
+    void foreach(int base, IntSetAction action) {
+      for (int i = 0; i < WORDS; i++) {
+        for (long w = words[i]; w != 0; w &= w - 1) {
+          action.act(base + (i << 6) + Long.numberOfTrailingZeros(w));
+        }
+      }
+    }
+
+    @Override
+    IntIterator iterator(final int base) {
+      return new IntIterator() {
+        private int i = 0;
+
+        private long w = words[0];
+
+        @Override
+        public boolean hasNext() {
+          while (w == 0 && i < WORDS - 1) {
+            w = words[++i];
+          }
+          return w != 0;
+        }
+
+        @Override
+        public int next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          int result = base + (i << 6) + Long.numberOfTrailingZeros(w);
+          w &= w - 1;
+          return result;
+        }
+      };
+    }
+  }
+
+  private static final class RunContainer extends Container {
+
+    private static final long serialVersionUID = 4925389128512730041L;
+
+    /**
+     * the first and last element of each run
+     */
+    private final char[] starts;
+
+    private final char[] ends;
+
+    private final int card;
+
+    private RunContainer(char[] starts, char[] ends) {
+      this.starts = starts;
+      this.ends = ends;
+      int n = 0;
+      for (int r = 0; r < starts.length; r++) {
+        n += ends[r] - starts[r] + 1;
+      }
+      this.card = n;
+    }
+
+    static RunContainer fromWords(long[] words, int runs) {
+      char[] starts = new char[runs];
+      char[] ends = new char[runs];
+      int r = 0;
+      int x = 0;
+      while (r < runs) {
+        x = nextSet(words, x);
+        starts[r] = (char) x;
+        x = nextClear(words, x);
+        ends[r++] = (char) (x - 1);
+      }
+      return new RunContainer(starts, ends);
+    }
+
+    private static int nextSet(long[] words, int from) {
+      int i = from >>> 6;
+      long w = words[i] & (-1L << from);
+      while (w == 0) {
+        w = words[++i];
+      }
+      return (i << 6) + Long.numberOfTrailingZeros(w);
+    }
+
+    private static int nextClear(long[] words, int from) {
+      int i = from >>> 6;
+      long w = ~words[i] & (-1L << from);
+      while (w == 0) {
+        if (++i == WORDS) {
+          return WORDS << 6;
+        }
+        w = ~words[i];
+      }
+      return (i << 6) + Long.numberOfTrailingZeros(w);
+    }
+
+    /**
+     * @return the index of the last run starting at or before x, or -1
+     */
+    private int runAtOrBefore(int x) {
+      int r = Arrays.binarySearch(starts, (char) x);
+      return r >= 0 ? r : -r - 2;
+    }
+
+    private Container toNonRun() {
+      long[] words = new long[WORDS];
+      orInto(words);
+      return card <= MAX_ARRAY ? ArrayContainer.fromWords(words, card) : new BitmapContainer(words, card);
+    }
+
+    @Override
+    int cardinality() {
+      return card;
+    }
+
+    @Override
+    boolean contains(int x) {
+      int r = runAtOrBefore(x);
+      return r >= 0 && x <= ends[r];
+    }
+
+    @Override
+    Container add(int x) {
+      return contains(x) ? this : toNonRun().add(x);
+    }
+
+    @Override
+    Container remove(int x) {
+      return contains(x) ? toNonRun().remove(x) : this;
+    }
+
+    @Override
+    Container or(Container c) {
+      if (c.isSubsetOf(this)) {
+        return this;
+      }
+      long[] words = new long[WORDS];
+      orInto(words);
+      c.orInto(words);
+      return bestContainer(words);
+    }
+
+    @Override
+    Container and(Container c) {
+      if (c instanceof ArrayContainer) {
+        return c.and(this);
+      }
+      long[] words = new long[WORDS];
+      orInto(words);
+      long[] other = new long[WORDS];
+      c.orInto(other);
+      int n = 0;
+      for (int i = 0; i < WORDS; i++) {
+        words[i] &= other[i];
+        n += Long.bitCount(words[i]);
+      }
+      return n == 0 ? new ArrayContainer(new char[0], 0) : bestContainer(words);
+    }
+
+    @Override
+    boolean intersects(Container c) {
+      for (int r = 0; r < starts.length; r++) {
+        if (c.intersectsRange(starts[r], ends[r])) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    boolean intersectsRange(int start, int end) {
+      int r = runAtOrBefore(end);
+      return r >= 0 && ends[r] >= start;
+    }
+
+    @Override
+    boolean containsRange(int start, int end) {
+      int r = runAtOrBefore(start);
+      return r >= 0 && ends[r] >= end;
+    }
+
+    @Override
+    boolean isSubsetOf(Container c) {
+      if (card > c.cardinality()) {
+        return false;
+      }
+      for (int r = 0; r < starts.length; r++) {
+        if (!c.containsRange(starts[r], ends[r])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    void orInto(long[] words) {
+      for (int r = 0; r < starts.length; r++) {
+        setRange(words, starts[r], ends[r]);
+      }
+    }
+
+    @Override
+    int last() {
+      return ends[ends.length - 1];
+    }
+
+    @Override
+    Container copy() {
+      // runs are never changed in place
+      return this;
+    }
+
+    @Override
+    Container runOptimize() {
+      return this;
+    }
+
+    @Override
+    void foreach(int base, IntSetAction action) {
+      for (int r = 0; r < starts.length; r++) {
+        for (int x = starts[r]; x <= ends[r]; x++) {
+          action.act(base + x);
+        }
+      }
+    }
+
+    @Override
+    IntIterator iterator(final int base) {
+      return new IntIterator() {
+        private int r = 0;
+
+        private int x = starts.length == 0 ? 0 : starts[0];
+
+        @Override
+        public boolean hasNext() {
+          return r < starts.length;
+        }
+
+        @Override
+        public int next() {
+          int result = base + x;
+          if (x == ends[r]) {
+            if (++r < starts.length) {
+              x = starts[r];
+            }
+          } else {
+            x++;
+          }
+          return result;
+        }
+      };
+    }
+  }
+}
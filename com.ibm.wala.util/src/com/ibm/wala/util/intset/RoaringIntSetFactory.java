@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.intset;
+
+import java.util.Arrays;
+
+/**
+ * Makes {@link RoaringIntSet}s. To use them for points-to sets, set the system property
+ * {@link IntSetUtil#INT_SET_FACTORY_CONFIG_PROPERTY_NAME} to the name of this class, or call
+ * {@link IntSetUtil#setDefaultIntSetFactory(MutableIntSetFactory)}.
+ */
+public class RoaringIntSetFactory implements MutableIntSetFactory<RoaringIntSet> {
+
+  /**
+   * @throws IllegalArgumentException if set is null
+   */
+  @Override
+  public RoaringIntSet make(int[] set) {
+    if (set == null) {
+      throw new IllegalArgumentException("set is null");
+    }
+    // adding in increasing order appends to the last container
+    int[] sorted = set.clone();
+    Arrays.sort(sorted);
+    RoaringIntSet result = new RoaringIntSet();
+    for (int i = 0; i < sorted.length; i++) {
+      result.add(sorted[i]);
+    }
+    return result;
+  }
+
+  @Override
+  public RoaringIntSet parse(String string) throws NumberFormatException {
+    return make(SparseIntSet.parseIntArray(string));
+  }
+
+  @Override
+  public RoaringIntSet makeCopy(IntSet x) {
+    RoaringIntSet y = new RoaringIntSet();
+    y.copySet(x);
+    return y;
+  }
+
+  @Override
+  public RoaringIntSet make() {
+    return new RoaringIntSet();
+  }
+}
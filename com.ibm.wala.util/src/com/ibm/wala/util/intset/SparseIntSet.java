@@ -173,9 +173,11 @@ public class SparseIntSet implements IntSet, Serializable {
       return that.sameValue(this);
     } else if (that instanceof MutableSharedBitVectorIntSet) {
       return sameValue(((MutableSharedBitVectorIntSet) that).makeSparseCopy());
+    } else if (that instanceof RoaringIntSet) {
+      return that.sameValue(this);
     } else {
-      Assertions.UNREACHABLE(that.getClass().toString());
-      return false;
+      // some other implementation, such as a read-only view; compare element by element
+      return size() == that.size() && isSubset(that);
     }
   }
 
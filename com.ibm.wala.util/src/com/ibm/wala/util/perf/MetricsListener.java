@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.perf;
+
+/**
+ * Receives measurements from an analysis as it runs, e.g., from the phases of call graph construction and from the fixed point
+ * solver. Implementations may be called from several threads, and should be cheap: {@link #statementEvaluated(Object)} is called
+ * once for each evaluation of a solver statement.
+ * 
+ * @see MetricsRecorder
+ */
+public interface MetricsListener {
+
+  /**
+   * A phase of the analysis started. Phases may nest, and a phase with the same name may run many times.
+   */
+  void phaseStarted(String phase);
+
+  /**
+   * A phase of the analysis finished.
+   * 
+   * @param elapsedNanos time spent in this run of the phase, in nanoseconds
+   */
+  void phaseFinished(String phase, long elapsedNanos);
+
+  /**
+   * A solver evaluated a statement.
+   * 
+   * @param operator the operator of the statement
+   */
+  void statementEvaluated(Object operator);
+
+  /**
+   * Sample of the size of a solver's worklist
+   * 
+   * @param evaluations the number of statements the solver has evaluated so far
+   * @param size the number of statements on the worklist
+   */
+  void worklistSize(long evaluations, int size);
+
+  /**
+   * A quantity took a value, e.g., a points-to set reached some size.
+   */
+  void valueObserved(String quantity, long value);
+}
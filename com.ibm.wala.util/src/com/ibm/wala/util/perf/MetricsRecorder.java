@@ -0,0 +1,255 @@
+/*******************************************************************************
+ * Copyright (c) 2002 - 2006 IBM Corporation.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package com.ibm.wala.util.perf;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.ibm.wala.util.collections.HashMapFactory;
+
+/**
+ * A {@link MetricsListener} that sums up what it receives: for each phase, how often it ran and how long it took; for each kind
+ * of solver operator, how many statements were evaluated; the size of the worklist over time; and for each quantity, how often it
+ * was observed and its peak value. The summary can be written as JSON.
+ * 
+ * Operators are distinguished by class. To bound its memory, the recorder keeps at most {@link #MAX_WORKLIST_SAMPLES} worklist
+ * samples, keeping every other one whenever it runs out of room.
+ */
+public class MetricsRecorder implements MetricsListener {
+
+  public final static int MAX_WORKLIST_SAMPLES = 4096;
+
+  private final static class Phase {
+    long count;
+
+    long totalNanos;
+
+    long maxNanos;
+  }
+
+  private final static class Quantity {
+    long count;
+
+    long max = Long.MIN_VALUE;
+
+    long total;
+  }
+
+  private final Map<String, Phase> phases = new LinkedHashMap<String, Phase>();
+
+  private final Map<Class<?>, long[]> evaluations = HashMapFactory.make();
+
+  private final Map<String, Quantity> quantities = new LinkedHashMap<String, Quantity>();
+
+  /**
+   * pairs of evaluation count and worklist size
+   */
+  private long[] worklist = new long[2 * MAX_WORKLIST_SAMPLES];
+
+  private int nSamples = 0;
+
+  /**
+   * keep every stride-th sample offered
+   */
+  private int stride = 1;
+
+  private long samplesOffered = 0;
+
+  @Override
+  public void phaseStarted(String phase) {
+  }
+
+  @Override
+  public synchronized void phaseFinished(String phase, long elapsedNanos) {
+    Phase p = phases.get(phase);
+    if (p == null) {
+      p = new Phase();
+      phases.put(phase, p);
+    }
+    p.count++;
+    p.totalNanos += elapsedNanos;
+    p.maxNanos = Math.max(p.maxNanos, elapsedNanos);
+  }
+
+  @Override
+  public synchronized void statementEvaluated(Object operator) {
+    Class<?> c = operator == null ? Object.class : operator.getClass();
+    long[] count = evaluations.get(c);
+    if (count == null) {
+      count = new long[1];
+      evaluations.put(c, count);
+    }
+    count[0]++;
+  }
+
+  @Override
+  public synchronized void worklistSize(long evaluations, int size) {
+    if (samplesOffered++ % stride != 0) {
+      return;
+    }
+    if (nSamples == MAX_WORKLIST_SAMPLES) {
+      for (int i = 0; i < nSamples / 2; i++) {
+        worklist[2 * i] = worklist[4 * i];
+        worklist[2 * i + 1] = worklist[4 * i + 1];
+      }
+      nSamples /= 2;
+      stride *= 2;
+    }
+    worklist[2 * nSamples] = evaluations;
+    worklist[2 * nSamples + 1] = size;
+    nSamples++;
+  }
+
+  @Override
+  public synchronized void valueObserved(String quantity, long value) {
+    Quantity q = quantities.get(quantity);
+    if (q == null) {
+      q = new Quantity();
+      quantities.put(quantity, q);
+    }
+    q.count++;
+    q.total += value;
+    q.max = Math.max(q.max, value);
+  }
+
+  /**
+   * @return total time spent in a phase, in nanoseconds, or 0 if it never finished
+   */
+  public synchronized long getTotalNanos(String phase) {
+    Phase p = phases.get(phase);
+    return p == null ? 0 : p.totalNanos;
+  }
+
+  /**
+   * @return number of times a phase finished
+   */
+  public synchronized long getCount(String phase) {
+    Phase p = phases.get(phase);
+    return p == null ? 0 : p.count;
+  }
+
+  /**
+   * @return number of statements evaluated, over all operators
+   */
+  public synchronized long getEvaluations() {
+    long result = 0;
+    for (long[] count : evaluations.values()) {
+      result += count[0];
+    }
+    return result;
+  }
+
+  /**
+   * @return the largest value observed for a quantity, or {@link Long#MIN_VALUE} if none was
+   */
+  public synchronized long getPeak(String quantity) {
+    Quantity q = quantities.get(quantity);
+    return q == null ? Long.MIN_VALUE : q.max;
+  }
+
+  /**
+   * @return the worklist samples kept, as pairs of evaluation count and worklist size
+   */
+  public synchronized long[][] getWorklistSamples() {
+    long[][] result = new long[nSamples][];
+    for (int i = 0; i < nSamples; i++) {
+      result[i] = Arrays.copyOfRange(worklist, 2 * i, 2 * i + 2);
+    }
+    return result;
+  }
+
+  /**
+   * Write what was recorded as a JSON object with the members "phases", "evaluations", "worklist" and "quantities". The evaluations
+   * are keyed by the fully qualified name of the operator class.
+   */
+  public synchronized void writeJSON(Writer w) throws IOException {
+    w.write("{\n  \"phases\": {");
+    String sep = "\n";
+    for (Map.Entry<String, Phase> e : phases.entrySet()) {
+      Phase p = e.getValue();
+      w.write(sep + "    " + quote(e.getKey()) + ": {\"count\": " + p.count + ", \"totalNanos\": " + p.totalNanos + ", \"maxNanos\": "
+          + p.maxNanos + "}");
+      sep = ",\n";
+    }
+    w.write("\n  },\n  \"evaluations\": {");
+    sep = "\n";
+    for (Map.Entry<Class<?>, long[]> e : evaluations.entrySet()) {
+      // the full name, since operator classes of different packages may share a simple name
+      w.write(sep + "    " + quote(e.getKey().getName()) + ": " + e.getValue()[0]);
+      sep = ",\n";
+    }
+    w.write("\n  },\n  \"worklist\": [");
+    sep = "";
+    for (int i = 0; i < nSamples; i++) {
+      w.write(sep + "[" + worklist[2 * i] + ", " + worklist[2 * i + 1] + "]");
+      sep = ", ";
+    }
+    w.write("],\n  \"quantities\": {");
+    sep = "\n";
+    for (Map.Entry<String, Quantity> e : quantities.entrySet()) {
+      Quantity q = e.getValue();
+      w.write(sep + "    " + quote(e.getKey()) + ": {\"count\": " + q.count + ", \"max\": " + q.max + ", \"total\": " + q.total + "}");
+      sep = ",\n";
+    }
+    w.write("\n  }\n}\n");
+  }
+
+  public String toJSON() {
+    StringWriter w = new StringWriter();
+    try {
+      writeJSON(w);
+    } catch (IOException e) {
+      // a StringWriter does not throw
+      throw new IllegalStateException(e);
+    }
+    return w.toString();
+  }
+
+  private static String quote(String s) {
+    StringBuilder result = new StringBuilder("\"");
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+      case '"':
+        result.append("\\\"");
+        break;
+      case '\\':
+        result.append("\\\\");
+        break;
+      case '\n':
+        result.append("\\n");
+        break;
+      case '\r':
+        result.append("\\r");
+        break;
+      case '\t':
+        result.append("\\t");
+        break;
+      default:
+        if (c < 0x20) {
+          result.append(String.format("\\u%04x", (int) c));
+        } else {
+          result.append(c);
+        }
+      }
+    }
+    return result.append('"').toString();
+  }
+
+  @Override
+  public String toString() {
+    return toJSON();
+  }
+}